@@ -205,6 +205,10 @@ union Frame {
 struct DeduplicatedScheduledTask {
   1: api.ScheduledTask partialScheduledTask
   2: i32 taskConfigId
+  // The task's events in a compact binary encoding, with messages and scheduler hosts replaced by
+  // indices into the DeduplicatedSnapshot's taskEventStrings list. When set, the taskEvents field
+  // of partialScheduledTask is unset.
+  3: optional binary encodedTaskEvents
 }
 
 // A Snapshot that has had duplicate TaskConfig structs removed to save space. The
@@ -219,6 +223,8 @@ struct DeduplicatedSnapshot {
    // Ordered list of taskConfigs. The taskConfigId field of DeduplicatedScheduledTask is an index
    // into this.
    3: list<api.TaskConfig> taskConfigs
+   // Ordered list of the distinct messages and scheduler hosts of encoded task events.
+   4: optional list<string> taskEventStrings
 }
 
 // A scheduler storage write-ahead log entry consisting of no-ops to skip over or else snapshots or
@@ -0,0 +1,150 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.common.net.http.handlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
+import org.apache.aurora.common.stats.Stat;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Helpers for streaming stats to a response as they are read, rather than building the whole
+ * response in memory.
+ */
+final class StatStream {
+
+  private StatStream() {
+    // Utility class.
+  }
+
+  /**
+   * Creates a filter of stat names.
+   * <p>
+   * The returned filter reuses a single matcher, and may only be used by one thread.
+   *
+   * @param prefix Prefix that names must start with, or {@code null} to accept any prefix.
+   * @param regex Regular expression that must match part of a name, or {@code null} to accept
+   *     any name.
+   * @return A filter of stat names.
+   * @throws WebApplicationException If the regular expression is invalid.
+   */
+  static Predicate<String> filter(@Nullable String prefix, @Nullable String regex) {
+    Predicate<String> filter = name -> prefix == null || name.startsWith(prefix);
+    if (regex == null) {
+      return filter;
+    }
+
+    Matcher matcher;
+    try {
+      matcher = Pattern.compile(regex).matcher("");
+    } catch (PatternSyntaxException e) {
+      throw new WebApplicationException(Response.status(Status.BAD_REQUEST)
+          .type(MediaType.TEXT_PLAIN)
+          .entity("Invalid regex: " + e.getDescription())
+          .build());
+    }
+    return filter.and(name -> matcher.reset(name).find());
+  }
+
+  /**
+   * Selects the stats whose names are accepted by a filter.
+   *
+   * @param stats Stats to select from.
+   * @param filter Filter of stat names.
+   * @return The accepted stats, in their original order.
+   */
+  static List<Stat<?>> select(Iterable<Stat<?>> stats, Predicate<String> filter) {
+    List<Stat<?>> selected = Lists.newArrayList();
+    for (Stat<?> stat : stats) {
+      if (filter.test(stat.getName())) {
+        selected.add(stat);
+      }
+    }
+    return selected;
+  }
+
+  static boolean isIntegral(Object value) {
+    return value instanceof Long
+        || value instanceof Integer
+        || value instanceof Short
+        || value instanceof Byte;
+  }
+
+  /**
+   * Writes the decimal form of a value without allocating.
+   *
+   * @param out Stream to write to.
+   * @param value Value to write.
+   * @param scratch Buffer of at least 20 bytes to format the value in.
+   * @throws IOException If the value could not be written.
+   */
+  static void writeLong(OutputStream out, long value, byte[] scratch) throws IOException {
+    if (value == Long.MIN_VALUE) {
+      out.write(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+      return;
+    }
+
+    long remaining = Math.abs(value);
+    int position = scratch.length;
+    do {
+      scratch[--position] = (byte) ('0' + remaining % 10);
+      remaining /= 10;
+    } while (remaining > 0);
+    if (value < 0) {
+      scratch[--position] = '-';
+    }
+    out.write(scratch, position, scratch.length - position);
+  }
+
+  /**
+   * The encoded form of stat names, cached for as long as the stats are reachable so that
+   * repeated scrapes do not encode the same names again.
+   */
+  static final class NameCache {
+    private final Cache<Stat<?>, byte[]> names = CacheBuilder.newBuilder().weakKeys().build();
+    private final Function<String, String> encoder;
+
+    NameCache(Function<String, String> encoder) {
+      this.encoder = requireNonNull(encoder);
+    }
+
+    byte[] get(Stat<?> stat) {
+      byte[] name = names.getIfPresent(stat);
+      if (name == null) {
+        name = encoder.apply(stat.getName()).getBytes(StandardCharsets.UTF_8);
+        names.put(stat, name);
+      }
+      return name;
+    }
+  }
+}
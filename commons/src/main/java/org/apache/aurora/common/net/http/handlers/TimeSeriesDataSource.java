@@ -41,7 +41,9 @@ import org.apache.aurora.common.stats.TimeSeries;
 import org.apache.aurora.common.stats.TimeSeriesRepository;
 
 /**
- * A servlet that provides time series data in JSON format.
+ * A servlet that provides time series data in JSON format. Downsampled data, which covers a longer
+ * period at a lower resolution, is returned when the {@code downsampled} parameter is
+ * {@code true}.
  */
 @Path("/graphdata/")
 public class TimeSeriesDataSource {
@@ -50,6 +52,7 @@ public class TimeSeriesDataSource {
 
   private static final String METRICS = "metrics";
   private static final String SINCE = "since";
+  private static final String DOWNSAMPLED = "downsampled";
 
   private final TimeSeriesRepository timeSeriesRepo;
   private final Gson gson = new Gson();
@@ -62,7 +65,8 @@ public class TimeSeriesDataSource {
   @VisibleForTesting
   String getResponse(
       @Nullable String metricsQuery,
-      @Nullable String sinceQuery) throws MetricException {
+      @Nullable String sinceQuery,
+      boolean downsampled) throws MetricException {
 
     if (metricsQuery == null) {
       // Return metric listing.
@@ -70,13 +74,17 @@ public class TimeSeriesDataSource {
     }
 
     List<Iterable<Number>> tsData = Lists.newArrayList();
-    tsData.add(timeSeriesRepo.getTimestamps());
+    tsData.add(downsampled
+        ? timeSeriesRepo.getDownsampledTimestamps()
+        : timeSeriesRepo.getTimestamps());
     // Ignore requests for "time" since it is implicitly returned.
     Iterable<String> names = Iterables.filter(
         Splitter.on(",").split(metricsQuery),
         Predicates.not(Predicates.equalTo(TIME_METRIC)));
     for (String metric : names) {
-      TimeSeries series = timeSeriesRepo.get(metric);
+      TimeSeries series = downsampled
+          ? timeSeriesRepo.getDownsampled(metric)
+          : timeSeriesRepo.get(metric);
       if (series == null) {
         JsonObject response = new JsonObject();
         response.addProperty("error", "Unknown metric " + metric);
@@ -99,9 +107,10 @@ public class TimeSeriesDataSource {
   @Produces(MediaType.APPLICATION_JSON)
   public String getData(
       @QueryParam(METRICS) String metrics,
-      @QueryParam(SINCE) String since) throws MetricException {
+      @QueryParam(SINCE) String since,
+      @QueryParam(DOWNSAMPLED) boolean downsampled) throws MetricException {
 
-    return getResponse(metrics, since);
+    return getResponse(metrics, since, downsampled);
   }
 
   @VisibleForTesting
@@ -13,35 +13,71 @@
  */
 package org.apache.aurora.common.net.http.handlers;
 
-import java.util.Collections;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
-import com.google.common.base.Function;
-import com.google.common.base.Joiner;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Supplier;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 
 import org.apache.aurora.common.stats.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * HTTP handler that prints all registered variables and their current values.
+ * HTTP handler that prints all registered variables and their current values, sorted by name.
+ * <p>
+ * Variables are written to the response as they are read. The optional URL parameters 'prefix'
+ * and 'regex' limit the output to variables whose names start with the prefix, and contain a
+ * match of the regular expression. If the URL parameter 'format' is 'prometheus', numeric
+ * variables are printed in the Prometheus text exposition format, with names sanitized to the
+ * characters Prometheus accepts. Since Prometheus rejects a scrape with duplicate series, a
+ * variable whose sanitized name matches that of a variable earlier in the output is skipped.
  *
  * @author William Farner
  */
 @Path("/vars")
+@Singleton
 public class VarsHandler {
+  private static final Logger LOG = LoggerFactory.getLogger(VarsHandler.class);
 
-  private static final Function<Stat, String> VAR_PRINTER = stat -> stat.getName() + " " + stat.read();
+  @VisibleForTesting
+  static final String PROMETHEUS_FORMAT = "prometheus";
+
+  @VisibleForTesting
+  static final MediaType PROMETHEUS_TYPE =
+      MediaType.valueOf("text/plain; version=0.0.4; charset=utf-8");
+
+  private static final Pattern NOT_PROMETHEUS_NAME_CHAR = Pattern.compile("[^a-zA-Z0-9_:]");
+  private static final Comparator<Stat<?>> BY_NAME = Comparator.comparing(Stat::getName);
 
   private final Supplier<Iterable<Stat<?>>> statSupplier;
+  private final StatStream.NameCache names = new StatStream.NameCache(name -> name + " ");
+  private final StatStream.NameCache prometheusNames =
+      new StatStream.NameCache(name -> prometheusName(name) + " ");
+  // Names of variables skipped for colliding with another variable, so each is only logged once.
+  private final Set<String> collisions = Sets.newConcurrentHashSet();
 
   /**
    * Creates a new handler that will report stats from the provided supplier.
@@ -53,11 +89,101 @@ public class VarsHandler {
     this.statSupplier = Preconditions.checkNotNull(statSupplier);
   }
 
+  private static String prometheusName(String name) {
+    String sanitized = NOT_PROMETHEUS_NAME_CHAR.matcher(name).replaceAll("_");
+    return sanitized.isEmpty() || Character.isDigit(sanitized.charAt(0))
+        ? "_" + sanitized
+        : sanitized;
+  }
+
   @GET
   @Produces(MediaType.TEXT_PLAIN)
-  public String getVars() {
-    List<String> lines = Lists.newArrayList(Iterables.transform(statSupplier.get(), VAR_PRINTER));
-    Collections.sort(lines);
-    return Joiner.on("\n").join(lines);
+  public Response getVars(
+      @QueryParam("prefix") String prefix,
+      @QueryParam("regex") String regex,
+      @QueryParam("format") String format) {
+
+    Predicate<String> filter = StatStream.filter(prefix, regex);
+    if (format == null) {
+      return Response.ok((StreamingOutput) output -> write(output, filter), MediaType.TEXT_PLAIN)
+          .build();
+    } else if (PROMETHEUS_FORMAT.equals(format)) {
+      return Response.ok(
+          (StreamingOutput) output -> writePrometheus(output, filter),
+          PROMETHEUS_TYPE).build();
+    } else {
+      throw new WebApplicationException(Response.status(Status.BAD_REQUEST)
+          .type(MediaType.TEXT_PLAIN)
+          .entity("Unknown format: " + format)
+          .build());
+    }
+  }
+
+  private List<Stat<?>> sortedStats(Predicate<String> filter) {
+    List<Stat<?>> stats = StatStream.select(statSupplier.get(), filter);
+    stats.sort(BY_NAME);
+    return stats;
+  }
+
+  private void write(OutputStream output, Predicate<String> filter) throws IOException {
+    OutputStream out = new BufferedOutputStream(output);
+    byte[] scratch = new byte[20];
+    boolean first = true;
+    for (Stat<?> stat : sortedStats(filter)) {
+      if (!first) {
+        out.write('\n');
+      }
+      first = false;
+
+      out.write(names.get(stat));
+      Object value = stat.read();
+      if (StatStream.isIntegral(value)) {
+        StatStream.writeLong(out, ((Number) value).longValue(), scratch);
+      } else {
+        out.write(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    out.flush();
+  }
+
+  private void writePrometheus(OutputStream output, Predicate<String> filter) throws IOException {
+    OutputStream out = new BufferedOutputStream(output);
+    byte[] scratch = new byte[20];
+    Set<ByteBuffer> written = Sets.newHashSet();
+    for (Stat<?> stat : sortedStats(filter)) {
+      Object value = stat.read();
+      if (!(value instanceof Number)) {
+        continue;
+      }
+
+      byte[] name = prometheusNames.get(stat);
+      if (!written.add(ByteBuffer.wrap(name))) {
+        if (collisions.add(stat.getName())) {
+          LOG.warn("Skipping variable {} in Prometheus output, as its name collides with another "
+              + "variable.", stat.getName());
+        }
+        continue;
+      }
+
+      out.write(name);
+      if (StatStream.isIntegral(value)) {
+        StatStream.writeLong(out, ((Number) value).longValue(), scratch);
+      } else {
+        out.write(prometheusValue(((Number) value).doubleValue())
+            .getBytes(StandardCharsets.US_ASCII));
+      }
+      out.write('\n');
+    }
+    out.flush();
+  }
+
+  private static String prometheusValue(double value) {
+    if (Double.isNaN(value)) {
+      return "NaN";
+    } else if (Double.isInfinite(value)) {
+      return value > 0 ? "+Inf" : "-Inf";
+    } else {
+      return Double.toString(value);
+    }
   }
 }
@@ -13,21 +13,25 @@
  */
 package org.apache.aurora.common.net.http.handlers;
 
-import java.util.Map;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Supplier;
-import com.google.common.collect.Maps;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 
 import org.apache.aurora.common.stats.Stat;
 
@@ -42,14 +46,23 @@ import org.apache.aurora.common.stats.Stat;
  *   }
  * </pre>
  * If the optional URL parameter 'pretty' is used, the output will be pretty-printed
- * (similar to the above example).
+ * (similar to the above example). The optional URL parameters 'prefix' and 'regex' limit the
+ * output to variables whose names start with the prefix, and contain a match of the regular
+ * expression.
+ * <p>
+ * Variables are written to the response as they are read. Floating point values that are not
+ * finite are written as {@code null}.
  *
  * TODO(wfarner): Handle this request in VarsHandler.
  */
 @Path("/vars.json")
+@Singleton
 public class VarsJsonHandler {
 
+  private static final Gson GSON = new Gson();
+
   private final Supplier<Iterable<Stat<?>>> statSupplier;
+  private final StatStream.NameCache names = new StatStream.NameCache(GSON::toJson);
 
   /**
    * Creates a new handler that will report stats from the provided supplier.
@@ -61,23 +74,50 @@ public class VarsJsonHandler {
     this.statSupplier = Preconditions.checkNotNull(statSupplier);
   }
 
-  @VisibleForTesting
-  String getBody(boolean pretty) {
-    Map<String, Object> vars = Maps.newLinkedHashMap();
-    for (Stat<?> var : statSupplier.get()) {
-      vars.put(var.getName(), var.read());
+  private void write(OutputStream output, boolean pretty, Predicate<String> filter)
+      throws IOException {
+
+    OutputStream out = new BufferedOutputStream(output);
+    byte[] separator = (pretty ? ",\n  " : ",").getBytes(StandardCharsets.US_ASCII);
+    byte[] keySeparator = (pretty ? ": " : ":").getBytes(StandardCharsets.US_ASCII);
+    byte[] scratch = new byte[20];
+
+    boolean first = true;
+    out.write('{');
+    for (Stat<?> stat : StatStream.select(statSupplier.get(), filter)) {
+      if (first && pretty) {
+        out.write("\n  ".getBytes(StandardCharsets.US_ASCII));
+      } else if (!first) {
+        out.write(separator);
+      }
+      first = false;
+
+      out.write(names.get(stat));
+      out.write(keySeparator);
+      Object value = stat.read();
+      if (StatStream.isIntegral(value)) {
+        StatStream.writeLong(out, ((Number) value).longValue(), scratch);
+      } else if (value instanceof Number && !Double.isFinite(((Number) value).doubleValue())) {
+        out.write("null".getBytes(StandardCharsets.US_ASCII));
+      } else {
+        out.write(GSON.toJson(value).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    if (!first && pretty) {
+      out.write('\n');
     }
-    // TODO(wfarner): Let the jax-rs provider handle serialization.
-    return getGson(pretty).toJson(vars);
+    out.write('}');
+    out.flush();
   }
 
   @GET
   @Produces(MediaType.APPLICATION_JSON)
-  public String getVars(@QueryParam("pretty") boolean pretty) {
-    return getBody(pretty);
-  }
+  public Response getVars(
+      @QueryParam("pretty") boolean pretty,
+      @QueryParam("prefix") String prefix,
+      @QueryParam("regex") String regex) {
 
-  private Gson getGson(boolean pretty) {
-    return pretty ? new GsonBuilder().setPrettyPrinting().create() : new Gson();
+    Predicate<String> filter = StatStream.filter(prefix, regex);
+    return Response.ok((StreamingOutput) output -> write(output, pretty, filter)).build();
   }
 }
@@ -0,0 +1,235 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.common.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.util.Clock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A lock-free recorder of non-negative values that reports percentiles over fixed time windows.
+ * <p>
+ * Values are counted in log-linear buckets, in the style of an HDR histogram: values below
+ * {@code 2^SUB_BUCKET_BITS} are exact, and larger values are counted with a relative error of at
+ * most {@code 2^-(SUB_BUCKET_BITS - 1)}. Recording threads are spread over striped bucket arrays
+ * so that concurrent recorders rarely touch the same counters, and recording never blocks or
+ * allocates once a stripe exists.
+ * <p>
+ * Percentiles are computed from the values recorded during the most recently completed window.
+ * The stripes are merged into a window snapshot by the first read after the window elapses, so
+ * all percentiles read within a window are consistent with each other.
+ */
+public class Histogram {
+
+  /**
+   * Percentiles exported by {@link StatsProvider#makeHistogram(String)}.
+   */
+  public static final double[] EXPORTED_PERCENTILES = {50, 90, 99, 99.9};
+
+  /**
+   * Window used by histograms created through {@link StatsProvider#makeHistogram(String)}.
+   */
+  public static final Amount<Long, Time> DEFAULT_WINDOW = Amount.of(1L, Time.MINUTES);
+
+  @VisibleForTesting
+  static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+  // Every power of two above SUB_BUCKET_COUNT adds a range of HALF_SUB_BUCKET_COUNT buckets.
+  private static final int BUCKET_COUNT =
+      SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+  private static final int MAX_STRIPES = 16;
+
+  private final AtomicReferenceArray<AtomicLongArray> stripes;
+  private final int stripeMask;
+  private final long windowMillis;
+  private final Clock clock;
+
+  // Cumulative bucket totals as of the last roll, only accessed while holding the monitor.
+  private final long[] lastSeen = new long[BUCKET_COUNT];
+  private volatile long windowStart;
+  private volatile Snapshot snapshot = new Snapshot(new long[BUCKET_COUNT], 0);
+
+  /**
+   * Creates a histogram that reports percentiles over windows of the given length.
+   *
+   * @param windowLength Length of the reporting window.
+   * @param clock Clock to measure windows with.
+   */
+  public Histogram(Amount<Long, Time> windowLength, Clock clock) {
+    Preconditions.checkArgument(windowLength.getValue() > 0, "Window must be positive.");
+    this.windowMillis = windowLength.as(Time.MILLISECONDS);
+    this.clock = requireNonNull(clock);
+    this.windowStart = clock.nowMillis();
+
+    int numStripes = Math.min(
+        MAX_STRIPES,
+        Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+    this.stripes = new AtomicReferenceArray<>(numStripes);
+    this.stripeMask = numStripes - 1;
+  }
+
+  /**
+   * Gets the name under which a percentile of a histogram is exported.
+   *
+   * @param name Histogram name.
+   * @param percentile Exported percentile.
+   * @return Stat name, for example {@code name_p99} or {@code name_p999}.
+   */
+  public static String statName(String name, double percentile) {
+    String digits = Double.toString(percentile).replace(".", "");
+    // Drop the trailing zero of integral percentiles, so that 50.0 is exported as p50.
+    if (percentile == Math.rint(percentile)) {
+      digits = digits.substring(0, digits.length() - 1);
+    }
+    return name + "_p" + digits;
+  }
+
+  @VisibleForTesting
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return SUB_BUCKET_COUNT
+        + (shift - 1) * HALF_SUB_BUCKET_COUNT
+        + (int) (value >>> shift) - HALF_SUB_BUCKET_COUNT;
+  }
+
+  @VisibleForTesting
+  static long bucketLowerBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int offset = index - SUB_BUCKET_COUNT;
+    int shift = offset / HALF_SUB_BUCKET_COUNT + 1;
+    return (long) (offset % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT) << shift;
+  }
+
+  @VisibleForTesting
+  static long bucketMidpoint(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+    return bucketLowerBound(index) + (1L << (shift - 1));
+  }
+
+  private AtomicLongArray stripe() {
+    int index = (int) Thread.currentThread().getId() & stripeMask;
+    AtomicLongArray stripe = stripes.get(index);
+    if (stripe == null) {
+      stripes.compareAndSet(index, null, new AtomicLongArray(BUCKET_COUNT));
+      stripe = stripes.get(index);
+    }
+    return stripe;
+  }
+
+  /**
+   * Records a value. Negative values are recorded as zero.
+   *
+   * @param value Value to record.
+   */
+  public void record(long value) {
+    stripe().incrementAndGet(bucketIndex(Math.max(0L, value)));
+  }
+
+  /**
+   * Gets a percentile of the values recorded in the last completed window.
+   *
+   * @param percentile Percentile to compute, in the range [0, 100].
+   * @return Approximate value at the percentile, or zero if no values were recorded.
+   */
+  public long getPercentile(double percentile) {
+    return currentSnapshot().getPercentile(percentile);
+  }
+
+  /**
+   * Gets the number of values recorded in the last completed window.
+   *
+   * @return Number of values.
+   */
+  public long getCount() {
+    return currentSnapshot().count;
+  }
+
+  private Snapshot currentSnapshot() {
+    if (clock.nowMillis() - windowStart >= windowMillis) {
+      roll();
+    }
+    return snapshot;
+  }
+
+  private synchronized void roll() {
+    long now = clock.nowMillis();
+    if (now - windowStart < windowMillis) {
+      // Another reader rolled the window first.
+      return;
+    }
+    windowStart = now;
+
+    // Counters are never reset, which would race with recorders. Instead, the window is the
+    // difference from the counts seen when the previous window was rolled.
+    long[] totals = new long[BUCKET_COUNT];
+    for (int s = 0; s < stripes.length(); s++) {
+      AtomicLongArray stripe = stripes.get(s);
+      if (stripe != null) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+          totals[i] += stripe.get(i);
+        }
+      }
+    }
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      long total = totals[i];
+      totals[i] = total - lastSeen[i];
+      count += totals[i];
+      lastSeen[i] = total;
+    }
+    snapshot = new Snapshot(totals, count);
+  }
+
+  private static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+
+    Snapshot(long[] counts, long count) {
+      this.counts = counts;
+      this.count = count;
+    }
+
+    long getPercentile(double percentile) {
+      if (count == 0) {
+        return 0L;
+      }
+      long rank = Math.max(1L, (long) Math.ceil(count * Math.min(100d, percentile) / 100));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return bucketMidpoint(i);
+        }
+      }
+      throw new IllegalStateException("Bucket counts do not add up to " + count);
+    }
+  }
+}
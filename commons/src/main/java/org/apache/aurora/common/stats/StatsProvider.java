@@ -17,6 +17,8 @@ import java.util.Collection;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
+import org.apache.aurora.common.util.Clock;
+
 /**
  * A minimal interface to a Stats repository.
  *
@@ -52,6 +54,24 @@ public interface StatsProvider {
     makeGauge(name, (Supplier<Number>) collection::size);
   }
 
+  /**
+   * Creates a histogram and exports its {@link Histogram#EXPORTED_PERCENTILES percentiles} over
+   * the {@link Histogram#DEFAULT_WINDOW default window}, named as by
+   * {@link Histogram#statName(String, double)}.
+   *
+   * @param name Name prefix of the exported percentile stats.
+   * @return A reference to the histogram that values should be recorded in.
+   */
+  default Histogram makeHistogram(String name) {
+    Histogram histogram = new Histogram(Histogram.DEFAULT_WINDOW, Clock.SYSTEM_CLOCK);
+    for (double percentile : Histogram.EXPORTED_PERCENTILES) {
+      makeGauge(
+          Histogram.statName(name, percentile),
+          (Supplier<Long>) () -> histogram.getPercentile(percentile));
+    }
+    return histogram;
+  }
+
   /**
    * Gets a stats provider that does not track stats in an internal time series repository.
    * The stored variables will only be available as instantaneous values.
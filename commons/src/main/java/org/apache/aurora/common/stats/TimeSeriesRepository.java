@@ -44,4 +44,20 @@ public interface TimeSeriesRepository {
    * @return All current timestamps.
    */
   Iterable<Number> getTimestamps();
+
+  /**
+   * Fetches a time series by name, with samples taken at a lower rate and retained for longer.
+   *
+   * @param name The name of the time series to fetch.
+   * @return The downsampled time series registered with the given name, or {@code null} if no such
+   *     time series has been registered or samples are not downsampled.
+   */
+  TimeSeries getDownsampled(String name);
+
+  /**
+   * Gets an ordered iterable of the timestamps that all downsampled time series were sampled at.
+   *
+   * @return All current downsampled timestamps.
+   */
+  Iterable<Number> getDownsampledTimestamps();
 }
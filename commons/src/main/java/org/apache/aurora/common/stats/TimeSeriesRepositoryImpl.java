@@ -13,18 +13,20 @@
  */
 package org.apache.aurora.common.stats;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.IntFunction;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.collect.EvictingQueue;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.primitives.Longs;
 import com.google.common.util.concurrent.AbstractScheduledService;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -42,6 +44,17 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * A simple in-memory repository for exported variables.
+ * <p>
+ * Samples are stored in a columnar layout. Each tier of retention holds a ring of sample
+ * timestamps, and every time series holds a column of primitive values per tier, indexed by the
+ * same ring slots. Integral samples are stored as longs and floating point samples as the bits of
+ * doubles, so retaining a sample does not allocate.
+ * <p>
+ * Only the sampler writes to the rings. Readers copy samples without locking, and discard any
+ * samples that the sampler overwrote while they were being copied.
+ * <p>
+ * When a downsampled retention period is configured, a second tier retains the samples taken at
+ * the downsampled period for longer.
  *
  * @author John Sirois
  */
@@ -62,22 +75,61 @@ public class TimeSeriesRepositoryImpl
   public static final String SAMPLE_RETENTION_PERIOD =
       "com.twitter.common.stats.TimeSeriesRepositoryImpl.SAMPLE_RETENTION_PERIOD";
 
+  /**
+   * {@literal @Named} binding key for the sampling period of downsampled samples.
+   */
+  public static final String DOWNSAMPLED_PERIOD =
+      "com.twitter.common.stats.TimeSeriesRepositoryImpl.DOWNSAMPLED_PERIOD";
+
+  /**
+   * {@literal @Named} binding key for the retention period of downsampled samples. A zero period
+   * disables downsampling.
+   */
+  public static final String DOWNSAMPLED_RETENTION_PERIOD =
+      "com.twitter.common.stats.TimeSeriesRepositoryImpl.DOWNSAMPLED_RETENTION_PERIOD";
+
   private final SlidingStats scrapeDuration = new SlidingStats("variable_scrape", "micros");
 
-  // We store TimeSeriesImpl, which allows us to add samples.
-  private final LoadingCache<String, TimeSeriesImpl> timeSeries;
-  private final EvictingQueue<Number> timestamps;
+  private final Map<String, Series> timeSeries = new ConcurrentHashMap<>();
+  // The full rate tier, followed by the downsampled tier if downsampling is enabled.
+  private final List<Tier> tiers;
+  // Written only by the sampler.
+  private long sampleCount;
 
   private final StatRegistry statRegistry;
   private final Amount<Long, Time> samplePeriod;
-  private final int retainedSampleLimit;
   private final BuildInfo buildInfo;
 
+  /**
+   * Creates a repository that does not downsample.
+   *
+   * @param statRegistry Registry of the stats to sample.
+   * @param samplePeriod Sampling period.
+   * @param retentionPeriod Period to retain samples for.
+   * @param buildInfo Build information to export.
+   */
+  public TimeSeriesRepositoryImpl(
+      StatRegistry statRegistry,
+      Amount<Long, Time> samplePeriod,
+      Amount<Long, Time> retentionPeriod,
+      BuildInfo buildInfo) {
+
+    this(
+        statRegistry,
+        samplePeriod,
+        retentionPeriod,
+        samplePeriod,
+        Amount.of(0L, Time.SECONDS),
+        buildInfo);
+  }
+
   @Inject
   public TimeSeriesRepositoryImpl(
       StatRegistry statRegistry,
       @Named(SAMPLE_PERIOD) Amount<Long, Time> samplePeriod,
       @Named(SAMPLE_RETENTION_PERIOD) final Amount<Long, Time> retentionPeriod,
+      @Named(DOWNSAMPLED_PERIOD) Amount<Long, Time> downsampledPeriod,
+      @Named(DOWNSAMPLED_RETENTION_PERIOD) Amount<Long, Time> downsampledRetentionPeriod,
       BuildInfo buildInfo) {
     this.statRegistry = checkNotNull(statRegistry);
     this.samplePeriod = checkNotNull(samplePeriod);
@@ -87,28 +139,26 @@ public class TimeSeriesRepositoryImpl
     Preconditions.checkArgument(retentionPeriod.getValue() > 0,
         "Sample retention period must be positive.");
 
-    retainedSampleLimit = (int) (retentionPeriod.as(Time.SECONDS) / samplePeriod.as(Time.SECONDS));
+    int retainedSampleLimit =
+        (int) (retentionPeriod.as(Time.SECONDS) / samplePeriod.as(Time.SECONDS));
     Preconditions.checkArgument(retainedSampleLimit > 0,
         "Sample retention period must be greater than sample period.");
 
-    timeSeries = CacheBuilder.newBuilder().build(
-        new CacheLoader<String, TimeSeriesImpl>() {
-          @Override public TimeSeriesImpl load(final String name) {
-            TimeSeriesImpl timeSeries = new TimeSeriesImpl(name);
-
-            // Backfill so we have data for pre-accumulated timestamps.
-            int numTimestamps = timestamps.size();
-            if (numTimestamps != 0) {
-              for (int i = 1; i < numTimestamps; i++) {
-                timeSeries.addSample(0L);
-              }
-            }
-
-            return timeSeries;
-          }
-        });
-
-    timestamps = EvictingQueue.create(retainedSampleLimit);
+    ImmutableList.Builder<Tier> tiersBuilder = ImmutableList.builder();
+    tiersBuilder.add(new Tier(1, retainedSampleLimit));
+    if (downsampledRetentionPeriod.getValue() > 0) {
+      long samplePeriodMs = samplePeriod.as(Time.MILLISECONDS);
+      long downsampledPeriodMs = downsampledPeriod.as(Time.MILLISECONDS);
+      Preconditions.checkArgument(
+          downsampledPeriodMs >= samplePeriodMs && downsampledPeriodMs % samplePeriodMs == 0,
+          "Downsampled period must be a multiple of the sample period.");
+      int downsampledLimit =
+          (int) (downsampledRetentionPeriod.as(Time.MILLISECONDS) / downsampledPeriodMs);
+      Preconditions.checkArgument(downsampledLimit > 0,
+          "Downsampled retention period must be greater than downsampled period.");
+      tiersBuilder.add(new Tier((int) (downsampledPeriodMs / samplePeriodMs), downsampledLimit));
+    }
+    tiers = tiersBuilder.build();
   }
 
   private final ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(
@@ -168,53 +218,217 @@ public class TimeSeriesRepositoryImpl
     LOG.info("Variable sampler shut down");
   }
 
+  /**
+   * Takes a sample of every registered stat.
+   *
+   * @param clock Clock to timestamp the samples with.
+   */
   @VisibleForTesting
-  synchronized void runSampler(Clock clock) {
-    timestamps.add(clock.nowMillis());
-
+  public synchronized void runSampler(Clock clock) {
+    long sample = sampleCount++;
     long startNanos = clock.nowNanos();
     for (RecordingStat<? extends Number> var : statRegistry.getStats()) {
-      timeSeries.getUnchecked(var.getName()).addSample(var.sample());
+      Series series = timeSeries.get(var.getName());
+      if (series == null) {
+        series = new Series();
+        timeSeries.put(var.getName(), series);
+      }
+      series.record(sample, var.sample());
+    }
+
+    // A stat that is no longer registered records zeros, so that its column stays aligned with
+    // the timestamps.
+    for (Series series : timeSeries.values()) {
+      if (series.lastSample != sample) {
+        series.record(sample, 0L);
+      }
+    }
+
+    long nowMillis = clock.nowMillis();
+    for (Tier tier : tiers) {
+      if (tier.includes(sample)) {
+        tier.publish(nowMillis);
+      }
     }
     scrapeDuration.accumulate(
         Amount.of(clock.nowNanos() - startNanos, Time.NANOSECONDS).as(Time.MICROSECONDS));
   }
 
   @Override
-  public synchronized Set<String> getAvailableSeries() {
-    return ImmutableSet.copyOf(timeSeries.asMap().keySet());
+  public Set<String> getAvailableSeries() {
+    return ImmutableSet.copyOf(timeSeries.keySet());
   }
 
   @Override
-  public synchronized TimeSeries get(String name) {
-    if (!timeSeries.asMap().containsKey(name)) return null;
-    return timeSeries.getUnchecked(name);
+  public TimeSeries get(String name) {
+    return view(name, 0);
   }
 
   @Override
-  public synchronized Iterable<Number> getTimestamps() {
-    return Iterables.unmodifiableIterable(timestamps);
+  public Iterable<Number> getTimestamps() {
+    return tiers.get(0).readTimestamps();
   }
 
-  private class TimeSeriesImpl implements TimeSeries {
-    private final String name;
-    private final EvictingQueue<Number> samples;
+  @Override
+  public TimeSeries getDownsampled(String name) {
+    return tiers.size() > 1 ? view(name, 1) : null;
+  }
+
+  @Override
+  public Iterable<Number> getDownsampledTimestamps() {
+    return tiers.size() > 1 ? tiers.get(1).readTimestamps() : ImmutableList.of();
+  }
 
-    TimeSeriesImpl(String name) {
-      this.name = name;
-      samples = EvictingQueue.create(retainedSampleLimit);
+  private TimeSeries view(String name, int tierIndex) {
+    Series series = timeSeries.get(name);
+    if (series == null) {
+      return null;
     }
 
-    @Override public String getName() {
-      return name;
+    Tier tier = tiers.get(tierIndex);
+    Column column = series.columns[tierIndex];
+    return new TimeSeries() {
+      @Override public String getName() {
+        return name;
+      }
+
+      @Override public Iterable<Number> getSamples() {
+        return tier.read(column);
+      }
+    };
+  }
+
+  private static boolean isFloatingPoint(Number value) {
+    return value instanceof Double || value instanceof Float;
+  }
+
+  /**
+   * Samples retained at one sampling rate. Slots are reused in a ring, with one more slot than
+   * the number of retained samples so that the slot being written is never read.
+   */
+  private static final class Tier {
+    // Every sample whose sequence number is a multiple of this is retained by the tier.
+    final int samplesPerSlot;
+    final int retained;
+    final int slots;
+    final long[] timestamps;
+    // Number of samples written, incremented by the sampler once a sample is complete.
+    volatile long written;
+
+    Tier(int samplesPerSlot, int retained) {
+      this.samplesPerSlot = samplesPerSlot;
+      this.retained = retained;
+      this.slots = retained + 1;
+      this.timestamps = new long[slots];
+    }
+
+    boolean includes(long sample) {
+      return sample % samplesPerSlot == 0;
+    }
+
+    int nextSlot() {
+      return (int) (written % slots);
+    }
+
+    void publish(long timestamp) {
+      timestamps[nextSlot()] = timestamp;
+      written++;
+    }
+
+    List<Number> readTimestamps() {
+      long end = written;
+      return copy(end, slot -> timestamps[slot]);
+    }
+
+    List<Number> read(Column column) {
+      long end = written;
+      // Read after the sample count, so that the values hold every sample counted.
+      Column.Values values = column.values;
+      return copy(end, values::get);
+    }
+
+    private List<Number> copy(long end, IntFunction<Number> read) {
+      long start = Math.max(0, end - retained);
+      List<Number> samples = Lists.newArrayListWithCapacity((int) (end - start));
+      for (long i = start; i < end; i++) {
+        samples.add(read.apply((int) (i % slots)));
+      }
+
+      // Samples before this may have been overwritten while they were copied.
+      long valid = Math.max(start, written - retained);
+      return Collections.unmodifiableList(
+          samples.subList((int) Math.min(valid - start, samples.size()), samples.size()));
     }
+  }
+
+  /**
+   * The values of a time series in one tier.
+   */
+  private static final class Column {
+    /**
+     * Values and their encoding, which are replaced together when a series first records a
+     * floating point sample.
+     */
+    static final class Values {
+      final long[] bits;
+      final boolean floatingPoint;
+
+      Values(long[] bits, boolean floatingPoint) {
+        this.bits = bits;
+        this.floatingPoint = floatingPoint;
+      }
 
-    void addSample(Number value) {
-      samples.add(value);
+      Number get(int slot) {
+        if (floatingPoint) {
+          return Double.longBitsToDouble(bits[slot]);
+        }
+        return bits[slot];
+      }
     }
 
-    @Override public Iterable<Number> getSamples() {
-      return Iterables.unmodifiableIterable(samples);
+    volatile Values values;
+
+    Column(int slots) {
+      values = new Values(new long[slots], false);
+    }
+
+    void set(int slot, Number value) {
+      Values current = values;
+      if (!current.floatingPoint && isFloatingPoint(value)) {
+        long[] converted = new long[current.bits.length];
+        for (int i = 0; i < converted.length; i++) {
+          converted[i] = Double.doubleToRawLongBits(current.bits[i]);
+        }
+        current = new Values(converted, true);
+        values = current;
+      }
+
+      current.bits[slot] = current.floatingPoint
+          ? Double.doubleToRawLongBits(value.doubleValue())
+          : value.longValue();
+    }
+  }
+
+  private final class Series {
+    final Column[] columns;
+    // The last sample recorded, written only by the sampler.
+    long lastSample = -1;
+
+    Series() {
+      columns = new Column[tiers.size()];
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = new Column(tiers.get(i).slots);
+      }
+    }
+
+    void record(long sample, Number value) {
+      lastSample = sample;
+      for (int i = 0; i < columns.length; i++) {
+        Tier tier = tiers.get(i);
+        if (tier.includes(sample)) {
+          columns[i].set(tier.nextSlot(), value);
+        }
+      }
     }
   }
 }
@@ -15,6 +15,7 @@ package org.apache.aurora.common.net.http.handlers;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.Lists;
@@ -38,11 +39,17 @@ public abstract class StatSupplierTestBase extends EasyMockTest {
   }
 
   protected void expectVarScrape(Map<String, Object> response) {
+    expectVarScrape(response, name -> true);
+  }
+
+  protected void expectVarScrape(Map<String, Object> response, Predicate<String> read) {
     List<Stat<?>> vars = Lists.newArrayList();
     for (Map.Entry<String, Object> entry : response.entrySet()) {
       Stat stat = createMock(Stat.class);
-      expect(stat.getName()).andReturn(entry.getKey());
-      expect(stat.read()).andReturn(entry.getValue());
+      expect(stat.getName()).andReturn(entry.getKey()).anyTimes();
+      if (read.test(entry.getKey())) {
+        expect(stat.read()).andReturn(entry.getValue());
+      }
       vars.add(stat);
     }
 
@@ -66,7 +66,7 @@ public class TimeSeriesDataSourceTest extends EasyMockTest {
     control.replay();
 
     List<String> columns = gson.fromJson(
-        dataSource.getResponse(null, null),
+        dataSource.getResponse(null, null, false),
         new TypeToken<List<String>>() { }.getType());
     assertEquals(ImmutableList.copyOf(TS_DATA.keySet()), columns);
   }
@@ -84,7 +84,7 @@ public class TimeSeriesDataSourceTest extends EasyMockTest {
         Arrays.asList(TIME_SERIES_1, TIME_SERIES_2, TIME_COLUMN));
 
     TimeSeriesDataSource.ResponseStruct response = gson.fromJson(
-        dataSource.getResponse(colString, null),
+        dataSource.getResponse(colString, null, false),
         TimeSeriesDataSource.ResponseStruct.class);
 
     assertEquals(ImmutableList.of(TIME_COLUMN, TIME_SERIES_1, TIME_SERIES_2), response.names);
@@ -106,7 +106,7 @@ public class TimeSeriesDataSourceTest extends EasyMockTest {
         Arrays.asList(TIME_SERIES_1, TIME_SERIES_2, TIME_COLUMN));
 
     TimeSeriesDataSource.ResponseStruct response = gson.fromJson(
-        dataSource.getResponse(colString, "2"),
+        dataSource.getResponse(colString, "2", false),
         TimeSeriesDataSource.ResponseStruct.class);
 
     Iterable<List<Number>> expectedData = Iterables2.zip(0,
@@ -116,6 +116,24 @@ public class TimeSeriesDataSourceTest extends EasyMockTest {
     checkRows(expectedData, response.data);
   }
 
+  @Test
+  @SuppressWarnings("unchecked") // Needed because type information lost in vargs.
+  public void testGetDownsampledData() throws Exception {
+    expect(timeSeriesRepo.getDownsampledTimestamps()).andReturn(TIMESTAMPS);
+    expect(timeSeriesRepo.getDownsampled(TIME_SERIES_1)).andReturn(TS_DATA.get(TIME_SERIES_1));
+
+    control.replay();
+
+    TimeSeriesDataSource.ResponseStruct response = gson.fromJson(
+        dataSource.getResponse(TIME_SERIES_1, null, true),
+        TimeSeriesDataSource.ResponseStruct.class);
+
+    assertEquals(ImmutableList.of(TIME_COLUMN, TIME_SERIES_1), response.names);
+    Iterable<List<Number>> expectedData = Iterables2.zip(0,
+        TIMESTAMPS, getSamples(TIME_SERIES_1));
+    checkRows(expectedData, response.data);
+  }
+
   private void checkRows(Iterable<List<Number>> expected, List<List<Number>> actual) {
     assertEquals(Iterables.size(expected), actual.size());
     Iterator<List<Number>> actualIterator = actual.iterator();
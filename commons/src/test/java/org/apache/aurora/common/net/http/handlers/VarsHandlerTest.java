@@ -13,11 +13,16 @@
  */
 package org.apache.aurora.common.net.http.handlers;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
@@ -27,24 +32,20 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
-/**
- * @author William Farner
- */
 public class VarsHandlerTest extends StatSupplierTestBase {
 
   private VarsHandler vars;
-  private HttpServletRequest request;
 
   @Before
   public void setUp() {
     statSupplier = createMock(new Clazz<Supplier<Iterable<Stat<?>>>>() {});
-    request = createMock(HttpServletRequest.class);
     vars = new VarsHandler(statSupplier);
   }
 
   @Test
-  public void testGetEmpty() {
+  public void testGetEmpty() throws Exception {
     expectVarScrape(ImmutableMap.<String, Object>of());
 
     control.replay();
@@ -53,7 +54,7 @@ public class VarsHandlerTest extends StatSupplierTestBase {
   }
 
   @Test
-  public void testGet() {
+  public void testGet() throws Exception {
     expectVarScrape(ImmutableMap.<String, Object>of(
         "float", 4.16126,
         "int", 5,
@@ -69,7 +70,117 @@ public class VarsHandlerTest extends StatSupplierTestBase {
         "str foobar"));
   }
 
-  private void checkOutput(List<String> expectedLines) {
-    assertEquals(String.join("\n", expectedLines), vars.getVars());
+  @Test
+  public void testGetSorted() throws Exception {
+    expectVarScrape(ImmutableMap.<String, Object>of(
+        "b", -12L,
+        "a_b", Long.MIN_VALUE,
+        "a", 0L
+    ));
+
+    control.replay();
+
+    checkOutput(Arrays.asList(
+        "a 0",
+        "a_b " + Long.MIN_VALUE,
+        "b -12"));
+  }
+
+  @Test
+  public void testGetFiltered() throws Exception {
+    expectVarScrape(ImmutableMap.<String, Object>of(
+        "jvm_uptime_secs", 10L,
+        "jvm_threads_active", 20L,
+        "tasks_lost", 30L
+    ), name -> name.startsWith("jvm_"));
+    expectVarScrape(ImmutableMap.<String, Object>of(
+        "jvm_uptime_secs", 10L,
+        "jvm_threads_active", 20L,
+        "tasks_lost", 30L
+    ), name -> !name.equals("jvm_threads_active"));
+
+    control.replay();
+
+    assertEquals(
+        "jvm_threads_active 20\njvm_uptime_secs 10",
+        render(vars.getVars("jvm_", null, null)));
+    assertEquals(
+        "jvm_uptime_secs 10\ntasks_lost 30",
+        render(vars.getVars(null, "(uptime|lost)", null)));
+  }
+
+  @Test
+  public void testGetPrometheus() throws Exception {
+    expectVarScrape(ImmutableMap.<String, Object>of(
+        "http_200_responses", 5L,
+        "sla_cpu_ratio", 0.5,
+        "build_git_tag", "foobar",
+        "1xx.responses", Double.NaN,
+        "tasks-lost/sec", Double.NEGATIVE_INFINITY
+    ));
+
+    control.replay();
+
+    Response response = vars.getVars(null, null, VarsHandler.PROMETHEUS_FORMAT);
+    assertEquals(VarsHandler.PROMETHEUS_TYPE, response.getMediaType());
+    assertEquals(
+        "_1xx_responses NaN\n"
+            + "http_200_responses 5\n"
+            + "sla_cpu_ratio 0.5\n"
+            + "tasks_lost_sec -Inf\n",
+        render(response));
+  }
+
+  @Test
+  public void testGetPrometheusCollisions() throws Exception {
+    expectVarScrape(ImmutableMap.<String, Object>of(
+        "tasks_lost_role_job", 1L,
+        "tasks_lost_role-job", 2L,
+        "tasks_lost_role.job", 3L,
+        "tasks_lost_role/job", 4L,
+        "", 5L
+    ));
+
+    control.replay();
+
+    // Only the first variable in name order, here the one with a dash, is written for each
+    // sanitized name. An empty name is written as an underscore.
+    assertEquals(
+        "_ 5\ntasks_lost_role_job 2\n",
+        render(vars.getVars(null, null, VarsHandler.PROMETHEUS_FORMAT)));
+  }
+
+  @Test
+  public void testInvalidRegex() {
+    control.replay();
+
+    try {
+      vars.getVars(null, "(", null);
+      fail();
+    } catch (WebApplicationException e) {
+      assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+    }
+  }
+
+  @Test
+  public void testUnknownFormat() {
+    control.replay();
+
+    try {
+      vars.getVars(null, null, "xml");
+      fail();
+    } catch (WebApplicationException e) {
+      assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+    }
+  }
+
+  private static String render(Response response) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(output);
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private void checkOutput(List<String> expectedLines) throws IOException {
+    assertEquals(String.join("\n", expectedLines), render(vars.getVars(null, null, null)));
   }
 }
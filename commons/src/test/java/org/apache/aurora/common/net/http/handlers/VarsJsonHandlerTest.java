@@ -13,6 +13,13 @@
  */
 package org.apache.aurora.common.net.http.handlers;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
 import com.google.common.collect.ImmutableMap;
 
 import org.junit.Before;
@@ -33,16 +40,16 @@ public class VarsJsonHandlerTest extends StatSupplierTestBase {
   }
 
   @Test
-  public void testGetEmpty() {
+  public void testGetEmpty() throws Exception {
     expectVarScrape(ImmutableMap.<String, Object>of());
 
     control.replay();
 
-    assertEquals("{}", varsJson.getBody(false));
+    assertEquals("{}", getBody(false));
   }
 
   @Test
-  public void testGet() {
+  public void testGet() throws Exception {
     expectVarScrape(ImmutableMap.<String, Object>of(
         "str", "foobar",
         "int", 5,
@@ -51,11 +58,11 @@ public class VarsJsonHandlerTest extends StatSupplierTestBase {
 
     control.replay();
 
-    assertEquals("{\"str\":\"foobar\",\"int\":5,\"float\":4.16126}", varsJson.getBody(false));
+    assertEquals("{\"str\":\"foobar\",\"int\":5,\"float\":4.16126}", getBody(false));
   }
 
   @Test
-  public void testGetPretty() {
+  public void testGetPretty() throws Exception {
     expectVarScrape(ImmutableMap.<String, Object>of(
         "str", "foobar",
         "int", 5,
@@ -68,6 +75,52 @@ public class VarsJsonHandlerTest extends StatSupplierTestBase {
         "  \"str\": \"foobar\",\n" +
         "  \"int\": 5,\n" +
         "  \"float\": 4.16126\n" +
-        "}", varsJson.getBody(true));
+        "}", getBody(true));
+  }
+
+  @Test
+  public void testGetPrettyEmpty() throws Exception {
+    expectVarScrape(ImmutableMap.<String, Object>of());
+
+    control.replay();
+
+    assertEquals("{}", getBody(true));
+  }
+
+  @Test
+  public void testGetFiltered() throws Exception {
+    expectVarScrape(
+        ImmutableMap.<String, Object>of(
+            "jvm_uptime_secs", 10L,
+            "jvm_threads_active", 20L,
+            "tasks_lost", 30L),
+        name -> name.endsWith("_secs"));
+
+    control.replay();
+
+    assertEquals("{\"jvm_uptime_secs\":10}", render(varsJson.getVars(false, "jvm_", "secs$")));
+  }
+
+  @Test
+  public void testGetNonFinite() throws Exception {
+    expectVarScrape(ImmutableMap.<String, Object>of(
+        "nan", Double.NaN,
+        "inf", Double.POSITIVE_INFINITY,
+        "html", "<b>"
+    ));
+
+    control.replay();
+
+    assertEquals("{\"nan\":null,\"inf\":null,\"html\":\"\\u003cb\\u003e\"}", getBody(false));
+  }
+
+  private String getBody(boolean pretty) throws IOException {
+    return render(varsJson.getVars(pretty, null, null));
+  }
+
+  private static String render(Response response) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(output);
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
   }
 }
@@ -0,0 +1,153 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.common.stats;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+  private static final Amount<Long, Time> WINDOW = Amount.of(1L, Time.MINUTES);
+
+  private FakeClock clock;
+  private Histogram histogram;
+
+  @Before
+  public void setUp() {
+    clock = new FakeClock();
+    histogram = new Histogram(WINDOW, clock);
+  }
+
+  @Test
+  public void testBuckets() {
+    long previousLowerBound = -1;
+    for (long value = 0; value < 1L << 20; value++) {
+      int index = Histogram.bucketIndex(value);
+      long lowerBound = Histogram.bucketLowerBound(index);
+      assertTrue(lowerBound <= value);
+      assertTrue(lowerBound >= previousLowerBound);
+      previousLowerBound = lowerBound;
+      assertEquals(index, Histogram.bucketIndex(lowerBound));
+    }
+    assertEquals(
+        Histogram.bucketIndex(Long.MAX_VALUE),
+        Histogram.bucketIndex(Histogram.bucketLowerBound(Histogram.bucketIndex(Long.MAX_VALUE))));
+  }
+
+  @Test
+  public void testNoData() {
+    clock.advance(WINDOW);
+    assertEquals(0L, histogram.getPercentile(50));
+    assertEquals(0L, histogram.getCount());
+  }
+
+  @Test
+  public void testSmallValuesAreExact() {
+    for (int i = 1; i <= 10; i++) {
+      histogram.record(i);
+    }
+    clock.advance(WINDOW);
+
+    assertEquals(10L, histogram.getCount());
+    assertEquals(1L, histogram.getPercentile(0));
+    assertEquals(5L, histogram.getPercentile(50));
+    assertEquals(9L, histogram.getPercentile(90));
+    assertEquals(10L, histogram.getPercentile(100));
+  }
+
+  @Test
+  public void testRelativeError() {
+    for (long i = 1; i <= 100000; i++) {
+      histogram.record(i * 1000);
+    }
+    clock.advance(WINDOW);
+
+    double maxError = 1.0 / (1 << (Histogram.SUB_BUCKET_BITS - 1));
+    for (double percentile : Histogram.EXPORTED_PERCENTILES) {
+      double expected = percentile * 1000 * 1000;
+      double actual = histogram.getPercentile(percentile);
+      assertTrue(
+          percentile + ": " + actual + " vs " + expected,
+          Math.abs(actual - expected) / expected <= maxError);
+    }
+  }
+
+  @Test
+  public void testWindows() {
+    histogram.record(10);
+    // Values are reported only once the window completes.
+    assertEquals(0L, histogram.getCount());
+
+    clock.advance(WINDOW);
+    assertEquals(1L, histogram.getCount());
+    histogram.record(20);
+    histogram.record(20);
+    assertEquals(10L, histogram.getPercentile(50));
+
+    clock.advance(WINDOW);
+    assertEquals(2L, histogram.getCount());
+    assertEquals(20L, histogram.getPercentile(50));
+
+    clock.advance(WINDOW);
+    assertEquals(0L, histogram.getCount());
+  }
+
+  @Test
+  public void testNegativeValues() {
+    histogram.record(-5);
+    clock.advance(WINDOW);
+    assertEquals(0L, histogram.getPercentile(99));
+    assertEquals(1L, histogram.getCount());
+  }
+
+  @Test
+  public void testConcurrentRecording() throws Exception {
+    int threads = 8;
+    int perThread = 10000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      executor.execute(() -> {
+        for (int i = 0; i < perThread; i++) {
+          histogram.record(i % 100);
+        }
+        done.countDown();
+      });
+    }
+    assertTrue(done.await(1, TimeUnit.MINUTES));
+    executor.shutdown();
+
+    clock.advance(WINDOW);
+    assertEquals((long) threads * perThread, histogram.getCount());
+    assertEquals(49L, histogram.getPercentile(50));
+  }
+
+  @Test
+  public void testStatNames() {
+    assertEquals("foo_p50", Histogram.statName("foo", 50));
+    assertEquals("foo_p99", Histogram.statName("foo", 99));
+    assertEquals("foo_p999", Histogram.statName("foo", 99.9));
+  }
+}
@@ -13,7 +13,13 @@
  */
 package org.apache.aurora.common.stats;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
@@ -27,6 +33,7 @@ import static org.apache.aurora.common.util.testing.FakeBuildInfo.generateBuildI
 import static org.easymock.EasyMock.createStrictControl;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * @author William Farner
@@ -112,13 +119,125 @@ public class TimeSeriesRepositoryImplTest extends EasyMockTest {
     }
 
     expectTimestamps(1000L, 2000L, 3000L, 4000L);
-    expectSeriesData("early", 2, 4, 6, 8);
+    expectSeriesData("early", 2L, 4L, 6L, 8L);
 
     repo.runSampler(clock);
 
     expectTimestamps(1000L, 2000L, 3000L, 4000L, 5000L);
-    expectSeriesData("early", 2, 4, 6, 8, 10);
-    expectSeriesData("delayed", 0L, 0L, 0L, 0L, 100);
+    expectSeriesData("early", 2L, 4L, 6L, 8L, 10L);
+    expectSeriesData("delayed", 0L, 0L, 0L, 0L, 100L);
+  }
+
+  @Test
+  public void testRetention() {
+    Iterator<Integer> values = Iterators.forArray(1, 2, 3, 4, 5);
+    repo = new TimeSeriesRepositoryImpl(
+        () -> ImmutableList.<RecordingStat<? extends Number>>of(stat("a", values::next)),
+        SAMPLE_PERIOD,
+        Amount.of(3L, Time.SECONDS),
+        generateBuildInfo());
+
+    control.replay();
+
+    for (int i = 1; i <= 5; i++) {
+      clock.setNowMillis(i * 1000);
+      repo.runSampler(clock);
+    }
+
+    expectTimestamps(3000L, 4000L, 5000L);
+    expectSeriesData("a", 3L, 4L, 5L);
+  }
+
+  @Test
+  public void testFloatingPointSamples() {
+    Iterator<Number> values = Iterators.forArray(1, 2.5, 3);
+    repo = new TimeSeriesRepositoryImpl(
+        () -> ImmutableList.<RecordingStat<? extends Number>>of(stat("a", values::next)),
+        SAMPLE_PERIOD,
+        RETENTION_PERIOD,
+        generateBuildInfo());
+
+    control.replay();
+
+    repo.runSampler(clock);
+    expectSeriesData("a", 1L);
+    repo.runSampler(clock);
+    repo.runSampler(clock);
+    expectSeriesData("a", 1.0, 2.5, 3.0);
+  }
+
+  @Test
+  public void testUnregisteredStat() {
+    List<RecordingStat<? extends Number>> stats = Lists.newArrayList();
+    stats.add(stat("a", () -> 1));
+    repo = new TimeSeriesRepositoryImpl(
+        () -> stats,
+        SAMPLE_PERIOD,
+        RETENTION_PERIOD,
+        generateBuildInfo());
+
+    control.replay();
+
+    repo.runSampler(clock);
+    stats.clear();
+    repo.runSampler(clock);
+
+    expectSeriesData("a", 1L, 0L);
+  }
+
+  @Test
+  public void testDownsampling() {
+    Iterator<Integer> values = Iterators.forArray(1, 2, 3, 4, 5);
+    repo = new TimeSeriesRepositoryImpl(
+        () -> ImmutableList.<RecordingStat<? extends Number>>of(stat("a", values::next)),
+        SAMPLE_PERIOD,
+        RETENTION_PERIOD,
+        Amount.of(2L, Time.SECONDS),
+        Amount.of(4L, Time.SECONDS),
+        generateBuildInfo());
+
+    control.replay();
+
+    for (int i = 1; i <= 5; i++) {
+      clock.setNowMillis(i * 1000);
+      repo.runSampler(clock);
+    }
+
+    expectSeriesData("a", 1L, 2L, 3L, 4L, 5L);
+    assertEquals(
+        ImmutableList.of(3000L, 5000L),
+        ImmutableList.copyOf(repo.getDownsampledTimestamps()));
+    assertEquals(
+        ImmutableList.of(3L, 5L),
+        ImmutableList.copyOf(repo.getDownsampled("a").getSamples()));
+    assertNull(repo.getDownsampled("b"));
+  }
+
+  @Test
+  public void testDownsamplingDisabled() {
+    control.replay();
+
+    assertNull(repo.getDownsampled("a"));
+    assertEquals(ImmutableList.of(), ImmutableList.copyOf(repo.getDownsampledTimestamps()));
+  }
+
+  private static RecordingStat<Number> stat(String name, Supplier<Number> samples) {
+    return new RecordingStat<Number>() {
+      @Override
+      public Number sample() {
+        return samples.get();
+      }
+
+      @Override
+      public String getName() {
+        return name;
+      }
+
+      @Override
+      public Number read() {
+        throw new UnsupportedOperationException();
+      }
+    };
   }
 
   private RecordingStat<Integer> mockedStat() {
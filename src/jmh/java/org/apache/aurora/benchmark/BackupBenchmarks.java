@@ -0,0 +1,192 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.Files;
+
+import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.scheduler.storage.backup.IndexedBackup;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TIOStreamTransport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the time to write a backup as a thrift encoded snapshot, as a full
+ * {@link IndexedBackup}, and as an incremental {@link IndexedBackup} after 1% of tasks changed.
+ * <p>
+ * The size of each backup, and the heap retained by staging each backup for recovery, are
+ * reported as auxiliary counters of {@link #footprint(FootprintCounters)}. Staging a thrift
+ * backup retains at least the decoded snapshot, while staging an indexed backup retains only its
+ * index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class BackupBenchmarks {
+  private static final String THRIFT = "thrift";
+  private static final String FULL = "full";
+  private static final String BASE = "base";
+  private static final String INCREMENT = "increment";
+
+  @Param({"10000", "100000"})
+  private int taskCount;
+
+  private File dir;
+  private Snapshot snapshot;
+  private Snapshot changed;
+  private IndexedBackup.Writer incrementalWriter;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    dir = Files.createTempDir();
+    snapshot = new Snapshot().setTimestamp(1L);
+    changed = new Snapshot().setTimestamp(2L);
+    int i = 0;
+    for (IScheduledTask task : new Tasks.Builder().setNumEvents(10).build(taskCount)) {
+      snapshot.addToTasks(task.newBuilder());
+      ScheduledTask changedTask = task.newBuilder();
+      if (i++ % 100 == 0) {
+        changedTask.setStatus(ScheduleStatus.RUNNING);
+      }
+      changed.addToTasks(changedTask);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void writeBase() throws IOException {
+    incrementalWriter = new IndexedBackup.Writer(1);
+    write(BASE, out -> incrementalWriter.write(out, dir, BASE, snapshot));
+  }
+
+  private interface BackupWrite {
+    void write(OutputStream out) throws IOException, TException;
+  }
+
+  private void write(String name, BackupWrite backupWrite) throws IOException {
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(dir, name)))) {
+      backupWrite.write(out);
+    } catch (TException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Benchmark
+  public void thrift() throws IOException {
+    write(THRIFT, out -> snapshot.write(new TBinaryProtocol(new TIOStreamTransport(out))));
+  }
+
+  @Benchmark
+  public void indexedFull() throws IOException {
+    write(FULL, out -> new IndexedBackup.Writer(0).write(out, dir, FULL, snapshot));
+  }
+
+  @Benchmark
+  public void indexedIncremental() throws IOException {
+    write(INCREMENT, out -> Preconditions.checkState(
+        incrementalWriter.write(out, dir, INCREMENT, changed)));
+  }
+
+  /**
+   * Sizes of each backup, and heap retained by staging each for recovery, reported by JMH
+   * alongside the timings.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class FootprintCounters {
+    public long thriftBytes;
+    public long fullBytes;
+    public long incrementalBytes;
+    public long thriftStagedHeapBytes;
+    public long indexedStagedHeapBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      thriftBytes = 0;
+      fullBytes = 0;
+      incrementalBytes = 0;
+      thriftStagedHeapBytes = 0;
+      indexedStagedHeapBytes = 0;
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  public long footprint(FootprintCounters counters) throws IOException {
+    thrift();
+    indexedFull();
+    indexedIncremental();
+    counters.thriftBytes = new File(dir, THRIFT).length();
+    counters.fullBytes = new File(dir, FULL).length();
+    counters.incrementalBytes = new File(dir, INCREMENT).length();
+
+    long before = usedHeap();
+    Snapshot staged = ThriftBinaryCodec.decodeNonNull(
+        Snapshot.class,
+        Files.toByteArray(new File(dir, THRIFT)));
+    counters.thriftStagedHeapBytes = usedHeap() - before;
+    // Reading the staged backups after measuring keeps them reachable while measured.
+    Preconditions.checkState(staged.getTasksSize() == taskCount);
+
+    before = usedHeap();
+    IndexedBackup.Reader indexed = IndexedBackup.Reader.open(dir, INCREMENT);
+    counters.indexedStagedHeapBytes = usedHeap() - before;
+    Preconditions.checkState(indexed.getTaskIds().size() == taskCount);
+    return counters.incrementalBytes;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    for (File file : dir.listFiles()) {
+      Preconditions.checkState(file.delete());
+    }
+    Preconditions.checkState(dir.delete());
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
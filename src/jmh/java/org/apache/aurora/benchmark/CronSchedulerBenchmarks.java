@@ -0,0 +1,215 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aurora.scheduler.cron.CronSchedule;
+import org.apache.aurora.scheduler.cron.CrontabEntry;
+import org.apache.aurora.scheduler.cron.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.CronExpression;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+
+/**
+ * Compares the cost of registering and firing cron jobs with the timing wheel cron engine against
+ * Quartz.
+ * <p>
+ * Jobs fire at a random minute of a random hour of each day, and run nothing when they fire.
+ */
+public class CronSchedulerBenchmarks {
+  private static final TimeZone TIME_ZONE = TimeZone.getTimeZone("GMT");
+  private static final long TICK_MS = 1000;
+  private static final int WHEEL_BITS = 6;
+  private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+
+  public static class NoopJob implements Job {
+    @Override
+    public void execute(JobExecutionContext context) {
+      // No-op.
+    }
+  }
+
+  private static String[] makeSchedules(int count) {
+    Random random = new Random(0);
+    String[] schedules = new String[count];
+    for (int i = 0; i < count; i++) {
+      schedules[i] = random.nextInt(60) + " " + random.nextInt(24) + " * * *";
+    }
+    return schedules;
+  }
+
+  // Equivalent to the crontab schedules above, which restrict only the minute and hour.
+  private static String quartzExpression(String schedule) {
+    String[] fields = schedule.split(" ");
+    return "0 " + fields[0] + " " + fields[1] + " * * ?";
+  }
+
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class RegisterBenchmark {
+    @Param({"50000"})
+    private int numJobs;
+
+    private String[] schedules;
+    private Scheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void setUpSchedules() {
+      schedules = makeSchedules(numJobs);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpScheduler() throws SchedulerException {
+      Properties properties = new Properties();
+      properties.setProperty(
+          StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME,
+          "jmh-" + System.nanoTime());
+      properties.setProperty("org.quartz.threadPool.threadCount", "1");
+      scheduler = new StdSchedulerFactory(properties).getScheduler();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownScheduler() throws SchedulerException {
+      scheduler.shutdown();
+    }
+
+    @Benchmark
+    public int timingWheel() {
+      long nowMs = 0;
+      TimingWheel<CronSchedule> wheel = new TimingWheel<>(TICK_MS, WHEEL_BITS, nowMs);
+      for (String schedule : schedules) {
+        CronSchedule cronSchedule = CronSchedule.of(CrontabEntry.parse(schedule), TIME_ZONE);
+        wheel.add(cronSchedule, cronSchedule.nextFireTimeAfter(nowMs).getAsLong());
+      }
+      return wheel.size();
+    }
+
+    @Benchmark
+    public int quartz() throws SchedulerException {
+      for (int i = 0; i < schedules.length; i++) {
+        String name = Integer.toString(i);
+        scheduler.scheduleJob(
+            JobBuilder.newJob(NoopJob.class).withIdentity(name).build(),
+            TriggerBuilder.newTrigger()
+                .withIdentity(name)
+                .withSchedule(CronScheduleBuilder.cronSchedule(quartzExpression(schedules[i]))
+                    .inTimeZone(TIME_ZONE))
+                .build());
+      }
+      return schedules.length;
+    }
+  }
+
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class FireBenchmark {
+    @Param({"50000"})
+    private int numJobs;
+
+    private CronSchedule[] cronSchedules;
+    private CronExpression[] cronExpressions;
+    private TimingWheel<CronSchedule> wheel;
+    private long nowMs;
+
+    @Setup(Level.Trial)
+    public void setUpSchedules() throws ParseException {
+      String[] schedules = makeSchedules(numJobs);
+      cronSchedules = new CronSchedule[numJobs];
+      cronExpressions = new CronExpression[numJobs];
+      for (int i = 0; i < numJobs; i++) {
+        cronSchedules[i] = CronSchedule.of(CrontabEntry.parse(schedules[i]), TIME_ZONE);
+        cronExpressions[i] = new CronExpression(quartzExpression(schedules[i]));
+        cronExpressions[i].setTimeZone(TIME_ZONE);
+      }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpWheel() {
+      nowMs = 0;
+      wheel = new TimingWheel<>(TICK_MS, WHEEL_BITS, nowMs);
+      for (CronSchedule schedule : cronSchedules) {
+        wheel.add(schedule, schedule.nextFireTimeAfter(nowMs).getAsLong());
+      }
+    }
+
+    /**
+     * Advances the wheel through an hour one tick at a time, as the engine does, rescheduling
+     * each job as it fires.
+     */
+    @Benchmark
+    public int timingWheelHour() {
+      int[] fired = {0};
+      for (long tickMs = TICK_MS; tickMs <= HOUR_MS; tickMs += TICK_MS) {
+        long fireTimeMs = tickMs;
+        wheel.advanceTo(fireTimeMs, schedule -> {
+          fired[0]++;
+          wheel.add(schedule, schedule.nextFireTimeAfter(fireTimeMs).getAsLong());
+        });
+      }
+      return fired[0];
+    }
+
+    @Benchmark
+    public long cronScheduleNextFireTimes() {
+      long sum = 0;
+      for (CronSchedule schedule : cronSchedules) {
+        sum += schedule.nextFireTimeAfter(nowMs).getAsLong();
+      }
+      return sum;
+    }
+
+    @Benchmark
+    public long quartzNextFireTimes() {
+      long sum = 0;
+      Date now = new Date(nowMs);
+      for (CronExpression expression : cronExpressions) {
+        sum += expression.getNextValidTimeAfter(now).getTime();
+      }
+      return sum;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
+import org.apache.aurora.scheduler.events.EventDispatcher;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+
+/**
+ * Compares the event throughput of {@link AsyncEventBus} against {@link EventDispatcher}.
+ * <p>
+ * Each invocation posts a batch of task state changes to several subscribers, one of which is
+ * slow, and waits until the fast subscribers have received every event.
+ */
+public class EventBusBenchmarks {
+  private static final int EVENTS = 10000;
+  private static final int FAST_SUBSCRIBERS = 8;
+  private static final int THREADS = 4;
+
+  public enum Bus {
+    ASYNC_EVENT_BUS,
+    EVENT_DISPATCHER
+  }
+
+  public static class Subscriber {
+    private final AtomicLong received = new AtomicLong();
+    private final long workNanos;
+
+    Subscriber(long workNanos) {
+      this.workNanos = workNanos;
+    }
+
+    @Subscribe
+    public void taskChangedState(TaskStateChange change) {
+      long deadline = System.nanoTime() + workNanos;
+      while (System.nanoTime() < deadline) {
+        // Simulate work.
+      }
+      received.incrementAndGet();
+    }
+  }
+
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class PostBenchmark {
+    private ExecutorService executor;
+    private Consumer<Object> bus;
+    private List<Subscriber> fastSubscribers;
+    private Subscriber slow;
+    private List<TaskStateChange> events;
+    private long expected;
+
+    @Param({"ASYNC_EVENT_BUS", "EVENT_DISPATCHER"})
+    private Bus busType;
+
+    @Param({"0", "10000"})
+    private long slowSubscriberNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      executor = Executors.newFixedThreadPool(THREADS);
+      ImmutableList.Builder<Subscriber> fast = ImmutableList.builder();
+      for (int i = 0; i < FAST_SUBSCRIBERS; i++) {
+        fast.add(new Subscriber(0));
+      }
+      fastSubscribers = fast.build();
+      slow = new Subscriber(slowSubscriberNanos);
+
+      if (busType == Bus.ASYNC_EVENT_BUS) {
+        AsyncEventBus eventBus = new AsyncEventBus(executor);
+        fastSubscribers.forEach(eventBus::register);
+        eventBus.register(slow);
+        bus = eventBus::post;
+      } else {
+        EventDispatcher dispatcher = new EventDispatcher(
+            executor,
+            Integer.MAX_VALUE,
+            new FakeStatsProvider(),
+            (exception, event, method) -> { });
+        fastSubscribers.forEach(dispatcher::register);
+        dispatcher.register(slow);
+        bus = dispatcher::post;
+      }
+
+      ImmutableList.Builder<TaskStateChange> changes = ImmutableList.builder();
+      for (IScheduledTask task : new Tasks.Builder().setScheduleStatus(RUNNING).build(EVENTS)) {
+        changes.add(TaskStateChange.transition(task, PENDING));
+      }
+      events = changes.build();
+    }
+
+    // The slow subscriber's backlog is drained between iterations, to bound the memory it holds.
+    @TearDown(Level.Iteration)
+    public void drainSlowSubscriber() {
+      awaitReceived(slow);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long run() {
+      events.forEach(bus);
+      expected += EVENTS;
+      fastSubscribers.forEach(this::awaitReceived);
+      return expected;
+    }
+
+    private void awaitReceived(Subscriber subscriber) {
+      while (subscriber.received.get() < expected) {
+        Thread.yield();
+      }
+    }
+  }
+}
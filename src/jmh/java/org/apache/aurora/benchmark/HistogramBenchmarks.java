@@ -0,0 +1,217 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.Histogram;
+import org.apache.aurora.common.stats.Percentile;
+import org.apache.aurora.common.stats.RecordingStat;
+import org.apache.aurora.common.stats.Stat;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the recording cost and accuracy of {@link Histogram} against {@link Percentile}.
+ * <p>
+ * Recording is measured with several threads to expose contention. Accuracy of both trackers
+ * against exact percentiles of a long-tailed latency distribution is reported as an auxiliary
+ * error counter of {@link AccuracyBenchmark}.
+ */
+public class HistogramBenchmarks {
+  private static final double[] PERCENTILES = Histogram.EXPORTED_PERCENTILES;
+  private static final int ACCURACY_SAMPLES = 1000000;
+  private static final int VALUES_PER_WINDOW = 10000;
+
+  private static long nextLatency(Random random) {
+    // Exponentially distributed latencies around a millisecond, in nanoseconds.
+    return (long) (-Math.log(1 - random.nextDouble()) * 1000000);
+  }
+
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @Threads(4)
+  @State(Scope.Benchmark)
+  public static class RecordBenchmark {
+    private Histogram histogram;
+    private Percentile<Long> percentile;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      histogram = new Histogram(Histogram.DEFAULT_WINDOW, new FakeClock());
+      percentile = new Percentile<>("jmh_record_percentile", 100, PERCENTILES);
+    }
+
+    @Benchmark
+    public void histogram() {
+      histogram.record(nextLatency(ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    public void percentile() {
+      percentile.record(nextLatency(ThreadLocalRandom.current()));
+    }
+  }
+
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class SampleBenchmark {
+    private FakeClock clock;
+    private Histogram histogram;
+    private Percentile<Long> percentile;
+    private long[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      clock = new FakeClock();
+      histogram = new Histogram(Histogram.DEFAULT_WINDOW, clock);
+      percentile = new Percentile<>("jmh_sample_percentile", 100, PERCENTILES);
+
+      Random random = new Random(0);
+      values = new long[ACCURACY_SAMPLES];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = nextLatency(random);
+      }
+    }
+
+    @Setup(Level.Invocation)
+    public void record() {
+      // Percentile retains a bounded buffer of recent values, so a window of that size is recorded
+      // before each sample.
+      for (int i = 0; i < VALUES_PER_WINDOW; i++) {
+        histogram.record(values[i]);
+        percentile.record(values[i]);
+      }
+    }
+
+    @Benchmark
+    public long histogram() {
+      clock.advance(Histogram.DEFAULT_WINDOW);
+      long sum = 0;
+      for (double p : PERCENTILES) {
+        sum += histogram.getPercentile(p);
+      }
+      return sum;
+    }
+
+    @Benchmark
+    public double percentile() {
+      double sum = 0;
+      for (Stat<?> stat : percentile.getPercentiles().values()) {
+        sum += ((RecordingStat<?>) stat).sample().doubleValue();
+      }
+      return sum;
+    }
+  }
+
+  /**
+   * Relative errors of percentile estimates, reported by JMH alongside the timings.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class ErrorCounters {
+    public double errorPercent;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      errorPercent = 0;
+    }
+
+    void record(double actual, long exact) {
+      errorPercent = 100 * Math.abs(actual - exact) / exact;
+    }
+  }
+
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  @Fork(1)
+  @State(Scope.Benchmark)
+  public static class AccuracyBenchmark {
+    @Param({"50", "90", "99", "99.9"})
+    private double percentile;
+
+    private long[] values;
+    private long exact;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random random = new Random(0);
+      values = new long[ACCURACY_SAMPLES];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = nextLatency(random);
+      }
+
+      long[] sorted = Arrays.copyOf(values, values.length);
+      Arrays.sort(sorted);
+      exact = sorted[(int) Math.ceil(sorted.length * percentile / 100) - 1];
+    }
+
+    @Benchmark
+    public long histogram(ErrorCounters errors) {
+      FakeClock clock = new FakeClock();
+      Histogram histogram = new Histogram(Amount.of(1L, Time.MINUTES), clock);
+      for (long value : values) {
+        histogram.record(value);
+      }
+      clock.advance(Histogram.DEFAULT_WINDOW);
+
+      long estimate = histogram.getPercentile(percentile);
+      errors.record(estimate, exact);
+      return estimate;
+    }
+
+    @Benchmark
+    public double percentile(ErrorCounters errors) {
+      Percentile<Long> tracker =
+          new Percentile<>("jmh_accuracy_percentile", 100, PERCENTILES);
+      for (long value : values) {
+        tracker.record(value);
+      }
+      Map<Double, ? extends Stat<?>> stats = tracker.getPercentiles();
+      stats.values().forEach(stat -> ((RecordingStat<?>) stat).sample());
+
+      double estimate = stats.get(percentile).read().doubleValue();
+      errors.record(estimate, exact);
+      return estimate;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import org.apache.aurora.benchmark.fakes.FakeDriver;
+import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.common.util.testing.FakeTicker;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.config.CommandLine;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.filter.SchedulingFilterImpl;
+import org.apache.aurora.scheduler.offers.Deferment;
+import org.apache.aurora.scheduler.offers.HostOffer;
+import org.apache.aurora.scheduler.offers.OfferManager;
+import org.apache.aurora.scheduler.offers.OfferManagerImpl;
+import org.apache.aurora.scheduler.offers.OfferOrder;
+import org.apache.aurora.scheduler.offers.OfferOrderBuilder;
+import org.apache.aurora.scheduler.offers.OfferSetImpl;
+import org.apache.aurora.scheduler.offers.OfferSettings;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Drives the offer manager from several threads at once, as Mesos offer callbacks, rescinds and
+ * scheduling rounds do, to measure the throughput of each under contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Group)
+public class OfferManagerContentionBenchmark {
+  private static final int AGENTS = 10000;
+  // Number of offers a scheduling round examines, as when assigning a small task group.
+  private static final int OFFERS_PER_ROUND = 20;
+
+  private OfferManager offerManager;
+  private List<HostOffer> offers;
+  private TaskGroupKey groupKey;
+  private ResourceRequest request;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CommandLine.initializeForTest();
+    OfferSettings settings = new OfferSettings(
+        Amount.of(1L, Time.SECONDS),
+        new OfferSetImpl(OfferOrderBuilder.create(ImmutableList.of(OfferOrder.RANDOM))),
+        Amount.of(1L, Time.DAYS),
+        Long.MAX_VALUE,
+        new FakeTicker());
+    offerManager = new OfferManagerImpl(
+        new FakeDriver(),
+        settings,
+        new FakeStatsProvider(),
+        new Deferment.Noop(),
+        new SchedulingFilterImpl(Amount.of(1L, Time.MINUTES), new FakeClock()));
+
+    offers = ImmutableList.copyOf(new Offers.Builder().build(new Hosts.Builder().build(AGENTS)));
+    // Start with half of the agents offered, so that adds and rescinds both find work.
+    for (int i = 0; i < offers.size(); i += 2) {
+      offerManager.add(offers.get(i));
+    }
+
+    ITaskConfig task = Iterables.getOnlyElement(new Tasks.Builder().setCpu(1.0).build(1))
+        .getAssignedTask()
+        .getTask();
+    groupKey = TaskGroupKey.from(task);
+    request = TaskTestUtil.toResourceRequest(task);
+  }
+
+  private HostOffer randomOffer() {
+    return offers.get(ThreadLocalRandom.current().nextInt(offers.size()));
+  }
+
+  @Benchmark
+  @Group("contention")
+  @GroupThreads(2)
+  public boolean addOffer() {
+    HostOffer offer = randomOffer();
+    // Offers for agents that already have one are skipped, since they would be declined.
+    if (offerManager.get(offer.getOffer().getAgentId()).isPresent()) {
+      return false;
+    }
+    offerManager.add(offer);
+    return true;
+  }
+
+  @Benchmark
+  @Group("contention")
+  @GroupThreads(2)
+  public boolean rescindOffer() {
+    HostOffer offer = randomOffer();
+    return offerManager.get(offer.getOffer().getAgentId()).isPresent()
+        && offerManager.cancel(offer.getOffer().getId());
+  }
+
+  @Benchmark
+  @Group("contention")
+  @GroupThreads(4)
+  public int schedule() {
+    int matched = 0;
+    for (HostOffer offer : Iterables.limit(
+        offerManager.getAllMatching(groupKey, request),
+        OFFERS_PER_ROUND)) {
+
+      matched += offer.hasCpuAndMem() ? 1 : 0;
+    }
+    return matched;
+  }
+}
@@ -0,0 +1,299 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Data;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.config.CommandLine;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.offers.HostOffer;
+import org.apache.aurora.scheduler.offers.OfferOrder;
+import org.apache.aurora.scheduler.offers.OfferOrderBuilder;
+import org.apache.aurora.scheduler.offers.OfferSet;
+import org.apache.aurora.scheduler.offers.OfferSetImpl;
+import org.apache.aurora.scheduler.offers.PlacementStrategy;
+import org.apache.aurora.scheduler.offers.ScoringOfferSet;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.resources.ResourceType;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.mesos.v1.Protos;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.apache.aurora.scheduler.resources.ResourceType.CPUS;
+import static org.apache.aurora.scheduler.resources.ResourceType.DISK_MB;
+import static org.apache.aurora.scheduler.resources.ResourceType.RAM_MB;
+
+/**
+ * Compares offer placement strategies on a heterogeneous cluster.
+ * <p>
+ * {@link #getOrdered()} measures the cost of ordering offers for a request.
+ * {@link #simulatePlacement(PlacementCounters)} fills a fresh copy of the cluster with a random mix
+ * of task shapes until a task no longer fits anywhere, and reports the utilization reached and the
+ * resources stranded on hosts that cannot fit even the smallest task shape as auxiliary counters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class OfferPlacementBenchmarks {
+  private static final int HOSTS = 5000;
+
+  // Host shapes as (cpus, RAM GB, disk GB).
+  private static final double[][] HOST_SHAPES = {
+      {8, 16, 256},
+      {16, 64, 512},
+      {32, 128, 1024},
+      {8, 64, 256},
+      {32, 64, 2048},
+  };
+
+  // Task shapes as (cpus, RAM GB, disk GB), ordered by size.
+  private static final double[][] TASK_SHAPES = {
+      {0.5, 1, 4},
+      {1, 4, 16},
+      {2, 2, 16},
+      {4, 8, 64},
+      {2, 16, 32},
+      {8, 16, 128},
+  };
+
+  /**
+   * Offer set to place with. {@code STATIC_*} values are the ordering-based default offer set
+   * with the corresponding {@code -offer_order}.
+   */
+  @Param({"STATIC_RANDOM", "STATIC_CPU", "BEST_FIT", "WORST_FIT", "DOMINANT_RESOURCE_FIT"})
+  private String placement;
+
+  private OfferSet offers;
+  private List<ResourceRequest> requests;
+  private List<TaskGroupKey> groupKeys;
+  private int next;
+
+  private static IScheduledTask task(double[] shape) {
+    return Iterables.getOnlyElement(new Tasks.Builder()
+        .setCpu(shape[0])
+        .setRam(Amount.of((long) shape[1], Data.GB))
+        .setDisk(Amount.of((long) shape[2], Data.GB))
+        .build(1));
+  }
+
+  private static Protos.Resource scalar(ResourceType type, double value) {
+    return Protos.Resource.newBuilder()
+        .setType(Protos.Value.Type.SCALAR)
+        .setName(type.getMesosName())
+        .setScalar(Protos.Value.Scalar.newBuilder().setValue(value))
+        .build();
+  }
+
+  private static HostOffer hostOffer(IHostAttributes attributes, double[] free, int id) {
+    Protos.Offer offer = Protos.Offer.newBuilder()
+        .addResources(scalar(CPUS, free[0]))
+        .addResources(scalar(RAM_MB, free[1]))
+        .addResources(scalar(DISK_MB, free[2]))
+        .setId(Protos.OfferID.newBuilder().setValue("offer-" + id))
+        .setFrameworkId(Protos.FrameworkID.newBuilder().setValue("framework_id"))
+        .setAgentId(Protos.AgentID.newBuilder().setValue(attributes.getSlaveId()))
+        .setHostname(attributes.getHost())
+        .build();
+    return new HostOffer(offer, attributes);
+  }
+
+  private static double[] inMb(double[] shape) {
+    return new double[] {shape[0], shape[1] * 1024, shape[2] * 1024};
+  }
+
+  private OfferSet createOfferSet() {
+    switch (placement) {
+      case "STATIC_RANDOM":
+        return new OfferSetImpl(OfferOrderBuilder.create(ImmutableList.of(OfferOrder.RANDOM)));
+      case "STATIC_CPU":
+        return new OfferSetImpl(
+            OfferOrderBuilder.create(ImmutableList.of(OfferOrder.CPU, OfferOrder.RANDOM)));
+      default:
+        return new ScoringOfferSet(PlacementStrategy.valueOf(placement), 0.5, 16);
+    }
+  }
+
+  /**
+   * Cluster state for a placement simulation, tracking free resources per host.
+   */
+  private final class Cluster {
+    private final List<IHostAttributes> hosts;
+    private final Map<String, Integer> hostIndices = Maps.newHashMap();
+    private final List<double[]> capacity = Lists.newArrayList();
+    private final List<double[]> free = Lists.newArrayList();
+    private final OfferSet set = createOfferSet();
+    private int offerIds;
+
+    Cluster(List<IHostAttributes> hosts) {
+      this.hosts = hosts;
+      for (int i = 0; i < hosts.size(); i++) {
+        double[] shape = inMb(HOST_SHAPES[i % HOST_SHAPES.length]);
+        capacity.add(shape);
+        free.add(shape.clone());
+        hostIndices.put(hosts.get(i).getSlaveId(), i);
+        set.add(hostOffer(hosts.get(i), shape, offerIds++));
+      }
+    }
+
+    /**
+     * Places a task on the first offer that fits, in the order given by the offer set.
+     *
+     * @return Whether the task was placed.
+     */
+    boolean place(TaskGroupKey groupKey, ResourceRequest request) {
+      ResourceBag requested = request.getResourceBag();
+      for (HostOffer offer : set.getOrdered(groupKey, request)) {
+        if (offer.getResourceBag(false).greaterThanOrEqualTo(requested)) {
+          int host = hostIndices.get(offer.getAttributes().getSlaveId());
+          double[] left = free.get(host);
+          left[0] -= requested.valueOf(CPUS);
+          left[1] -= requested.valueOf(RAM_MB);
+          left[2] -= requested.valueOf(DISK_MB);
+          set.remove(offer);
+          set.add(hostOffer(hosts.get(host), left, offerIds++));
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void report(int placed, PlacementCounters counters) {
+      double[] smallest = inMb(TASK_SHAPES[0]);
+      double[] total = new double[3];
+      double[] used = new double[3];
+      double[] stranded = new double[3];
+      for (int i = 0; i < hosts.size(); i++) {
+        double[] left = free.get(i);
+        boolean fitsSmallest = true;
+        for (int r = 0; r < 3; r++) {
+          total[r] += capacity.get(i)[r];
+          used[r] += capacity.get(i)[r] - left[r];
+          fitsSmallest &= left[r] >= smallest[r];
+        }
+        if (!fitsSmallest) {
+          for (int r = 0; r < 3; r++) {
+            stranded[r] += left[r];
+          }
+        }
+      }
+      counters.placed = placed;
+      counters.cpuUsedPercent = 100 * used[0] / total[0];
+      counters.ramUsedPercent = 100 * used[1] / total[1];
+      counters.cpuStrandedPercent = 100 * stranded[0] / total[0];
+      counters.ramStrandedPercent = 100 * stranded[1] / total[1];
+    }
+  }
+
+  /**
+   * Outcome of a placement simulation, reported by JMH alongside the timings.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class PlacementCounters {
+    public long placed;
+    public double cpuUsedPercent;
+    public double ramUsedPercent;
+    public double cpuStrandedPercent;
+    public double ramStrandedPercent;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      placed = 0;
+      cpuUsedPercent = 0;
+      ramUsedPercent = 0;
+      cpuStrandedPercent = 0;
+      ramStrandedPercent = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CommandLine.initializeForTest();
+    List<IHostAttributes> hosts = ImmutableList.copyOf(new Hosts.Builder().build(HOSTS));
+    offers = createOfferSet();
+    Random random = new Random(0);
+    int id = 0;
+    for (IHostAttributes host : hosts) {
+      // Partially used hosts, so that offers have a spread of free resources.
+      double[] shape = inMb(HOST_SHAPES[random.nextInt(HOST_SHAPES.length)]);
+      double used = random.nextDouble();
+      offers.add(hostOffer(
+          host,
+          new double[] {shape[0] * used, shape[1] * used, shape[2] * used},
+          id++));
+    }
+
+    requests = Lists.newArrayList();
+    groupKeys = Lists.newArrayList();
+    for (double[] shape : TASK_SHAPES) {
+      IScheduledTask task = task(shape);
+      requests.add(TaskTestUtil.toResourceRequest(task.getAssignedTask().getTask()));
+      groupKeys.add(TaskGroupKey.from(task.getAssignedTask().getTask()));
+    }
+  }
+
+  @Benchmark
+  public HostOffer getOrdered() {
+    int shape = next++ % requests.size();
+    return Iterables.getFirst(offers.getOrdered(groupKeys.get(shape), requests.get(shape)), null);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  public int simulatePlacement(PlacementCounters counters) {
+    Cluster cluster = new Cluster(ImmutableList.copyOf(new Hosts.Builder().build(HOSTS)));
+    Random random = new Random(0);
+    int placed = 0;
+    while (true) {
+      int shape = random.nextInt(requests.size());
+      if (!cluster.place(groupKeys.get(shape), requests.get(shape))) {
+        break;
+      }
+      placed++;
+    }
+    cluster.report(placed, counters);
+    return placed;
+  }
+}
@@ -0,0 +1,199 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
+import org.apache.aurora.common.application.ShutdownRegistry;
+import org.apache.aurora.common.application.ShutdownRegistry.ShutdownRegistryImpl;
+import org.apache.aurora.common.inject.Bindings;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.BuildInfo;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.common.util.testing.FakeBuildInfo;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.gen.storage.StoredJobUpdateDetails;
+import org.apache.aurora.scheduler.TierModule;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.events.EventSink;
+import org.apache.aurora.scheduler.log.Log;
+import org.apache.aurora.scheduler.storage.SnapshotStore;
+import org.apache.aurora.scheduler.storage.Snapshotter;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.Storage.NonVolatileStorage;
+import org.apache.aurora.scheduler.storage.Storage.Volatile;
+import org.apache.aurora.scheduler.storage.durability.DurableStorageModule;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateDetails;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.log.FakeLog;
+import org.apache.aurora.scheduler.storage.log.LogPersistenceModule;
+import org.apache.aurora.scheduler.storage.log.SnapshotModule;
+import org.apache.aurora.scheduler.storage.log.SnapshotterImpl;
+import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures recovering storage from a synthetic log, sequentially and with parallel decoding of log
+ * entries and loading of stores.
+ * <p>
+ * The log holds a snapshot of tasks, host attributes and job updates, followed by transactions
+ * that save and remove tasks, as a log does between snapshots.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class RecoveryBenchmarks {
+  private static final int TASKS_PER_JOB = 100;
+  private static final int HOSTS = 10000;
+  private static final int UPDATES = 100;
+  private static final int TRANSACTIONS = 10000;
+  private static final int TASKS_PER_TRANSACTION = 10;
+
+  @Param({"1000000"})
+  private int taskCount;
+
+  @Param({"1", "4"})
+  private int threads;
+
+  private FakeLog log;
+  private Scheduler scheduler;
+
+  private final class Scheduler {
+    private final NonVolatileStorage storage;
+    private final SnapshotStore snapshotStore;
+    private final ShutdownRegistryImpl shutdownRegistry = new ShutdownRegistryImpl();
+
+    Scheduler(int recoveryThreads) {
+      DurableStorageModule.Options durableStorageOptions = new DurableStorageModule.Options();
+      durableStorageOptions.recoveryThreads = recoveryThreads;
+      LogPersistenceModule.Options logOptions = new LogPersistenceModule.Options();
+      logOptions.decodeThreads = recoveryThreads;
+
+      Injector injector = Guice.createInjector(
+          new MemStorageModule(Bindings.annotatedKeyFactory(Volatile.class)),
+          new DurableStorageModule(durableStorageOptions),
+          new LogPersistenceModule(logOptions),
+          new SnapshotModule(new SnapshotModule.Options()),
+          new TierModule(new TierModule.Options()),
+          new AbstractModule() {
+            @Override
+            protected void configure() {
+              bind(Clock.class).toInstance(Clock.SYSTEM_CLOCK);
+              bind(BuildInfo.class).toInstance(FakeBuildInfo.generateBuildInfo());
+              bind(EventSink.class).toInstance(e -> { });
+              bind(ShutdownRegistry.class).toInstance(shutdownRegistry);
+              bind(StatsProvider.class).toInstance(new FakeStatsProvider());
+              bind(Log.class).toInstance(log);
+              bind(Snapshotter.class).to(SnapshotterImpl.class);
+            }
+          });
+      storage = injector.getInstance(NonVolatileStorage.class);
+      snapshotStore = injector.getInstance(SnapshotStore.class);
+      storage.prepare();
+    }
+
+    void stop() {
+      storage.stop();
+      shutdownRegistry.execute();
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUpLog() throws Exception {
+    log = new FakeLog();
+    Scheduler writer = new Scheduler(1);
+    writer.storage.start(stores -> { });
+
+    Snapshot snapshot = new Snapshot().setTimestamp(System.currentTimeMillis());
+    for (int job = 0; job < taskCount / TASKS_PER_JOB; job++) {
+      for (IScheduledTask task : new Tasks.Builder()
+          .setRole("role-" + job % 100)
+          .setJob("job-" + job)
+          .build(TASKS_PER_JOB)) {
+
+        snapshot.addToTasks(task.newBuilder());
+      }
+    }
+    for (IHostAttributes attributes : new Hosts.Builder().setNumHostsPerRack(10).build(HOSTS)) {
+      snapshot.addToHostAttributes(attributes.newBuilder());
+    }
+    for (IJobUpdateDetails details
+        : new JobUpdates.Builder().setNumInstanceEvents(10).build(UPDATES)) {
+
+      snapshot.addToJobUpdateDetails(new StoredJobUpdateDetails().setDetails(details.newBuilder()));
+    }
+    writer.snapshotStore.snapshotWith(snapshot);
+
+    // Each transaction saves new tasks and removes tasks of the snapshot.
+    List<IScheduledTask> removed = IScheduledTask.listFromBuilders(snapshot.getTasks());
+    for (int i = 0; i < TRANSACTIONS; i++) {
+      Set<IScheduledTask> saved = new Tasks.Builder()
+          .setRole("transaction-role")
+          .setJob("job-" + i)
+          .setScheduleStatus(ScheduleStatus.RUNNING)
+          .build(TASKS_PER_TRANSACTION);
+      Set<String> removedIds = org.apache.aurora.scheduler.base.Tasks.ids(
+          removed.subList(i * TASKS_PER_TRANSACTION, (i + 1) * TASKS_PER_TRANSACTION));
+      writer.storage.write((NoResult.Quiet) stores -> {
+        stores.getUnsafeTaskStore().saveTasks(saved);
+        stores.getUnsafeTaskStore().deleteTasks(removedIds);
+      });
+    }
+    writer.stop();
+  }
+
+  @Setup(Level.Invocation)
+  public void setUpScheduler() {
+    scheduler = new Scheduler(threads);
+  }
+
+  @Benchmark
+  public int recover() {
+    scheduler.storage.start(stores -> { });
+    return scheduler.storage.read(stores -> stores.getTaskStore().getJobKeys().size());
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDownScheduler() {
+    Preconditions.checkState(taskCount == scheduler.storage.read(
+        stores -> stores.getTaskStore().fetchTasks(Query.unscoped()).size()));
+    scheduler.stop();
+    scheduler = null;
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.config.CommandLine;
+import org.apache.aurora.scheduler.filter.AttributeAggregate;
+import org.apache.aurora.scheduler.filter.SchedulingFilter;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
+import org.apache.aurora.scheduler.filter.SchedulingFilterImpl;
+import org.apache.aurora.scheduler.offers.HostOffer;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures scheduling filter evaluations per second over a cluster of hosts, for a task with a
+ * given mix of constraints.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class SchedulingFilterBenchmarks {
+  private static final int HOSTS = 10000;
+  private static final int HOSTS_PER_RACK = 20;
+  // Hosts already running a task of the job being scheduled.
+  private static final int OCCUPIED_HOSTS = 1000;
+
+  /**
+   * Constraints of the task being scheduled:
+   * <ul>
+   *   <li>NONE: no constraints.</li>
+   *   <li>VALUE: a rack value constraint.</li>
+   *   <li>LIMIT: one task per host.</li>
+   *   <li>MIXED: a rack value constraint, one task per host and four tasks per rack.</li>
+   * </ul>
+   */
+  @Param({"NONE", "VALUE", "LIMIT", "MIXED"})
+  private String constraints;
+
+  private SchedulingFilter filter;
+  private List<UnusedResource> resources;
+  private ResourceRequest request;
+  private int next;
+
+  private ITaskConfig task() {
+    Tasks.Builder builder = new Tasks.Builder().setCpu(1.0);
+    switch (constraints) {
+      case "VALUE":
+        builder.addValueConstraint("rack", "rack-3");
+        break;
+      case "LIMIT":
+        builder.addLimitConstraint("host", 1);
+        break;
+      case "MIXED":
+        builder.addValueConstraint("rack", "rack-3")
+            .addLimitConstraint("host", 1)
+            .addLimitConstraint("rack", 4);
+        break;
+      default:
+        break;
+    }
+    return Iterables.getOnlyElement(builder.build(1)).getAssignedTask().getTask();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CommandLine.initializeForTest();
+    filter = new SchedulingFilterImpl(Amount.of(1L, Time.MINUTES), new FakeClock());
+
+    Set<IHostAttributes> hosts =
+        new Hosts.Builder().setNumHostsPerRack(HOSTS_PER_RACK).build(HOSTS);
+    AttributeAggregate jobState = AttributeAggregate.empty();
+    for (IHostAttributes host : Iterables.limit(hosts, OCCUPIED_HOSTS)) {
+      jobState.updateAttributeAggregate(host);
+    }
+
+    ImmutableList.Builder<UnusedResource> unused = ImmutableList.builder();
+    for (HostOffer offer : new Offers.Builder().build(hosts)) {
+      unused.add(new UnusedResource(offer, false));
+    }
+    resources = unused.build();
+    request = ResourceRequest.fromTask(
+        task(),
+        TaskTestUtil.EXECUTOR_SETTINGS,
+        jobState,
+        TaskTestUtil.TIER_MANAGER);
+  }
+
+  @Benchmark
+  public Set<Veto> filter() {
+    UnusedResource resource = resources.get(next);
+    next = (next + 1) % resources.size();
+    return filter.filter(resource, request);
+  }
+}
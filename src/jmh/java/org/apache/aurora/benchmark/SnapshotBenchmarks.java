@@ -13,23 +13,33 @@
  */
 package org.apache.aurora.benchmark;
 
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Singleton;
 
+import com.google.common.base.Preconditions;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 
 import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
+import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.gen.storage.DeduplicatedSnapshot;
 import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.log.SnapshotDeduplicator;
+import org.apache.aurora.scheduler.storage.log.SnapshotDeduplicator.SnapshotDeduplicatorImpl;
 import org.apache.aurora.scheduler.storage.log.SnapshotterImpl;
 import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
 import org.apache.thrift.TException;
+import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -48,6 +58,22 @@ import org.openjdk.jmh.annotations.Warmup;
  * Performance benchmarks for snapshot related operations.
  */
 public class SnapshotBenchmarks {
+  /**
+   * Sizes of a snapshot and of the tasks restored from it, reported by JMH alongside the timings.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class FootprintCounters {
+    public long snapshotBytes;
+    public long taskStoreHeapBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      snapshotBytes = 0;
+      taskStoreHeapBytes = 0;
+    }
+  }
+
   @BenchmarkMode(Mode.Throughput)
   @OutputTimeUnit(TimeUnit.SECONDS)
   @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
@@ -106,4 +132,71 @@ public class SnapshotBenchmarks {
       return storage.write(snapshotStore::from);
     }
   }
+
+  /**
+   * Compares deduplicating snapshots with and without compact task event histories. The size of
+   * the serialized snapshot, and the heap retained by the restored tasks, are reported as
+   * auxiliary counters of {@link #footprint(FootprintCounters)}.
+   */
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @Threads(1)
+  @State(Scope.Thread)
+  public static class DeduplicateTaskEventsBenchmark {
+    private SnapshotDeduplicator deduplicator;
+    private Snapshot snapshot;
+
+    @Param({"10", "100", "1000"})
+    private int eventsPerTask;
+
+    @Param({"false", "true"})
+    private boolean compactTaskEvents;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      deduplicator = new SnapshotDeduplicatorImpl(compactTaskEvents);
+      snapshot = new Snapshot();
+      for (IScheduledTask task : new Tasks.Builder().setNumEvents(eventsPerTask).build(1000)) {
+        snapshot.addToTasks(task.newBuilder());
+      }
+    }
+
+    @Benchmark
+    public DeduplicatedSnapshot run() {
+      return deduplicator.deduplicate(snapshot);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public long footprint(FootprintCounters counters) throws CodingException {
+      counters.snapshotBytes =
+          ThriftBinaryCodec.encodeNonNull(deduplicator.deduplicate(snapshot)).length;
+      counters.taskStoreHeapBytes = taskStoreHeapBytes();
+      return counters.snapshotBytes;
+    }
+
+    private long taskStoreHeapBytes() {
+      Storage storage = MemStorageModule.newEmptyStorage();
+      Set<IScheduledTask> tasks = IScheduledTask.setFromBuilders(snapshot.getTasks());
+      long before = usedHeap();
+      storage.write((NoResult.Quiet) storeProvider ->
+          storeProvider.getUnsafeTaskStore().saveTasks(tasks));
+      long retained = usedHeap() - before;
+      // Reading from the store after measuring keeps it reachable while its heap is measured.
+      Preconditions.checkState(
+          !storage.read(storeProvider -> storeProvider.getTaskStore().getJobKeys()).isEmpty());
+      return retained;
+    }
+
+    private static long usedHeap() {
+      Runtime runtime = Runtime.getRuntime();
+      System.gc();
+      return runtime.totalMemory() - runtime.freeMemory();
+    }
+  }
 }
@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.benchmark;
 
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -158,9 +159,78 @@ public class StateManagerBenchmarks {
     }
   }
 
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 10, time = 30, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class KillTasksBenchmark {
+    private StateManager manager;
+    private Storage storage;
+    private Set<String> taskIds;
+
+    @Param({"10000"})
+    private int numTasksToKill;
+
+    @Param({"false", "true"})
+    private boolean bulk;
+
+    @Setup(Level.Trial)
+    public void setUpStorage() {
+      Injector injector = getInjector();
+      manager = injector.getInstance(StateManager.class);
+      storage = injector.getInstance(Storage.class);
+      storage.prepare();
+    }
+
+    // See DeleteTasksBenchmark for the use of `Invocation`.
+    @Setup(Level.Invocation)
+    public void setUp() {
+      storage.write((Storage.MutateWork.NoResult.Quiet) storeProvider -> {
+        storeProvider.getUnsafeTaskStore().deleteAllTasks();
+        taskIds = bulkInsertTasks(
+            numTasksToKill,
+            ScheduleStatus.RUNNING,
+            storeProvider.getUnsafeTaskStore());
+      });
+    }
+
+    @Benchmark
+    public Set<String> run() {
+      return storage.write((Storage.MutateWork.Quiet<Set<String>>) storeProvider -> {
+        if (bulk) {
+          manager.changeStates(
+              storeProvider,
+              taskIds,
+              Optional.empty(),
+              ScheduleStatus.KILLING,
+              Optional.empty());
+        } else {
+          for (String taskId : taskIds) {
+            manager.changeState(
+                storeProvider,
+                taskId,
+                Optional.empty(),
+                ScheduleStatus.KILLING,
+                Optional.empty());
+          }
+        }
+        return taskIds;
+      });
+    }
+  }
+
   private static Set<String> bulkInsertTasks(int num, TaskStore.Mutable store) {
-    Set<IScheduledTask> tasks =
-        new Tasks.Builder().setScheduleStatus(ScheduleStatus.FINISHED).build(num);
+    return bulkInsertTasks(num, ScheduleStatus.FINISHED, store);
+  }
+
+  private static Set<String> bulkInsertTasks(
+      int num,
+      ScheduleStatus status,
+      TaskStore.Mutable store) {
+
+    Set<IScheduledTask> tasks = new Tasks.Builder().setScheduleStatus(status).build(num);
     store.saveTasks(tasks);
 
     return tasks.stream().map(t -> t.getAssignedTask().getTaskId()).collect(Collectors.toSet());
@@ -180,6 +250,9 @@ public class StateManagerBenchmarks {
             bind(TaskIdGenerator.class).to(TaskIdGenerator.TaskIdGeneratorImpl.class);
             // This is what we want to benchmark
             bind(StateManager.class).to(StateManagerImpl.class);
+            bind(Integer.class)
+                .annotatedWith(StateManagerImpl.MaxTaskEvents.class)
+                .toInstance(100);
             // This is needed for storage
             bind(StatsProvider.class).toInstance(new FakeStatsProvider());
           }
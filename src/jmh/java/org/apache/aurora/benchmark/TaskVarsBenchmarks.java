@@ -0,0 +1,127 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.TaskVars;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-event cost of {@link TaskVars} counter updates during status storms.
+ * <p>
+ * Allocation per event is reported as {@code gc.alloc.rate.norm} by the gc profiler configured
+ * for the jmh task; run against the parent revision for a before/after comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskVarsBenchmarks {
+  private static final int NUM_HOSTS = 1000;
+  private static final int NUM_JOBS = 100;
+  private static final int TASKS_PER_JOB = 10;
+
+  private TaskVars taskVars;
+  private List<TaskStateChange> runningEvents;
+  private List<TaskStateChange> lostEvents;
+  private int index;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Injector injector = Guice.createInjector(
+        new MemStorageModule(),
+        new AbstractModule() {
+          @Override
+          protected void configure() {
+            bind(StatsProvider.class).toInstance(new FakeStatsProvider());
+            bind(Clock.class).toInstance(Clock.SYSTEM_CLOCK);
+          }
+        });
+
+    Storage storage = injector.getInstance(Storage.class);
+    Set<IHostAttributes> hosts = new Hosts.Builder().setNumHostsPerRack(20).build(NUM_HOSTS);
+    storage.write((Storage.MutateWork.NoResult.Quiet) storeProvider -> {
+      for (IHostAttributes attributes : hosts) {
+        storeProvider.getAttributeStore().saveHostAttributes(attributes);
+      }
+    });
+
+    List<IHostAttributes> hostList = ImmutableList.copyOf(hosts);
+    ImmutableList.Builder<TaskStateChange> running = ImmutableList.builder();
+    ImmutableList.Builder<TaskStateChange> lost = ImmutableList.builder();
+    Tasks.Builder builder = new Tasks.Builder();
+    int hostIndex = 0;
+    for (int job = 0; job < NUM_JOBS; job++) {
+      for (IScheduledTask task : builder.setJob("job" + job).build(TASKS_PER_JOB)) {
+        ScheduledTask assigned = task.newBuilder();
+        assigned.getAssignedTask()
+            .setSlaveHost(hostList.get(hostIndex++ % NUM_HOSTS).getHost());
+        running.add(TaskStateChange.transition(
+            IScheduledTask.build(assigned.setStatus(ScheduleStatus.RUNNING)),
+            ScheduleStatus.ASSIGNED));
+        lost.add(TaskStateChange.transition(
+            IScheduledTask.build(assigned.setStatus(ScheduleStatus.LOST)),
+            ScheduleStatus.RUNNING));
+      }
+    }
+    runningEvents = running.build();
+    lostEvents = lost.build();
+
+    taskVars = injector.getInstance(TaskVars.class);
+    taskVars.startAsync().awaitRunning();
+    // Prime counters so that measurements exclude one-time counter creation and export.
+    Iterables.concat(runningEvents, lostEvents).forEach(taskVars::taskChangedState);
+  }
+
+  @Benchmark
+  public void runningTransition() {
+    taskVars.taskChangedState(runningEvents.get(index++ % runningEvents.size()));
+  }
+
+  @Benchmark
+  public void lostTransition() {
+    taskVars.taskChangedState(lostEvents.get(index++ % lostEvents.size()));
+  }
+}
@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.benchmark;
 
+import java.util.List;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableMap;
@@ -57,6 +58,7 @@ final class Tasks {
     private Amount<Long, Data> disk = Amount.of(128L, Data.GB);
     private ScheduleStatus scheduleStatus = ScheduleStatus.PENDING;
     private ImmutableSet.Builder<Constraint> constraints = ImmutableSet.builder();
+    private int numEvents = 2;
 
     private static int uuid = 0;
 
@@ -95,6 +97,11 @@ final class Tasks {
       return this;
     }
 
+    Builder setNumEvents(int newNumEvents) {
+      numEvents = newNumEvents;
+      return this;
+    }
+
     Builder setTier(String newTier) {
       tier = newTier;
       return this;
@@ -119,6 +126,19 @@ final class Tasks {
       return this;
     }
 
+    private List<TaskEvent> makeEvents() {
+      List<TaskEvent> events = Lists.newArrayList(new TaskEvent(0, ScheduleStatus.PENDING));
+      // Intermediate events cycle through a restart, as a flapping task's history would.
+      for (int i = 1; i < numEvents - 1; i++) {
+        ScheduleStatus status = i % 2 == 0 ? ScheduleStatus.RUNNING : ScheduleStatus.KILLING;
+        events.add(new TaskEvent(i, status)
+            .setMessage("Restarting task.")
+            .setScheduler("scheduler.example.com"));
+      }
+      events.add(new TaskEvent(numEvents - 1, scheduleStatus));
+      return events;
+    }
+
     /**
      * Builds a set of {@link IScheduledTask} for the current configuration.
      *
@@ -135,9 +155,7 @@ final class Tasks {
         ScheduledTask builder = TaskTestUtil.makeTask(taskId, IJobKey.build(jobKey))
             .newBuilder()
             .setStatus(scheduleStatus)
-            .setTaskEvents(Lists.newArrayList(
-                new TaskEvent(0, ScheduleStatus.PENDING),
-                new TaskEvent(1, scheduleStatus)));
+            .setTaskEvents(makeEvents());
         builder.getAssignedTask()
             .setInstanceId(i)
             .setTaskId(taskId);
@@ -0,0 +1,100 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.Stats;
+import org.apache.aurora.common.stats.TimeSeriesRepositoryImpl;
+import org.apache.aurora.common.util.BuildInfo;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of sampling and reading {@link TimeSeriesRepositoryImpl} with 100,000 exported stats.
+ * <p>
+ * The retention period is kept short to bound the heap needed for retained samples, and the
+ * retained samples are filled before measuring, so that sampling overwrites samples as it does
+ * in steady state. Allocation per sample is reported as {@code gc.alloc.rate.norm} by the gc
+ * profiler configured for the jmh task.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeSeriesRepositoryBenchmarks {
+  private static final int SERIES = 100000;
+  private static final Amount<Long, Time> SAMPLE_PERIOD = Amount.of(1L, Time.SECONDS);
+  private static final Amount<Long, Time> RETENTION_PERIOD = Amount.of(5L, Time.MINUTES);
+
+  private FakeClock clock;
+  private TimeSeriesRepositoryImpl repository;
+  private AtomicLong[] counters;
+  private int nextSeries;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    counters = new AtomicLong[SERIES];
+    for (int i = 0; i < SERIES; i++) {
+      counters[i] = Stats.exportLong(seriesName(i));
+    }
+
+    clock = new FakeClock();
+    repository = new TimeSeriesRepositoryImpl(
+        Stats.STAT_REGISTRY,
+        SAMPLE_PERIOD,
+        RETENTION_PERIOD,
+        new BuildInfo(ImmutableMap.of()));
+    for (long i = 0; i < RETENTION_PERIOD.as(Time.SECONDS); i++) {
+      sample();
+    }
+  }
+
+  private static String seriesName(int i) {
+    return "jmh_time_series_" + i;
+  }
+
+  @Benchmark
+  public void sample() {
+    for (AtomicLong counter : counters) {
+      counter.incrementAndGet();
+    }
+    clock.advance(SAMPLE_PERIOD);
+    repository.runSampler(clock);
+  }
+
+  @Benchmark
+  public int read() {
+    nextSeries = (nextSeries + 1) % SERIES;
+    return Iterables.size(repository.get(seriesName(nextSeries)).getSamples());
+  }
+}
@@ -0,0 +1,170 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ServerInfo;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.http.Utilization;
+import org.apache.aurora.scheduler.stats.ResourceCounter;
+import org.apache.aurora.scheduler.stats.ResourceCounter.MetricType;
+import org.apache.aurora.scheduler.stats.UtilizationRollup;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.IServerInfo;
+import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency benchmarks for the /utilization pages, comparing the incrementally maintained
+ * {@link UtilizationRollup} against a full scan of active tasks through {@link ResourceCounter}.
+ */
+public class UtilizationBenchmarks {
+  private static final int ROLES = 100;
+  private static final int JOBS_PER_ROLE = 10;
+
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  // A million tasks do not fit in the default benchmark heap.
+  @Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+  @State(Scope.Thread)
+  public abstract static class AbstractUtilizationBenchmark {
+    protected Injector injector;
+
+    @Param({"100000", "1000000"})
+    protected int numTasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      injector = Guice.createInjector(
+          new MemStorageModule(),
+          new AbstractModule() {
+            @Override
+            protected void configure() {
+              bind(StatsProvider.class).toInstance(new FakeStatsProvider());
+              bind(Clock.class).toInstance(Clock.SYSTEM_CLOCK);
+              bind(IServerInfo.class).toInstance(IServerInfo.build(new ServerInfo("jmh", "")));
+            }
+          });
+
+      Set<IScheduledTask> tasks = buildTasks(numTasks);
+      injector.getInstance(Storage.class).write((Storage.MutateWork.NoResult.Quiet)
+          storeProvider -> storeProvider.getUnsafeTaskStore().saveTasks(tasks));
+      UtilizationRollup rollup = injector.getInstance(UtilizationRollup.class);
+      for (IScheduledTask task : tasks) {
+        rollup.taskChangedState(TaskStateChange.initialized(task));
+      }
+      setUpBenchmark();
+    }
+
+    protected abstract void setUpBenchmark();
+
+    private static Set<IScheduledTask> buildTasks(int count) {
+      ImmutableSet.Builder<IScheduledTask> tasks = ImmutableSet.builder();
+      Tasks.Builder builder = new Tasks.Builder().setScheduleStatus(ScheduleStatus.RUNNING);
+      int perJob = Math.max(1, count / (ROLES * JOBS_PER_ROLE));
+      for (int role = 0; role < ROLES; role++) {
+        for (int job = 0; job < JOBS_PER_ROLE; job++) {
+          tasks.addAll(builder.setRole("role" + role).setJob("job" + job).build(perJob));
+        }
+      }
+      return tasks.build();
+    }
+  }
+
+  /**
+   * Renders the utilization pages from the maintained rollups.
+   */
+  public static class RollupPageBenchmark extends AbstractUtilizationBenchmark {
+    private Utilization utilization;
+
+    @Override
+    protected void setUpBenchmark() {
+      utilization = injector.getInstance(Utilization.class);
+    }
+
+    @Benchmark
+    public Object cluster() {
+      return utilization.aggregateCluster().getEntity();
+    }
+
+    @Benchmark
+    public Object roles() {
+      return utilization.aggregateRoles("total_consumed").getEntity();
+    }
+
+    @Benchmark
+    public Object jobs() {
+      return utilization.aggregateJobs("total_consumed", "role0").getEntity();
+    }
+  }
+
+  /**
+   * Computes the same aggregates by scanning all active tasks, as the pages previously did.
+   */
+  public static class ScanBenchmark extends AbstractUtilizationBenchmark {
+    private ResourceCounter counter;
+
+    @Override
+    protected void setUpBenchmark() {
+      counter = injector.getInstance(ResourceCounter.class);
+    }
+
+    @Benchmark
+    public Object cluster() {
+      return counter.computeConsumptionTotals();
+    }
+
+    @Benchmark
+    public Object roles() {
+      return counter.computeAggregates(
+          Query.unscoped().active(),
+          MetricType.TOTAL_CONSUMED.filter,
+          task -> task.getJob().getRole());
+    }
+
+    @Benchmark
+    public Object jobs() {
+      return counter.computeAggregates(
+          Query.roleScoped("role0").active(),
+          MetricType.TOTAL_CONSUMED.filter,
+          task -> task.getJob().getName());
+    }
+  }
+}
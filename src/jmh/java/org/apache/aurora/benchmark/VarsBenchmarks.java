@@ -0,0 +1,92 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.google.common.io.ByteStreams;
+
+import org.apache.aurora.common.net.http.handlers.VarsHandler;
+import org.apache.aurora.common.net.http.handlers.VarsJsonHandler;
+import org.apache.aurora.common.stats.Stats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of scraping {@link VarsHandler} and {@link VarsJsonHandler} with 200,000 exported stats.
+ * <p>
+ * Responses are written to a stream that discards them, so allocation per scrape is reported by
+ * the gc profiler configured for the jmh task.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VarsBenchmarks {
+  private static final int STATS = 200000;
+  private static final int JOBS = 1000;
+
+  private VarsHandler vars;
+  private VarsJsonHandler varsJson;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    // Mimics per-job stats, which make up most stats on a large cluster.
+    for (int i = 0; i < STATS; i++) {
+      Stats.exportLong("sla_role_" + (i % JOBS) + "/env/job_" + i + "_platform_uptime")
+          .set(i);
+    }
+    vars = new VarsHandler(Stats::getVariables);
+    varsJson = new VarsJsonHandler(Stats::getVariables);
+  }
+
+  private static void scrape(Response response) throws IOException {
+    ((StreamingOutput) response.getEntity()).write(ByteStreams.nullOutputStream());
+  }
+
+  @Benchmark
+  public void vars() throws IOException {
+    scrape(vars.getVars(null, null, null));
+  }
+
+  @Benchmark
+  public void varsPrometheus() throws IOException {
+    scrape(vars.getVars(null, null, "prometheus"));
+  }
+
+  @Benchmark
+  public void varsPrefix() throws IOException {
+    scrape(vars.getVars("sla_role_1/", null, null));
+  }
+
+  @Benchmark
+  public void varsJson() throws IOException {
+    scrape(varsJson.getVars(false, null, null));
+  }
+}
@@ -14,6 +14,7 @@
 package org.apache.aurora.benchmark.fakes;
 
 import java.util.Collection;
+import java.util.Set;
 
 import com.google.common.util.concurrent.AbstractIdleService;
 
@@ -47,6 +48,11 @@ public class FakeDriver extends AbstractIdleService implements Driver {
     // no-op
   }
 
+  @Override
+  public void killTasks(Set<String> taskIds) {
+    // no-op
+  }
+
   @Override
   public void acknowledgeStatusUpdate(Protos.TaskStatus status) {
     // no-op
@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.benchmark.fakes;
 
+import java.util.List;
 import java.util.Optional;
 
 import com.google.common.collect.ImmutableList;
@@ -41,7 +42,9 @@ public class FakeOfferManager implements OfferManager {
   }
 
   @Override
-  public void launchTask(Protos.OfferID offerId, Protos.TaskInfo taskInfo) throws LaunchException {
+  public void launchTasks(Protos.OfferID offerId, List<Protos.TaskInfo> taskInfos)
+      throws LaunchException {
+
     // no-op
   }
 
@@ -50,6 +53,11 @@ public class FakeOfferManager implements OfferManager {
     // no-op
   }
 
+  @Override
+  public void agentLost(PubsubEvent.AgentLost event) {
+    // no-op
+  }
+
   @Override
   public Optional<HostOffer> get(Protos.AgentID agentId) {
     return Optional.empty();
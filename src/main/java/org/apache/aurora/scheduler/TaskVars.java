@@ -13,16 +13,15 @@
  */
 package org.apache.aurora.scheduler;
 
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.StreamSupport;
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
-import com.google.common.base.Predicate;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.cache.CacheBuilder;
@@ -31,6 +30,7 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.AbstractIdleService;
 
@@ -46,6 +46,7 @@ import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoType;
 import org.apache.aurora.scheduler.storage.AttributeStore;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.entities.IAttribute;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +55,9 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * A container that tracks and exports stat counters for tasks.
+ * <p>
+ * Counters touched on every state change are resolved by status ordinal or by their raw key (job,
+ * rack, dedicated role), so that stat names are only built once when a counter is first created.
  */
 public class TaskVars extends AbstractIdleService implements EventSubscriber {
   private static final Logger LOG = LoggerFactory.getLogger(TaskVars.class);
@@ -76,8 +80,11 @@ public class TaskVars extends AbstractIdleService implements EventSubscriber {
       VetoType.MAINTENANCE, "scheduling_veto_maintenance"
   );
 
+  private final Counter[] statusCounters;
   private final LoadingCache<String, Counter> counters;
-  private final LoadingCache<String, Counter> untrackedCounters;
+  private final LoadingCache<String, Counter> rackCounters;
+  private final LoadingCache<String, Counter> dedicatedCounters;
+  private final Map<ScheduleStatus, LoadingCache<IJobKey, Counter>> jobCounters;
   private final Storage storage;
   private volatile boolean exporting = false;
 
@@ -85,17 +92,33 @@ public class TaskVars extends AbstractIdleService implements EventSubscriber {
   TaskVars(Storage storage, final StatsProvider statProvider) {
     this.storage = requireNonNull(storage);
     requireNonNull(statProvider);
-    counters = buildCache(statProvider);
-    untrackedCounters = buildCache(statProvider.untracked());
+    StatsProvider untracked = statProvider.untracked();
+
+    statusCounters = new Counter[ScheduleStatus.values().length];
+    for (ScheduleStatus status : ScheduleStatus.values()) {
+      statusCounters[status.ordinal()] = new Counter(statProvider, getVarName(status));
+    }
+    counters = buildCache(statProvider, name -> name);
+    rackCounters = buildCache(statProvider, TaskVars::rackStatName);
+    dedicatedCounters = buildCache(statProvider, TaskVars::dedicatedRoleStatName);
+
+    Map<ScheduleStatus, LoadingCache<IJobKey, Counter>> jobs = new EnumMap<>(ScheduleStatus.class);
+    for (ScheduleStatus status : TRACKED_JOB_STATES) {
+      jobs.put(status, buildCache(untracked, job -> jobStatName(job, status)));
+    }
+    jobCounters = Maps.immutableEnumMap(jobs);
   }
 
-  private LoadingCache<String, Counter> buildCache(final StatsProvider provider) {
-    return CacheBuilder.newBuilder().build(new CacheLoader<String, Counter>() {
+  private <K> LoadingCache<K, Counter> buildCache(
+      final StatsProvider provider,
+      final Function<K, String> statName) {
+
+    return CacheBuilder.newBuilder().build(new CacheLoader<K, Counter>() {
       @Override
-      public Counter load(String statName) {
-        Counter counter = new Counter(provider);
+      public Counter load(K key) {
+        Counter counter = new Counter(provider, statName.apply(key));
         if (exporting) {
-          counter.exportAs(statName);
+          counter.export();
         }
         return counter;
       }
@@ -119,86 +142,60 @@ public class TaskVars extends AbstractIdleService implements EventSubscriber {
 
   @VisibleForTesting
   static String jobStatName(IScheduledTask task, ScheduleStatus status) {
-    return String.format(
-        "tasks_%s_%s",
-        status,
-        JobKeys.canonicalString(task.getAssignedTask().getTask().getJob()));
-  }
-
-  private static final Predicate<IAttribute> IS_RACK = attr -> "rack".equals(attr.getName());
-
-  private static final Function<IAttribute, String> ATTR_VALUE =
-      attr -> Iterables.getOnlyElement(attr.getValues());
-
-  private Counter getCounter(ScheduleStatus status) {
-    return counters.getUnchecked(getVarName(status));
+    return jobStatName(task.getAssignedTask().getTask().getJob(), status);
   }
 
-  private void incrementCount(ScheduleStatus status) {
-    getCounter(status).increment();
+  private static String jobStatName(IJobKey job, ScheduleStatus status) {
+    return String.format("tasks_%s_%s", status, JobKeys.canonicalString(job));
   }
 
-  private void decrementCount(ScheduleStatus status) {
-    getCounter(status).decrement();
+  private Counter getCounter(ScheduleStatus status) {
+    return statusCounters[status.ordinal()];
   }
 
-  private void updateRackCounters(IScheduledTask task, ScheduleStatus newState) {
+  private void updateHostCounters(IScheduledTask task, ScheduleStatus newState) {
     final String host = task.getAssignedTask().getSlaveHost();
-    Optional<String> rack;
-    if (Strings.isNullOrEmpty(task.getAssignedTask().getSlaveHost())) {
-      rack = Optional.empty();
-    } else {
-      rack = storage.read(storeProvider ->
-          StreamSupport.stream(
-              AttributeStore.Util.attributesOrNone(storeProvider, host).spliterator(),
-              false)
-            .filter(IS_RACK)
-            .findFirst()
-            .map(ATTR_VALUE));
-    }
-
-    // Always dummy-read the lost-tasks-per-rack stat. This ensures that there is at least a zero
-    // exported for all racks.
-    rack.ifPresent(s -> counters.getUnchecked(rackStatName(s)));
-
-    if (newState == ScheduleStatus.LOST) {
-      if (rack.isPresent()) {
-        counters.getUnchecked(rackStatName(rack.get())).increment();
-      } else {
-        LOG.warn("Failed to find rack attribute associated with host " + host);
+    String rack = null;
+    Set<String> dedicatedRoles = ImmutableSet.of();
+    if (!Strings.isNullOrEmpty(host)) {
+      // A single pass over the host attributes serves both the rack and dedicated counters.
+      Iterable<IAttribute> attributes =
+          storage.read(storeProvider -> AttributeStore.Util.attributesOrNone(storeProvider, host));
+      boolean foundDedicated = false;
+      for (IAttribute attr : attributes) {
+        if (rack == null && "rack".equals(attr.getName())) {
+          rack = Iterables.getOnlyElement(attr.getValues());
+        } else if (!foundDedicated && "dedicated".equals(attr.getName())) {
+          dedicatedRoles = attr.getValues();
+          foundDedicated = true;
+        }
       }
     }
-  }
 
-  private void updateDedicatedCounters(IScheduledTask task, ScheduleStatus newState) {
-    final String host = task.getAssignedTask().getSlaveHost();
-    ImmutableSet<String> dedicatedRoles;
-    if (Strings.isNullOrEmpty(host)) {
-      dedicatedRoles = ImmutableSet.of();
-    } else {
-      dedicatedRoles = storage.read(store ->
-          StreamSupport.stream(
-                AttributeStore.Util.attributesOrNone(store, host).spliterator(),
-                false)
-              .filter(attr -> "dedicated".equals(attr.getName()))
-              .findFirst()
-              .map(IAttribute::getValues)
-              .orElse(ImmutableSet.of())
-      );
+    // Always dummy-read the lost-tasks-per-rack and lost-tasks-per-role stats. This ensures that
+    // there is at least a zero exported for all racks and roles.
+    boolean lost = newState == ScheduleStatus.LOST;
+    if (rack != null) {
+      Counter rackCounter = rackCounters.getUnchecked(rack);
+      if (lost) {
+        rackCounter.increment();
+      }
+    } else if (lost) {
+      LOG.warn("Failed to find rack attribute associated with host " + host);
     }
 
-    // Always dummy-read the lost-tasks-per-role stat. This ensures that there is at least a zero
-    // exported for all roles.
-    dedicatedRoles.forEach(s -> counters.getUnchecked(dedicatedRoleStatName(s)));
-
-    if (newState == ScheduleStatus.LOST) {
-      dedicatedRoles.forEach(s -> counters.getUnchecked(dedicatedRoleStatName(s)).increment());
+    for (String role : dedicatedRoles) {
+      Counter roleCounter = dedicatedCounters.getUnchecked(role);
+      if (lost) {
+        roleCounter.increment();
+      }
     }
   }
 
   private void updateJobCounters(IScheduledTask task, ScheduleStatus newState) {
-    if (TRACKED_JOB_STATES.contains(newState)) {
-      untrackedCounters.getUnchecked(jobStatName(task, newState)).increment();
+    LoadingCache<IJobKey, Counter> byJob = jobCounters.get(newState);
+    if (byJob != null) {
+      byJob.getUnchecked(task.getAssignedTask().getTask().getJob()).increment();
     }
   }
 
@@ -207,27 +204,29 @@ public class TaskVars extends AbstractIdleService implements EventSubscriber {
     IScheduledTask task = stateChange.getTask();
     Optional<ScheduleStatus> previousState = stateChange.getOldState();
 
-    if (stateChange.isTransition() && !previousState.equals(Optional.of(ScheduleStatus.INIT))) {
-      decrementCount(previousState.get());
+    if (previousState.isPresent() && previousState.get() != ScheduleStatus.INIT) {
+      getCounter(previousState.get()).decrement();
     }
-    incrementCount(task.getStatus());
+    getCounter(task.getStatus()).increment();
 
-    updateRackCounters(task, task.getStatus());
+    updateHostCounters(task, task.getStatus());
     updateJobCounters(task, task.getStatus());
-    updateDedicatedCounters(task, task.getStatus());
   }
 
   @Override
   protected void startUp() {
-    // Dummy read the counter for each status counter. This is important to guarantee a stat with
-    // value zero is present for each state, even if all states are not represented in the task
-    // store.
-    for (ScheduleStatus status : ScheduleStatus.values()) {
-      getCounter(status);
+    // Initiate export of all counters.  This is not done initially to avoid exporting values that
+    // do not represent the entire storage contents.  Every status counter is exported, which
+    // guarantees a stat with value zero is present for each state, even if all states are not
+    // represented in the task store.
+    exporting = true;
+    for (Counter counter : statusCounters) {
+      counter.export();
     }
-
-    exportCounters(counters.asMap());
-    exportCounters(untrackedCounters.asMap());
+    exportCounters(counters);
+    exportCounters(rackCounters);
+    exportCounters(dedicatedCounters);
+    jobCounters.values().forEach(TaskVars::exportCounters);
   }
 
   @Override
@@ -235,19 +234,16 @@ public class TaskVars extends AbstractIdleService implements EventSubscriber {
     // Ignored. VM shutdown is required to stop exporting task vars.
   }
 
-  private void exportCounters(Map<String, Counter> counterMap) {
-    // Initiate export of all counters.  This is not done initially to avoid exporting values that
-    // do not represent the entire storage contents.
-    exporting = true;
-    for (Map.Entry<String, Counter> entry : counterMap.entrySet()) {
-      entry.getValue().exportAs(entry.getKey());
+  private static void exportCounters(LoadingCache<?, Counter> cache) {
+    for (Counter counter : cache.asMap().values()) {
+      counter.export();
     }
   }
 
   @Subscribe
   public void tasksDeleted(final TasksDeleted event) {
     for (IScheduledTask task : event.getTasks()) {
-      decrementCount(task.getStatus());
+      getCounter(task.getStatus()).decrement();
     }
   }
 
@@ -265,9 +261,11 @@ public class TaskVars extends AbstractIdleService implements EventSubscriber {
     private final AtomicLong value = new AtomicLong();
     private boolean exported = false;
     private final StatsProvider stats;
+    private final String name;
 
-    Counter(StatsProvider stats) {
+    Counter(StatsProvider stats, String name) {
       this.stats = stats;
+      this.name = name;
     }
 
     @Override
@@ -275,7 +273,7 @@ public class TaskVars extends AbstractIdleService implements EventSubscriber {
       return value.get();
     }
 
-    private synchronized void exportAs(String name) {
+    private synchronized void export() {
       if (!exported) {
         stats.makeGauge(name, this);
         exported = true;
@@ -178,7 +178,8 @@ public class AppModule extends AbstractModule {
         .to(SchedulingFilterImpl.class);
     bind(SchedulingFilterImpl.class).in(Singleton.class);
 
-    install(new PubsubEventModule());
+    install(new PubsubEventModule(options.events));
+    PubsubEventModule.bindSubscriber(binder(), SchedulingFilterImpl.class);
     install(new AsyncModule(options.async));
     install(new OfferManagerModule(options));
     install(new PruningModule(options.pruning));
@@ -186,7 +187,7 @@ public class AppModule extends AbstractModule {
     install(new SchedulingModule(options.scheduling));
     install(new AsyncStatsModule(options.asyncStats));
     install(new MetadataModule());
-    install(new QuotaModule());
+    install(new QuotaModule(options.quota));
     install(new JettyServerModule(options));
     install(new PreemptorModule(options));
     install(new SchedulerDriverModule(kind));
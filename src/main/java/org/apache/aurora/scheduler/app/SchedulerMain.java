@@ -251,7 +251,7 @@ public class SchedulerMain {
         .add(
             new CommandLineDriverSettingsModule(options.driver, options.main.allowGpuResource),
             new LibMesosLoadingModule(options.main.driverImpl),
-            new DurableStorageModule(),
+            new DurableStorageModule(options.durableStorage),
             new MesosLogStreamModule(options.mesosLog, FlaggedZooKeeperConfig.create(options.zk)),
             new LogPersistenceModule(options.logPersistence),
             new SnapshotModule(options.snapshot),
@@ -28,6 +28,7 @@ import org.apache.aurora.scheduler.async.AsyncModule;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorModule;
 import org.apache.aurora.scheduler.cron.quartz.CronModule;
 import org.apache.aurora.scheduler.discovery.FlaggedZooKeeperConfig;
+import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.events.WebhookModule;
 import org.apache.aurora.scheduler.http.JettyServerModule;
 import org.apache.aurora.scheduler.http.api.ApiModule;
@@ -40,6 +41,7 @@ import org.apache.aurora.scheduler.mesos.CommandLineDriverSettingsModule;
 import org.apache.aurora.scheduler.offers.OfferManagerModule;
 import org.apache.aurora.scheduler.preemptor.PreemptorModule;
 import org.apache.aurora.scheduler.pruning.PruningModule;
+import org.apache.aurora.scheduler.quota.QuotaModule;
 import org.apache.aurora.scheduler.reconciliation.ReconciliationModule;
 import org.apache.aurora.scheduler.resources.ResourceSettings;
 import org.apache.aurora.scheduler.scheduling.SchedulingModule;
@@ -48,6 +50,7 @@ import org.apache.aurora.scheduler.state.StateModule;
 import org.apache.aurora.scheduler.stats.AsyncStatsModule;
 import org.apache.aurora.scheduler.stats.StatsModule;
 import org.apache.aurora.scheduler.storage.backup.BackupModule;
+import org.apache.aurora.scheduler.storage.durability.DurableStorageModule;
 import org.apache.aurora.scheduler.storage.log.LogPersistenceModule;
 import org.apache.aurora.scheduler.storage.log.SnapshotModule;
 import org.apache.aurora.scheduler.thrift.aop.AopModule;
@@ -66,6 +69,7 @@ public class CliOptions {
   public final UpdaterModule.Options updater = new UpdaterModule.Options();
   public final StateModule.Options state = new StateModule.Options();
   public final LogPersistenceModule.Options logPersistence = new LogPersistenceModule.Options();
+  public final DurableStorageModule.Options durableStorage = new DurableStorageModule.Options();
   public final SnapshotModule.Options snapshot = new SnapshotModule.Options();
   public final BackupModule.Options backup = new BackupModule.Options();
   public final AopModule.Options aop = new AopModule.Options();
@@ -81,6 +85,7 @@ public class CliOptions {
   public final MesosLogStreamModule.Options mesosLog = new MesosLogStreamModule.Options();
   public final SlaModule.Options sla = new SlaModule.Options();
   public final WebhookModule.Options webhook = new WebhookModule.Options();
+  public final PubsubEventModule.Options events = new PubsubEventModule.Options();
   public final SchedulerModule.Options scheduler = new SchedulerModule.Options();
   public final TierModule.Options tiers = new TierModule.Options();
   public final AsyncStatsModule.Options asyncStats = new AsyncStatsModule.Options();
@@ -88,6 +93,7 @@ public class CliOptions {
   public final CronModule.Options cron = new CronModule.Options();
   public final ResourceSettings resourceSettings = new ResourceSettings();
   public final MaintenanceModule.Options maintenance = new MaintenanceModule.Options();
+  public final QuotaModule.Options quota = new QuotaModule.Options();
   final List<Object> custom;
 
   public CliOptions() {
@@ -0,0 +1,91 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+
+/**
+ * Fires triggers on the schedules of cron jobs.
+ * <p>
+ * An engine holds no persistent state; the schedules of all cron jobs in storage are registered
+ * with it each time it starts.
+ */
+public interface CronEngine {
+  /**
+   * Starts firing triggers.
+   *
+   * @throws CronException If the engine could not be started.
+   */
+  void start() throws CronException;
+
+  /**
+   * Stops firing triggers.
+   *
+   * @throws CronException If the engine could not be stopped.
+   */
+  void shutdown() throws CronException;
+
+  /**
+   * Registers the schedule of a job.
+   *
+   * @param jobKey Job to trigger.
+   * @param crontabEntry Schedule to trigger the job on.
+   * @throws CronException If the job is already scheduled, or the schedule never fires.
+   */
+  void scheduleJob(IJobKey jobKey, CrontabEntry crontabEntry) throws CronException;
+
+  /**
+   * Removes the schedule of a job.
+   *
+   * @param jobKey Job to stop triggering.
+   * @throws CronException If the schedule could not be removed.
+   */
+  void descheduleJob(IJobKey jobKey) throws CronException;
+
+  /**
+   * Triggers a scheduled job immediately, outside of its schedule.
+   *
+   * @param jobKey Job to trigger.
+   * @throws CronException If the job could not be triggered.
+   */
+  void triggerJob(IJobKey jobKey) throws CronException;
+
+  /**
+   * Gets the schedule of a job.
+   *
+   * @param jobKey Job to get the schedule of.
+   * @return The schedule of the job, if it is scheduled.
+   */
+  Optional<CrontabEntry> getSchedule(IJobKey jobKey);
+
+  /**
+   * Gets the schedules of all scheduled jobs.
+   *
+   * @return Schedules of all scheduled jobs.
+   */
+  Map<IJobKey, CrontabEntry> getScheduledJobs();
+
+  /**
+   * Computes the time a schedule next fires after a given time, as this engine would fire it.
+   *
+   * @param crontabEntry Schedule to compute the fire time of.
+   * @param afterMs Time to compute the next fire time after, in epoch milliseconds.
+   * @return The next fire time, in epoch milliseconds, or empty if the schedule never fires.
+   */
+  OptionalLong nextFireTimeAfter(CrontabEntry crontabEntry, long afterMs);
+}
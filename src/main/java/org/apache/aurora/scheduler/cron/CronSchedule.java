@@ -0,0 +1,153 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.OptionalLong;
+import java.util.TimeZone;
+
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link CrontabEntry} compiled for computing fire times.
+ * <p>
+ * Each field of the entry is expanded into a bit set, so that the next fire time is found by
+ * skipping directly to the next matching month, day, hour and minute rather than by testing
+ * every minute. Schedules fire at the start of a minute in the given time zone. A local time
+ * skipped by a daylight saving transition fires at the equivalent instant after the transition,
+ * and a local time repeated by a transition fires once, at its earlier instant.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+public final class CronSchedule {
+  // Every combination of months and days of the month that exists recurs within 8 years.
+  private static final int SEARCH_YEARS = 10;
+
+  private final CrontabEntry entry;
+  private final ZoneId zone;
+  private final BitSet minutes;
+  private final BitSet hours;
+  private final BitSet daysOfMonth;
+  private final BitSet months;
+  private final BitSet daysOfWeek;
+  private final boolean anyDay;
+
+  private CronSchedule(CrontabEntry entry, ZoneId zone) {
+    this.entry = requireNonNull(entry);
+    this.zone = requireNonNull(zone);
+    this.minutes = toBitSet(entry.getMinute());
+    this.hours = toBitSet(entry.getHour());
+    this.daysOfMonth = toBitSet(entry.getDayOfMonth());
+    this.months = toBitSet(entry.getMonth());
+    this.daysOfWeek = toBitSet(entry.getDayOfWeek());
+    this.anyDay = entry.hasWildcardDayOfMonth() && entry.hasWildcardDayOfWeek();
+  }
+
+  /**
+   * Compiles a crontab entry.
+   *
+   * @param entry Entry to compile.
+   * @param timeZone Time zone the entry is interpreted in.
+   * @return The compiled schedule.
+   */
+  public static CronSchedule of(CrontabEntry entry, TimeZone timeZone) {
+    return new CronSchedule(entry, timeZone.toZoneId());
+  }
+
+  private static BitSet toBitSet(RangeSet<Integer> field) {
+    BitSet bits = new BitSet();
+    for (Range<Integer> range : field.asRanges()) {
+      for (int value : ContiguousSet.create(range, DiscreteDomain.integers())) {
+        bits.set(value);
+      }
+    }
+    return bits;
+  }
+
+  public CrontabEntry getEntry() {
+    return entry;
+  }
+
+  private boolean matchesDay(LocalDateTime time) {
+    if (anyDay) {
+      return true;
+    }
+    // A CrontabEntry never restricts both the day of the month and the day of the week.
+    return entry.hasWildcardDayOfWeek()
+        ? daysOfMonth.get(time.getDayOfMonth())
+        : daysOfWeek.get(time.getDayOfWeek().getValue() % 7);
+  }
+
+  /**
+   * Computes the first fire time strictly after a given time.
+   *
+   * @param afterMs Time to search from, in milliseconds since the epoch.
+   * @return The next fire time in milliseconds since the epoch, or absent if the schedule does
+   *     not fire in the foreseeable future.
+   */
+  public OptionalLong nextFireTimeAfter(long afterMs) {
+    LocalDateTime time = Instant.ofEpochMilli(afterMs).atZone(zone).toLocalDateTime()
+        .truncatedTo(ChronoUnit.MINUTES)
+        .plusMinutes(1);
+    int lastYear = time.getYear() + SEARCH_YEARS;
+    while (time.getYear() <= lastYear) {
+      int month = months.nextSetBit(time.getMonthValue());
+      if (month < 0) {
+        time = LocalDateTime.of(time.getYear() + 1, 1, 1, 0, 0);
+        continue;
+      }
+      if (month != time.getMonthValue()) {
+        time = LocalDateTime.of(time.getYear(), month, 1, 0, 0);
+      }
+
+      if (!matchesDay(time)) {
+        time = time.toLocalDate().plusDays(1).atStartOfDay();
+        continue;
+      }
+
+      int hour = hours.nextSetBit(time.getHour());
+      if (hour < 0) {
+        time = time.toLocalDate().plusDays(1).atStartOfDay();
+        continue;
+      }
+      if (hour != time.getHour()) {
+        time = time.withHour(hour).withMinute(0);
+      }
+
+      int minute = minutes.nextSetBit(time.getMinute());
+      if (minute < 0) {
+        time = time.withMinute(0).plusHours(1);
+        continue;
+      }
+      time = time.withMinute(minute);
+
+      long fireTimeMs = time.atZone(zone).toInstant().toEpochMilli();
+      if (fireTimeMs > afterMs) {
+        return OptionalLong.of(fireTimeMs);
+      }
+      // The local time maps to an earlier instant, when repeated by a daylight saving transition.
+      time = time.plusMinutes(1);
+    }
+    return OptionalLong.empty();
+  }
+}
@@ -150,19 +150,19 @@ public final class CrontabEntry {
     return new CrontabEntry(minute, hour, dayOfMonth, month, dayOfWeek);
   }
 
-  private RangeSet<Integer> getMinute() {
+  RangeSet<Integer> getMinute() {
     return minute;
   }
 
-  private RangeSet<Integer> getHour() {
+  RangeSet<Integer> getHour() {
     return hour;
   }
 
-  private RangeSet<Integer> getDayOfMonth() {
+  RangeSet<Integer> getDayOfMonth() {
     return dayOfMonth;
   }
 
-  private RangeSet<Integer> getMonth() {
+  RangeSet<Integer> getMonth() {
     return month;
   }
 
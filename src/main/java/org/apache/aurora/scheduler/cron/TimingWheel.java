@@ -0,0 +1,180 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A hierarchical timing wheel, which expires items at their deadlines with constant time inserts
+ * and removals regardless of how many items are pending or how far away their deadlines are.
+ * <p>
+ * Time is divided into ticks. The first level of the wheel has one slot per tick, and each
+ * further level has one slot per full rotation of the level below it. An item is kept at the
+ * lowest level whose current rotation contains its deadline, and moves down a level each time
+ * the wheel reaches the slot holding it, until it expires. Levels are added as needed to hold
+ * distant deadlines.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> Type of item held in the wheel. Items are compared by equality, and an item may be
+ *     held at most once.
+ */
+public final class TimingWheel<T> {
+  private final long tickMs;
+  private final int bits;
+  private final int mask;
+  private final List<List<Set<T>>> levels = new ArrayList<>();
+  private final Map<T, Slot<T>> slots = Maps.newHashMap();
+  private long currentTick;
+
+  /**
+   * Creates an empty wheel.
+   *
+   * @param tickMs Resolution of the wheel, in milliseconds.
+   * @param bits Base two logarithm of the number of slots in each level.
+   * @param nowMs Time to start the wheel at, in milliseconds since the epoch.
+   */
+  public TimingWheel(long tickMs, int bits, long nowMs) {
+    checkArgument(tickMs > 0, "Tick must be positive.");
+    checkArgument(bits > 0 && bits < 16, "Levels must have between 2 and 2^15 slots.");
+    this.tickMs = tickMs;
+    this.bits = bits;
+    this.mask = (1 << bits) - 1;
+    this.currentTick = nowMs / tickMs;
+  }
+
+  private static final class Slot<T> {
+    final Set<T> items;
+    final long tick;
+
+    Slot(Set<T> items, long tick) {
+      this.items = items;
+      this.tick = tick;
+    }
+  }
+
+  private List<Set<T>> level(int level) {
+    while (levels.size() <= level) {
+      List<Set<T>> slotsOfLevel = new ArrayList<>(1 << bits);
+      for (int i = 0; i <= mask; i++) {
+        slotsOfLevel.add(new LinkedHashSet<>());
+      }
+      levels.add(slotsOfLevel);
+    }
+    return levels.get(level);
+  }
+
+  private void place(T item, long tick) {
+    // The lowest level at which the item's tick and the current tick are in the same rotation.
+    int level = 0;
+    while (bits * (level + 1) < Long.SIZE
+        && (tick >>> (bits * (level + 1))) != (currentTick >>> (bits * (level + 1)))) {
+
+      level++;
+    }
+    Set<T> items = level(level).get((int) (tick >>> (bits * level)) & mask);
+    items.add(item);
+    slots.put(item, new Slot<>(items, tick));
+  }
+
+  /**
+   * Adds an item to the wheel. Items with deadlines that have already passed expire on the next
+   * tick.
+   *
+   * @param item Item to add, which must not already be in the wheel.
+   * @param deadlineMs Time at which the item expires, in milliseconds since the epoch. The item
+   *     expires on the first tick at or after its deadline.
+   */
+  public void add(T item, long deadlineMs) {
+    checkArgument(!slots.containsKey(item), "Item is already in the wheel.");
+    long tick = Math.max((deadlineMs + tickMs - 1) / tickMs, currentTick + 1);
+    place(item, tick);
+  }
+
+  /**
+   * Removes an item from the wheel.
+   *
+   * @param item Item to remove.
+   * @return {@code true} if the item was in the wheel.
+   */
+  public boolean remove(T item) {
+    Slot<T> slot = slots.remove(item);
+    if (slot == null) {
+      return false;
+    }
+    slot.items.remove(item);
+    return true;
+  }
+
+  /**
+   * Gets the number of items in the wheel.
+   *
+   * @return Number of items that have not yet expired.
+   */
+  public int size() {
+    return slots.size();
+  }
+
+  /**
+   * Advances the wheel, expiring all items with deadlines up to the given time in deadline
+   * order. Expired items are removed from the wheel before they are passed to the consumer, so
+   * the consumer may add them again.
+   *
+   * @param nowMs Time to advance the wheel to, in milliseconds since the epoch.
+   * @param expired Consumer of expired items.
+   */
+  public void advanceTo(long nowMs, Consumer<T> expired) {
+    long targetTick = nowMs / tickMs;
+    while (currentTick < targetTick) {
+      if (slots.isEmpty()) {
+        currentTick = targetTick;
+        return;
+      }
+
+      currentTick++;
+      // Move items down from each level whose slot the wheel has just reached.
+      for (int level = levels.size() - 1; level > 0; level--) {
+        if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+          Set<T> items = levels.get(level).get((int) (currentTick >>> (bits * level)) & mask);
+          if (!items.isEmpty()) {
+            List<T> cascaded = new ArrayList<>(items);
+            items.clear();
+            for (T item : cascaded) {
+              place(item, slots.get(item).tick);
+            }
+          }
+        }
+      }
+
+      Set<T> items = level(0).get((int) currentTick & mask);
+      if (!items.isEmpty()) {
+        List<T> due = new ArrayList<>(items);
+        items.clear();
+        for (T item : due) {
+          slots.remove(item);
+        }
+        due.forEach(expired);
+      }
+    }
+  }
+}
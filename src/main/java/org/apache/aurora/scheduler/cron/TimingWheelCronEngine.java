@@ -0,0 +1,277 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import org.apache.aurora.common.stats.Histogram;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link CronEngine} that fires triggers from an in-process {@link TimingWheel}.
+ * <p>
+ * Each scheduled job is held in the wheel at its next fire time, computed from its crontab entry
+ * by a {@link CronSchedule}, and is added back at its following fire time each time it fires.
+ * Registering a job is therefore a constant time insert, with no job store or trigger objects.
+ * <p>
+ * A trigger that fires more than {@link #MISFIRE_THRESHOLD_MS} after its fire time, because the
+ * engine was stopped or stalled, is counted as a misfire and fires once, skipping any other fire
+ * times that were missed. As with Quartz jobs that disallow concurrent execution, a trigger that
+ * fires while the previous trigger of the same job is still running is queued, and runs when the
+ * previous trigger completes. At most one trigger is queued per job; further triggers are counted
+ * as misfires and coalesced into the queued one.
+ */
+public class TimingWheelCronEngine implements CronEngine {
+  private static final Logger LOG = LoggerFactory.getLogger(TimingWheelCronEngine.class);
+
+  @VisibleForTesting
+  static final long TICK_MS = 1000;
+
+  // Levels of the wheel rotate every 64 seconds, every 68 minutes, every 3 days and so on.
+  private static final int WHEEL_BITS = 6;
+
+  // Matches the default misfire threshold of Quartz.
+  @VisibleForTesting
+  static final long MISFIRE_THRESHOLD_MS = 60000;
+
+  @VisibleForTesting
+  static final String CRON_TRIGGER_LATENCY = "cron_trigger_latency_ms";
+  @VisibleForTesting
+  static final String CRON_TRIGGER_MISFIRES = "cron_trigger_misfires";
+
+  /**
+   * Action run each time a scheduled job fires.
+   */
+  public interface Trigger {
+    /**
+     * Runs a job.
+     *
+     * @param key Job to run.
+     * @param fireTimeMs Time the job was scheduled to fire, in epoch milliseconds.
+     * @param jobData Data kept for the job across runs.
+     * @throws CronException If the job could not be run.
+     */
+    void fire(IJobKey key, long fireTimeMs, Map<String, Object> jobData) throws CronException;
+  }
+
+  private final Trigger trigger;
+  private final TimeZone timeZone;
+  private final Clock clock;
+  private final ScheduledExecutorService ticker;
+  private final ExecutorService workers;
+  private final Histogram triggerLatency;
+  private final AtomicLong misfires;
+  private final Map<IJobKey, Entry> entries = new ConcurrentHashMap<>();
+  private final TimingWheel<Entry> wheel;
+
+  public TimingWheelCronEngine(
+      Trigger trigger,
+      TimeZone timeZone,
+      Clock clock,
+      ScheduledExecutorService ticker,
+      ExecutorService workers,
+      StatsProvider statsProvider) {
+
+    this.trigger = requireNonNull(trigger);
+    this.timeZone = requireNonNull(timeZone);
+    this.clock = requireNonNull(clock);
+    this.ticker = requireNonNull(ticker);
+    this.workers = requireNonNull(workers);
+    this.triggerLatency = statsProvider.makeHistogram(CRON_TRIGGER_LATENCY);
+    this.misfires = statsProvider.makeCounter(CRON_TRIGGER_MISFIRES);
+    this.wheel = new TimingWheel<>(TICK_MS, WHEEL_BITS, clock.nowMillis());
+  }
+
+  private static final class Entry {
+    final IJobKey key;
+    final CronSchedule schedule;
+    final Map<String, Object> jobData = Collections.synchronizedMap(new HashMap<>());
+    // Guarded by the entry.
+    boolean running;
+    // Fire time of a trigger queued behind the running trigger, guarded by the entry.
+    OptionalLong pendingFireTimeMs = OptionalLong.empty();
+    // Guarded by the wheel.
+    long nextFireTimeMs;
+
+    Entry(IJobKey key, CronSchedule schedule) {
+      this.key = key;
+      this.schedule = schedule;
+    }
+  }
+
+  @Override
+  public void start() {
+    LOG.info("Starting timing wheel cron engine with {} jobs.", entries.size());
+    long nowMs = clock.nowMillis();
+    ticker.scheduleAtFixedRate(
+        this::tick,
+        TICK_MS - nowMs % TICK_MS,
+        TICK_MS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void shutdown() {
+    ticker.shutdownNow();
+    workers.shutdownNow();
+  }
+
+  @Override
+  public void scheduleJob(IJobKey jobKey, CrontabEntry crontabEntry) throws CronException {
+    CronSchedule schedule = schedule(crontabEntry);
+    OptionalLong nextFireTimeMs = schedule.nextFireTimeAfter(clock.nowMillis());
+    if (!nextFireTimeMs.isPresent()) {
+      throw new CronException("Schedule " + crontabEntry + " will never fire.");
+    }
+
+    Entry entry = new Entry(jobKey, schedule);
+    if (entries.putIfAbsent(jobKey, entry) != null) {
+      throw new CronException(JobKeys.canonicalString(jobKey) + " is already scheduled.");
+    }
+    synchronized (wheel) {
+      entry.nextFireTimeMs = nextFireTimeMs.getAsLong();
+      wheel.add(entry, entry.nextFireTimeMs);
+    }
+  }
+
+  @Override
+  public void descheduleJob(IJobKey jobKey) {
+    Entry entry = entries.remove(jobKey);
+    if (entry != null) {
+      synchronized (wheel) {
+        wheel.remove(entry);
+      }
+    }
+  }
+
+  @Override
+  public void triggerJob(IJobKey jobKey) throws CronException {
+    Entry entry = entries.get(jobKey);
+    if (entry == null) {
+      throw new CronException(JobKeys.canonicalString(jobKey) + " is not scheduled.");
+    }
+    run(entry, clock.nowMillis());
+  }
+
+  @Override
+  public Optional<CrontabEntry> getSchedule(IJobKey jobKey) {
+    return Optional.ofNullable(entries.get(jobKey)).map(entry -> entry.schedule.getEntry());
+  }
+
+  @Override
+  public Map<IJobKey, CrontabEntry> getScheduledJobs() {
+    return ImmutableMap.copyOf(Maps.transformValues(entries, entry -> entry.schedule.getEntry()));
+  }
+
+  @Override
+  public OptionalLong nextFireTimeAfter(CrontabEntry crontabEntry, long afterMs) {
+    return schedule(crontabEntry).nextFireTimeAfter(afterMs);
+  }
+
+  private CronSchedule schedule(CrontabEntry crontabEntry) {
+    return CronSchedule.of(crontabEntry, timeZone);
+  }
+
+  @VisibleForTesting
+  void tick() {
+    long nowMs = clock.nowMillis();
+    Map<Entry, Long> fired = Maps.newLinkedHashMap();
+    synchronized (wheel) {
+      wheel.advanceTo(nowMs, entry -> {
+        // Entries removed concurrently with being added may still be in the wheel.
+        if (entries.get(entry.key) != entry) {
+          return;
+        }
+
+        fired.put(entry, entry.nextFireTimeMs);
+        OptionalLong next =
+            entry.schedule.nextFireTimeAfter(Math.max(entry.nextFireTimeMs, nowMs));
+        if (next.isPresent()) {
+          entry.nextFireTimeMs = next.getAsLong();
+          wheel.add(entry, entry.nextFireTimeMs);
+        } else {
+          LOG.warn("Cron {} will no longer fire.", JobKeys.canonicalString(entry.key));
+        }
+      });
+    }
+
+    fired.forEach((entry, fireTimeMs) -> {
+      long latencyMs = nowMs - fireTimeMs;
+      triggerLatency.record(latencyMs);
+      if (latencyMs > MISFIRE_THRESHOLD_MS) {
+        LOG.warn("Cron {} fired {} ms late.", JobKeys.canonicalString(entry.key), latencyMs);
+        misfires.incrementAndGet();
+      }
+      run(entry, fireTimeMs);
+    });
+  }
+
+  private void run(Entry entry, long fireTimeMs) {
+    String path = JobKeys.canonicalString(entry.key);
+    synchronized (entry) {
+      if (entry.running) {
+        if (entry.pendingFireTimeMs.isPresent()) {
+          LOG.info("Coalescing trigger of cron {} with its queued trigger.", path);
+          misfires.incrementAndGet();
+        } else {
+          LOG.info("Queueing trigger of cron {} as its previous trigger is still running.", path);
+          entry.pendingFireTimeMs = OptionalLong.of(fireTimeMs);
+        }
+        return;
+      }
+      entry.running = true;
+    }
+
+    workers.execute(() -> {
+      long nextFireTimeMs = fireTimeMs;
+      while (true) {
+        try {
+          trigger.fire(entry.key, nextFireTimeMs, entry.jobData);
+        } catch (CronException | RuntimeException e) {
+          LOG.warn("Trigger of cron " + path + " failed.", e);
+        }
+
+        synchronized (entry) {
+          if (!entry.pendingFireTimeMs.isPresent()) {
+            entry.running = false;
+            return;
+          }
+          nextFireTimeMs = entry.pendingFireTimeMs.getAsLong();
+          entry.pendingFireTimeMs = OptionalLong.empty();
+        }
+      }
+    });
+  }
+}
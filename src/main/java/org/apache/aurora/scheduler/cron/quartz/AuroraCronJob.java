@@ -16,6 +16,7 @@ package org.apache.aurora.scheduler.cron.quartz;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.util.Date;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -32,6 +33,7 @@ import com.google.common.collect.Sets;
 import org.apache.aurora.common.stats.Stats;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.BackoffHelper;
+import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.gen.CronCollisionPolicy;
 import org.apache.aurora.scheduler.BatchWorker;
 import org.apache.aurora.scheduler.BatchWorker.NoResult;
@@ -70,8 +72,8 @@ import static org.apache.aurora.gen.ScheduleStatus.KILLING;
  * concurrently but only a single instance will be active at a time per job key.
  *
  * <p>
- * Executions may block for long periods of time when waiting for a kill to complete. The Quartz
- * scheduler should therefore be configured with a large number of threads.
+ * Executions may block for long periods of time when waiting for a kill to complete. The cron
+ * engine should therefore be configured with a large number of threads.
  */
 @DisallowConcurrentExecution
 @PersistJobDataAfterExecution
@@ -92,6 +94,9 @@ class AuroraCronJob implements Job, EventSubscriber {
   private final StateManager stateManager;
   private final BackoffHelper delayedStartBackoff;
   private final BatchWorker<NoResult> batchWorker;
+  private final CronPrewarmer prewarmer;
+  private final CronLatencyTracker latencyTracker;
+  private final Clock clock;
   private final Set<IJobKey> killFollowups = Sets.newConcurrentHashSet();
 
   /**
@@ -122,10 +127,16 @@ class AuroraCronJob implements Job, EventSubscriber {
   AuroraCronJob(
       Config config,
       StateManager stateManager,
-      CronBatchWorker batchWorker) {
+      CronBatchWorker batchWorker,
+      CronPrewarmer prewarmer,
+      CronLatencyTracker latencyTracker,
+      Clock clock) {
 
     this.stateManager = requireNonNull(stateManager);
     this.batchWorker = requireNonNull(batchWorker);
+    this.prewarmer = requireNonNull(prewarmer);
+    this.latencyTracker = requireNonNull(latencyTracker);
+    this.clock = requireNonNull(clock);
     this.delayedStartBackoff = requireNonNull(config.getDelayedStartBackoff());
   }
 
@@ -140,16 +151,33 @@ class AuroraCronJob implements Job, EventSubscriber {
 
   @VisibleForTesting
   void doExecute(JobExecutionContext context) throws JobExecutionException {
-    final IJobKey key = Quartz.auroraJobKey(context.getJobDetail().getKey());
+    Date scheduledFireTime = context.getScheduledFireTime();
+    trigger(
+        Quartz.auroraJobKey(context.getJobDetail().getKey()),
+        scheduledFireTime == null ? clock.nowMillis() : scheduledFireTime.getTime(),
+        context.getJobDetail().getJobDataMap());
+  }
+
+  /**
+   * Runs a single trigger of a job. Triggers of the same job must not run concurrently.
+   *
+   * @param key Job triggered.
+   * @param fireTimeMs Time the trigger was scheduled to fire at.
+   * @param jobData Data kept across triggers of the job for as long as it remains scheduled.
+   * @throws JobExecutionException If interrupted while launching the job.
+   */
+  void trigger(IJobKey key, long fireTimeMs, Map<String, Object> jobData)
+      throws JobExecutionException {
+
     final String path = JobKeys.canonicalString(key);
 
     // Prevent a concurrent run for this job in case a previous trigger took longer to run.
-    // This approach relies on saving the "work in progress" token within the job context itself
+    // This approach relies on saving the "work in progress" token within the job data itself
     // (see below) and relying on killFollowups to signal "work completion".
-    if (context.getJobDetail().getJobDataMap().containsKey(path)) {
+    if (jobData.containsKey(path)) {
       CRON_JOB_CONCURRENT_RUNS.incrementAndGet();
       if (killFollowups.contains(key)) {
-        context.getJobDetail().getJobDataMap().remove(path);
+        jobData.remove(path);
         killFollowups.remove(key);
         LOG.info("Resetting job context for cron {}", path);
       } else {
@@ -166,15 +194,26 @@ class AuroraCronJob implements Job, EventSubscriber {
         return BatchWorker.NO_RESULT;
       }
 
-      SanitizedCronJob cronJob;
-      try {
-        cronJob = SanitizedCronJob.from(new SanitizedConfiguration(config.get()));
-      } catch (CronException e) {
-        LOG.warn("Invalid cron job for {} in storage - failed to parse", key, e);
-        CRON_JOB_PARSE_FAILURES.incrementAndGet();
+      if (prewarmer.wasLaunched(key, fireTimeMs)) {
+        LOG.info("Cron triggered for {} after it was launched by the pre-warm stage", path);
+        CRON_JOB_TRIGGERS.incrementAndGet();
         return BatchWorker.NO_RESULT;
       }
 
+      SanitizedCronJob cronJob;
+      Optional<SanitizedCronJob> prewarmed = prewarmer.claim(config.get(), fireTimeMs);
+      if (prewarmed.isPresent()) {
+        cronJob = prewarmed.get();
+      } else {
+        try {
+          cronJob = SanitizedCronJob.from(new SanitizedConfiguration(config.get()));
+        } catch (CronException e) {
+          LOG.warn("Invalid cron job for {} in storage - failed to parse", key, e);
+          CRON_JOB_PARSE_FAILURES.incrementAndGet();
+          return BatchWorker.NO_RESULT;
+        }
+      }
+
       CronCollisionPolicy collisionPolicy = cronJob.getCronCollisionPolicy();
       LOG.info("Cron triggered for {} at {} with policy {}", path, new Date(), collisionPolicy);
       CRON_JOB_TRIGGERS.incrementAndGet();
@@ -186,24 +225,24 @@ class AuroraCronJob implements Job, EventSubscriber {
       Set<Integer> instanceIds = cronJob.getSanitizedConfig().getInstanceIds();
       if (activeTasks.isEmpty()) {
         stateManager.insertPendingTasks(storeProvider, task, instanceIds);
+        latencyTracker.launched(key, fireTimeMs);
         return BatchWorker.NO_RESULT;
       }
 
       CRON_JOB_COLLISIONS.incrementAndGet();
       switch (collisionPolicy) {
         case KILL_EXISTING:
-          for (String taskId : activeTasks) {
-            stateManager.changeState(
-                storeProvider,
-                taskId,
-                Optional.empty(),
-                KILLING,
-                KILL_AUDIT_MESSAGE);
-          }
+          stateManager.changeStates(
+              storeProvider,
+              activeTasks,
+              Optional.empty(),
+              KILLING,
+              KILL_AUDIT_MESSAGE);
 
           LOG.info("Waiting for job to terminate before launching cron job " + path);
           // Use job detail map to signal a "work in progress" condition to subsequent triggers.
-          context.getJobDetail().getJobDataMap().put(path, null);
+          jobData.put(path, null);
+          prewarmer.hold(key);
           batchWorker.executeWithReplay(
               delayedStartBackoff.getBackoffStrategy(),
               store -> {
@@ -211,6 +250,7 @@ class AuroraCronJob implements Job, EventSubscriber {
                 if (Iterables.isEmpty(storeProvider.getTaskStore().fetchTasks(query))) {
                   LOG.info("Initiating delayed launch of cron " + path);
                   stateManager.insertPendingTasks(store, task, instanceIds);
+                  latencyTracker.launched(key, fireTimeMs);
                   return new BatchWorker.Result<>(true, null);
                 } else {
                   LOG.info("Not yet safe to run cron " + path);
@@ -218,6 +258,7 @@ class AuroraCronJob implements Job, EventSubscriber {
                 }
               })
               .thenAccept(ignored -> {
+                prewarmer.release(key);
                 killFollowups.add(key);
                 LOG.info("Finished delayed launch for cron " + path);
               });
@@ -0,0 +1,30 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+/**
+ * Engines available to fire cron triggers.
+ */
+public enum CronEngineType {
+  /**
+   * Fires triggers from a Quartz scheduler.
+   */
+  QUARTZ,
+
+  /**
+   * Fires triggers from an in-process timing wheel, with fire times computed directly from the
+   * crontab entries of jobs.
+   */
+  TIMING_WHEEL
+}
@@ -15,29 +15,22 @@ package org.apache.aurora.scheduler.cron.quartz;
 
 import java.util.Map;
 import java.util.Optional;
-import java.util.TimeZone;
 
 import javax.inject.Inject;
 
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.ImmutableMap;
-
 import org.apache.aurora.gen.CronCollisionPolicy;
 import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.cron.CronEngine;
 import org.apache.aurora.scheduler.cron.CronException;
 import org.apache.aurora.scheduler.cron.CronJobManager;
 import org.apache.aurora.scheduler.cron.CrontabEntry;
 import org.apache.aurora.scheduler.cron.SanitizedCronJob;
+import org.apache.aurora.scheduler.quota.QuotaLedger;
 import org.apache.aurora.scheduler.storage.CronJobStore;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
-import org.quartz.CronTrigger;
-import org.quartz.JobKey;
-import org.quartz.Scheduler;
-import org.quartz.SchedulerException;
-import org.quartz.impl.matchers.GroupMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,14 +46,21 @@ class CronJobManagerImpl implements CronJobManager {
   private static final Logger LOG = LoggerFactory.getLogger(CronJobManagerImpl.class);
 
   private final Storage storage;
-  private final Scheduler scheduler;
-  private final TimeZone timeZone;
+  private final CronEngine engine;
+  private final CronPrewarmer prewarmer;
+  private final Optional<QuotaLedger> quotaLedger;
 
   @Inject
-  CronJobManagerImpl(Storage storage, Scheduler scheduler, TimeZone timeZone) {
+  CronJobManagerImpl(
+      Storage storage,
+      CronEngine engine,
+      CronPrewarmer prewarmer,
+      Optional<QuotaLedger> quotaLedger) {
+
     this.storage = requireNonNull(storage);
-    this.scheduler = requireNonNull(scheduler);
-    this.timeZone = requireNonNull(timeZone);
+    this.engine = requireNonNull(engine);
+    this.prewarmer = requireNonNull(prewarmer);
+    this.quotaLedger = requireNonNull(quotaLedger);
   }
 
   @Override
@@ -75,11 +75,7 @@ class CronJobManagerImpl implements CronJobManager {
   }
 
   private void triggerJob(IJobKey jobKey) throws CronException {
-    try {
-      scheduler.triggerJob(Quartz.jobKey(jobKey));
-    } catch (SchedulerException e) {
-      throw new CronException(e);
-    }
+    engine.triggerJob(jobKey);
     LOG.info(formatMessage("Triggered cron job for %s.", jobKey));
   }
 
@@ -136,6 +132,7 @@ class CronJobManagerImpl implements CronJobManager {
 
   private void removeJob(IJobKey jobKey, CronJobStore.Mutable jobStore) {
     jobStore.removeJob(jobKey);
+    quotaLedger.ifPresent(ledger -> ledger.invalidate(jobKey));
     LOG.info(formatMessage("Deleted cron job %s from storage.", jobKey));
   }
 
@@ -143,18 +140,13 @@ class CronJobManagerImpl implements CronJobManager {
     IJobConfiguration config = cronJob.getSanitizedConfig().getJobConfig();
 
     jobStore.saveAcceptedJob(config);
+    quotaLedger.ifPresent(ledger -> ledger.invalidate(config.getKey()));
     LOG.info(formatMessage("Saved new cron job %s to storage.", config.getKey()));
   }
 
   // TODO(ksweeney): Consider exposing this in the interface and making caller responsible.
   void scheduleJob(CrontabEntry crontabEntry, IJobKey jobKey) throws CronException {
-    try {
-      scheduler.scheduleJob(
-          Quartz.jobDetail(jobKey, AuroraCronJob.class),
-          Quartz.cronTrigger(crontabEntry, timeZone));
-    } catch (SchedulerException e) {
-      throw new CronException(e);
-    }
+    engine.scheduleJob(jobKey, crontabEntry);
     LOG.info(formatMessage("Scheduled job %s with schedule %s.", jobKey, crontabEntry));
   }
 
@@ -179,36 +171,17 @@ class CronJobManagerImpl implements CronJobManager {
       // There's a race here where an old running job could fail to find the old config. That's
       // fine given that the behavior of AuroraCronJob is to log an error and exit if it's unable
       // to find a job for its key.
-      scheduler.deleteJob(Quartz.jobKey(jobKey));
+      engine.descheduleJob(jobKey);
       LOG.info(formatMessage("Successfully descheduled %s.", jobKey));
-    } catch (SchedulerException e) {
+    } catch (CronException e) {
       LOG.warn(formatMessage("Error descheduling %s: %s", jobKey, e), e);
     }
+    prewarmer.forget(jobKey);
   }
 
   @Override
   public Map<IJobKey, CrontabEntry> getScheduledJobs() {
-    // NOTE: no synchronization is needed here since this is just a dump of internal quartz state
-    // for debugging.
-    ImmutableMap.Builder<IJobKey, CrontabEntry> scheduledJobs = ImmutableMap.builder();
-    try {
-      for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.anyGroup())) {
-        // The quartz API allows jobs to have multiple triggers. We don't use that feature but
-        // we're defensive here since this function is used for debugging.
-        Optional<CronTrigger> trigger = FluentIterable.from(scheduler.getTriggersOfJob(jobKey))
-            .filter(CronTrigger.class)
-            .first()
-            .toJavaUtil();
-        if (trigger.isPresent()) {
-          scheduledJobs.put(
-              Quartz.auroraJobKey(jobKey),
-              Quartz.crontabEntry(trigger.get()));
-        }
-      }
-    } catch (SchedulerException e) {
-      throw new RuntimeException(e);
-    }
-    return scheduledJobs.build();
+    return engine.getScheduledJobs();
   }
 
   private static String formatMessage(String format, IJobKey jobKey, Object... args) {
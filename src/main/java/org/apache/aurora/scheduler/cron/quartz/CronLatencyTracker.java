@@ -0,0 +1,92 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.common.stats.Histogram;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskEvent;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+
+/**
+ * Exports, per cron job, the time from the fire time of a trigger until each task it created is
+ * running.
+ * <p>
+ * Only tasks created by the most recent trigger of a job are measured. Tasks rescheduled after a
+ * failure are not, as their latency reflects the failure rather than the trigger.
+ */
+class CronLatencyTracker implements EventSubscriber {
+  private final StatsProvider statsProvider;
+  private final Map<IJobKey, Long> triggerTimes = new ConcurrentHashMap<>();
+  private final Map<IJobKey, Histogram> latencies = new ConcurrentHashMap<>();
+
+  @Inject
+  CronLatencyTracker(StatsProvider statsProvider) {
+    this.statsProvider = statsProvider.untracked();
+  }
+
+  @VisibleForTesting
+  static String statName(IJobKey job) {
+    return "cron_job_trigger_to_running_ms_" + JobKeys.canonicalString(job);
+  }
+
+  /**
+   * Records that tasks were created for a cron job.
+   *
+   * @param job Cron job that was launched.
+   * @param fireTimeMs Time the trigger that launched the job was scheduled to fire at.
+   */
+  void launched(IJobKey job, long fireTimeMs) {
+    triggerTimes.put(requireNonNull(job), fireTimeMs);
+  }
+
+  @Subscribe
+  public void taskChangedState(TaskStateChange change) {
+    if (change.getNewState() != RUNNING) {
+      return;
+    }
+
+    IScheduledTask task = change.getTask();
+    IJobKey job = task.getAssignedTask().getTask().getJob();
+    Long fireTimeMs = triggerTimes.get(job);
+    List<ITaskEvent> events = task.getTaskEvents();
+    if (fireTimeMs == null
+        || task.isSetAncestorId()
+        || events.isEmpty()
+        || events.get(0).getTimestamp() < fireTimeMs) {
+
+      return;
+    }
+
+    latencies.computeIfAbsent(job, key -> statsProvider.makeHistogram(statName(key)))
+        .record(Tasks.getLatestEvent(task).getTimestamp() - fireTimeMs);
+  }
+}
@@ -22,19 +22,18 @@ import com.google.common.util.concurrent.AbstractIdleService;
 
 import org.apache.aurora.common.stats.Stats;
 import org.apache.aurora.scheduler.configuration.SanitizedConfiguration;
+import org.apache.aurora.scheduler.cron.CronEngine;
 import org.apache.aurora.scheduler.cron.CronException;
 import org.apache.aurora.scheduler.cron.SanitizedCronJob;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
-import org.quartz.Scheduler;
-import org.quartz.SchedulerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static java.util.Objects.requireNonNull;
 
 /**
- * Manager for startup and teardown of Quartz scheduler.
+ * Manager for startup and teardown of the cron engine.
  */
 class CronLifecycle extends AbstractIdleService {
   private static final Logger LOG = LoggerFactory.getLogger(CronLifecycle.class);
@@ -43,25 +42,24 @@ class CronLifecycle extends AbstractIdleService {
   private static final AtomicInteger LOADED_FLAG = Stats.exportInt("cron_jobs_loaded");
   private static final AtomicLong LAUNCH_FAILURES = Stats.exportLong("cron_job_launch_failures");
 
-  private final Scheduler scheduler;
+  private final CronEngine engine;
   private final CronJobManagerImpl cronJobManager;
   private final Storage storage;
 
   @Inject
   CronLifecycle(
-      Scheduler scheduler,
+      CronEngine engine,
       CronJobManagerImpl cronJobManager,
       Storage storage) {
 
-    this.scheduler = requireNonNull(scheduler);
+    this.engine = requireNonNull(engine);
     this.cronJobManager = requireNonNull(cronJobManager);
     this.storage = requireNonNull(storage);
   }
 
   @Override
-  protected void startUp() throws SchedulerException {
-    LOG.info("Starting Quartz cron scheduler" + scheduler.getSchedulerName() + ".");
-    scheduler.start();
+  protected void startUp() throws CronException {
+    engine.start();
     RUNNING_FLAG.set(1);
 
     for (IJobConfiguration job : Storage.Util.fetchCronJobs(storage)) {
@@ -83,9 +81,9 @@ class CronLifecycle extends AbstractIdleService {
   }
 
   @Override
-  protected void shutDown() throws SchedulerException {
-    LOG.info("Shutting down Quartz cron scheduler.");
-    scheduler.shutdown();
+  protected void shutDown() throws CronException {
+    LOG.info("Shutting down cron engine.");
+    engine.shutdown();
     RUNNING_FLAG.set(0);
   }
 }
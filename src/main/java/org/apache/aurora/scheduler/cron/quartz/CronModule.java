@@ -15,6 +15,7 @@ package org.apache.aurora.scheduler.cron.quartz;
 
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Singleton;
@@ -25,15 +26,24 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
 
+import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.BackoffHelper;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.config.validators.NotNegativeAmount;
 import org.apache.aurora.scheduler.config.validators.PositiveNumber;
+import org.apache.aurora.scheduler.cron.CronEngine;
+import org.apache.aurora.scheduler.cron.CronException;
 import org.apache.aurora.scheduler.cron.CronJobManager;
 import org.apache.aurora.scheduler.cron.CronPredictor;
 import org.apache.aurora.scheduler.cron.CronScheduler;
+import org.apache.aurora.scheduler.cron.TimingWheelCronEngine;
 import org.apache.aurora.scheduler.cron.quartz.AuroraCronJob.CronBatchWorker;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
+import org.quartz.JobExecutionException;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.impl.StdSchedulerFactory;
@@ -49,16 +59,21 @@ import static org.quartz.impl.StdSchedulerFactory.PROP_THREAD_POOL_CLASS;
 import static org.quartz.impl.StdSchedulerFactory.PROP_THREAD_POOL_PREFIX;
 
 /**
- * Provides a {@link CronJobManager} with a Quartz backend. While Quartz itself supports
- * persistence, the scheduler exposed by this module does not persist any state - it simply
- * creates tasks from a {@link org.apache.aurora.gen.JobConfiguration} template on a cron-style
- * schedule.
+ * Provides a {@link CronJobManager} with a Quartz or timing wheel backend. While Quartz itself
+ * supports persistence, the scheduler exposed by this module does not persist any state - it
+ * simply creates tasks from a {@link org.apache.aurora.gen.JobConfiguration} template on a
+ * cron-style schedule.
  */
 public class CronModule extends AbstractModule {
   private static final Logger LOG = LoggerFactory.getLogger(CronModule.class);
 
   @Parameters(separators = "=")
   public static class Options {
+    @Parameter(names = "-cron_engine",
+        description = "Engine used to fire cron triggers. TIMING_WHEEL fires triggers from an "
+            + "in-process timing wheel rather than a Quartz scheduler.")
+    public CronEngineType cronEngine = CronEngineType.QUARTZ;
+
     @Parameter(names = "-cron_scheduler_num_threads",
         description = "Number of threads to use for the cron scheduler thread pool.")
     public int cronSchedulerNumThreads = 10;
@@ -78,6 +93,13 @@ public class CronModule extends AbstractModule {
         validateValueWith = PositiveNumber.class,
         description = "The maximum number of triggered cron jobs that can be processed in a batch.")
     public int cronMaxBatchSize = 10;
+
+    @Parameter(names = "-cron_prewarm_window",
+        validateValueWith = NotNegativeAmount.class,
+        description = "How long before a cron job is predicted to fire to prepare its tasks. Jobs "
+            + "due at the same time are then launched together in a single storage write. "
+            + "Pre-warming is disabled when zero.")
+    public TimeAmount cronPrewarmWindow = new TimeAmount(1, Time.MINUTES);
   }
 
   // Global per-JVM ID number generator for the provided Quartz Scheduler.
@@ -94,6 +116,17 @@ public class CronModule extends AbstractModule {
     bind(CronPredictor.class).to(CronPredictorImpl.class);
     bind(CronPredictorImpl.class).in(Singleton.class);
 
+    switch (options.cronEngine) {
+      case TIMING_WHEEL:
+        bind(CronEngine.class).to(TimingWheelCronEngine.class);
+        break;
+
+      default:
+        bind(CronEngine.class).to(QuartzCronEngine.class);
+        bind(QuartzCronEngine.class).in(Singleton.class);
+        break;
+    }
+
     bind(CronJobManager.class).to(CronJobManagerImpl.class);
     bind(CronJobManagerImpl.class).in(Singleton.class);
 
@@ -108,6 +141,17 @@ public class CronModule extends AbstractModule {
 
     PubsubEventModule.bindSubscriber(binder(), AuroraCronJob.class);
 
+    bind(CronLatencyTracker.class).in(Singleton.class);
+    PubsubEventModule.bindSubscriber(binder(), CronLatencyTracker.class);
+
+    bind(new TypeLiteral<Amount<Long, Time>>() { })
+        .annotatedWith(CronPrewarmer.PrewarmWindow.class)
+        .toInstance(options.cronPrewarmWindow);
+    bind(CronPrewarmer.class).in(Singleton.class);
+    if (options.cronPrewarmWindow.getValue() > 0) {
+      addSchedulerActiveServiceBinding(binder()).to(CronPrewarmer.class);
+    }
+
     bind(CronLifecycle.class).in(Singleton.class);
     addSchedulerActiveServiceBinding(binder()).to(CronLifecycle.class);
 
@@ -131,6 +175,34 @@ public class CronModule extends AbstractModule {
     return timeZone;
   }
 
+  @Provides
+  @Singleton
+  TimingWheelCronEngine provideTimingWheelCronEngine(
+      AuroraCronJob cronJob,
+      TimeZone timeZone,
+      Clock clock,
+      StatsProvider statsProvider) {
+
+    return new TimingWheelCronEngine(
+        (key, fireTimeMs, jobData) -> {
+          try {
+            cronJob.trigger(key, fireTimeMs, jobData);
+          } catch (JobExecutionException e) {
+            throw new CronException(e);
+          }
+        },
+        timeZone,
+        clock,
+        AsyncUtil.singleThreadLoggingScheduledExecutor("CronTimingWheel-%d", LOG),
+        AsyncUtil.loggingExecutor(
+            options.cronSchedulerNumThreads,
+            options.cronSchedulerNumThreads,
+            new LinkedBlockingQueue<>(),
+            "CronTrigger-%d",
+            LOG),
+        statsProvider);
+  }
+
   @Provides
   @Singleton
   Scheduler provideScheduler(AuroraCronJobFactory jobFactory) throws SchedulerException {
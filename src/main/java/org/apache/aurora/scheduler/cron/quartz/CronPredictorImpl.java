@@ -15,31 +15,36 @@ package org.apache.aurora.scheduler.cron.quartz;
 
 import java.util.Date;
 import java.util.Optional;
-import java.util.TimeZone;
+import java.util.OptionalLong;
 
 import javax.inject.Inject;
 
 import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.cron.CronEngine;
 import org.apache.aurora.scheduler.cron.CronPredictor;
 import org.apache.aurora.scheduler.cron.CrontabEntry;
-import org.quartz.CronExpression;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Predicts the next runs of cron jobs with the same {@link CronEngine} that fires them, so that
+ * predictions match actual runs where engines differ, such as around daylight saving transitions.
+ */
 class CronPredictorImpl implements CronPredictor {
   private final Clock clock;
-  private final TimeZone timeZone;
+  private final CronEngine cronEngine;
 
   @Inject
-  CronPredictorImpl(Clock clock, TimeZone timeZone) {
+  CronPredictorImpl(Clock clock, CronEngine cronEngine) {
     this.clock = requireNonNull(clock);
-    this.timeZone = requireNonNull(timeZone);
+    this.cronEngine = requireNonNull(cronEngine);
   }
 
   @Override
   public Optional<Date> predictNextRun(CrontabEntry schedule) {
-    CronExpression cronExpression = Quartz.cronExpression(schedule, timeZone);
-    // The getNextValidTimeAfter call may return null; eg: if the date is too far in the future.
-    return Optional.ofNullable(cronExpression.getNextValidTimeAfter(new Date(clock.nowMillis())));
+    OptionalLong nextRunMs = cronEngine.nextFireTimeAfter(schedule, clock.nowMillis());
+    return nextRunMs.isPresent()
+        ? Optional.of(new Date(nextRunMs.getAsLong()))
+        : Optional.empty();
   }
 }
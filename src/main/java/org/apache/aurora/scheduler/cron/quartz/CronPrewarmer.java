@@ -0,0 +1,288 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.AbstractScheduledService;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.configuration.SanitizedConfiguration;
+import org.apache.aurora.scheduler.cron.CronException;
+import org.apache.aurora.scheduler.cron.CronPredictor;
+import org.apache.aurora.scheduler.cron.CrontabEntry;
+import org.apache.aurora.scheduler.cron.SanitizedCronJob;
+import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Prepares cron jobs shortly before they are predicted to fire, so that their triggers do as
+ * little work as possible.
+ * <p>
+ * Jobs that {@link CronPredictor} predicts will fire within the pre-warm window have their
+ * configuration sanitized ahead of time. At the predicted fire time, every pre-warmed job due at
+ * that instant that has no active tasks is launched in a single storage write, rather than in one
+ * write per trigger. Triggers of jobs launched this way are ignored by {@link AuroraCronJob}, and
+ * triggers of the remaining jobs, such as those colliding with a previous run, reuse the sanitized
+ * configuration.
+ */
+class CronPrewarmer extends AbstractScheduledService {
+  private static final Logger LOG = LoggerFactory.getLogger(CronPrewarmer.class);
+
+  @VisibleForTesting
+  static final String CRON_JOBS_PREWARMED = "cron_jobs_prewarmed";
+  @VisibleForTesting
+  static final String CRON_JOBS_BATCH_LAUNCHED = "cron_jobs_batch_launched";
+
+  private final Amount<Long, Time> window;
+  private final Clock clock;
+  private final Storage storage;
+  private final StateManager stateManager;
+  private final CronPredictor cronPredictor;
+  private final CronLatencyTracker latencyTracker;
+  private final ScheduledExecutorService executor;
+  private final AtomicLong jobsPrewarmed;
+  private final AtomicLong jobsBatchLaunched;
+
+  private final Map<IJobKey, Template> templates = new ConcurrentHashMap<>();
+  private final Map<IJobKey, Long> batchLaunches = new ConcurrentHashMap<>();
+  private final Set<Long> scheduledLaunches = Sets.newConcurrentHashSet();
+  private final Set<IJobKey> heldJobs = Sets.newConcurrentHashSet();
+
+  /**
+   * Binding annotation for the pre-warm window.
+   */
+  @VisibleForTesting
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface PrewarmWindow { }
+
+  @Inject
+  CronPrewarmer(
+      @PrewarmWindow Amount<Long, Time> window,
+      Clock clock,
+      Storage storage,
+      StateManager stateManager,
+      CronPredictor cronPredictor,
+      CronLatencyTracker latencyTracker,
+      @AsyncExecutor ScheduledExecutorService executor,
+      StatsProvider statsProvider) {
+
+    this.window = requireNonNull(window);
+    this.clock = requireNonNull(clock);
+    this.storage = requireNonNull(storage);
+    this.stateManager = requireNonNull(stateManager);
+    this.cronPredictor = requireNonNull(cronPredictor);
+    this.latencyTracker = requireNonNull(latencyTracker);
+    this.executor = requireNonNull(executor);
+    this.jobsPrewarmed = statsProvider.makeCounter(CRON_JOBS_PREWARMED);
+    this.jobsBatchLaunched = statsProvider.makeCounter(CRON_JOBS_BATCH_LAUNCHED);
+  }
+
+  private static final class Template {
+    final IJobConfiguration config;
+    final SanitizedCronJob cronJob;
+    final long fireTimeMs;
+
+    Template(IJobConfiguration config, SanitizedCronJob cronJob, long fireTimeMs) {
+      this.config = config;
+      this.cronJob = cronJob;
+      this.fireTimeMs = fireTimeMs;
+    }
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    // Scanning twice per window ensures every job is seen at least once before it fires.
+    long intervalMs = Math.max(1, window.as(Time.MILLISECONDS) / 2);
+    return Scheduler.newFixedDelaySchedule(0, intervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected void runOneIteration() {
+    long nowMs = clock.nowMillis();
+    long horizonMs = nowMs + window.as(Time.MILLISECONDS);
+    Set<IJobKey> jobs = Sets.newHashSet();
+    for (IJobConfiguration config : Storage.Util.fetchCronJobs(storage)) {
+      IJobKey key = config.getKey();
+      jobs.add(key);
+      Template existing = templates.get(key);
+      if (existing != null && existing.fireTimeMs > nowMs && existing.config.equals(config)) {
+        continue;
+      }
+
+      Optional<Date> nextRun = CrontabEntry.tryParse(config.getCronSchedule())
+          .flatMap(cronPredictor::predictNextRun);
+      if (!nextRun.isPresent() || nextRun.get().getTime() > horizonMs) {
+        templates.remove(key);
+        continue;
+      }
+
+      SanitizedCronJob cronJob;
+      try {
+        cronJob = SanitizedCronJob.from(new SanitizedConfiguration(config));
+      } catch (CronException e) {
+        // Reported by the trigger, which does not find a template and sanitizes again.
+        templates.remove(key);
+        continue;
+      }
+
+      long fireTimeMs = nextRun.get().getTime();
+      templates.put(key, new Template(config, cronJob, fireTimeMs));
+      jobsPrewarmed.incrementAndGet();
+      if (scheduledLaunches.add(fireTimeMs)) {
+        executor.schedule(
+            () -> launch(fireTimeMs),
+            Math.max(0, fireTimeMs - nowMs),
+            TimeUnit.MILLISECONDS);
+      }
+    }
+    templates.keySet().retainAll(jobs);
+    batchLaunches.keySet().retainAll(jobs);
+  }
+
+  private void launch(long fireTimeMs) {
+    scheduledLaunches.remove(fireTimeMs);
+    List<Template> due = templates.values().stream()
+        .filter(template -> template.fireTimeMs == fireTimeMs)
+        .collect(Collectors.toList());
+    if (due.isEmpty()) {
+      return;
+    }
+
+    storage.write((NoResult.Quiet) storeProvider -> {
+      int launched = 0;
+      for (Template template : due) {
+        IJobKey key = template.config.getKey();
+        Optional<IJobConfiguration> stored = storeProvider.getCronJobStore().fetchJob(key);
+        boolean launchable = !heldJobs.contains(key)
+            && stored.isPresent()
+            && stored.get().equals(template.config)
+            && Iterables.isEmpty(
+                storeProvider.getTaskStore().fetchTasks(Query.jobScoped(key).active()));
+
+        // Jobs that cannot be launched here are left to their trigger, which applies the
+        // collision policy.
+        if (launchable && templates.remove(key, template)) {
+          batchLaunches.put(key, fireTimeMs);
+          stateManager.insertPendingTasks(
+              storeProvider,
+              template.cronJob.getSanitizedConfig().getJobConfig().getTaskConfig(),
+              template.cronJob.getSanitizedConfig().getInstanceIds());
+          latencyTracker.launched(key, fireTimeMs);
+          launched++;
+        }
+      }
+      jobsBatchLaunched.addAndGet(launched);
+      LOG.info("Launched {} of {} cron jobs due at {}", launched, due.size(), new Date(fireTimeMs));
+    });
+  }
+
+  /**
+   * Checks whether a trigger of a job was already launched ahead of the trigger. Must be called
+   * within a storage write. A launch is matched by at most one trigger, and is forgotten once
+   * matched.
+   *
+   * @param key Job triggered.
+   * @param fireTimeMs Time the trigger was scheduled to fire at.
+   * @return {@code true} if the tasks for this trigger have already been created.
+   */
+  boolean wasLaunched(IJobKey key, long fireTimeMs) {
+    return batchLaunches.remove(key, fireTimeMs);
+  }
+
+  /**
+   * Forgets a job that is no longer scheduled, along with any launch made ahead of a trigger that
+   * will no longer fire.
+   *
+   * @param key Job descheduled.
+   */
+  void forget(IJobKey key) {
+    templates.remove(key);
+    batchLaunches.remove(key);
+  }
+
+  /**
+   * Claims the pre-warmed configuration of a job for a trigger, so that it will not be launched
+   * ahead of the trigger. Must be called within a storage write.
+   *
+   * @param config Stored configuration of the job triggered.
+   * @param fireTimeMs Time the trigger was scheduled to fire at.
+   * @return The sanitized configuration, if one was prepared from the same configuration for the
+   *     same fire time.
+   */
+  Optional<SanitizedCronJob> claim(IJobConfiguration config, long fireTimeMs) {
+    Template template = templates.get(config.getKey());
+    if (template != null
+        && template.fireTimeMs == fireTimeMs
+        && template.config.equals(config)
+        && templates.remove(config.getKey(), template)) {
+
+      return Optional.of(template.cronJob);
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Prevents a job from being launched ahead of its triggers, while a previous trigger is still
+   * waiting to launch it.
+   *
+   * @param key Job to hold.
+   */
+  void hold(IJobKey key) {
+    heldJobs.add(key);
+  }
+
+  /**
+   * Allows a job previously {@link #hold(IJobKey) held} to be launched ahead of its triggers.
+   *
+   * @param key Job to release.
+   */
+  void release(IJobKey key) {
+    heldJobs.remove(key);
+  }
+}
@@ -17,47 +17,23 @@ import java.util.Optional;
 
 import javax.inject.Inject;
 
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.Iterables;
-
-import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.cron.CronEngine;
 import org.apache.aurora.scheduler.cron.CronScheduler;
 import org.apache.aurora.scheduler.cron.CrontabEntry;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
-import org.quartz.CronTrigger;
-import org.quartz.Scheduler;
-import org.quartz.SchedulerException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import static java.util.Objects.requireNonNull;
 
-import static org.apache.aurora.scheduler.cron.quartz.Quartz.jobKey;
-
 class CronSchedulerImpl implements CronScheduler {
-  private static final Logger LOG = LoggerFactory.getLogger(CronSchedulerImpl.class);
-
-  private final Scheduler scheduler;
+  private final CronEngine engine;
 
   @Inject
-  CronSchedulerImpl(Scheduler scheduler) {
-    this.scheduler = requireNonNull(scheduler);
+  CronSchedulerImpl(CronEngine engine) {
+    this.engine = requireNonNull(engine);
   }
 
   @Override
-  public Optional<CrontabEntry> getSchedule(IJobKey jobKey) throws IllegalStateException {
-    requireNonNull(jobKey);
-
-    try {
-      return Optional.of(Iterables.getOnlyElement(
-          FluentIterable.from(scheduler.getTriggersOfJob(jobKey(jobKey)))
-              .filter(CronTrigger.class)
-              .transform(Quartz::crontabEntry)));
-    } catch (SchedulerException e) {
-      LOG.error(
-          "Error reading job " + JobKeys.canonicalString(jobKey) + " cronExpression Quartz: " + e,
-          e);
-      return Optional.empty();
-    }
+  public Optional<CrontabEntry> getSchedule(IJobKey jobKey) {
+    return engine.getSchedule(requireNonNull(jobKey));
   }
 }
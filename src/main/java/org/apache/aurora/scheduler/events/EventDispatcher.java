@@ -0,0 +1,342 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.events;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.reflect.TypeToken;
+
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An event dispatcher that delivers events to each subscriber through its own queue.
+ * <p>
+ * Subscribers are registered with the same {@link Subscribe} annotations used with
+ * {@link com.google.common.eventbus.EventBus}, but the handlers of each event type are resolved
+ * once, and invoked through method handles rather than reflection. Each subscriber drains its
+ * queue on the shared executor in order, and a subscriber with a backlog yields the executor
+ * after a batch of events, so one slow subscriber does not delay the others.
+ * <p>
+ * Posting never blocks, as events are posted while holding the storage lock that subscribers may
+ * also need. A subscriber queue that grows beyond its limit is reported through stats instead.
+ * Handlers annotated with {@link CoalesceByTask} receive a single state change for consecutive
+ * changes of a task that are queued together.
+ */
+public class EventDispatcher {
+
+  /**
+   * Marks a {@link TaskStateChange} handler that only needs the latest state of a task. While
+   * a change for a task is queued for the handler, later changes of the task are merged into it,
+   * unless an event of another type has been queued for the subscriber in between.
+   */
+  @Target(METHOD) @Retention(RUNTIME)
+  public @interface CoalesceByTask { }
+
+  /**
+   * Handles exceptions thrown by subscribers.
+   */
+  public interface ExceptionHandler {
+    /**
+     * Handles an exception thrown by a subscriber.
+     *
+     * @param exception Exception thrown.
+     * @param event Event being dispatched.
+     * @param method Subscriber method that threw.
+     */
+    void handleException(Throwable exception, Object event, Method method);
+  }
+
+  @VisibleForTesting
+  static final int DRAIN_BATCH_SIZE = 64;
+
+  private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object.class);
+
+  private final Executor executor;
+  private final int queueLimit;
+  private final StatsProvider statsProvider;
+  private final ExceptionHandler exceptionHandler;
+  private final List<Handler> handlers = new CopyOnWriteArrayList<>();
+  // Replaced when subscribers are registered, so lookups never cache a stale set of handlers.
+  private volatile Map<Class<?>, List<Handler>> handlersByType = new ConcurrentHashMap<>();
+  private final Map<String, Integer> laneNames = Maps.newHashMap();
+
+  /**
+   * Creates a dispatcher.
+   *
+   * @param executor Executor to dispatch events on.
+   * @param queueLimit Number of queued events beyond which a subscriber queue is overflowing.
+   * @param statsProvider Stats provider to export subscriber metrics to.
+   * @param exceptionHandler Handler for exceptions thrown by subscribers.
+   */
+  public EventDispatcher(
+      Executor executor,
+      int queueLimit,
+      StatsProvider statsProvider,
+      ExceptionHandler exceptionHandler) {
+
+    Preconditions.checkArgument(queueLimit > 0, "Queue limit must be positive.");
+    this.executor = requireNonNull(executor);
+    this.queueLimit = queueLimit;
+    this.statsProvider = requireNonNull(statsProvider);
+    this.exceptionHandler = requireNonNull(exceptionHandler);
+  }
+
+  private static final class Handler {
+    private final Lane lane;
+    private final Class<?> eventType;
+    private final Method method;
+    private final MethodHandle handle;
+    private final boolean coalesce;
+
+    Handler(Lane lane, Class<?> eventType, Method method, MethodHandle handle, boolean coalesce) {
+      this.lane = lane;
+      this.eventType = eventType;
+      this.method = method;
+      this.handle = handle;
+      this.coalesce = coalesce;
+    }
+  }
+
+  private static final class Entry {
+    private final Handler handler;
+    private final long sequence;
+    private final long enqueuedNanos;
+    private Object event;
+
+    Entry(Handler handler, Object event, long sequence, long enqueuedNanos) {
+      this.handler = handler;
+      this.event = event;
+      this.sequence = sequence;
+      this.enqueuedNanos = enqueuedNanos;
+    }
+  }
+
+  /**
+   * The queue of events for a single subscriber.
+   */
+  private final class Lane implements Runnable {
+    private final Queue<Entry> queue = new ArrayDeque<>();
+    private final Map<Handler, Map<String, Entry>> pendingByTask = Maps.newHashMap();
+    private final AtomicLong dispatched;
+    private final AtomicLong coalesced;
+    private final AtomicLong overflows;
+    private long sequence;
+    // Sequence number of the last entry that must not be reordered with later state changes.
+    private long lastBarrier;
+    private boolean scheduled;
+
+    Lane(String name) {
+      String prefix = "event_dispatcher_" + name + "_";
+      dispatched = statsProvider.makeCounter(prefix + "events_dispatched");
+      coalesced = statsProvider.makeCounter(prefix + "events_coalesced");
+      overflows = statsProvider.makeCounter(prefix + "queue_overflows");
+      statsProvider.makeGauge(prefix + "queue_size", this::size);
+      statsProvider.makeGauge(prefix + "lag_ms", this::lagMs);
+    }
+
+    private synchronized int size() {
+      return queue.size();
+    }
+
+    private synchronized long lagMs() {
+      Entry head = queue.peek();
+      return head == null ? 0 : (System.nanoTime() - head.enqueuedNanos) / 1000000;
+    }
+
+    void enqueue(Handler handler, Object event) {
+      synchronized (this) {
+        if (handler.coalesce && coalesce(handler, (TaskStateChange) event)) {
+          return;
+        }
+
+        Entry entry = new Entry(handler, event, ++sequence, System.nanoTime());
+        queue.add(entry);
+        if (handler.coalesce) {
+          pendingByTask.computeIfAbsent(handler, h -> Maps.newHashMap())
+              .put(((TaskStateChange) event).getTaskId(), entry);
+        } else {
+          lastBarrier = entry.sequence;
+        }
+        if (queue.size() > queueLimit) {
+          overflows.incrementAndGet();
+        }
+        if (scheduled) {
+          return;
+        }
+        scheduled = true;
+      }
+      executor.execute(this);
+    }
+
+    // Must be called while holding the lane lock.
+    private boolean coalesce(Handler handler, TaskStateChange change) {
+      Map<String, Entry> pending = pendingByTask.get(handler);
+      Entry entry = pending == null ? null : pending.get(change.getTaskId());
+      if (entry == null || entry.sequence < lastBarrier) {
+        return false;
+      }
+
+      TaskStateChange first = (TaskStateChange) entry.event;
+      entry.event = first.isTransition()
+          ? TaskStateChange.transition(change.getTask(), first.getOldState().get())
+          : TaskStateChange.initialized(change.getTask());
+      coalesced.incrementAndGet();
+      return true;
+    }
+
+    private synchronized Entry poll() {
+      Entry entry = queue.poll();
+      if (entry == null) {
+        scheduled = false;
+      } else if (entry.handler.coalesce) {
+        pendingByTask.get(entry.handler).remove(((TaskStateChange) entry.event).getTaskId());
+      }
+      return entry;
+    }
+
+    @Override
+    public void run() {
+      for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+        Entry entry = poll();
+        if (entry == null) {
+          return;
+        }
+        dispatch(entry);
+      }
+
+      synchronized (this) {
+        if (queue.isEmpty()) {
+          scheduled = false;
+          return;
+        }
+      }
+      // Yield the executor to other subscribers before draining the rest of the backlog.
+      executor.execute(this);
+    }
+
+    private void dispatch(Entry entry) {
+      try {
+        entry.handler.handle.invokeExact(entry.event);
+      } catch (Throwable e) {
+        exceptionHandler.handleException(e, entry.event, entry.handler.method);
+      }
+      dispatched.incrementAndGet();
+    }
+  }
+
+  private String laneName(Object subscriber) {
+    Class<?> type = subscriber.getClass();
+    String name = type.getName().substring(type.getName().lastIndexOf('.') + 1).replace('$', '_');
+    int count = laneNames.merge(name, 1, Integer::sum);
+    return count == 1 ? name : name + "_" + count;
+  }
+
+  /**
+   * Registers the {@link Subscribe} methods of a subscriber to receive events.
+   *
+   * @param subscriber Subscriber to register.
+   */
+  public synchronized void register(Object subscriber) {
+    Lane lane = null;
+    ImmutableList.Builder<Handler> subscriberHandlers = ImmutableList.builder();
+    for (Class<?> type : TypeToken.of(subscriber.getClass()).getTypes().rawTypes()) {
+      for (Method method : type.getDeclaredMethods()) {
+        if (!method.isAnnotationPresent(Subscribe.class) || method.isSynthetic()) {
+          continue;
+        }
+
+        Class<?>[] parameters = method.getParameterTypes();
+        Preconditions.checkArgument(
+            parameters.length == 1,
+            "Subscriber method %s must have exactly one parameter.",
+            method);
+        boolean coalesce = method.isAnnotationPresent(CoalesceByTask.class);
+        Preconditions.checkArgument(
+            !coalesce || parameters[0] == TaskStateChange.class,
+            "Only handlers of %s may be coalesced.",
+            TaskStateChange.class.getSimpleName());
+
+        MethodHandle handle;
+        try {
+          method.setAccessible(true);
+          handle = MethodHandles.lookup().unreflect(method).bindTo(subscriber).asType(HANDLER_TYPE);
+        } catch (IllegalAccessException e) {
+          throw new IllegalArgumentException("Subscriber method is not accessible: " + method, e);
+        }
+        if (lane == null) {
+          lane = new Lane(laneName(subscriber));
+        }
+        subscriberHandlers.add(new Handler(lane, parameters[0], method, handle, coalesce));
+      }
+    }
+
+    handlers.addAll(subscriberHandlers.build());
+    handlersByType = new ConcurrentHashMap<>();
+  }
+
+  private List<Handler> findHandlers(Class<?> eventType) {
+    ImmutableList.Builder<Handler> matching = ImmutableList.builder();
+    for (Handler handler : handlers) {
+      if (handler.eventType.isAssignableFrom(eventType)) {
+        matching.add(handler);
+      }
+    }
+    return matching.build();
+  }
+
+  /**
+   * Posts an event to all subscribers of its type. Events without subscribers are posted as a
+   * {@link DeadEvent}.
+   *
+   * @param event Event to post.
+   */
+  public void post(Object event) {
+    List<Handler> eventHandlers =
+        handlersByType.computeIfAbsent(event.getClass(), this::findHandlers);
+    if (eventHandlers.isEmpty()) {
+      if (!(event instanceof DeadEvent)) {
+        post(new DeadEvent(this, event));
+      }
+      return;
+    }
+
+    for (Handler handler : eventHandlers) {
+      handler.lane.enqueue(handler, event);
+    }
+  }
+}
@@ -200,6 +200,43 @@ public interface PubsubEvent {
     }
   }
 
+  /**
+   * Event sent when an agent is lost.
+   */
+  class AgentLost implements PubsubEvent {
+    private final Protos.AgentID agentId;
+
+    public AgentLost(Protos.AgentID agentId) {
+      this.agentId = requireNonNull(agentId);
+    }
+
+    public Protos.AgentID getAgentId() {
+      return agentId;
+    }
+
+    @Override
+    public int hashCode() {
+      return agentId.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof AgentLost)) {
+        return false;
+      }
+
+      AgentLost other = (AgentLost) o;
+      return Objects.equals(agentId, other.getAgentId());
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("agentId", getAgentId().getValue())
+          .toString();
+    }
+  }
+
   class DriverRegistered implements PubsubEvent {
     @Override
     public boolean equals(Object o) {
@@ -20,9 +20,12 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Qualifier;
 import javax.inject.Singleton;
 
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.DeadEvent;
@@ -39,6 +42,7 @@ import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
 import org.apache.aurora.scheduler.base.AsyncUtil;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,14 +58,38 @@ import static java.util.Objects.requireNonNull;
  */
 public final class PubsubEventModule extends AbstractModule {
 
+  @Parameters(separators = "=")
+  public static class Options {
+    @Parameter(names = "-enable_event_dispatcher",
+        arity = 1,
+        description = "Deliver events to each subscriber through its own queue, rather than "
+            + "through a shared event bus, so that a slow subscriber does not delay others.")
+    public boolean enableEventDispatcher = false;
+
+    @Parameter(names = "-event_dispatcher_queue_limit",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of events queued for a subscriber beyond which the queue is "
+            + "reported as overflowing. Events are never dropped.")
+    public int eventDispatcherQueueLimit = 10000;
+  }
+
   @Qualifier
   @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
   private @interface DeadEventHandler { }
 
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  private @interface SubscriberExceptions { }
+
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  private @interface UseEventDispatcher { }
+
   @Qualifier
   @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
   public @interface RegisteredEvents { }
 
+  private final Options options;
   private final Logger log;
   private final Executor registeredExecutor;
 
@@ -71,17 +99,28 @@ public final class PubsubEventModule extends AbstractModule {
   static final String EVENT_BUS_DEAD_EVENTS = "event_bus_dead_events";
 
   public PubsubEventModule() {
-    this(LoggerFactory.getLogger(PubsubEventModule.class));
+    this(new Options());
   }
 
-  private PubsubEventModule(Logger log) {
-    this.log = requireNonNull(log);
-    this.registeredExecutor = AsyncUtil.singleThreadLoggingScheduledExecutor("RegisteredEventSink",
-        log);
+  public PubsubEventModule(Options options) {
+    this(options, LoggerFactory.getLogger(PubsubEventModule.class));
+  }
+
+  private PubsubEventModule(Options options, Logger log) {
+    this(
+        options,
+        log,
+        AsyncUtil.singleThreadLoggingScheduledExecutor("RegisteredEventSink", log));
   }
 
   @VisibleForTesting
   PubsubEventModule(Logger log, Executor registeredExecutor) {
+    this(new Options(), log, registeredExecutor);
+  }
+
+  @VisibleForTesting
+  PubsubEventModule(Options options, Logger log, Executor registeredExecutor) {
+    this.options = requireNonNull(options);
     this.log = requireNonNull(log);
     this.registeredExecutor = requireNonNull(registeredExecutor);
   }
@@ -94,15 +133,26 @@ public final class PubsubEventModule extends AbstractModule {
     // Ensure at least an empty binding is present.
     Multibinder.newSetBinder(binder(), EventSubscriber.class);
     Multibinder.newSetBinder(binder(), EventSubscriber.class, RegisteredEvents.class);
+    bind(Boolean.class)
+        .annotatedWith(UseEventDispatcher.class)
+        .toInstance(options.enableEventDispatcher);
 
     // TODO(ksweeney): Would this be better as a scheduler active service?
     SchedulerServicesModule.addAppStartupServiceBinding(binder()).to(RegisterSubscribers.class);
   }
 
+  @Provides
+  @SubscriberExceptions
+  @Singleton
+  AtomicLong provideSubscriberExceptions(StatsProvider statsProvider) {
+    return statsProvider.makeCounter(EXCEPTIONS_STAT);
+  }
+
   @Provides
   @Singleton
-  SubscriberExceptionHandler provideSubscriberExceptionHandler(StatsProvider statsProvider) {
-    final AtomicLong subscriberExceptions = statsProvider.makeCounter(EXCEPTIONS_STAT);
+  SubscriberExceptionHandler provideSubscriberExceptionHandler(
+      @SubscriberExceptions AtomicLong subscriberExceptions) {
+
     return (exception, context) -> {
       subscriberExceptions.incrementAndGet();
       log.error(
@@ -138,8 +188,28 @@ public final class PubsubEventModule extends AbstractModule {
 
   @Provides
   @Singleton
-  EventSink provideEventSink(EventBus eventBus) {
-    return eventBus::post;
+  EventDispatcher provideEventDispatcher(
+      @AsyncExecutor Executor executor,
+      StatsProvider statsProvider,
+      @SubscriberExceptions AtomicLong subscriberExceptions,
+      @DeadEventHandler Object deadEventHandler) {
+
+    EventDispatcher dispatcher = new EventDispatcher(
+        executor,
+        options.eventDispatcherQueueLimit,
+        statsProvider,
+        (exception, event, method) -> {
+          subscriberExceptions.incrementAndGet();
+          log.error("Failed to dispatch event to " + method + ": " + exception, exception);
+        });
+    dispatcher.register(deadEventHandler);
+    return dispatcher;
+  }
+
+  @Provides
+  @Singleton
+  EventSink provideEventSink(EventBus eventBus, Provider<EventDispatcher> dispatcher) {
+    return options.enableEventDispatcher ? dispatcher.get()::post : eventBus::post;
   }
 
   @Provides
@@ -162,17 +232,23 @@ public final class PubsubEventModule extends AbstractModule {
 
   static class RegisterSubscribers extends AbstractIdleService {
     private final EventBus eventBus;
+    private final Provider<EventDispatcher> dispatcher;
+    private final boolean useEventDispatcher;
     private final EventBus registeredEventBus;
     private final Set<EventSubscriber> subscribers;
     private final Set<EventSubscriber> registeredSubscribers;
 
     @Inject
     RegisterSubscribers(EventBus eventBus,
+                        Provider<EventDispatcher> dispatcher,
+                        @UseEventDispatcher boolean useEventDispatcher,
                         @RegisteredEvents EventBus registeredEventBus,
                         Set<EventSubscriber> subscribers,
                         @RegisteredEvents Set<EventSubscriber> registeredSubscribers) {
 
       this.eventBus = requireNonNull(eventBus);
+      this.dispatcher = requireNonNull(dispatcher);
+      this.useEventDispatcher = useEventDispatcher;
       this.registeredEventBus = requireNonNull(registeredEventBus);
       this.subscribers = requireNonNull(subscribers);
       this.registeredSubscribers = requireNonNull(registeredSubscribers);
@@ -180,7 +256,11 @@ public final class PubsubEventModule extends AbstractModule {
 
     @Override
     protected void startUp() {
-      subscribers.forEach(eventBus::register);
+      if (useEventDispatcher) {
+        subscribers.forEach(dispatcher.get()::register);
+      } else {
+        subscribers.forEach(eventBus::register);
+      }
       registeredSubscribers.forEach(registeredEventBus::register);
     }
 
@@ -15,12 +15,6 @@ package org.apache.aurora.scheduler.filter;
 
 import java.util.Set;
 
-import com.google.common.base.Predicates;
-import com.google.common.collect.Iterables;
-
-import org.apache.aurora.scheduler.storage.entities.IAttribute;
-import org.apache.aurora.scheduler.storage.entities.IValueConstraint;
-
 /**
  * Utility class that matches attributes to constraints.
  */
@@ -30,33 +24,23 @@ final class AttributeFilter {
     // Utility class.
   }
 
-  /**
-   * Tests whether a constraint is satisfied by attributes.
-   *
-   * @param values Host attribute values.
-   * @param constraint Constraint to match.
-   * @return {@code true} if the attribute satisfies the constraint, {@code false} otherwise.
-   */
-  static boolean matches(Set<String> values, IValueConstraint constraint) {
-    boolean match = Iterables.any(constraint.getValues(), Predicates.in(values));
-    return constraint.isNegated() ^ match;
-  }
-
   /**
    * Tests whether an attribute matches a limit constraint.
    *
-   * @param attribute Attribute to match against.
+   * @param name Name of the attribute to match against.
+   * @param values Host values of the attribute.
    * @param limit Limit value.
    * @param attributeAggregate Cached state of the job being filtered.
    * @return {@code true} if the limit constraint is satisfied, {@code false} otherwise.
    */
   static boolean matches(
-      final IAttribute attribute,
+      String name,
+      Set<String> values,
       int limit,
       AttributeAggregate attributeAggregate) {
 
-    for (String value : attribute.getValues()) {
-      if (limit <= attributeAggregate.getNumTasksWithAttribute(attribute.getName(), value)) {
+    for (String value : values) {
+      if (limit <= attributeAggregate.getNumTasksWithAttribute(name, value)) {
         return false;
       }
     }
@@ -13,98 +13,163 @@
  */
 package org.apache.aurora.scheduler.filter;
 
+import java.util.BitSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
-import com.google.common.base.Function;
-import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
 
-import org.apache.aurora.gen.Attribute;
 import org.apache.aurora.scheduler.base.SchedulerException;
+import org.apache.aurora.scheduler.configuration.ConfigurationManager;
+import org.apache.aurora.scheduler.filter.HostAttributeIndex.Host;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
-import org.apache.aurora.scheduler.storage.entities.IAttribute;
 import org.apache.aurora.scheduler.storage.entities.IConstraint;
 import org.apache.aurora.scheduler.storage.entities.ITaskConstraint;
 
 /**
- * Filter that determines whether a task's constraints are satisfied.
+ * Filter that determines whether a task's constraints are satisfied, compiled once for a set of
+ * constraints and evaluated against hosts interned in a {@link HostAttributeIndex}.
+ * <p>
+ * Value constraints are answered for all hosts at once, as a bitset of the matching host
+ * ordinals that is recomputed only when the indexed values of the constrained attribute change.
+ * Limit constraints depend on the state of the job being scheduled, and are checked against the
+ * interned values of each host.
  */
 final class ConstraintMatcher {
-  private ConstraintMatcher() {
-    // Utility class.
-  }
+  private final boolean dedicated;
+  private final List<ValueMatcher> valueMatchers;
+  private final List<LimitMatcher> limitMatchers;
+
+  private ConstraintMatcher(
+      boolean dedicated,
+      List<ValueMatcher> valueMatchers,
+      List<LimitMatcher> limitMatchers) {
 
-  private static final Function<IAttribute, Set<String>> GET_VALUES =
-      IAttribute::getValues;
+    this.dedicated = dedicated;
+    this.valueMatchers = valueMatchers;
+    this.limitMatchers = limitMatchers;
+  }
 
   /**
-   * Gets the veto (if any) for a scheduling constraint based on the {@link AttributeAggregate} this
-   * filter was created with.
+   * Compiles a set of task constraints.
    *
-   * @param constraint Scheduling filter to check.
-   * @return A veto if the constraint is not satisfied based on the existing state of the job.
+   * @param constraints Constraints to compile.
+   * @return A matcher for the constraints.
    */
-  static Optional<Veto> getVeto(
-      AttributeAggregate cachedjobState,
-      Iterable<IAttribute> hostAttributes,
-      IConstraint constraint) {
-
-    Iterable<IAttribute> sameNameAttributes =
-        Iterables.filter(hostAttributes, new NameFilter(constraint.getName()));
-    Optional<IAttribute> attribute;
-    if (Iterables.isEmpty(sameNameAttributes)) {
-      attribute = Optional.empty();
-    } else {
-      Set<String> attributeValues = ImmutableSet.copyOf(
-          Iterables.concat(Iterables.transform(sameNameAttributes, GET_VALUES)));
-      attribute =
-          Optional.of(IAttribute.build(new Attribute(constraint.getName(), attributeValues)));
-    }
+  static ConstraintMatcher compile(Iterable<IConstraint> constraints) {
+    ImmutableList.Builder<ValueMatcher> valueMatchers = ImmutableList.builder();
+    ImmutableList.Builder<LimitMatcher> limitMatchers = ImmutableList.builder();
+    for (IConstraint constraint : constraints) {
+      ITaskConstraint taskConstraint = constraint.getConstraint();
+      switch (taskConstraint.getSetField()) {
+        case VALUE:
+          valueMatchers.add(new ValueMatcher(
+              constraint.getName(),
+              ImmutableSet.copyOf(taskConstraint.getValue().getValues()),
+              taskConstraint.getValue().isNegated()));
+          break;
 
-    ITaskConstraint taskConstraint = constraint.getConstraint();
-    switch (taskConstraint.getSetField()) {
-      case VALUE:
-        boolean matches = AttributeFilter.matches(
-            attribute.map(GET_VALUES).orElse(ImmutableSet.of()),
-            taskConstraint.getValue());
-        return matches
-            ? Optional.empty()
-            : Optional.of(Veto.constraintMismatch(constraint.getName()));
-
-      case LIMIT:
-        if (!attribute.isPresent()) {
-          return Optional.of(Veto.constraintMismatch(constraint.getName()));
-        }
-
-        boolean satisfied = AttributeFilter.matches(
-            attribute.get(),
-            taskConstraint.getLimit().getLimit(),
-            cachedjobState);
-        return satisfied
-            ? Optional.empty()
-            : Optional.of(Veto.unsatisfiedLimit(constraint.getName()));
-
-      default:
-        throw new SchedulerException("Failed to recognize the constraint type: "
-            + taskConstraint.getSetField());
+        case LIMIT:
+          limitMatchers.add(
+              new LimitMatcher(constraint.getName(), taskConstraint.getLimit().getLimit()));
+          break;
+
+        default:
+          throw new SchedulerException("Failed to recognize the constraint type: "
+              + taskConstraint.getSetField());
+      }
     }
+
+    return new ConstraintMatcher(
+        ConfigurationManager.isDedicated(constraints),
+        valueMatchers.build(),
+        limitMatchers.build());
+  }
+
+  /**
+   * Tests whether the constraints include a dedicated constraint.
+   *
+   * @return {@code true} if the constraints allow scheduling on dedicated hosts.
+   */
+  boolean isDedicated() {
+    return dedicated;
   }
 
   /**
-   * A filter to find attributes matching a name.
+   * Gets the veto (if any) for the constraints on a host. Value constraints are checked before
+   * limit constraints, which are more expensive to evaluate.
+   *
+   * @param index Index the host is interned in.
+   * @param host Host to check.
+   * @param jobState Existing state of the job being scheduled.
+   * @return A veto for the first constraint that is not satisfied on the host.
    */
-  static class NameFilter implements Predicate<IAttribute> {
-    private final String attributeName;
+  Optional<Veto> getVeto(HostAttributeIndex index, Host host, AttributeAggregate jobState) {
+    for (ValueMatcher matcher : valueMatchers) {
+      if (!matcher.matches(index, host)) {
+        return Optional.of(Veto.constraintMismatch(matcher.name));
+      }
+    }
+
+    for (LimitMatcher matcher : limitMatchers) {
+      if (!host.hasAttribute(matcher.name)) {
+        return Optional.of(Veto.constraintMismatch(matcher.name));
+      }
+      if (!AttributeFilter.matches(
+          matcher.name,
+          host.getValues(matcher.name),
+          matcher.limit,
+          jobState)) {
 
-    NameFilter(String attributeName) {
-      this.attributeName = attributeName;
+        return Optional.of(Veto.unsatisfiedLimit(matcher.name));
+      }
     }
 
-    @Override
-    public boolean apply(IAttribute attribute) {
-      return attributeName.equals(attribute.getName());
+    return Optional.empty();
+  }
+
+  private static final class ValueMatcher {
+    private final String name;
+    private final Set<String> values;
+    private final boolean negated;
+    private volatile MatchingHosts matchingHosts;
+
+    ValueMatcher(String name, Set<String> values, boolean negated) {
+      this.name = name;
+      this.values = values;
+      this.negated = negated;
+    }
+
+    boolean matches(HostAttributeIndex index, Host host) {
+      MatchingHosts current = matchingHosts;
+      long version = index.getVersion(name);
+      if (current == null || current.version != version) {
+        current = new MatchingHosts(version, index.getHostsWithAnyValue(name, values));
+        matchingHosts = current;
+      }
+      return negated ^ current.hosts.get(host.getOrdinal());
+    }
+  }
+
+  private static final class MatchingHosts {
+    private final long version;
+    private final BitSet hosts;
+
+    MatchingHosts(long version, BitSet hosts) {
+      this.version = version;
+      this.hosts = hosts;
+    }
+  }
+
+  private static final class LimitMatcher {
+    private final String name;
+    private final int limit;
+
+    LimitMatcher(String name, int limit) {
+      this.name = name;
+      this.limit = limit;
     }
   }
 }
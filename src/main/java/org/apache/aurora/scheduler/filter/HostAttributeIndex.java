@@ -0,0 +1,205 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.filter;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.apache.aurora.scheduler.storage.entities.IAttribute;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+
+/**
+ * An index of host attributes, in which every host is assigned an ordinal and every attribute
+ * value maps to the set of hosts that have it, as a bitset over host ordinals.
+ * <p>
+ * Hosts are interned as they are seen, re-indexed when their attributes change, and removed when
+ * their agents are lost, at which point their ordinals are reused. Reads are lock-free: the
+ * bitsets are never modified once published, and are replaced by updated copies when a host is
+ * re-indexed. Each attribute has its own version, so that a change in the values of one attribute
+ * does not invalidate results computed for others.
+ */
+final class HostAttributeIndex {
+
+  /**
+   * An interned host, with its attribute values merged by attribute name.
+   */
+  static final class Host {
+    private final int ordinal;
+    private final IHostAttributes attributes;
+    private final Map<String, Set<String>> values;
+
+    private Host(int ordinal, IHostAttributes attributes, Map<String, Set<String>> values) {
+      this.ordinal = ordinal;
+      this.attributes = attributes;
+      this.values = values;
+    }
+
+    int getOrdinal() {
+      return ordinal;
+    }
+
+    boolean hasAttribute(String name) {
+      return values.containsKey(name);
+    }
+
+    Set<String> getValues(String name) {
+      Set<String> hostValues = values.get(name);
+      return hostValues == null ? ImmutableSet.of() : hostValues;
+    }
+  }
+
+  private static final BitSet NO_HOSTS = new BitSet();
+
+  private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, BitSet>> hostsByValue = new ConcurrentHashMap<>();
+  private final Map<String, Long> versions = new ConcurrentHashMap<>();
+  private final BitSet freeOrdinals = new BitSet();
+  private long nextVersion = 1;
+  private int nextOrdinal;
+
+  /**
+   * Gets the interned form of a host's attributes, indexing the host if it is new or its
+   * attributes have changed.
+   *
+   * @param attributes Host attributes.
+   * @return Interned host.
+   */
+  Host intern(IHostAttributes attributes) {
+    Host host = hosts.get(key(attributes));
+    if (host != null && host.attributes == attributes) {
+      return host;
+    }
+    return update(attributes);
+  }
+
+  /**
+   * Removes the host of a lost agent, if it is indexed.
+   *
+   * @param agentId ID of the lost agent.
+   */
+  synchronized void remove(String agentId) {
+    Optional<Host> lost = hosts.values().stream()
+        .filter(host -> host.attributes.isSetSlaveId())
+        .filter(host -> host.attributes.getSlaveId().equals(agentId))
+        .findFirst();
+    if (lost.isPresent()) {
+      Host host = lost.get();
+      hosts.remove(key(host.attributes));
+      reindex(host.ordinal, host.values, ImmutableMap.of());
+      freeOrdinals.set(host.ordinal);
+    }
+  }
+
+  /**
+   * Gets a version that changes whenever the indexed values of an attribute change for any host.
+   *
+   * @param name Attribute name.
+   * @return Attribute version.
+   */
+  long getVersion(String name) {
+    return versions.getOrDefault(name, 0L);
+  }
+
+  /**
+   * Gets all hosts that have at least one of the given values for an attribute.
+   *
+   * @param name Attribute name.
+   * @param values Attribute values.
+   * @return A new bitset of the matching host ordinals.
+   */
+  BitSet getHostsWithAnyValue(String name, Set<String> values) {
+    Map<String, BitSet> valueHosts = hostsByValue.getOrDefault(name, ImmutableMap.of());
+    BitSet matching = new BitSet();
+    for (String value : values) {
+      matching.or(valueHosts.getOrDefault(value, NO_HOSTS));
+    }
+    return matching;
+  }
+
+  private static String key(IHostAttributes attributes) {
+    // Attributes without a host name are indexed as a single host.
+    return attributes.isSetHost() ? attributes.getHost() : "";
+  }
+
+  private synchronized Host update(IHostAttributes attributes) {
+    String key = key(attributes);
+    Host existing = hosts.get(key);
+    if (existing != null && existing.attributes.equals(attributes)) {
+      // The same attributes in a different instance, which is likely to be seen again.
+      Host host = new Host(existing.ordinal, attributes, existing.values);
+      hosts.put(key, host);
+      return host;
+    }
+
+    Map<String, ImmutableSet.Builder<String>> builders = Maps.newHashMap();
+    for (IAttribute attribute : attributes.getAttributes()) {
+      builders.computeIfAbsent(attribute.getName(), name -> ImmutableSet.builder())
+          .addAll(attribute.getValues());
+    }
+    Map<String, Set<String>> merged = ImmutableMap.copyOf(
+        Maps.transformValues(builders, ImmutableSet.Builder::build));
+
+    int ordinal;
+    if (existing == null) {
+      ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.nextSetBit(0);
+      freeOrdinals.clear(ordinal);
+      reindex(ordinal, ImmutableMap.of(), merged);
+    } else {
+      ordinal = existing.ordinal;
+      reindex(ordinal, existing.values, merged);
+    }
+
+    Host host = new Host(ordinal, attributes, merged);
+    hosts.put(key, host);
+    return host;
+  }
+
+  private void reindex(
+      int ordinal,
+      Map<String, Set<String>> previous,
+      Map<String, Set<String>> current) {
+
+    for (String name : Sets.union(previous.keySet(), current.keySet())) {
+      Set<String> before = previous.getOrDefault(name, ImmutableSet.of());
+      Set<String> after = current.getOrDefault(name, ImmutableSet.of());
+      if (!before.equals(after)) {
+        Sets.difference(before, after).forEach(value -> setHost(name, value, ordinal, false));
+        Sets.difference(after, before).forEach(value -> setHost(name, value, ordinal, true));
+        // The version changes only after the bitsets, so that a result computed from outdated
+        // bitsets is never recorded against the new version.
+        versions.put(name, nextVersion++);
+      }
+    }
+  }
+
+  private void setHost(String name, String value, int ordinal, boolean present) {
+    Map<String, BitSet> valueHosts =
+        hostsByValue.computeIfAbsent(name, n -> new ConcurrentHashMap<>());
+    BitSet updated = (BitSet) valueHosts.getOrDefault(value, NO_HOSTS).clone();
+    updated.set(ordinal, present);
+    if (updated.isEmpty()) {
+      valueHosts.remove(value);
+    } else {
+      valueHosts.put(value, updated);
+    }
+  }
+}
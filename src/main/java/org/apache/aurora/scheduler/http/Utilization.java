@@ -36,13 +36,11 @@ import com.google.common.collect.FluentIterable;
 import org.apache.aurora.common.base.MorePreconditions;
 import org.apache.aurora.common.util.templating.StringTemplateHelper;
 import org.apache.aurora.common.util.templating.StringTemplateHelper.TemplateException;
-import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.resources.ResourceType;
-import org.apache.aurora.scheduler.stats.ResourceCounter;
 import org.apache.aurora.scheduler.stats.ResourceCounter.Metric;
 import org.apache.aurora.scheduler.stats.ResourceCounter.MetricType;
+import org.apache.aurora.scheduler.stats.UtilizationRollup;
 import org.apache.aurora.scheduler.storage.entities.IServerInfo;
-import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 
 /**
  * A servlet to give an aggregate view of cluster resources consumed, grouped by category.
@@ -51,19 +49,22 @@ import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 public class Utilization {
 
   private final String clusterName;
-  private final ResourceCounter counter;
+  private final UtilizationRollup rollup;
   private final StringTemplateHelper templateHelper;
 
   @Inject
-  Utilization(ResourceCounter counter, IServerInfo serverInfo) {
+  Utilization(UtilizationRollup rollup, IServerInfo serverInfo) {
     templateHelper = new StringTemplateHelper(getClass(), "utilization", true);
-    this.counter = Objects.requireNonNull(counter);
+    this.rollup = Objects.requireNonNull(rollup);
     this.clusterName = MorePreconditions.checkNotBlank(serverInfo.getClusterName());
   }
 
-  private String fillTemplate(Map<Display, Metric> metrics) {
-    Function<Entry<Display, Metric>, DisplayMetric> transform =
-        entry -> new DisplayMetric(entry.getKey(), entry.getValue());
+  private String fillTemplate(
+      Map<String, Metric> metrics,
+      Function<String, Display> toDisplay) {
+
+    Function<Entry<String, Metric>, DisplayMetric> transform =
+        entry -> new DisplayMetric(toDisplay.apply(entry.getKey()), entry.getValue());
     return fillTemplate(FluentIterable.from(metrics.entrySet()).transform(transform).toList());
   }
 
@@ -173,7 +174,7 @@ public class Utilization {
   @Produces(MediaType.TEXT_HTML)
   public Response aggregateCluster() {
     Iterable<DisplayMetric> metrics =
-        FluentIterable.from(counter.computeConsumptionTotals()).transform(TO_DISPLAY).toList();
+        FluentIterable.from(rollup.getConsumptionTotals()).transform(TO_DISPLAY).toList();
     return Response.ok(fillTemplate(metrics)).build();
   }
 
@@ -199,13 +200,8 @@ public class Utilization {
   public Response aggregateRoles(@PathParam("metric") final String metric) {
     final MetricType type = getTypeByName(metric);
 
-    Function<ITaskConfig, Display> toKey = task -> {
-      String role = task.getJob().getRole();
-      return new Display(role, metric + "/" + role);
-    };
-    Map<Display, Metric> byRole =
-        counter.computeAggregates(Query.unscoped().active(), type.filter, toKey);
-    return Response.ok(fillTemplate(byRole)).build();
+    Function<String, Display> toDisplay = role -> new Display(role, metric + "/" + role);
+    return Response.ok(fillTemplate(rollup.getRoleAggregates(type), toDisplay)).build();
   }
 
   /**
@@ -223,9 +219,7 @@ public class Utilization {
       @PathParam("role") String role) {
 
     MetricType type = getTypeByName(metric);
-    Function<ITaskConfig, Display> toKey = task -> new Display(task.getJob().getName(), null);
-    Map<Display, Metric> byJob =
-        counter.computeAggregates(Query.roleScoped(role).active(), type.filter, toKey);
-    return Response.ok(fillTemplate(byJob)).build();
+    Function<String, Display> toDisplay = job -> new Display(job, null);
+    return Response.ok(fillTemplate(rollup.getJobAggregates(type, role), toDisplay)).build();
   }
 }
@@ -15,6 +15,7 @@ package org.apache.aurora.scheduler.log;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.Optional;
 
 /**
  * Represents an append only log that can be read after and truncated before a known
@@ -44,6 +45,19 @@ public interface Log {
     byte[] contents();
   }
 
+  /**
+   * A log entry read along with its position in the log stream.
+   */
+  interface PositionedEntry extends Entry {
+
+    /**
+     * Gets the position of the log entry.
+     *
+     * @return the position this entry was read from
+     */
+    Position position();
+  }
+
   /**
    * An interface to the live {@link Log} stream that allows for appending, reading and writing
    * entries.
@@ -98,6 +112,26 @@ public interface Log {
      */
     Iterator<Entry> readAll() throws InvalidPositionException, StreamAccessException;
 
+    /**
+     * Reads the entries following the given {@code position}, along with their positions, so that
+     * a reader can later continue from the last entry it read.
+     *
+     * <p>An uncoordinated read never interferes with a writer to the log, but may not include the
+     * entries most recently appended by another writer.  A coordinated read includes all entries
+     * in the log, which may require this stream to become the log's writer first.
+     *
+     * @param position the position of the last entry already read, or empty to read from the
+     *     first entry in the log
+     * @param coordinated whether the read must include all entries appended to the log
+     * @return an iterator that ranges from the entry after the given {@code position} to the last
+     *     entry in the log
+     * @throws InvalidPositionException if entries following the given position have been
+     *     truncated from this log
+     * @throws StreamAccessException if the stream could not be read from
+     */
+    Iterator<PositionedEntry> readAfter(Optional<Position> position, boolean coordinated)
+        throws InvalidPositionException, StreamAccessException;
+
     /**
      * Removes all log entries preceding the log entry at the given {@code position}.
      *
@@ -32,6 +32,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.UnmodifiableIterator;
 import com.google.common.primitives.Longs;
 
@@ -225,6 +226,34 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
 
     @Override
     public Iterator<Entry> readAll() throws StreamAccessException {
+      coordinate();
+      long from = identity(reader.beginning());
+      return Iterators.unmodifiableIterator(read(from, identity(reader.ending())));
+    }
+
+    @Override
+    public Iterator<PositionedEntry> readAfter(
+        Optional<org.apache.aurora.scheduler.log.Log.Position> position,
+        boolean coordinated) throws InvalidPositionException, StreamAccessException {
+
+      if (coordinated) {
+        coordinate();
+      }
+
+      long beginning = identity(reader.beginning());
+      long from = beginning;
+      if (position.isPresent()) {
+        Preconditions.checkArgument(position.get() instanceof LogPosition);
+        from = identity(((LogPosition) position.get()).unwrap()) + 1;
+        if (from < beginning) {
+          throw new InvalidPositionException(
+              "Entries after position " + (from - 1) + " have been truncated");
+        }
+      }
+      return Iterators.unmodifiableIterator(read(from, identity(reader.ending())));
+    }
+
+    private void coordinate() {
       // TODO(John Sirois): Currently we must be the coordinator to ensure we get the 'full read'
       // of log entries expected by the users of the org.apache.aurora.scheduler.log.Log interface.
       // Switch to another method of ensuring this when it becomes available in mesos' log
@@ -234,18 +263,21 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
       } catch (StreamAccessException e) {
         throw new StreamAccessException("Error writing noop prior to a read", e);
       }
+    }
 
-      final Log.Position from = reader.beginning();
-      final Log.Position to = end().unwrap();
+    private static long identity(Log.Position position) {
+      return Longs.fromByteArray(position.identity());
+    }
 
+    private Iterator<LogEntry> read(long from, long to) {
       // Reading all the entries at once may cause large garbage collections. Instead, we
       // lazily read the entries one by one as they are requested.
       // TODO(Benjamin Hindman): Eventually replace this functionality with functionality
       // from the Mesos Log.
-      return new UnmodifiableIterator<Entry>() {
-        private long position = Longs.fromByteArray(from.identity());
-        private final long endPosition = Longs.fromByteArray(to.identity());
-        private Entry entry = null;
+      return new UnmodifiableIterator<LogEntry>() {
+        private long position = from;
+        private final long endPosition = to;
+        private LogEntry entry = null;
 
         @Override
         public boolean hasNext() {
@@ -289,12 +321,12 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
         }
 
         @Override
-        public Entry next() {
+        public LogEntry next() {
           if (entry == null && !hasNext()) {
             throw new NoSuchElementException();
           }
 
-          Entry result = requireNonNull(entry);
+          LogEntry result = requireNonNull(entry);
           entry = null;
           return result;
         }
@@ -357,10 +389,6 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
       }
     }
 
-    private LogPosition end() {
-      return LogPosition.wrap(reader.ending());
-    }
-
     @VisibleForTesting
     static class LogPosition implements org.apache.aurora.scheduler.log.Log.Position {
       private final Log.Position underlying;
@@ -378,7 +406,7 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
       }
     }
 
-    private static class LogEntry implements org.apache.aurora.scheduler.log.Log.Entry {
+    private static class LogEntry implements PositionedEntry {
       private final Log.Entry underlying;
 
       LogEntry(Log.Entry entry) {
@@ -389,6 +417,11 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
       public byte[] contents() {
         return underlying.data;
       }
+
+      @Override
+      public LogPosition position() {
+        return LogPosition.wrap(underlying.position);
+      }
     }
   }
 }
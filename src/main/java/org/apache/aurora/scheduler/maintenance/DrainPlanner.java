@@ -0,0 +1,249 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.maintenance;
+
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Sets;
+
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.InstanceKeys;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.sla.SlaManager;
+import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
+import org.apache.aurora.scheduler.storage.entities.IHostMaintenanceRequest;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ISlaPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.gen.ScheduleStatus.DRAINING;
+import static org.apache.aurora.gen.ScheduleStatus.KILLING;
+import static org.apache.aurora.scheduler.maintenance.MaintenanceController.MaintenanceControllerImpl.DRAINING_MESSAGE;
+import static org.apache.aurora.scheduler.maintenance.MaintenanceController.MaintenanceControllerImpl.MAINTENANCE_COUNTDOWN_STAT_NAME;
+
+/**
+ * Plans the draining of all hosts in maintenance together, rather than one host and one task at a
+ * time.
+ * <p>
+ * The active tasks of all draining hosts are fetched at once and grouped by job, so that a single
+ * SLA check decides how many tasks of a job may be drained across all hosts, even when the hosts
+ * have different default SLA policies.
+ * Within a job, tasks on hosts with the fewest remaining tasks are drained first, so that hosts
+ * finish draining sooner. All tasks admitted by a plan are moved to DRAINING together.
+ * <p>
+ * Tasks with a coordinator SLA policy are still checked one at a time, and tasks whose maintenance
+ * request has timed out are drained without checking SLA.
+ */
+class DrainPlanner {
+  private static final Logger LOG = LoggerFactory.getLogger(DrainPlanner.class);
+
+  @VisibleForTesting
+  static final String TASKS_DRAINED = "drain_planner_tasks_drained";
+  @VisibleForTesting
+  static final String TASKS_BLOCKED = "drain_planner_tasks_blocked";
+  @VisibleForTesting
+  static final String MISSING_MAINTENANCE_REQUEST = "drain_planner_missing_maintenance_request";
+  @VisibleForTesting
+  static final String REMAINING_TASKS_PREFIX = "maintenance_drain_remaining_tasks_";
+
+  private static final String COUNTDOWN_MS_PARAM = "forceMaintenanceCountdownMs";
+  // Tasks in these states are already being drained.
+  private static final Set<ScheduleStatus> DRAINING_STATES = EnumSet.of(DRAINING, KILLING);
+
+  private final SlaManager slaManager;
+  private final StateManager stateManager;
+  private final StatsProvider statsProvider;
+  private final AtomicLong tasksDrained;
+  private final AtomicLong tasksBlocked;
+  private final AtomicLong missingRequests;
+  private final LoadingCache<String, AtomicLong> countdownByInstance;
+  private final Map<String, Long> remainingTasksByHost = Maps.newConcurrentMap();
+  private final Set<IJobKey> blockedJobs = Sets.newConcurrentHashSet();
+
+  @Inject
+  DrainPlanner(SlaManager slaManager, StateManager stateManager, StatsProvider statsProvider) {
+    this.slaManager = requireNonNull(slaManager);
+    this.stateManager = requireNonNull(stateManager);
+    this.statsProvider = requireNonNull(statsProvider);
+    this.tasksDrained = statsProvider.makeCounter(TASKS_DRAINED);
+    this.tasksBlocked = statsProvider.makeCounter(TASKS_BLOCKED);
+    this.missingRequests = statsProvider.makeCounter(MISSING_MAINTENANCE_REQUEST);
+    this.countdownByInstance = CacheBuilder.newBuilder().build(
+        new CacheLoader<String, AtomicLong>() {
+          @Override
+          public AtomicLong load(String key) {
+            return statsProvider.makeCounter(key);
+          }
+        });
+  }
+
+  /**
+   * Checks whether the last plan left tasks of a job undrained to preserve its SLA. A change in
+   * the state of the job's tasks may allow more of them to be drained.
+   *
+   * @param job Job to check.
+   * @return {@code true} if the job has tasks waiting to be drained.
+   */
+  boolean isBlocked(IJobKey job) {
+    return blockedJobs.contains(job);
+  }
+
+  /**
+   * Drains as many tasks from {@code hosts} as their SLAs allow.
+   *
+   * @param store Store provider.
+   * @param hosts Hosts being drained.
+   * @return Hosts that have no active tasks left.
+   */
+  Set<String> drain(MutableStoreProvider store, Set<String> hosts) {
+    if (hosts.isEmpty()) {
+      blockedJobs.clear();
+      tasksBlocked.set(0);
+      remainingTasksByHost.clear();
+      return ImmutableSet.of();
+    }
+
+    ListMultimap<String, IScheduledTask> tasksByHost = Multimaps.index(
+        store.getTaskStore().fetchTasks(Query.slaveScoped(hosts).active()),
+        t -> t.getAssignedTask().getSlaveHost());
+    // Hosts that are no longer draining report no remaining tasks.
+    remainingTasksByHost.keySet().retainAll(hosts);
+    for (String host : hosts) {
+      if (remainingTasksByHost.put(host, (long) tasksByHost.get(host).size()) == null) {
+        statsProvider.makeGauge(
+            REMAINING_TASKS_PREFIX + host,
+            () -> remainingTasksByHost.getOrDefault(host, 0L));
+      }
+    }
+
+    long nowMs = System.currentTimeMillis();
+    Set<String> toDrain = Sets.newHashSet();
+    ListMultimap<IJobKey, IScheduledTask> candidates = ArrayListMultimap.create();
+    Map<IScheduledTask, ISlaPolicy> slaPolicies = Maps.newHashMap();
+    for (String host : tasksByHost.keySet()) {
+      Optional<IHostMaintenanceRequest> request =
+          store.getHostMaintenanceStore().getHostMaintenanceRequest(host);
+      if (!request.isPresent()) {
+        LOG.error("No maintenance request found for host: {}. Assuming SLA not satisfied.", host);
+        missingRequests.incrementAndGet();
+        continue;
+      }
+
+      long remainingMs = request.get().getCreatedTimestampMs()
+          + TimeAmount.of(request.get().getTimeoutSecs(), Time.SECONDS).as(Time.MILLISECONDS)
+          - nowMs;
+      for (IScheduledTask task : tasksByHost.get(host)) {
+        countdownByInstance.getUnchecked(
+            Joiner.on("_").join(
+                MAINTENANCE_COUNTDOWN_STAT_NAME,
+                InstanceKeys.toString(Tasks.getJob(task), Tasks.getInstanceId(task))))
+            .set(remainingMs);
+        if (DRAINING_STATES.contains(task.getStatus())) {
+          continue;
+        }
+
+        ISlaPolicy slaPolicy = task.getAssignedTask().getTask().isSetSlaPolicy()
+            ? task.getAssignedTask().getTask().getSlaPolicy()
+            : request.get().getDefaultSlaPolicy();
+        if (remainingMs < 0) {
+          LOG.warn("Maintenance request timed out for host: {} after {} secs. Forcing drain of {}.",
+              host, request.get().getTimeoutSecs(), Tasks.id(task));
+          toDrain.add(Tasks.id(task));
+        } else if (slaPolicy.isSetCoordinatorSlaPolicy()) {
+          drainWithCoordinator(task, slaPolicy, remainingMs);
+        } else {
+          candidates.put(Tasks.getJob(task), task);
+          slaPolicies.put(task, slaPolicy);
+        }
+      }
+    }
+
+    Comparator<IScheduledTask> fewestRemainingFirst = Comparator
+        .<IScheduledTask>comparingInt(
+            t -> tasksByHost.get(t.getAssignedTask().getSlaveHost()).size())
+        .thenComparing(Tasks::id);
+    Set<IJobKey> blocked = Sets.newHashSet();
+    long blockedCount = 0;
+    for (Map.Entry<IJobKey, List<IScheduledTask>> entry : Multimaps.asMap(candidates).entrySet()) {
+      Map<IScheduledTask, ISlaPolicy> jobCandidates = Maps.newLinkedHashMap();
+      entry.getValue().stream()
+          .sorted(fewestRemainingFirst)
+          .forEach(task -> jobCandidates.put(task, slaPolicies.get(task)));
+      Set<IScheduledTask> admitted = slaManager.checkSla(jobCandidates, store);
+      toDrain.addAll(Tasks.ids(admitted));
+      if (admitted.size() < jobCandidates.size()) {
+        blocked.add(entry.getKey());
+        blockedCount += jobCandidates.size() - admitted.size();
+      }
+    }
+
+    blockedJobs.retainAll(blocked);
+    blockedJobs.addAll(blocked);
+    tasksBlocked.set(blockedCount);
+
+    if (!toDrain.isEmpty()) {
+      LOG.info("Draining {} tasks from {} hosts: {}", toDrain.size(), hosts.size(), toDrain);
+      stateManager.changeStates(
+          store,
+          toDrain,
+          Optional.empty(),
+          DRAINING,
+          Optional.of(DRAINING_MESSAGE));
+      tasksDrained.addAndGet(toDrain.size());
+    }
+
+    return ImmutableSet.copyOf(Sets.difference(hosts, tasksByHost.keySet()));
+  }
+
+  private void drainWithCoordinator(IScheduledTask task, ISlaPolicy slaPolicy, long remainingMs) {
+    slaManager.checkSlaThenAct(
+        task,
+        slaPolicy,
+        storeProvider -> stateManager.changeState(
+            storeProvider,
+            Tasks.id(task),
+            Optional.empty(),
+            DRAINING,
+            Optional.of(DRAINING_MESSAGE)),
+        ImmutableMap.of(COUNTDOWN_MS_PARAM, Long.toString(remainingMs)),
+        false);
+  }
+}
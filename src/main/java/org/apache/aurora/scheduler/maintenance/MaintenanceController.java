@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
@@ -63,6 +64,7 @@ import org.apache.aurora.scheduler.state.StateManager;
 import org.apache.aurora.scheduler.storage.AttributeStore;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IHostMaintenanceRequest;
@@ -165,6 +167,10 @@ public interface MaintenanceController {
    *
    * In order to avoid tasks from blocking maintenance perpetually each maintenance request has a
    * timeout after which all tasks forcefully drained.
+   *
+   * When a {@link DrainPlanner} is provided, all draining hosts are drained together by the
+   * planner. Plans are made when hosts start draining and when tasks of a job the last plan
+   * could not fully drain change state, in addition to the polling interval.
    */
   class MaintenanceControllerImpl
       extends AbstractScheduledService implements MaintenanceController, EventSubscriber {
@@ -180,7 +186,7 @@ public interface MaintenanceController {
 
     private static final String COUNTDOWN_MS_PARAM = "forceMaintenanceCountdownMs";
 
-    private static final String MAINTENANCE_COUNTDOWN_STAT_NAME = "maintenance_countdown_ms";
+    static final String MAINTENANCE_COUNTDOWN_STAT_NAME = "maintenance_countdown_ms";
     private static final String MISSING_MAINTENANCE_REQUEST = "missing_maintenance_request";
     private static final SlaPolicy ZERO_PERCENT_SLA = SlaPolicy.percentageSlaPolicy(
         new PercentageSlaPolicy()
@@ -192,6 +198,8 @@ public interface MaintenanceController {
     private final TaskEventBatchWorker batchWorker;
     private final SlaManager slaManager;
     private final StateManager stateManager;
+    private final Optional<DrainPlanner> drainPlanner;
+    private final AtomicBoolean drainPlanPending = new AtomicBoolean();
 
     private final AtomicLong missingMaintenanceCounter;
     private final LoadingCache<String, AtomicLong> maintenanceCountDownByTask;
@@ -203,6 +211,7 @@ public interface MaintenanceController {
         TaskEventBatchWorker batchWorker,
         SlaManager slaManager,
         StateManager stateManager,
+        Optional<DrainPlanner> drainPlanner,
         StatsProvider statsProvider) {
 
       this.storage = requireNonNull(storage);
@@ -210,6 +219,7 @@ public interface MaintenanceController {
       this.batchWorker = requireNonNull(batchWorker);
       this.slaManager = requireNonNull(slaManager);
       this.stateManager = requireNonNull(stateManager);
+      this.drainPlanner = requireNonNull(drainPlanner);
       this.missingMaintenanceCounter = statsProvider.makeCounter(MISSING_MAINTENANCE_REQUEST);
       this.maintenanceCountDownByTask = CacheBuilder.newBuilder().build(
           new CacheLoader<String, AtomicLong>() {
@@ -268,6 +278,13 @@ public interface MaintenanceController {
      */
     @Subscribe
     public void taskChangedState(final TaskStateChange change) {
+      if (drainPlanner.isPresent()
+          && drainPlanner.get().isBlocked(Tasks.getJob(change.getTask()))) {
+
+        // The change may allow more of the job's tasks to be drained without violating its SLA.
+        requestDrainPlan();
+      }
+
       if (Tasks.isTerminated(change.getNewState())) {
         final String host = change.getTask().getAssignedTask().getSlaveHost();
         batchWorker.execute(store -> {
@@ -333,10 +350,33 @@ public interface MaintenanceController {
       // during the write, the new one will just be a no-op, since the host is already being
       // drained. If host is in DRAINED it will be moved back into DRAINING and then back into
       // DRAINED without having to perform any work.
-      return storage.write(store -> {
+      Set<IHostStatus> statuses = storage.write(store -> {
         recordMaintenanceRequests(store, hosts, defaultSlaPolicy, timeoutSecs);
         return setMaintenanceMode(store, hosts, DRAINING);
       });
+      if (drainPlanner.isPresent()) {
+        requestDrainPlan();
+      }
+      return statuses;
+    }
+
+    private void requestDrainPlan() {
+      // Requests made while a plan is pending are served by that plan.
+      if (drainPlanPending.compareAndSet(false, true)) {
+        batchWorker.execute(store -> {
+          drainPlanPending.set(false);
+          planDrains(store);
+          return BatchWorker.NO_RESULT;
+        });
+      }
+    }
+
+    private void planDrains(MutableStoreProvider store) {
+      Set<String> drainingHosts = store.getAttributeStore().getHostAttributes().stream()
+          .filter(h -> h.getMode() == DRAINING)
+          .map(IHostAttributes::getHost)
+          .collect(Collectors.toSet());
+      setMaintenanceMode(store, drainPlanner.get().drain(store, drainingHosts), DRAINED);
     }
 
     private Optional<String> getHostname(Protos.InverseOffer offer) {
@@ -432,6 +472,11 @@ public interface MaintenanceController {
     @Override
     protected void runOneIteration() {
       LOG.info("Looking for hosts in DRAINING state");
+      if (drainPlanner.isPresent()) {
+        storage.write((NoResult.Quiet) this::planDrains);
+        return;
+      }
+
       storage.read(store -> {
         store.getAttributeStore()
             .getHostAttributes()
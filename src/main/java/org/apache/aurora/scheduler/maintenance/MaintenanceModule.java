@@ -13,13 +13,16 @@
  */
 package org.apache.aurora.scheduler.maintenance;
 
+import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import com.google.inject.AbstractModule;
 import com.google.inject.PrivateModule;
+import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
 
 import org.apache.aurora.common.quantity.Amount;
@@ -45,6 +48,12 @@ public class MaintenanceModule extends AbstractModule {
         validateValueWith = PositiveAmount.class,
         description = "Interval between polling for pending host maintenance requests.")
     public TimeAmount hostMaintenancePollingInterval = new TimeAmount(1, Time.MINUTES);
+
+    @Parameter(names = "-enable_drain_planner",
+        arity = 1,
+        description = "Drain all hosts in maintenance together, checking SLA once per job rather "
+            + "than once per task, and replan as tasks change state rather than only when polling.")
+    public boolean enableDrainPlanner = false;
   }
 
   private final Options options;
@@ -75,4 +84,10 @@ public class MaintenanceModule extends AbstractModule {
     SchedulerServicesModule.addSchedulerActiveServiceBinding(binder())
         .to(MaintenanceController.MaintenanceControllerImpl.class);
   }
+
+  @Provides
+  @Singleton
+  Optional<DrainPlanner> provideDrainPlanner(Provider<DrainPlanner> planner) {
+    return options.enableDrainPlanner ? Optional.of(planner.get()) : Optional.empty();
+  }
 }
@@ -14,6 +14,7 @@
 package org.apache.aurora.scheduler.mesos;
 
 import java.util.Collection;
+import java.util.Set;
 
 import com.google.common.util.concurrent.Service;
 
@@ -64,6 +65,13 @@ public interface Driver extends Service {
    */
   void killTask(String taskId);
 
+  /**
+   * Sends kill task requests for the given {@code taskIds} to the mesos master.
+   *
+   * @param taskIds The ids of the tasks to kill.
+   */
+  void killTasks(Set<String> taskIds);
+
   /**
    * Acknowledges the given {@code status} update.
    *
@@ -342,6 +342,7 @@ public interface MesosCallbackHandler {
     public void handleLostAgent(AgentID agentId) {
       log.info("Received notification of lost agent: " + agentId.getValue());
       slavesLost.incrementAndGet();
+      eventSink.post(new PubsubEvent.AgentLost(agentId));
     }
 
     @Override
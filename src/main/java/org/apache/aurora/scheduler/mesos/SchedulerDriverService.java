@@ -15,6 +15,7 @@ package org.apache.aurora.scheduler.mesos;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -166,6 +167,12 @@ class SchedulerDriverService extends AbstractIdleService implements Driver {
     }
   }
 
+  @Override
+  public void killTasks(Set<String> taskIds) {
+    // The driver has no bulk kill call, so requests are sent one at a time.
+    taskIds.forEach(this::killTask);
+  }
+
   @Override
   public void acknowledgeStatusUpdate(Protos.TaskStatus status) {
     ensureRunning();
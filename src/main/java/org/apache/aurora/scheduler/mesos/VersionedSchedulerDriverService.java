@@ -15,9 +15,11 @@ package org.apache.aurora.scheduler.mesos;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.Futures;
@@ -173,18 +175,27 @@ class VersionedSchedulerDriverService extends AbstractIdleService
 
   @Override
   public void killTask(String taskId) {
-    whenRegistered(() -> {
-      LOG.info("Killing task {}", taskId);
-
-      Futures.getUnchecked(mesosFuture).send(
-          Call.newBuilder().setType(Call.Type.KILL)
-              .setFrameworkId(getFrameworkId())
-              .setKill(
-                  Call.Kill.newBuilder()
-                      .setTaskId(TaskID.newBuilder().setValue(taskId)))
-              .build()
-      );
+    killTasks(ImmutableSet.of(taskId));
+  }
 
+  @Override
+  public void killTasks(Set<String> taskIds) {
+    whenRegistered(() -> {
+      Mesos mesos = Futures.getUnchecked(mesosFuture);
+      FrameworkID frameworkId = getFrameworkId();
+      // The v1 API has one kill call per task, but the calls share a single wait for registration.
+      for (String taskId : taskIds) {
+        LOG.info("Killing task {}", taskId);
+
+        mesos.send(
+            Call.newBuilder().setType(Call.Type.KILL)
+                .setFrameworkId(frameworkId)
+                .setKill(
+                    Call.Kill.newBuilder()
+                        .setTaskId(TaskID.newBuilder().setValue(taskId)))
+                .build()
+        );
+      }
     });
   }
 
@@ -14,16 +14,22 @@
 package org.apache.aurora.scheduler.offers;
 
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
 
 import org.apache.aurora.common.collections.Pair;
 import org.apache.aurora.common.stats.StatsProvider;
@@ -40,24 +46,51 @@ import static java.util.Objects.requireNonNull;
 /**
  * A container for the data structures used by this {@link OfferManagerImpl}, to make it easier to
  * reason about the different indices used and their consistency.
+ * <p>
+ * The indices are concurrent, and are not guarded by a global lock. Since there is at most one
+ * offer per agent, all updates to the indices for an offer are made while holding a lock striped
+ * by agent, so that updates for different agents proceed in parallel while the indices remain
+ * consistent for each agent. {@link #clear()} excludes all other updates. The {@link OfferSet}
+ * is not required to be thread-safe, so calls to it are serialized on the offer set itself.
+ * Readers do not lock the indices, and may observe an update to the indices in progress. Offers
+ * yielded by {@link #getAllMatching(TaskGroupKey, ResourceRequest)} and {@link #getOffers()} are
+ * checked against the ID index, so that an offer that was removed or replaced before it is
+ * reached is never returned.
  */
 class HostOffers {
+  private static final int AGENT_LOCK_STRIPES = 64;
+
   private final OfferSet offers;
 
-  private final Map<Protos.OfferID, HostOffer> offersById = Maps.newHashMap();
-  private final Map<Protos.AgentID, HostOffer> offersBySlave = Maps.newHashMap();
-  private final Map<String, HostOffer> offersByHost = Maps.newHashMap();
+  private final Map<Protos.OfferID, HostOffer> offersById = new ConcurrentHashMap<>();
+  private final Map<Protos.AgentID, HostOffer> offersBySlave = new ConcurrentHashMap<>();
+  private final Map<String, HostOffer> offersByHost = new ConcurrentHashMap<>();
+  private final Striped<Lock> agentLocks = Striped.lock(AGENT_LOCK_STRIPES);
+  // Held shared by updates for an agent, and exclusively by clear().
+  private final ReadWriteLock updateLock = new ReentrantReadWriteLock();
 
   // Keep track of offer->groupKey mappings that will never be matched to avoid redundant
   // scheduling attempts. See VetoGroup for more details on static ban.
   private final Cache<Pair<Protos.OfferID, TaskGroupKey>, Boolean> staticallyBannedOffers;
   private final SchedulingFilter schedulingFilter;
 
+  // Keep track of agent->groupKey mappings that are vetoed by host attributes alone, and so hold
+  // for every offer from the agent until the host's attributes change. Keys include a version of
+  // the host's attributes, so that vetoes computed against outdated attributes are never read.
+  private final Cache<HostVetoKey, Boolean> hostVetoes;
+  // A host's version is dropped when its agent is lost, so the host of each agent that made an
+  // offer is kept until then.
+  private final Map<String, Long> hostAttributeVersions = new ConcurrentHashMap<>();
+  private final AtomicLong nextHostAttributeVersion = new AtomicLong(1);
+  private final Map<Protos.AgentID, String> agentHosts = new ConcurrentHashMap<>();
+
   // Keep track of globally banned offers that will never be matched to anything.
-  private final Set<Protos.OfferID> globallyBannedOffers = Sets.newHashSet();
+  private final Set<Protos.OfferID> globallyBannedOffers = Sets.newConcurrentHashSet();
 
   // Keep track of the number of offers evaluated for vetoes when getting matching offers
   private final AtomicLong vetoEvaluatedOffers;
+  // Keep track of the number of veto evaluations answered by the host veto cache.
+  private final AtomicLong vetoEvaluationsAvoided;
 
   HostOffers(StatsProvider statsProvider,
              OfferSettings offerSettings,
@@ -66,6 +99,9 @@ class HostOffers {
     this.staticallyBannedOffers = offerSettings
         .getStaticBanCacheBuilder()
         .build();
+    this.hostVetoes = offerSettings
+        .getStaticBanCacheBuilder()
+        .build();
     this.schedulingFilter = requireNonNull(schedulingFilter);
 
     statsProvider.makeGauge(OfferManagerImpl.OUTSTANDING_OFFERS, offers::size);
@@ -75,7 +111,13 @@ class HostOffers {
         () -> staticallyBannedOffers.stats().hitRate());
     statsProvider.makeGauge(OfferManagerImpl.GLOBALLY_BANNED_OFFERS, globallyBannedOffers::size);
 
+    statsProvider.makeGauge(OfferManagerImpl.HOST_VETO_CACHE_SIZE, hostVetoes::size);
+    statsProvider.makeGauge(OfferManagerImpl.HOST_VETO_CACHE_HIT_RATE,
+        () -> hostVetoes.stats().hitRate());
+
     vetoEvaluatedOffers = statsProvider.makeCounter(OfferManagerImpl.VETO_EVALUATED_OFFERS);
+    vetoEvaluationsAvoided =
+        statsProvider.makeCounter(OfferManagerImpl.VETO_EVALUATIONS_AVOIDED);
   }
 
   /**
@@ -87,49 +129,107 @@ class HostOffers {
    * @return The pre-existing offer with the same agent ID as {@code offer}, if one exists,
    *         which will also be removed prior to returning.
    */
-  synchronized Optional<HostOffer> addAndPreventAgentCollision(HostOffer offer) {
-    HostOffer sameAgent = offersBySlave.get(offer.getOffer().getAgentId());
-    if (sameAgent != null) {
-      remove(sameAgent.getOffer().getId());
-      return Optional.of(sameAgent);
-    }
+  Optional<HostOffer> addAndPreventAgentCollision(HostOffer offer) {
+    return withAgentLock(offer.getOffer().getAgentId(), () -> {
+      HostOffer sameAgent = offersBySlave.get(offer.getOffer().getAgentId());
+      if (sameAgent != null) {
+        removeInternal(sameAgent);
+        return Optional.of(sameAgent);
+      }
 
-    addInternal(offer);
-    return Optional.empty();
+      addInternal(offer);
+      return Optional.empty();
+    });
+  }
+
+  private <T> T withAgentLock(Protos.AgentID agentId, Supplier<T> update) {
+    Lock shared = updateLock.readLock();
+    Lock agent = agentLocks.get(agentId);
+    shared.lock();
+    agent.lock();
+    try {
+      return update.get();
+    } finally {
+      agent.unlock();
+      shared.unlock();
+    }
   }
 
   private void addInternal(HostOffer offer) {
-    offers.add(offer);
+    synchronized (offers) {
+      offers.add(offer);
+    }
     offersById.put(offer.getOffer().getId(), offer);
     offersBySlave.put(offer.getOffer().getAgentId(), offer);
     offersByHost.put(offer.getOffer().getHostname(), offer);
+    agentHosts.put(offer.getOffer().getAgentId(), offer.getOffer().getHostname());
+  }
+
+  private boolean removeInternal(HostOffer offer) {
+    if (offersById.remove(offer.getOffer().getId(), offer)) {
+      synchronized (offers) {
+        offers.remove(offer);
+      }
+      offersBySlave.remove(offer.getOffer().getAgentId(), offer);
+      offersByHost.remove(offer.getOffer().getHostname(), offer);
+      return true;
+    }
+    return false;
   }
 
-  synchronized boolean remove(Protos.OfferID id) {
-    HostOffer removed = offersById.remove(id);
-    if (removed != null) {
-      offers.remove(removed);
-      offersBySlave.remove(removed.getOffer().getAgentId());
-      offersByHost.remove(removed.getOffer().getHostname());
+  boolean remove(Protos.OfferID id) {
+    boolean removed = false;
+    HostOffer offer = offersById.get(id);
+    if (offer != null) {
+      removed = withAgentLock(offer.getOffer().getAgentId(), () -> removeInternal(offer));
     }
     globallyBannedOffers.remove(id);
-    return removed != null;
+    return removed;
   }
 
-  synchronized void addGlobalBan(Protos.OfferID offerId) {
+  void addGlobalBan(Protos.OfferID offerId) {
     globallyBannedOffers.add(offerId);
   }
 
-  synchronized void updateHostAttributes(IHostAttributes attributes) {
-    HostOffer offer = offersByHost.remove(attributes.getHost());
+  void updateHostAttributes(IHostAttributes attributes) {
+    String host = attributes.getHost();
+    HostOffer offer = offersByHost.get(host);
     if (offer != null) {
-      // Remove and re-add a host's offer to re-sort based on its new hostStatus
-      remove(offer.getOffer().getId());
-      addInternal(new HostOffer(offer.getOffer(), attributes));
+      withAgentLock(offer.getOffer().getAgentId(), () -> {
+        // Remove and re-add a host's offer to re-sort based on its new hostStatus
+        if (removeInternal(offer)) {
+          addInternal(new HostOffer(offer.getOffer(), attributes));
+        }
+        return null;
+      });
     }
+
+    // Attribute changes include maintenance mode changes, either of which may change the vetoes
+    // for the host. The version changes only once the host's offer carries the new attributes.
+    // Without a held offer, there is no veto to guard against, and the version is dropped.
+    if (offer == null) {
+      hostAttributeVersions.remove(host);
+    } else {
+      hostAttributeVersions.put(host, nextHostAttributeVersion.getAndIncrement());
+    }
+    hostVetoes.asMap().keySet().removeIf(key -> Objects.equals(key.host, host));
   }
 
-  synchronized Optional<HostOffer> get(Protos.AgentID slaveId) {
+  void removeAgent(Protos.AgentID agentId) {
+    // Agent IDs are not reused, so vetoes for a lost agent are never read again.
+    hostVetoes.asMap().keySet().removeIf(key -> Objects.equals(key.agentId, agentId));
+    String host = agentHosts.remove(agentId);
+    if (host != null) {
+      // Another agent may have registered on the same host, in which case its version is kept.
+      HostOffer offer = offersByHost.get(host);
+      if (offer == null || offer.getOffer().getAgentId().equals(agentId)) {
+        hostAttributeVersions.remove(host);
+        hostVetoes.asMap().keySet().removeIf(key -> Objects.equals(key.host, host));
+      }
+    }
+  }
+
+  Optional<HostOffer> get(Protos.AgentID slaveId) {
     HostOffer offer = offersBySlave.get(slaveId);
     if (offer == null || globallyBannedOffers.contains(offer.getOffer().getId())) {
       return Optional.empty();
@@ -145,13 +245,16 @@ class HostOffers {
    *
    * @return The offers currently known by the scheduler.
    */
-  synchronized Iterable<HostOffer> getOffers() {
-    return FluentIterable.from(offers.values())
-        .filter(offer -> !globallyBannedOffers.contains(offer.getOffer().getId()))
-        .toSet();
+  Iterable<HostOffer> getOffers() {
+    synchronized (offers) {
+      return FluentIterable.from(offers.values())
+          .filter(this::isHeld)
+          .filter(offer -> !globallyBannedOffers.contains(offer.getOffer().getId()))
+          .toSet();
+    }
   }
 
-  synchronized Optional<HostOffer> getMatching(
+  Optional<HostOffer> getMatching(
       Protos.AgentID slaveId,
       ResourceRequest resourceRequest) {
 
@@ -164,27 +267,35 @@ class HostOffers {
    * Returns a weakly-consistent iterable giving the available offers to a given
    * {@code groupKey}. This iterable can handle concurrent operations on its underlying
    * collection, and may reflect changes that happen after the construction of the iterable.
-   * This property is mainly used in {@code launchTask}.
+   * This property is mainly used in {@code launchTasks}. Offers that are no longer held when
+   * they are reached are skipped.
    *
    * @param groupKey The task group to get offers for.
    * @return The offers a given task group can use.
    */
-  synchronized Iterable<HostOffer> getAllMatching(TaskGroupKey groupKey,
-                                                  ResourceRequest resourceRequest) {
-
+  Iterable<HostOffer> getAllMatching(TaskGroupKey groupKey, ResourceRequest resourceRequest) {
+    Iterable<HostOffer> ordered;
+    synchronized (offers) {
+      ordered = offers.getOrdered(groupKey, resourceRequest);
+    }
     return Iterables.unmodifiableIterable(
-        FluentIterable.from(offers.getOrdered(groupKey, resourceRequest))
+        FluentIterable.from(ordered)
+            .filter(this::isHeld)
             .filter(o -> !isGloballyBanned(o))
             .filter(o -> !isStaticallyBanned(o, groupKey))
             .filter(HostOffer::hasCpuAndMem)
             .filter(o -> !isVetoed(o, resourceRequest, Optional.of(groupKey))));
   }
 
-  private synchronized boolean isGloballyBanned(HostOffer offer) {
+  private boolean isHeld(HostOffer offer) {
+    return offersById.get(offer.getOffer().getId()) == offer;
+  }
+
+  private boolean isGloballyBanned(HostOffer offer) {
     return globallyBannedOffers.contains(offer.getOffer().getId());
   }
 
-  private synchronized boolean isStaticallyBanned(HostOffer offer, TaskGroupKey groupKey) {
+  private boolean isStaticallyBanned(HostOffer offer, TaskGroupKey groupKey) {
     return staticallyBannedOffers.getIfPresent(Pair.of(offer.getOffer().getId(), groupKey)) != null;
   }
 
@@ -197,12 +308,21 @@ class HostOffers {
                            ResourceRequest resourceRequest,
                            Optional<TaskGroupKey> groupKey) {
 
+    if (groupKey.isPresent() && isHostVetoed(offer, groupKey.get())) {
+      vetoEvaluationsAvoided.incrementAndGet();
+      addStaticGroupBan(offer.getOffer().getId(), groupKey.get());
+      return true;
+    }
+
     vetoEvaluatedOffers.incrementAndGet();
     UnusedResource unusedResource = new UnusedResource(offer, resourceRequest.isRevocable());
     Set<Veto> vetoes = schedulingFilter.filter(unusedResource, resourceRequest);
     if (!vetoes.isEmpty()) {
       if (groupKey.isPresent() && Veto.identifyGroup(vetoes) == SchedulingFilter.VetoGroup.STATIC) {
         addStaticGroupBan(offer.getOffer().getId(), groupKey.get());
+        if (isHostVeto(offer, vetoes)) {
+          addHostVeto(offer, groupKey.get());
+        }
       }
 
       return true;
@@ -211,29 +331,130 @@ class HostOffers {
     return false;
   }
 
+  /**
+   * Determines whether vetoes depend only on the attributes of the offer's host, rather than on
+   * the offered resources or the offer's unavailability.
+   */
+  private static boolean isHostVeto(HostOffer offer, Set<Veto> vetoes) {
+    for (Veto veto : vetoes) {
+      switch (veto.getVetoType()) {
+        case DEDICATED_CONSTRAINT_MISMATCH:
+        case CONSTRAINT_MISMATCH:
+          break;
+
+        case MAINTENANCE:
+          // Maintenance may also be scheduled through the offer's unavailability.
+          if (offer.getUnavailabilityStart().isPresent()) {
+            return false;
+          }
+          break;
+
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private HostVetoKey hostVetoKey(HostOffer offer, TaskGroupKey groupKey) {
+    String host = offer.getOffer().getHostname();
+    return new HostVetoKey(
+        host,
+        offer.getOffer().getAgentId(),
+        hostAttributeVersions.getOrDefault(host, 0L),
+        groupKey);
+  }
+
+  private boolean isHostVetoed(HostOffer offer, TaskGroupKey groupKey) {
+    return hostVetoes.getIfPresent(hostVetoKey(offer, groupKey)) != null;
+  }
+
+  private void addHostVeto(HostOffer offer, TaskGroupKey groupKey) {
+    // Only offers that are still held carry the current attributes of their host. The key is
+    // created first, so that a veto for an offer replaced concurrently is stored under an outdated
+    // version that is never read.
+    HostVetoKey key = hostVetoKey(offer, groupKey);
+    if (isHeld(offer)) {
+      hostVetoes.put(key, true);
+    }
+  }
+
   @VisibleForTesting
-  synchronized void addStaticGroupBan(Protos.OfferID offerId, TaskGroupKey groupKey) {
+  void addStaticGroupBan(Protos.OfferID offerId, TaskGroupKey groupKey) {
     if (offersById.containsKey(offerId)) {
       staticallyBannedOffers.put(Pair.of(offerId, groupKey), true);
     }
   }
 
   @VisibleForTesting
-  synchronized Set<Pair<Protos.OfferID, TaskGroupKey>> getStaticBans() {
+  Set<Pair<Protos.OfferID, TaskGroupKey>> getStaticBans() {
     return staticallyBannedOffers.asMap().keySet();
   }
 
-  synchronized void clear() {
-    offers.clear();
-    offersById.clear();
-    offersBySlave.clear();
-    offersByHost.clear();
-    staticallyBannedOffers.invalidateAll();
-    globallyBannedOffers.clear();
+  void clear() {
+    Lock exclusive = updateLock.writeLock();
+    exclusive.lock();
+    try {
+      synchronized (offers) {
+        offers.clear();
+      }
+      offersById.clear();
+      offersBySlave.clear();
+      offersByHost.clear();
+      staticallyBannedOffers.invalidateAll();
+      hostVetoes.invalidateAll();
+      hostAttributeVersions.clear();
+      agentHosts.clear();
+      globallyBannedOffers.clear();
+    } finally {
+      exclusive.unlock();
+    }
+  }
+
+  @VisibleForTesting
+  Set<String> getVersionedHosts() {
+    return hostAttributeVersions.keySet();
   }
 
   @VisibleForTesting
-  synchronized void cleanUpStaticallyBannedOffers() {
+  void cleanUpStaticallyBannedOffers() {
     staticallyBannedOffers.cleanUp();
   }
+
+  private static final class HostVetoKey {
+    private final String host;
+    private final Protos.AgentID agentId;
+    private final long attributesVersion;
+    private final TaskGroupKey groupKey;
+
+    HostVetoKey(
+        String host,
+        Protos.AgentID agentId,
+        long attributesVersion,
+        TaskGroupKey groupKey) {
+
+      this.host = host;
+      this.agentId = agentId;
+      this.attributesVersion = attributesVersion;
+      this.groupKey = groupKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof HostVetoKey)) {
+        return false;
+      }
+
+      HostVetoKey other = (HostVetoKey) o;
+      return Objects.equals(host, other.host)
+          && Objects.equals(agentId, other.agentId)
+          && attributesVersion == other.attributesVersion
+          && Objects.equals(groupKey, other.groupKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(host, agentId, attributesVersion, groupKey);
+    }
+  }
 }
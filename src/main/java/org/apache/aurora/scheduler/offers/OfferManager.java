@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.offers;
 
+import java.util.List;
 import java.util.Optional;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -24,6 +25,7 @@ import org.apache.mesos.v1.Protos;
 import org.apache.mesos.v1.Protos.AgentID;
 import org.apache.mesos.v1.Protos.OfferID;
 
+import static org.apache.aurora.scheduler.events.PubsubEvent.AgentLost;
 import static org.apache.aurora.scheduler.events.PubsubEvent.HostAttributesChanged;
 
 /**
@@ -61,6 +63,13 @@ public interface OfferManager extends EventSubscriber {
    */
   void hostAttributesChanged(HostAttributesChanged change);
 
+  /**
+   * Notifies the offer queue that an agent has been lost.
+   *
+   * @param event Agent lost notification.
+   */
+  void agentLost(AgentLost event);
+
   /**
    * Gets the offer for the given slave ID.
    *
@@ -96,13 +105,13 @@ public interface OfferManager extends EventSubscriber {
   Iterable<HostOffer> getAllMatching(TaskGroupKey groupKey, ResourceRequest resourceRequest);
 
   /**
-   * Launches the task matched against the offer.
+   * Launches the tasks matched against the offer, accepting the offer once for all of them.
    *
    * @param offerId Matched offer ID.
-   * @param task Matched task info.
-   * @throws LaunchException If there was an error launching the task.
+   * @param tasks Matched task infos.
+   * @throws LaunchException If there was an error launching the tasks.
    */
-  void launchTask(OfferID offerId, Protos.TaskInfo task) throws LaunchException;
+  void launchTasks(OfferID offerId, List<Protos.TaskInfo> tasks) throws LaunchException;
 
   /**
    * Thrown when there was an unexpected failure trying to launch a task.
@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.offers;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
@@ -57,6 +58,12 @@ public class OfferManagerImpl implements OfferManager {
   static final String GLOBALLY_BANNED_OFFERS = "globally_banned_offers_size";
   @VisibleForTesting
   static final String VETO_EVALUATED_OFFERS = "veto_evaluated_offers";
+  @VisibleForTesting
+  static final String VETO_EVALUATIONS_AVOIDED = "veto_evaluations_avoided";
+  @VisibleForTesting
+  static final String HOST_VETO_CACHE_SIZE = "host_veto_cache_size";
+  @VisibleForTesting
+  static final String HOST_VETO_CACHE_HIT_RATE = "host_veto_cache_hit_rate";
 
   private final HostOffers hostOffers;
   private final AtomicLong offerRaces;
@@ -151,6 +158,16 @@ public class OfferManagerImpl implements OfferManager {
     hostOffers.updateHostAttributes(change.getAttributes());
   }
 
+  /**
+   * Removes the cached vetoes and attribute versions of a lost agent's host.
+   *
+   * @param event Agent lost notification.
+   */
+  @Subscribe
+  public void agentLost(PubsubEvent.AgentLost event) {
+    hostOffers.removeAgent(event.getAgentId());
+  }
+
   @Override
   public Optional<HostOffer> get(Protos.AgentID slaveId) {
     return hostOffers.get(slaveId);
@@ -189,7 +206,9 @@ public class OfferManagerImpl implements OfferManager {
 
   @Timed("offer_manager_launch_task")
   @Override
-  public void launchTask(Protos.OfferID offerId, Protos.TaskInfo task) throws LaunchException {
+  public void launchTasks(Protos.OfferID offerId, List<Protos.TaskInfo> tasks)
+      throws LaunchException {
+
     // Guard against an offer being removed after we grabbed it from the iterator.
     // If that happens, the offer will not exist in hostOffers, and we can immediately
     // send it back to LOST for quick reschedule.
@@ -199,14 +218,14 @@ public class OfferManagerImpl implements OfferManager {
       try {
         Protos.Offer.Operation launch = Protos.Offer.Operation.newBuilder()
             .setType(Protos.Offer.Operation.Type.LAUNCH)
-            .setLaunch(Protos.Offer.Operation.Launch.newBuilder().addTaskInfos(task))
+            .setLaunch(Protos.Offer.Operation.Launch.newBuilder().addAllTaskInfos(tasks))
             .build();
         driver.acceptOffers(offerId, ImmutableList.of(launch), getOfferFilter());
       } catch (IllegalStateException e) {
         // TODO(William Farner): Catch only the checked exception produced by Driver
         // once it changes from throwing IllegalStateException when the driver is not yet
         // registered.
-        throw new LaunchException("Failed to launch task.", e);
+        throw new LaunchException("Failed to launch tasks.", e);
       }
     } else {
       offerRaces.incrementAndGet();
@@ -239,4 +258,12 @@ public class OfferManagerImpl implements OfferManager {
   void cleanupStaticBans() {
     hostOffers.cleanUpStaticallyBannedOffers();
   }
+
+  /**
+   * Gets the hosts whose attributes are currently versioned for the host veto cache.
+   */
+  @VisibleForTesting
+  Set<String> getVersionedHosts() {
+    return hostOffers.getVersionedHosts();
+  }
 }
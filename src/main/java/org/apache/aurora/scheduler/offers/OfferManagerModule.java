@@ -40,6 +40,7 @@ import org.apache.aurora.scheduler.config.splitters.CommaSplitter;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
 import org.apache.aurora.scheduler.config.validators.NotNegativeAmount;
 import org.apache.aurora.scheduler.config.validators.NotNegativeNumber;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -100,6 +101,24 @@ public class OfferManagerModule extends AbstractModule {
     @SuppressWarnings("rawtypes")
     public Class offerSetModule = OfferSetModule.class;
 
+    @Parameter(names = "-offer_placement_strategy",
+        description = "Strategy used to score offers when the offer set module is "
+            + "ScoringOfferSetModule.")
+    public PlacementStrategy offerPlacementStrategy = PlacementStrategy.BEST_FIT;
+
+    @Parameter(names = "-offer_fragmentation_weight",
+        validateValueWith = NotNegativeNumber.class,
+        description = "Weight of the penalty for leaving an offer with unbalanced resources, "
+            + "relative to the placement strategy score, when the offer set module is "
+            + "ScoringOfferSetModule.")
+    public double offerFragmentationWeight = 0.5;
+
+    @Parameter(names = "-offer_placement_candidates",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of fitting offers scored for each scheduling attempt when the offer "
+            + "set module is ScoringOfferSetModule.")
+    public int offerPlacementCandidates = 16;
+
     @Parameter(names = "-offer_static_ban_cache_max_size",
         validateValueWith = NotNegativeNumber.class,
         description =
@@ -138,6 +157,26 @@ public class OfferManagerModule extends AbstractModule {
     }
   }
 
+  /**
+   * Provides a {@link ScoringOfferSet}, which places tasks according to
+   * {@code -offer_placement_strategy} instead of a static offer order.
+   */
+  public static class ScoringOfferSetModule extends AbstractModule {
+    private final CliOptions options;
+
+    public ScoringOfferSetModule(CliOptions options) {
+      this.options = options;
+    }
+
+    @Override
+    protected void configure() {
+      bind(OfferSet.class).toInstance(new ScoringOfferSet(
+          options.offer.offerPlacementStrategy,
+          options.offer.offerFragmentationWeight,
+          options.offer.offerPlacementCandidates));
+    }
+  }
+
   private final CliOptions cliOptions;
 
   public OfferManagerModule(CliOptions cliOptions) {
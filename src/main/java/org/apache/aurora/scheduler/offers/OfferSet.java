@@ -19,6 +19,10 @@ import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 /**
  * A set that holds all offers within the scheduler, used internally by HostOffers. This
  * interface is injectable via the '-offer_set_module' flag.
+ * <p>
+ * HostOffers serializes calls to the set, so implementations need not be thread-safe. The
+ * iterable returned by {@link #getOrdered(TaskGroupKey, ResourceRequest)} is iterated after the
+ * call returns, and so must tolerate later updates to the set.
  */
 public interface OfferSet {
 
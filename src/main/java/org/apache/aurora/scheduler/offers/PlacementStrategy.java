@@ -0,0 +1,34 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.offers;
+
+/**
+ * Strategies used by {@link ScoringOfferSet} to score the offers a task could be placed on.
+ */
+public enum PlacementStrategy {
+  /**
+   * Prefer the offer with the least total resources left after placing the task.
+   */
+  BEST_FIT,
+
+  /**
+   * Prefer the offer with the most total resources left after placing the task.
+   */
+  WORST_FIT,
+
+  /**
+   * Prefer the offer whose largest remaining resource share is smallest after placing the task.
+   */
+  DOMINANT_RESOURCE_FIT
+}
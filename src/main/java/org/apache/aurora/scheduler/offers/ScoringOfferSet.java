@@ -0,0 +1,266 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.offers;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.resources.ResourceType;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.gen.MaintenanceMode.NONE;
+import static org.apache.aurora.scheduler.resources.ResourceType.CPUS;
+import static org.apache.aurora.scheduler.resources.ResourceType.DISK_MB;
+import static org.apache.aurora.scheduler.resources.ResourceType.RAM_MB;
+
+/**
+ * An {@link OfferSet} that orders offers for each request by a placement score, rather than by a
+ * single static ordering.
+ * <p>
+ * Offers are kept in one sorted index per scored resource, maintained as offers are added and
+ * removed. A request walks the index of its dominant resource, starting at the smallest offer
+ * that can hold it (or at the largest offer, for {@link PlacementStrategy#WORST_FIT}), and only
+ * the first few offers that fit are scored. The scored offers are returned best first, followed
+ * by the remaining offers that could fit in index order, so a request never sorts the whole set.
+ * <p>
+ * Scores are computed from the resources an offer would have left after placing the task,
+ * normalized by the largest current offer of each resource. A fragmentation penalty proportional
+ * to the imbalance between the normalized leftovers discourages placements that strand one
+ * resource without enough of the others to use it. Offers from hosts in maintenance are neither
+ * scored nor placed among the remaining offers, and are returned after all others.
+ * <p>
+ * Revocable requests are not scored, and are given the offers in index order of RAM, which is
+ * not a revocable resource.
+ */
+public class ScoringOfferSet implements OfferSet {
+  private static final List<ResourceType> SCORED_RESOURCES =
+      ImmutableList.of(CPUS, RAM_MB, DISK_MB);
+
+  private final PlacementStrategy strategy;
+  private final double fragmentationWeight;
+  private final int candidates;
+  private final Map<ResourceType, NavigableSet<Entry>> indices = new EnumMap<>(ResourceType.class);
+  private final Map<HostOffer, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * Creates a scoring offer set.
+   *
+   * @param strategy Strategy to score offers with.
+   * @param fragmentationWeight Weight of the fragmentation penalty relative to the strategy score.
+   * @param candidates Number of offers to score for each request.
+   */
+  public ScoringOfferSet(PlacementStrategy strategy, double fragmentationWeight, int candidates) {
+    Preconditions.checkArgument(fragmentationWeight >= 0, "Weight must not be negative.");
+    Preconditions.checkArgument(candidates > 0, "At least one candidate must be scored.");
+    this.strategy = requireNonNull(strategy);
+    this.fragmentationWeight = fragmentationWeight;
+    this.candidates = candidates;
+    for (int i = 0; i < SCORED_RESOURCES.size(); i++) {
+      int resource = i;
+      indices.put(
+          SCORED_RESOURCES.get(i),
+          new ConcurrentSkipListSet<>(Comparator.<Entry>comparingDouble(e -> e.free[resource])
+              .thenComparingLong(e -> e.sequence)));
+    }
+  }
+
+  private static final class Entry {
+    final HostOffer offer;
+    final double[] free;
+    final long sequence;
+
+    Entry(HostOffer offer, double[] free, long sequence) {
+      this.offer = offer;
+      this.free = free;
+      this.sequence = sequence;
+    }
+  }
+
+  private static double[] amounts(ResourceBag bag) {
+    double[] amounts = new double[SCORED_RESOURCES.size()];
+    for (int i = 0; i < amounts.length; i++) {
+      amounts[i] = bag.valueOf(SCORED_RESOURCES.get(i));
+    }
+    return amounts;
+  }
+
+  @Override
+  public void add(HostOffer offer) {
+    double[] free = amounts(offer.getResourceBag(false));
+    Entry entry = new Entry(offer, free, sequence.incrementAndGet());
+    Entry previous = entries.put(offer, entry);
+    if (previous != null) {
+      removeFromIndices(previous);
+    }
+
+    for (NavigableSet<Entry> index : indices.values()) {
+      index.add(entry);
+    }
+  }
+
+  private void removeFromIndices(Entry entry) {
+    for (NavigableSet<Entry> index : indices.values()) {
+      index.remove(entry);
+    }
+  }
+
+  @Override
+  public void remove(HostOffer removed) {
+    Entry entry = entries.remove(removed);
+    if (entry != null) {
+      removeFromIndices(entry);
+    }
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+    indices.values().forEach(Set::clear);
+  }
+
+  @Override
+  public Iterable<HostOffer> values() {
+    return orderedBy(indices.get(CPUS));
+  }
+
+  @Override
+  public Iterable<HostOffer> getOrdered(TaskGroupKey groupKey, ResourceRequest resourceRequest) {
+    if (resourceRequest.isRevocable()) {
+      return orderedBy(indices.get(RAM_MB));
+    }
+
+    double[] requested = amounts(resourceRequest.getResourceBag());
+    double[] scale = scales();
+    int dominant = dominantResource(requested, scale);
+
+    // Offers with less of the dominant resource than requested can never fit.
+    double[] probe = new double[requested.length];
+    probe[dominant] = requested[dominant];
+    NavigableSet<Entry> feasible = indices.get(SCORED_RESOURCES.get(dominant))
+        .tailSet(new Entry(null, probe, Long.MIN_VALUE), true);
+    Iterable<Entry> walk = strategy == PlacementStrategy.WORST_FIT
+        ? feasible.descendingSet()
+        : feasible;
+
+    List<Entry> scored = Lists.newArrayListWithCapacity(candidates);
+    for (Entry entry : walk) {
+      if (scored.size() == candidates) {
+        break;
+      }
+      if (!inMaintenance(entry) && fits(entry.free, requested)) {
+        scored.add(entry);
+      }
+    }
+    scored.sort(Comparator.comparingDouble(e -> score(e, requested, scale)));
+
+    Set<Entry> seen = Sets.newIdentityHashSet();
+    seen.addAll(scored);
+    return Iterables.concat(
+        orderedBy(scored),
+        orderedBy(Iterables.filter(walk, e -> !seen.contains(e) && !inMaintenance(e))),
+        orderedBy(Iterables.filter(walk, ScoringOfferSet::inMaintenance)));
+  }
+
+  private static boolean inMaintenance(Entry entry) {
+    return entry.offer.getAttributes().getMode() != NONE
+        || entry.offer.getUnavailabilityStart().isPresent();
+  }
+
+  // The largest amount of each resource in the current offers, read from the end of its index.
+  private double[] scales() {
+    double[] scales = new double[SCORED_RESOURCES.size()];
+    for (int i = 0; i < scales.length; i++) {
+      Iterator<Entry> largest = indices.get(SCORED_RESOURCES.get(i)).descendingIterator();
+      scales[i] = largest.hasNext() ? largest.next().free[i] : 0;
+    }
+    return scales;
+  }
+
+  private static Iterable<HostOffer> orderedBy(Iterable<Entry> entries) {
+    return Iterables.transform(entries, e -> e.offer);
+  }
+
+  private static int dominantResource(double[] requested, double[] scale) {
+    int dominant = 0;
+    double share = -1;
+    for (int i = 0; i < requested.length; i++) {
+      double resourceShare = scale[i] > 0 ? requested[i] / scale[i] : 0;
+      if (resourceShare > share) {
+        dominant = i;
+        share = resourceShare;
+      }
+    }
+    return dominant;
+  }
+
+  private static boolean fits(double[] free, double[] requested) {
+    for (int i = 0; i < free.length; i++) {
+      if (free[i] < requested[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private double score(Entry entry, double[] requested, double[] scale) {
+    double total = 0;
+    double largest = 0;
+    double smallest = Double.MAX_VALUE;
+    for (int i = 0; i < requested.length; i++) {
+      double left = scale[i] > 0 ? (entry.free[i] - requested[i]) / scale[i] : 0;
+      total += left;
+      largest = Math.max(largest, left);
+      smallest = Math.min(smallest, left);
+    }
+
+    double score;
+    switch (strategy) {
+      case WORST_FIT:
+        score = -total;
+        break;
+      case DOMINANT_RESOURCE_FIT:
+        score = largest;
+        break;
+      default:
+        score = total;
+        break;
+    }
+
+    return score + fragmentationWeight * (largest - smallest);
+  }
+}
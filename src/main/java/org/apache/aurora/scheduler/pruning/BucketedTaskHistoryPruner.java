@@ -0,0 +1,292 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.pruning;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.AbstractScheduledService;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.Histogram;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.BatchWorker;
+import org.apache.aurora.scheduler.SchedulerModule.TaskEventBatchWorker;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.pruning.TaskHistoryPruner.HistoryPrunerSettings;
+import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.scheduler.pruning.TaskHistoryPruner.TASKS_PRUNED;
+
+/**
+ * Prunes terminated tasks with the same retention rules as {@link TaskHistoryPruner}, but from a
+ * periodic sweep rather than a delayed action and a storage query per terminated task.
+ * <p>
+ * Inactive tasks are tracked in memory. Each task is placed in the slot of a timing wheel for the
+ * sweep after its expiry, and in a per-job set ordered by latest activity. A sweep collects the
+ * tasks of every slot that has come due, along with the oldest tasks of each job that is over its
+ * history goal, and deletes them in batches, one write transaction per batch.
+ */
+class BucketedTaskHistoryPruner extends AbstractScheduledService implements EventSubscriber {
+  private static final Logger LOG = LoggerFactory.getLogger(BucketedTaskHistoryPruner.class);
+  @VisibleForTesting
+  static final String PRUNE_BACKLOG = "task_history_prune_backlog";
+  @VisibleForTesting
+  static final String JOBS_OVER_GOAL = "task_history_jobs_over_goal";
+  @VisibleForTesting
+  static final String PRUNE_BATCH_SIZE = "task_history_prune_batch_size";
+
+  private static final Comparator<InactiveTask> LATEST_ACTIVITY =
+      Comparator.<InactiveTask>comparingLong(t -> t.timestampMillis).thenComparing(t -> t.taskId);
+
+  private final StateManager stateManager;
+  private final Clock clock;
+  private final Settings settings;
+  private final TaskEventBatchWorker batchWorker;
+  private final AtomicLong prunedTasksCount;
+  private final Histogram batchSizes;
+
+  // All state below is guarded by this.
+  private final Map<String, InactiveTask> tasks = Maps.newHashMap();
+  private final Map<IJobKey, NavigableSet<InactiveTask>> tasksByJob = Maps.newHashMap();
+  private final Set<IJobKey> jobsOverGoal = Sets.newHashSet();
+  private final List<List<InactiveTask>> wheel;
+  private long sweptSlot;
+
+  static class Settings {
+    private final HistoryPrunerSettings history;
+    private final long sweepIntervalMillis;
+    private final int batchSize;
+
+    Settings(HistoryPrunerSettings history, Amount<Long, Time> sweepInterval, int batchSize) {
+      this.history = requireNonNull(history);
+      this.sweepIntervalMillis = sweepInterval.as(Time.MILLISECONDS);
+      this.batchSize = batchSize;
+    }
+  }
+
+  private static final class InactiveTask {
+    final String taskId;
+    final IJobKey job;
+    final long timestampMillis;
+    long expirySlot;
+
+    InactiveTask(String taskId, IJobKey job, long timestampMillis) {
+      this.taskId = taskId;
+      this.job = job;
+      this.timestampMillis = timestampMillis;
+    }
+  }
+
+  @Inject
+  BucketedTaskHistoryPruner(
+      StateManager stateManager,
+      Clock clock,
+      Settings settings,
+      TaskEventBatchWorker batchWorker,
+      StatsProvider statsProvider) {
+
+    this.stateManager = requireNonNull(stateManager);
+    this.clock = requireNonNull(clock);
+    this.settings = requireNonNull(settings);
+    this.batchWorker = requireNonNull(batchWorker);
+    this.prunedTasksCount = statsProvider.makeCounter(TASKS_PRUNED);
+    this.batchSizes = statsProvider.makeHistogram(PRUNE_BATCH_SIZE);
+    statsProvider.makeGauge(PRUNE_BACKLOG, (Supplier<Integer>) this::getBacklog);
+    statsProvider.makeGauge(JOBS_OVER_GOAL, (Supplier<Integer>) this::getJobsOverGoal);
+
+    // No task is retained for longer than the larger of the two thresholds, so a wheel spanning
+    // that horizon only holds tasks due on the next turn of each slot, unless sweeps were paused.
+    long horizonMillis = Math.max(
+        settings.history.pruneThresholdMillis,
+        settings.history.minRetentionThresholdMillis);
+    int slots = (int) (horizonMillis / settings.sweepIntervalMillis) + 2;
+    this.wheel = new ArrayList<>(slots);
+    for (int i = 0; i < slots; i++) {
+      wheel.add(new ArrayList<>());
+    }
+    this.sweptSlot = clock.nowMillis() / settings.sweepIntervalMillis;
+  }
+
+  private synchronized int getBacklog() {
+    return tasks.size();
+  }
+
+  private synchronized int getJobsOverGoal() {
+    return jobsOverGoal.size();
+  }
+
+  /**
+   * When triggered, records an inactive task state change.
+   *
+   * @param change Event when a task changes state.
+   */
+  @Subscribe
+  public void recordStateChange(TaskStateChange change) {
+    if (Tasks.isTerminated(change.getNewState())) {
+      IScheduledTask task = change.getTask();
+      long timeoutBasis = change.isTransition()
+          ? clock.nowMillis()
+          : Iterables.getLast(task.getTaskEvents()).getTimestamp();
+      register(
+          new InactiveTask(
+              change.getTaskId(),
+              Tasks.getJob(task),
+              Tasks.getLatestEvent(task).getTimestamp()),
+          timeoutBasis);
+    }
+  }
+
+  /**
+   * Stops tracking tasks that were deleted, whether by this pruner or otherwise.
+   *
+   * @param deleted Event when tasks are deleted.
+   */
+  @Subscribe
+  public synchronized void tasksDeleted(TasksDeleted deleted) {
+    for (IScheduledTask task : deleted.getTasks()) {
+      untrack(tasks.get(Tasks.id(task)));
+    }
+  }
+
+  private synchronized void register(InactiveTask task, long timeoutBasis) {
+    untrack(tasks.get(task.taskId));
+
+    long nowMillis = clock.nowMillis();
+    long expiryMillis =
+        nowMillis + TaskHistoryPruner.calculateTimeout(settings.history, nowMillis, timeoutBasis);
+    // Round up, so that the task is not swept before it expires.
+    long slot = Math.max(
+        sweptSlot + 1,
+        (expiryMillis + settings.sweepIntervalMillis - 1) / settings.sweepIntervalMillis);
+    LOG.debug("Prune task {} in {} ms.", task.taskId, expiryMillis - nowMillis);
+
+    task.expirySlot = slot;
+    tasks.put(task.taskId, task);
+    wheel.get((int) (slot % wheel.size())).add(task);
+    NavigableSet<InactiveTask> jobTasks =
+        tasksByJob.computeIfAbsent(task.job, k -> new TreeSet<>(LATEST_ACTIVITY));
+    jobTasks.add(task);
+    if (jobTasks.size() > settings.history.perJobHistoryGoal) {
+      jobsOverGoal.add(task.job);
+    }
+  }
+
+  private void untrack(InactiveTask task) {
+    if (task != null && tasks.remove(task.taskId, task)) {
+      NavigableSet<InactiveTask> jobTasks = tasksByJob.get(task.job);
+      jobTasks.remove(task);
+      if (jobTasks.isEmpty()) {
+        tasksByJob.remove(task.job);
+      }
+      if (jobTasks.size() <= settings.history.perJobHistoryGoal) {
+        jobsOverGoal.remove(task.job);
+      }
+    }
+  }
+
+  private synchronized Set<String> collectPrunable() {
+    ImmutableSet.Builder<String> prunable = ImmutableSet.builder();
+
+    long nowMillis = clock.nowMillis();
+    long dueSlot = nowMillis / settings.sweepIntervalMillis;
+    // After a long pause every slot is due, so there is no point in visiting one more than once.
+    for (long slot = sweptSlot + 1; slot <= Math.min(dueSlot, sweptSlot + wheel.size()); slot++) {
+      wheel.get((int) (slot % wheel.size())).removeIf(task -> {
+        if (task.expirySlot > dueSlot) {
+          // Registered after a long pause, and not due until a later turn of the wheel.
+          return false;
+        }
+        // Tasks that were since deleted or registered again are skipped.
+        if (tasks.get(task.taskId) == task) {
+          untrack(task);
+          prunable.add(task.taskId);
+        }
+        return true;
+      });
+    }
+    sweptSlot = Math.max(sweptSlot, dueSlot);
+
+    long retainedSince = nowMillis - settings.history.minRetentionThresholdMillis;
+    for (IJobKey job : ImmutableList.copyOf(jobsOverGoal)) {
+      while (jobsOverGoal.contains(job)) {
+        InactiveTask oldest = tasksByJob.get(job).first();
+        if (oldest.timestampMillis > retainedSince) {
+          // Newer tasks are not safe to delete either; they are retried on a later sweep.
+          break;
+        }
+        untrack(oldest);
+        prunable.add(oldest.taskId);
+      }
+    }
+
+    return prunable.build();
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return Scheduler.newFixedDelaySchedule(
+        settings.sweepIntervalMillis,
+        settings.sweepIntervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @VisibleForTesting
+  void runForTest() {
+    runOneIteration();
+  }
+
+  @Override
+  protected void runOneIteration() {
+    Set<String> prunable = collectPrunable();
+    for (List<String> batch : Iterables.partition(prunable, settings.batchSize)) {
+      Set<String> taskIds = ImmutableSet.copyOf(batch);
+      LOG.info("Pruning {} inactive tasks", taskIds.size());
+      batchWorker.execute(storeProvider -> {
+        stateManager.deleteTasks(storeProvider, taskIds);
+        return BatchWorker.NO_RESULT;
+      });
+      batchSizes.record(taskIds.size());
+      prunedTasksCount.addAndGet(taskIds.size());
+    }
+  }
+}
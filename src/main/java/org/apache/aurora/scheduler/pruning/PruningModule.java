@@ -26,6 +26,8 @@ import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +54,25 @@ public class PruningModule extends AbstractModule {
             "Minimum guaranteed time for task history retention before any pruning is attempted.")
     public TimeAmount historyMinRetentionThreshold = new TimeAmount(1, Time.HOURS);
 
+    @Parameter(names = "-enable_bucketed_history_pruning",
+        arity = 1,
+        description = "Prune terminated task history from a periodic sweep over in-memory expiry "
+            + "buckets, deleting tasks in batches, rather than scheduling a prune for each "
+            + "terminated task.")
+    public boolean enableBucketedHistoryPruning = false;
+
+    @Parameter(names = "-history_prune_sweep_interval",
+        validateValueWith = PositiveAmount.class,
+        description = "Interval between sweeps for terminated tasks to prune, when bucketed "
+            + "history pruning is enabled.")
+    public TimeAmount historyPruneSweepInterval = new TimeAmount(1, Time.MINUTES);
+
+    @Parameter(names = "-history_prune_batch_size",
+        validateValueWith = PositiveNumber.class,
+        description = "Maximum number of terminated tasks to delete in one storage transaction, "
+            + "when bucketed history pruning is enabled.")
+    public int historyPruneBatchSize = 1000;
+
     @Parameter(names = "-job_update_history_per_job_threshold",
         description = "Maximum number of completed job updates to retain in a job update history.")
     public int jobUpdateHistoryPerJobThreshold = 10;
@@ -63,6 +84,17 @@ public class PruningModule extends AbstractModule {
     @Parameter(names = "-job_update_history_pruning_threshold",
         description = "Time after which the scheduler will prune completed job update history.")
     public TimeAmount jobUpdateHistoryPruningThreshold = new TimeAmount(30, Time.DAYS);
+
+    @Parameter(names = "-job_update_history_pruning_batch_size",
+        validateValueWith = PositiveNumber.class,
+        description = "Maximum number of job updates to prune in one storage transaction.")
+    public int jobUpdateHistoryPruningBatchSize = 500;
+
+    @Parameter(names = "-job_update_history_pruning_batch_interval",
+        validateValueWith = PositiveAmount.class,
+        description = "Interval between job update history pruning batches, while more updates "
+            + "remain to be pruned.")
+    public TimeAmount jobUpdateHistoryPruningBatchInterval = new TimeAmount(1, Time.SECONDS);
   }
 
   private final Options options;
@@ -73,22 +105,43 @@ public class PruningModule extends AbstractModule {
 
   @Override
   protected void configure() {
-    install(new PrivateModule() {
-      @Override
-      protected void configure() {
-        // TODO(ksweeney): Create a configuration validator module so this can be injected.
-        // TODO(William Farner): Revert this once large task counts is cheap ala hierarchichal store
-        bind(TaskHistoryPruner.HistoryPrunerSettings.class).toInstance(
-            new TaskHistoryPruner.HistoryPrunerSettings(
-                options.historyPruneThreshold,
-                options.historyMinRetentionThreshold,
-                options.historyMaxPerJobThreshold));
-
-        bind(TaskHistoryPruner.class).in(Singleton.class);
-        expose(TaskHistoryPruner.class);
-      }
-    });
-    PubsubEventModule.bindSubscriber(binder(), TaskHistoryPruner.class);
+    TaskHistoryPruner.HistoryPrunerSettings historySettings =
+        new TaskHistoryPruner.HistoryPrunerSettings(
+            options.historyPruneThreshold,
+            options.historyMinRetentionThreshold,
+            options.historyMaxPerJobThreshold);
+    if (options.enableBucketedHistoryPruning) {
+      install(new PrivateModule() {
+        @Override
+        protected void configure() {
+          bind(BucketedTaskHistoryPruner.Settings.class).toInstance(
+              new BucketedTaskHistoryPruner.Settings(
+                  historySettings,
+                  options.historyPruneSweepInterval,
+                  options.historyPruneBatchSize));
+
+          bind(BucketedTaskHistoryPruner.class).in(Singleton.class);
+          expose(BucketedTaskHistoryPruner.class);
+        }
+      });
+      PubsubEventModule.bindSubscriber(binder(), BucketedTaskHistoryPruner.class);
+      SchedulerServicesModule.addSchedulerActiveServiceBinding(binder())
+          .to(BucketedTaskHistoryPruner.class);
+    } else {
+      install(new PrivateModule() {
+        @Override
+        protected void configure() {
+          // TODO(ksweeney): Create a configuration validator module so this can be injected.
+          // TODO(William Farner): Revert this once large task counts is cheap ala hierarchichal
+          // store
+          bind(TaskHistoryPruner.HistoryPrunerSettings.class).toInstance(historySettings);
+
+          bind(TaskHistoryPruner.class).in(Singleton.class);
+          expose(TaskHistoryPruner.class);
+        }
+      });
+      PubsubEventModule.bindSubscriber(binder(), TaskHistoryPruner.class);
+    }
 
     install(new PrivateModule() {
       @Override
@@ -97,7 +150,9 @@ public class PruningModule extends AbstractModule {
             new JobUpdateHistoryPruner.HistoryPrunerSettings(
                 options.jobUpdateHistoryPruningInterval,
                 options.jobUpdateHistoryPruningThreshold,
-                options.jobUpdateHistoryPerJobThreshold));
+                options.jobUpdateHistoryPerJobThreshold,
+                options.jobUpdateHistoryPruningBatchSize,
+                options.jobUpdateHistoryPruningBatchInterval));
 
         bind(ScheduledExecutorService.class).toInstance(
             AsyncUtil.singleThreadLoggingScheduledExecutor("JobUpdatePruner-%d", LOG));
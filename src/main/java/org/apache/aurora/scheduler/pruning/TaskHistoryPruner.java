@@ -80,9 +80,9 @@ public class TaskHistoryPruner implements EventSubscriber {
   };
 
   static class HistoryPrunerSettings {
-    private final long pruneThresholdMillis;
-    private final long minRetentionThresholdMillis;
-    private final int perJobHistoryGoal;
+    final long pruneThresholdMillis;
+    final long minRetentionThresholdMillis;
+    final int perJobHistoryGoal;
 
     HistoryPrunerSettings(
         Amount<Long, Time> inactivePruneThreshold,
@@ -118,9 +118,17 @@ public class TaskHistoryPruner implements EventSubscriber {
 
   @VisibleForTesting
   long calculateTimeout(long taskEventTimestampMillis) {
+    return calculateTimeout(settings, clock.nowMillis(), taskEventTimestampMillis);
+  }
+
+  static long calculateTimeout(
+      HistoryPrunerSettings settings,
+      long nowMillis,
+      long taskEventTimestampMillis) {
+
     return Math.max(
         settings.minRetentionThresholdMillis,
-        settings.pruneThresholdMillis - Math.max(0, clock.nowMillis() - taskEventTimestampMillis));
+        settings.pruneThresholdMillis - Math.max(0, nowMillis - taskEventTimestampMillis));
   }
 
   /**
@@ -90,6 +90,51 @@ public class QuotaInfo {
     return nonProdDedicatedConsumption;
   }
 
+  /**
+   * Adds the consumption of another {@code QuotaInfo} to this one, keeping this quota.
+   *
+   * @param other Consumption to add.
+   * @return Combined consumption.
+   */
+  QuotaInfo addConsumption(QuotaInfo other) {
+    return new QuotaInfo(
+        quota,
+        prodSharedConsumption.add(other.prodSharedConsumption),
+        prodDedicatedConsumption.add(other.prodDedicatedConsumption),
+        nonProdSharedConsumption.add(other.nonProdSharedConsumption),
+        nonProdDedicatedConsumption.add(other.nonProdDedicatedConsumption));
+  }
+
+  /**
+   * Subtracts the consumption of another {@code QuotaInfo} from this one, keeping this quota.
+   *
+   * @param other Consumption to subtract.
+   * @return Remaining consumption.
+   */
+  QuotaInfo subtractConsumption(QuotaInfo other) {
+    return new QuotaInfo(
+        quota,
+        prodSharedConsumption.subtract(other.prodSharedConsumption),
+        prodDedicatedConsumption.subtract(other.prodDedicatedConsumption),
+        nonProdSharedConsumption.subtract(other.nonProdSharedConsumption),
+        nonProdDedicatedConsumption.subtract(other.nonProdDedicatedConsumption));
+  }
+
+  /**
+   * Replaces the quota of this {@code QuotaInfo}, keeping its consumption.
+   *
+   * @param newQuota Quota to use.
+   * @return Quota info with the new quota.
+   */
+  QuotaInfo withQuota(ResourceBag newQuota) {
+    return new QuotaInfo(
+        newQuota,
+        prodSharedConsumption,
+        prodDedicatedConsumption,
+        nonProdSharedConsumption,
+        nonProdDedicatedConsumption);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (!(o instanceof QuotaInfo)) {
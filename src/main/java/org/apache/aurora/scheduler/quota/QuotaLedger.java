@@ -0,0 +1,286 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.quota;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.AbstractScheduledService;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.quota.QuotaManager.QuotaManagerImpl;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.scheduler.resources.ResourceBag.EMPTY;
+
+/**
+ * Maintains the quota consumption of roles, so that quota checks do not compute the consumption
+ * of a role from all of its tasks, cron jobs and job updates.
+ * <p>
+ * Consumption is kept for each job of a role and added up into a total for the role. A role is
+ * loaded from storage the first time its consumption is requested. After that, only jobs marked
+ * as changed are recomputed from storage when the consumption of the role is next requested.
+ * Jobs are marked as changed by task state changes and deletions, by {@link QuotaManagerImpl}
+ * after each quota check of the job, since the change that was checked (such as saving a job
+ * update or a cron template) is not otherwise observed, and by the writers of cron jobs and job
+ * update events through {@link #invalidate}.
+ * <p>
+ * The {@link Verifier} periodically recomputes all loaded roles and counts the jobs that had
+ * drifted, which picks up any change that was missed.
+ */
+public class QuotaLedger implements EventSubscriber {
+  private static final Logger LOG = LoggerFactory.getLogger(QuotaLedger.class);
+
+  @VisibleForTesting
+  static final QuotaInfo NO_CONSUMPTION = new QuotaInfo(EMPTY, EMPTY, EMPTY, EMPTY, EMPTY);
+
+  // Tolerance for rounding differences from adding and subtracting job consumption.
+  private static final double DRIFT_TOLERANCE = 1e-6;
+
+  @VisibleForTesting
+  static final String ROLES = "quota_ledger_roles";
+  @VisibleForTesting
+  static final String JOB_REFRESHES = "quota_ledger_job_refreshes";
+  @VisibleForTesting
+  static final String VERIFICATIONS = "quota_ledger_verifications";
+  @VisibleForTesting
+  static final String DRIFTED_JOBS = "quota_ledger_drifted_jobs";
+
+  /**
+   * Binding annotation for the interval between verifications of the ledger.
+   */
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface VerificationInterval { }
+
+  private final AtomicLong jobRefreshes;
+  private final AtomicLong verifications;
+  private final AtomicLong driftedJobs;
+
+  // Guarded by this.
+  private final Map<String, RoleConsumption> roles = Maps.newHashMap();
+
+  private static final class RoleConsumption {
+    final Map<IJobKey, QuotaInfo> jobs = Maps.newHashMap();
+    final Set<IJobKey> changed = Sets.newHashSet();
+    QuotaInfo total = NO_CONSUMPTION;
+
+    void reset(Map<IJobKey, QuotaInfo> consumptionByJob) {
+      jobs.clear();
+      jobs.putAll(consumptionByJob);
+      total = NO_CONSUMPTION;
+      jobs.values().forEach(job -> total = total.addConsumption(job));
+    }
+
+    void update(IJobKey job, QuotaInfo consumption) {
+      QuotaInfo previous = jobs.put(job, consumption);
+      total = total
+          .subtractConsumption(previous == null ? NO_CONSUMPTION : previous)
+          .addConsumption(consumption);
+    }
+  }
+
+  @Inject
+  public QuotaLedger(StatsProvider statsProvider) {
+    this.jobRefreshes = statsProvider.makeCounter(JOB_REFRESHES);
+    this.verifications = statsProvider.makeCounter(VERIFICATIONS);
+    this.driftedJobs = statsProvider.makeCounter(DRIFTED_JOBS);
+    statsProvider.makeGauge(ROLES, this::getRoleCount);
+  }
+
+  private synchronized int getRoleCount() {
+    return roles.size();
+  }
+
+  /**
+   * Gets the consumption of a role, loading the role or recomputing its changed jobs as needed.
+   *
+   * @param role Role to get consumption for.
+   * @param storeProvider A store provider to compute consumption with.
+   * @return Consumption of the role, with empty quota.
+   */
+  synchronized QuotaInfo getConsumption(String role, StoreProvider storeProvider) {
+    RoleConsumption consumption = roles.get(role);
+    if (consumption == null) {
+      consumption = new RoleConsumption();
+      consumption.reset(QuotaManagerImpl.getConsumptionByJob(role, storeProvider));
+      roles.put(role, consumption);
+    } else {
+      for (IJobKey job : consumption.changed) {
+        consumption.update(
+            job,
+            QuotaManagerImpl.getJobConsumption(job, Optional.empty(), storeProvider));
+        jobRefreshes.incrementAndGet();
+      }
+      consumption.changed.clear();
+    }
+    return consumption.total;
+  }
+
+  /**
+   * Gets the consumption of a job, as of the last {@link #getConsumption} of its role.
+   *
+   * @param job Job to get consumption for.
+   * @return Consumption of the job, with empty quota.
+   */
+  synchronized QuotaInfo getJobConsumption(IJobKey job) {
+    RoleConsumption consumption = roles.get(job.getRole());
+    return consumption == null
+        ? NO_CONSUMPTION
+        : consumption.jobs.getOrDefault(job, NO_CONSUMPTION);
+  }
+
+  /**
+   * Marks a job as changed, to be recomputed when the consumption of its role is next requested.
+   *
+   * @param job Changed job.
+   */
+  public synchronized void invalidate(IJobKey job) {
+    RoleConsumption consumption = roles.get(job.getRole());
+    if (consumption != null) {
+      consumption.changed.add(job);
+    }
+  }
+
+  @Subscribe
+  public void taskChangedState(TaskStateChange change) {
+    if (!change.isTransition()
+        || Tasks.isActive(change.getOldState().get()) != Tasks.isActive(change.getNewState())) {
+
+      invalidate(Tasks.getJob(change.getTask()));
+    }
+  }
+
+  @Subscribe
+  public void tasksDeleted(TasksDeleted deleted) {
+    ImmutableSet.copyOf(Iterables.transform(deleted.getTasks(), Tasks::getJob))
+        .forEach(this::invalidate);
+  }
+
+  /**
+   * Recomputes all loaded roles from storage, counting the jobs whose consumption had drifted.
+   *
+   * @param storage Storage to compute consumption with.
+   */
+  @VisibleForTesting
+  void verify(Storage storage) {
+    Set<String> loaded;
+    synchronized (this) {
+      loaded = ImmutableSet.copyOf(roles.keySet());
+    }
+
+    for (String role : loaded) {
+      // Hold the ledger lock while reading, so that a job recomputed meanwhile is not replaced
+      // with an older value.
+      storage.read(storeProvider -> {
+        synchronized (this) {
+          RoleConsumption consumption = roles.get(role);
+          Map<IJobKey, QuotaInfo> actual =
+              QuotaManagerImpl.getConsumptionByJob(role, storeProvider);
+          for (IJobKey job : Sets.union(consumption.jobs.keySet(), actual.keySet())) {
+            if (!consumption.changed.contains(job) && drifted(
+                consumption.jobs.getOrDefault(job, NO_CONSUMPTION),
+                actual.getOrDefault(job, NO_CONSUMPTION))) {
+
+              LOG.warn("Quota consumption of " + job + " drifted to "
+                  + consumption.jobs.get(job) + " from " + actual.get(job));
+              driftedJobs.incrementAndGet();
+            }
+          }
+          consumption.reset(actual);
+          return null;
+        }
+      });
+    }
+    verifications.incrementAndGet();
+  }
+
+  private static boolean drifted(QuotaInfo ledger, QuotaInfo actual) {
+    return drifted(ledger.getProdSharedConsumption(), actual.getProdSharedConsumption())
+        || drifted(ledger.getProdDedicatedConsumption(), actual.getProdDedicatedConsumption())
+        || drifted(ledger.getNonProdSharedConsumption(), actual.getNonProdSharedConsumption())
+        || drifted(
+            ledger.getNonProdDedicatedConsumption(),
+            actual.getNonProdDedicatedConsumption());
+  }
+
+  private static boolean drifted(ResourceBag ledger, ResourceBag actual) {
+    return ledger.subtract(actual).streamResourceVectors()
+        .anyMatch(entry -> Math.abs(entry.getValue()) > DRIFT_TOLERANCE);
+  }
+
+  /**
+   * Periodically verifies the ledger against consumption computed from storage.
+   */
+  static class Verifier extends AbstractScheduledService {
+    private final QuotaLedger ledger;
+    private final Storage storage;
+    private final Amount<Long, Time> interval;
+
+    @Inject
+    Verifier(
+        QuotaLedger ledger,
+        Storage storage,
+        @VerificationInterval Amount<Long, Time> interval) {
+
+      this.ledger = requireNonNull(ledger);
+      this.storage = requireNonNull(storage);
+      this.interval = requireNonNull(interval);
+    }
+
+    @Override
+    protected Scheduler scheduler() {
+      return Scheduler.newFixedDelaySchedule(
+          interval.as(Time.MILLISECONDS),
+          interval.as(Time.MILLISECONDS),
+          TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void runOneIteration() {
+      ledger.verify(storage);
+    }
+  }
+}
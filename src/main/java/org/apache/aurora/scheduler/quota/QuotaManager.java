@@ -25,8 +25,10 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.RangeSet;
 
@@ -163,6 +165,22 @@ public interface QuotaManager {
   class QuotaManagerImpl implements QuotaManager {
     private static final Predicate<ITaskConfig> NO_QUOTA_CHECK = or(PROD_DEDICATED, not(PROD));
 
+    private final Optional<QuotaLedger> ledger;
+
+    public QuotaManagerImpl() {
+      this(Optional.empty());
+    }
+
+    /**
+     * Creates a quota manager that reads consumption from a {@link QuotaLedger}, if present, and
+     * otherwise computes it from storage on each call.
+     *
+     * @param ledger Optional consumption ledger.
+     */
+    public QuotaManagerImpl(Optional<QuotaLedger> ledger) {
+      this.ledger = requireNonNull(ledger);
+    }
+
     @Override
     public void saveQuota(
         final String ownerRole,
@@ -202,34 +220,42 @@ public interface QuotaManager {
         StoreProvider storeProvider) {
 
       Preconditions.checkArgument(instances >= 0);
-      if (NO_QUOTA_CHECK.apply(template)) {
-        return new QuotaCheckResult(SUFFICIENT_QUOTA);
-      }
+      try {
+        if (NO_QUOTA_CHECK.apply(template)) {
+          return new QuotaCheckResult(SUFFICIENT_QUOTA);
+        }
 
-      QuotaInfo quotaInfo = getQuotaInfo(template.getJob().getRole(), storeProvider);
-      ResourceBag requestedTotal =
-          quotaInfo.getProdSharedConsumption().add(scale(template, instances));
+        QuotaInfo quotaInfo = getQuotaInfo(template.getJob().getRole(), storeProvider);
+        ResourceBag requestedTotal =
+            quotaInfo.getProdSharedConsumption().add(scale(template, instances));
 
-      return QuotaCheckResult.greaterOrEqual(quotaInfo.getQuota(), requestedTotal);
+        return QuotaCheckResult.greaterOrEqual(quotaInfo.getQuota(), requestedTotal);
+      } finally {
+        invalidate(template.getJob());
+      }
     }
 
     @Override
     public QuotaCheckResult checkJobUpdate(IJobUpdate jobUpdate, StoreProvider storeProvider) {
       requireNonNull(jobUpdate);
-      if (!jobUpdate.getInstructions().isSetDesiredState()
-          || NO_QUOTA_CHECK.apply(jobUpdate.getInstructions().getDesiredState().getTask())) {
+      try {
+        if (!jobUpdate.getInstructions().isSetDesiredState()
+            || NO_QUOTA_CHECK.apply(jobUpdate.getInstructions().getDesiredState().getTask())) {
 
-        return new QuotaCheckResult(SUFFICIENT_QUOTA);
-      }
+          return new QuotaCheckResult(SUFFICIENT_QUOTA);
+        }
 
-      QuotaInfo quotaInfo = getQuotaInfo(
-          jobUpdate.getSummary().getKey().getJob().getRole(),
-          Optional.of(jobUpdate),
-          storeProvider);
+        QuotaInfo quotaInfo = getQuotaInfo(
+            jobUpdate.getSummary().getKey().getJob().getRole(),
+            Optional.of(jobUpdate),
+            storeProvider);
 
-      return QuotaCheckResult.greaterOrEqual(
-          quotaInfo.getQuota(),
-          quotaInfo.getProdSharedConsumption());
+        return QuotaCheckResult.greaterOrEqual(
+            quotaInfo.getQuota(),
+            quotaInfo.getProdSharedConsumption());
+      } finally {
+        invalidate(jobUpdate.getSummary().getKey().getJob());
+      }
     }
 
     @Override
@@ -237,24 +263,34 @@ public interface QuotaManager {
         IJobConfiguration cronConfig,
         StoreProvider storeProvider) {
 
-      if (!cronConfig.getTaskConfig().isProduction()) {
-        return new QuotaCheckResult(SUFFICIENT_QUOTA);
-      }
+      try {
+        if (!cronConfig.getTaskConfig().isProduction()) {
+          return new QuotaCheckResult(SUFFICIENT_QUOTA);
+        }
+
+        QuotaInfo quotaInfo =
+            getQuotaInfo(cronConfig.getKey().getRole(), Optional.empty(), storeProvider);
 
-      QuotaInfo quotaInfo =
-          getQuotaInfo(cronConfig.getKey().getRole(), Optional.empty(), storeProvider);
+        Optional<IJobConfiguration> oldCron =
+            storeProvider.getCronJobStore().fetchJob(cronConfig.getKey());
 
-      Optional<IJobConfiguration> oldCron =
-          storeProvider.getCronJobStore().fetchJob(cronConfig.getKey());
+        ResourceBag oldResource = oldCron.isPresent() ? scale(oldCron.get()) : EMPTY;
 
-      ResourceBag oldResource = oldCron.isPresent() ? scale(oldCron.get()) : EMPTY;
+        // Calculate requested total as a sum of current prod consumption and a delta between
+        // new and old cron templates.
+        ResourceBag requestedTotal =
+            quotaInfo.getProdSharedConsumption().add(scale(cronConfig).subtract(oldResource));
 
-      // Calculate requested total as a sum of current prod consumption and a delta between
-      // new and old cron templates.
-      ResourceBag requestedTotal =
-          quotaInfo.getProdSharedConsumption().add(scale(cronConfig).subtract(oldResource));
+        return QuotaCheckResult.greaterOrEqual(quotaInfo.getQuota(), requestedTotal);
+      } finally {
+        invalidate(cronConfig.getKey());
+      }
+    }
 
-      return QuotaCheckResult.greaterOrEqual(quotaInfo.getQuota(), requestedTotal);
+    private void invalidate(IJobKey job) {
+      // The checked job is usually changed right after the check, and may not be followed by an
+      // event the ledger observes (e.g. when saving an update or a cron template).
+      ledger.ifPresent(l -> l.invalidate(job));
     }
 
     /**
@@ -273,6 +309,30 @@ public interface QuotaManager {
         Optional<IJobUpdate> requestedUpdate,
         StoreProvider storeProvider) {
 
+      ResourceBag quota = storeProvider.getQuotaStore().fetchQuota(role)
+          .map(ResourceManager::bagFromAggregate)
+          .orElse(EMPTY);
+      if (!ledger.isPresent()) {
+        return getRoleConsumption(role, requestedUpdate, storeProvider).withQuota(quota);
+      }
+
+      QuotaInfo consumption = ledger.get().getConsumption(role, storeProvider);
+      if (requestedUpdate.isPresent()) {
+        // Replace the ledger consumption of the updated job with its consumption as if the
+        // requested update was in progress.
+        IJobKey job = requestedUpdate.get().getSummary().getKey().getJob();
+        consumption = consumption
+            .subtractConsumption(ledger.get().getJobConsumption(job))
+            .addConsumption(getJobConsumption(job, requestedUpdate, storeProvider));
+      }
+      return consumption.withQuota(quota);
+    }
+
+    private static QuotaInfo getRoleConsumption(
+        String role,
+        Optional<IJobUpdate> requestedUpdate,
+        StoreProvider storeProvider) {
+
       FluentIterable<IAssignedTask> tasks = FluentIterable
           .from(storeProvider.getTaskStore().fetchTasks(Query.roleScoped(role).active()))
           .transform(IScheduledTask::getAssignedTask);
@@ -299,17 +359,92 @@ public interface QuotaManager {
               .filter(compose(equalTo(role), JobKeys::getRole))
               .uniqueIndex(IJobConfiguration::getKey);
 
+      return getConsumption(tasks, updates, cronTemplates);
+    }
+
+    /**
+     * Computes the consumption of each job of a role, which adds up to the consumption of the
+     * role. Jobs without consumption may be omitted.
+     *
+     * @param role Role to compute consumption for.
+     * @param storeProvider A store provider to access task, update and cron data.
+     * @return Consumption of each job of the role, with empty quota.
+     */
+    static Map<IJobKey, QuotaInfo> getConsumptionByJob(String role, StoreProvider storeProvider) {
+      ImmutableListMultimap<IJobKey, IAssignedTask> tasksByJob = FluentIterable
+          .from(storeProvider.getTaskStore().fetchTasks(Query.roleScoped(role).active()))
+          .transform(IScheduledTask::getAssignedTask)
+          .index(Tasks::getJob);
+
+      Map<IJobKey, IJobUpdateInstructions> updates = storeProvider.getJobUpdateStore()
+          .fetchJobUpdates(updateQuery(role))
+          .stream()
+          .collect(Collectors.toMap(
+              u -> u.getUpdate().getSummary().getKey().getJob(),
+              u -> u.getUpdate().getInstructions()));
+
+      Map<IJobKey, IJobConfiguration> cronTemplates =
+          FluentIterable.from(storeProvider.getCronJobStore().fetchJobs())
+              .filter(compose(equalTo(role), JobKeys::getRole))
+              .uniqueIndex(IJobConfiguration::getKey);
+
+      Set<IJobKey> jobs = ImmutableSet.<IJobKey>builder()
+          .addAll(tasksByJob.keySet())
+          .addAll(updates.keySet())
+          .addAll(cronTemplates.keySet())
+          .build();
+      return Maps.toMap(jobs, job -> getConsumption(
+          FluentIterable.from(tasksByJob.get(job)),
+          Maps.filterKeys(updates, equalTo(job)),
+          Maps.filterKeys(cronTemplates, equalTo(job))));
+    }
+
+    /**
+     * Computes the consumption of a single job.
+     *
+     * @param job Job to compute consumption for.
+     * @param requestedUpdate An optional {@code IJobUpdate} of the job to forecast the consumption.
+     * @param storeProvider A store provider to access task, update and cron data.
+     * @return Consumption of the job, with empty quota.
+     */
+    static QuotaInfo getJobConsumption(
+        IJobKey job,
+        Optional<IJobUpdate> requestedUpdate,
+        StoreProvider storeProvider) {
+
+      FluentIterable<IAssignedTask> tasks = FluentIterable
+          .from(storeProvider.getTaskStore().fetchTasks(Query.jobScoped(job).active()))
+          .transform(IScheduledTask::getAssignedTask);
+
+      Map<IJobKey, IJobUpdateInstructions> updates = Maps.newHashMap();
+      if (requestedUpdate.isPresent()) {
+        updates.put(job, requestedUpdate.get().getInstructions());
+      } else {
+        storeProvider.getJobUpdateStore().fetchJobUpdates(updateQuery(job))
+            .forEach(u -> updates.put(job, u.getUpdate().getInstructions()));
+      }
+
+      Map<IJobKey, IJobConfiguration> cronTemplates = Maps.newHashMap();
+      storeProvider.getCronJobStore().fetchJob(job)
+          .ifPresent(cron -> cronTemplates.put(job, cron));
+
+      return getConsumption(tasks, updates, cronTemplates);
+    }
+
+    private static QuotaInfo getConsumption(
+        FluentIterable<IAssignedTask> tasks,
+        Map<IJobKey, IJobUpdateInstructions> updates,
+        Map<IJobKey, IJobConfiguration> cronTemplates) {
+
       return new QuotaInfo(
-          storeProvider.getQuotaStore().fetchQuota(role)
-              .map(ResourceManager::bagFromAggregate)
-              .orElse(EMPTY),
+          EMPTY,
           getConsumption(tasks, updates, cronTemplates, PROD_SHARED),
           getConsumption(tasks, updates, cronTemplates, PROD_DEDICATED),
           getConsumption(tasks, updates, cronTemplates, NON_PROD_SHARED),
           getConsumption(tasks, updates, cronTemplates, NON_PROD_DEDICATED));
     }
 
-    private ResourceBag getConsumption(
+    private static ResourceBag getConsumption(
         FluentIterable<IAssignedTask> tasks,
         Map<IJobKey, IJobUpdateInstructions> updatesByKey,
         Map<IJobKey, IJobConfiguration> cronTemplatesByKey,
@@ -413,6 +548,13 @@ public interface QuotaManager {
           .setUpdateStatuses(Updates.ACTIVE_JOB_UPDATE_STATES));
     }
 
+    @VisibleForTesting
+    static IJobUpdateQuery updateQuery(IJobKey job) {
+      return IJobUpdateQuery.build(new JobUpdateQuery()
+          .setJobKey(job.newBuilder())
+          .setUpdateStatuses(Updates.ACTIVE_JOB_UPDATE_STATES));
+    }
+
     private static final Function<IInstanceTaskConfig, ResourceBag> INSTANCE_RESOURCES =
         config -> scale(config.getTask(), getUpdateInstanceCount(config.getInstances()));
 
@@ -13,23 +13,85 @@
  */
 package org.apache.aurora.scheduler.quota;
 
+import java.util.Optional;
+
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.TypeLiteral;
 
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveAmount;
+import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.quota.QuotaManager.QuotaManagerImpl;
 import org.apache.aurora.scheduler.storage.Storage;
 
+import static org.apache.aurora.scheduler.SchedulerServicesModule.addSchedulerActiveServiceBinding;
+
 /**
  * Guice module for the quota package.
  */
 public class QuotaModule extends AbstractModule {
 
+  @Parameters(separators = "=")
+  public static class Options {
+    @Parameter(names = "-enable_quota_ledger",
+        arity = 1,
+        description = "Maintain the quota consumption of each role as its jobs change, rather "
+            + "than computing it from all of the role's tasks, cron jobs and job updates on "
+            + "each quota check.")
+    public boolean enableQuotaLedger = false;
+
+    @Parameter(names = "-quota_ledger_verification_interval",
+        validateValueWith = PositiveAmount.class,
+        description = "Interval between verifications of the quota ledger against consumption "
+            + "computed from storage.")
+    public TimeAmount quotaLedgerVerificationInterval = new TimeAmount(5, Time.MINUTES);
+  }
+
+  private final Options options;
+
+  public QuotaModule() {
+    this(new Options());
+  }
+
+  public QuotaModule(Options options) {
+    this.options = options;
+  }
+
   @Override
   protected void configure() {
     requireBinding(Storage.class);
 
     bind(QuotaManager.class).to(QuotaManagerImpl.class);
-    bind(QuotaManagerImpl.class).in(Singleton.class);
+
+    if (options.enableQuotaLedger) {
+      bind(QuotaLedger.class).in(Singleton.class);
+      PubsubEventModule.bindSubscriber(binder(), QuotaLedger.class);
+
+      bind(new TypeLiteral<Amount<Long, Time>>() { })
+          .annotatedWith(QuotaLedger.VerificationInterval.class)
+          .toInstance(options.quotaLedgerVerificationInterval);
+      bind(QuotaLedger.Verifier.class).in(Singleton.class);
+      addSchedulerActiveServiceBinding(binder()).to(QuotaLedger.Verifier.class);
+    }
+  }
+
+  @Provides
+  @Singleton
+  Optional<QuotaLedger> provideOptionalQuotaLedger(Provider<QuotaLedger> ledger) {
+    return options.enableQuotaLedger ? Optional.of(ledger.get()) : Optional.empty();
+  }
+
+  @Provides
+  @Singleton
+  QuotaManagerImpl provideQuotaManager(Optional<QuotaLedger> ledger) {
+    return new QuotaManagerImpl(ledger);
   }
 }
@@ -14,6 +14,7 @@
 package org.apache.aurora.scheduler.resources;
 
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BinaryOperator;
@@ -23,9 +24,12 @@ import java.util.stream.StreamSupport;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 
 import org.apache.aurora.gen.ResourceAggregate;
+import org.apache.aurora.scheduler.base.Numbers;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.storage.durability.ThriftBackfill;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
@@ -34,6 +38,7 @@ import org.apache.aurora.scheduler.storage.entities.IResourceAggregate;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 import org.apache.mesos.v1.Protos.Resource;
+import org.apache.mesos.v1.Protos.Value;
 
 import static org.apache.aurora.scheduler.resources.ResourceType.BY_MESOS_NAME;
 import static org.apache.aurora.scheduler.resources.ResourceType.fromResource;
@@ -145,6 +150,83 @@ public final class ResourceManager {
     return Iterables.filter(getOfferResources(offer, revocable), r -> fromResource(r).equals(type));
   }
 
+  /**
+   * Gets the part of an offer that remains available once {@code used} resources are allocated
+   * from it, so that further tasks may be matched against and launched from the same offer.
+   *
+   * @param offer Offer to allocate resources from.
+   * @param used Resources allocated from the offer, as produced by {@link AcceptedOffer}.
+   * @return A copy of {@code offer} without the allocated resources.
+   */
+  public static Offer subtractFromOffer(Offer offer, Iterable<Resource> used) {
+    List<Resource.Builder> remaining = offer.getResourcesList().stream()
+        .map(Resource::toBuilder)
+        .collect(Collectors.toList());
+
+    for (Resource resource : used) {
+      Resource slot = withoutValue(resource);
+      double scalar = resource.getScalar().getValue();
+      Set<Integer> ports = Sets.newHashSet(Iterables.concat(
+          Iterables.transform(resource.getRanges().getRangeList(), Numbers.RANGE_TO_MEMBERS)));
+      Set<String> items = ImmutableSet.copyOf(resource.getSet().getItemList());
+
+      // The same kind of resource may be offered more than once, in which case the allocation
+      // takes from each of them in turn.
+      for (Resource.Builder available : remaining) {
+        if (!slot.equals(withoutValue(available.build()))) {
+          continue;
+        }
+
+        switch (available.getType()) {
+          case SCALAR:
+            double taken = Math.min(scalar, available.getScalar().getValue());
+            scalar -= taken;
+            available.getScalarBuilder().setValue(available.getScalar().getValue() - taken);
+            break;
+          case RANGES:
+            Set<Integer> members = Sets.newHashSet(Iterables.concat(Iterables.transform(
+                available.getRanges().getRangeList(),
+                Numbers.RANGE_TO_MEMBERS)));
+            members.removeAll(ports);
+            available.setRanges(Value.Ranges.newBuilder().addAllRange(
+                Iterables.transform(Numbers.toRanges(members), Numbers.RANGE_TRANSFORM)));
+            break;
+          case SET:
+            available.setSet(Value.Set.newBuilder().addAllItem(
+                Iterables.filter(available.getSet().getItemList(), i -> !items.contains(i))));
+            break;
+          default:
+            break;
+        }
+      }
+    }
+
+    return offer.toBuilder()
+        .clearResources()
+        .addAllResources(remaining.stream()
+            .filter(ResourceManager::hasValue)
+            .map(Resource.Builder::build)
+            .collect(Collectors.toList()))
+        .build();
+  }
+
+  private static Resource withoutValue(Resource resource) {
+    return resource.toBuilder().clearScalar().clearRanges().clearSet().build();
+  }
+
+  private static boolean hasValue(Resource.Builder resource) {
+    switch (resource.getType()) {
+      case SCALAR:
+        return resource.getScalar().getValue() > 0;
+      case RANGES:
+        return resource.getRanges().getRangeCount() > 0;
+      case SET:
+        return resource.getSet().getItemCount() > 0;
+      default:
+        return true;
+    }
+  }
+
   /**
    * Same as {@link #getTaskResources(ITaskConfig, ResourceType)}.
    *
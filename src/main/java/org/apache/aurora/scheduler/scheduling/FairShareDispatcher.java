@@ -0,0 +1,223 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+import org.apache.aurora.common.stats.Histogram;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.base.AsyncUtil;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Runs scheduling attempts for task groups on a pool of scheduling threads, sharing the attempts
+ * fairly between roles.
+ * <p>
+ * Attempts are queued per share, where a share is the production or non-production tasks of a
+ * role, and shares are served by start-time fair queuing: each attempt advances the virtual time
+ * of its share by the inverse of the share weight, and the backlogged share with the lowest
+ * virtual time is served next. A role with thousands of pending groups therefore gets the same
+ * number of attempts as a role with a single group while both are waiting, rather than all of
+ * them.
+ * <p>
+ * Idle scheduling threads take the next attempt from the shared queue, so no thread idles while
+ * attempts are waiting. Attempts write to storage through the
+ * {@link TaskGroups.TaskGroupBatchWorker}, which serializes them; additional threads let attempts
+ * made at the same time share a batch.
+ */
+public class FairShareDispatcher {
+  private static final Logger LOG = LoggerFactory.getLogger(FairShareDispatcher.class);
+
+  @VisibleForTesting
+  static final String QUEUED_ATTEMPTS = "scheduling_queued_attempts";
+
+  @VisibleForTesting
+  static String queueDelayStatName(String role) {
+    return "scheduling_queue_delay_ms_" + role;
+  }
+
+  private final Executor executor;
+  private final int threads;
+  private final int productionWeight;
+  private final Clock clock;
+  private final StatsProvider statsProvider;
+
+  // The fields below are guarded by this.
+  private final Map<String, Share> shares = Maps.newHashMap();
+  private final Map<String, Histogram> queueDelays = Maps.newHashMap();
+  private final Queue<Share> backlogged = new PriorityQueue<>(Comparator
+      .<Share>comparingDouble(share -> share.tag)
+      .thenComparingLong(share -> share.order));
+  private double virtualTime;
+  private double maxFinish;
+  private long sequence;
+  private int activeThreads;
+  private int queued;
+
+  /**
+   * Creates a dispatcher that runs attempts on its own pool of daemon threads.
+   *
+   * @param threads Number of scheduling threads.
+   * @param productionWeight Weight of the production share of a role, relative to its
+   *                         non-production share.
+   * @param statsProvider Stats provider to export queueing stats with.
+   */
+  public FairShareDispatcher(int threads, int productionWeight, StatsProvider statsProvider) {
+    this(
+        AsyncUtil.loggingExecutor(
+            threads,
+            threads,
+            new LinkedBlockingQueue<>(),
+            "TaskGroupDispatcher-%d",
+            LOG),
+        threads,
+        productionWeight,
+        Clock.SYSTEM_CLOCK,
+        statsProvider);
+  }
+
+  @VisibleForTesting
+  FairShareDispatcher(
+      Executor executor,
+      int threads,
+      int productionWeight,
+      Clock clock,
+      StatsProvider statsProvider) {
+
+    Preconditions.checkArgument(threads > 0);
+    Preconditions.checkArgument(productionWeight > 0);
+    this.executor = requireNonNull(executor);
+    this.threads = threads;
+    this.productionWeight = productionWeight;
+    this.clock = requireNonNull(clock);
+    this.statsProvider = requireNonNull(statsProvider);
+    statsProvider.makeGauge(QUEUED_ATTEMPTS, (Supplier<Integer>) this::getQueued);
+  }
+
+  private static final class Share {
+    final Histogram queueDelay;
+    final double cost;
+    final Queue<Attempt> attempts = new ArrayDeque<>();
+    double tag;
+    double finish;
+    long order;
+
+    Share(Histogram queueDelay, int weight) {
+      this.queueDelay = queueDelay;
+      this.cost = 1.0 / weight;
+    }
+  }
+
+  private static final class Attempt {
+    final Runnable work;
+    final Histogram queueDelay;
+    final long queuedNanos;
+
+    Attempt(Runnable work, Histogram queueDelay, long queuedNanos) {
+      this.work = work;
+      this.queueDelay = queueDelay;
+      this.queuedNanos = queuedNanos;
+    }
+  }
+
+  /**
+   * Queues a scheduling attempt for a task group.
+   *
+   * @param key Key of the group the attempt is made for.
+   * @param attempt Scheduling attempt to run.
+   */
+  public synchronized void dispatch(TaskGroupKey key, Runnable attempt) {
+    ITaskConfig task = key.getTask();
+    String role = task.getJob().getRole();
+    Share share = shares.computeIfAbsent(
+        (task.isProduction() ? "prod/" : "nonprod/") + role,
+        name -> new Share(
+            queueDelays.computeIfAbsent(
+                role,
+                r -> statsProvider.makeHistogram(queueDelayStatName(r))),
+            task.isProduction() ? productionWeight : 1));
+
+    if (share.attempts.isEmpty()) {
+      share.tag = Math.max(virtualTime, share.finish);
+      share.order = sequence++;
+      backlogged.add(share);
+    }
+    share.attempts.add(new Attempt(attempt, share.queueDelay, clock.nowNanos()));
+    queued++;
+
+    if (activeThreads < threads) {
+      activeThreads++;
+      executor.execute(this::drain);
+    }
+  }
+
+  private synchronized Attempt next() {
+    Share share = backlogged.poll();
+    if (share == null) {
+      // Once idle, virtual time catches up with the attempts already served, so that a share
+      // that was idle meanwhile is not owed them.
+      virtualTime = maxFinish;
+      activeThreads--;
+      return null;
+    }
+
+    Attempt attempt = share.attempts.remove();
+    virtualTime = share.tag;
+    share.finish = share.tag + share.cost;
+    maxFinish = Math.max(maxFinish, share.finish);
+    if (!share.attempts.isEmpty()) {
+      share.tag = share.finish;
+      share.order = sequence++;
+      backlogged.add(share);
+    }
+    queued--;
+    return attempt;
+  }
+
+  private void drain() {
+    Attempt attempt;
+    while ((attempt = next()) != null) {
+      attempt.queueDelay.record(
+          TimeUnit.NANOSECONDS.toMillis(clock.nowNanos() - attempt.queuedNanos));
+      try {
+        attempt.work.run();
+      } catch (RuntimeException e) {
+        LOG.error("Scheduling attempt failed", e);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  synchronized int getQueued() {
+    return queued;
+  }
+}
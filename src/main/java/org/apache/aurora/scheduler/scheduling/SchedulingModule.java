@@ -13,6 +13,8 @@
  */
 package org.apache.aurora.scheduler.scheduling;
 
+import java.util.Optional;
+
 import javax.inject.Singleton;
 
 import com.beust.jcommander.Parameter;
@@ -94,6 +96,30 @@ public class SchedulingModule extends AbstractModule {
         validateValueWith = PositiveNumber.class,
         description = "The maximum number of tasks to pick in a single scheduling attempt.")
     public int maxTasksPerScheduleAttempt = 5;
+
+    @Parameter(names = "-max_tasks_per_offer",
+        validateValueWith = PositiveNumber.class,
+        description = "The maximum number of tasks from a scheduling attempt to launch using a "
+            + "single offer. Values above 1 pack tasks onto an offer while it has room for them.")
+    public int maxTasksPerOffer = 1;
+
+    @Parameter(names = "-enable_fair_share_scheduling",
+        arity = 1,
+        description = "Share scheduling attempts fairly between roles, running them on a "
+            + "dedicated pool of scheduling threads rather than the async executor.")
+    public boolean enableFairShareScheduling = false;
+
+    @Parameter(names = "-scheduling_threads",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of threads to make scheduling attempts with, when fair share "
+            + "scheduling is enabled.")
+    public int schedulingThreads = 4;
+
+    @Parameter(names = "-production_scheduling_weight",
+        validateValueWith = PositiveNumber.class,
+        description = "Share of scheduling attempts given to the production tasks of a role, "
+            + "relative to its non-production tasks, when fair share scheduling is enabled.")
+    public int productionSchedulingWeight = 1;
   }
 
   private final Options options;
@@ -111,7 +137,12 @@ public class SchedulingModule extends AbstractModule {
             options.firstScheduleDelay,
             new TruncatedBinaryBackoff(options.initialSchedulePenalty, options.maxSchedulePenalty),
             RateLimiter.create(options.maxScheduleAttemptsPerSec),
-            options.maxTasksPerScheduleAttempt));
+            options.maxTasksPerScheduleAttempt,
+            options.enableFairShareScheduling
+                ? Optional.of(new TaskGroups.FairShareSettings(
+                    options.schedulingThreads,
+                    options.productionSchedulingWeight))
+                : Optional.empty()));
 
         bind(RescheduleCalculatorImpl.RescheduleCalculatorSettings.class)
             .toInstance(new RescheduleCalculatorImpl.RescheduleCalculatorSettings(
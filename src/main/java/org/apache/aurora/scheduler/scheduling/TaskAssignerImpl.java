@@ -13,27 +13,36 @@
  */
 package org.apache.aurora.scheduler.scheduling;
 
-import java.util.Collection;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
+import javax.inject.Qualifier;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Maps;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
+import org.apache.aurora.common.stats.Histogram;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.scheduler.base.InstanceKeys;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
 import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.offers.OfferManager.LaunchException;
+import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.resources.ResourceManager;
 import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.aurora.scheduler.state.StateManager;
@@ -45,11 +54,17 @@ import org.apache.mesos.v1.Protos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
 import static java.util.Objects.requireNonNull;
 
 import static org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
 import static org.apache.aurora.gen.ScheduleStatus.LOST;
+import static org.apache.aurora.scheduler.resources.ResourceType.CPUS;
+import static org.apache.aurora.scheduler.resources.ResourceType.RAM_MB;
 
 public class TaskAssignerImpl implements TaskAssigner {
   private static final Logger LOG = LoggerFactory.getLogger(TaskAssignerImpl.class);
@@ -59,13 +74,35 @@ public class TaskAssignerImpl implements TaskAssigner {
       Optional.of("Unknown exception attempting to schedule task.");
   @VisibleForTesting
   static final String ASSIGNER_LAUNCH_FAILURES = "assigner_launch_failures";
+  @VisibleForTesting
+  static final String ASSIGNER_OFFERS_LAUNCHED = "assigner_offers_launched";
+  @VisibleForTesting
+  static final String ASSIGNER_TASKS_LAUNCHED = "assigner_tasks_launched";
+  @VisibleForTesting
+  static final String ASSIGNER_LAUNCHES_PER_OFFER = "assigner_launches_per_offer";
+  @VisibleForTesting
+  static final String ASSIGNER_OFFER_PACKING_PERCENT = "assigner_offer_packing_percent";
+
+  /**
+   * Binding annotation for the maximum number of tasks launched from a single offer.
+   */
+  @VisibleForTesting
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  public @interface MaxTasksPerOffer { }
 
   private final AtomicLong launchFailures;
+  private final AtomicLong offersLaunched;
+  private final AtomicLong tasksLaunched;
+  private final Histogram launchesPerOffer;
+  private final Histogram offerPackingPercent;
 
   private final StateManager stateManager;
   private final MesosTaskFactory taskFactory;
   private final OfferManager offerManager;
   private final UpdateAgentReserver updateAgentReserver;
+  private final SchedulingFilter schedulingFilter;
+  private final int maxTasksPerOffer;
 
   @Inject
   public TaskAssignerImpl(
@@ -73,13 +110,21 @@ public class TaskAssignerImpl implements TaskAssigner {
       MesosTaskFactory taskFactory,
       OfferManager offerManager,
       UpdateAgentReserver updateAgentReserver,
-      StatsProvider statsProvider) {
+      SchedulingFilter schedulingFilter,
+      StatsProvider statsProvider,
+      @MaxTasksPerOffer int maxTasksPerOffer) {
 
     this.stateManager = requireNonNull(stateManager);
     this.taskFactory = requireNonNull(taskFactory);
     this.offerManager = requireNonNull(offerManager);
     this.launchFailures = statsProvider.makeCounter(ASSIGNER_LAUNCH_FAILURES);
+    this.offersLaunched = statsProvider.makeCounter(ASSIGNER_OFFERS_LAUNCHED);
+    this.tasksLaunched = statsProvider.makeCounter(ASSIGNER_TASKS_LAUNCHED);
+    this.launchesPerOffer = statsProvider.makeHistogram(ASSIGNER_LAUNCHES_PER_OFFER);
+    this.offerPackingPercent = statsProvider.makeHistogram(ASSIGNER_OFFER_PACKING_PERCENT);
     this.updateAgentReserver = requireNonNull(updateAgentReserver);
+    this.schedulingFilter = requireNonNull(schedulingFilter);
+    this.maxTasksPerOffer = maxTasksPerOffer;
   }
 
   @VisibleForTesting
@@ -112,27 +157,88 @@ public class TaskAssignerImpl implements TaskAssigner {
     return taskFactory.createFrom(assigned, offer, revocable);
   }
 
-  private void launchUsingOffer(
+  /**
+   * Tasks assigned to a single offer, which are launched together when the offer is accepted.
+   */
+  private static final class OfferLaunch {
+    final HostOffer offer;
+    final boolean revocable;
+    final List<String> taskIds = Lists.newArrayList();
+    final List<Protos.TaskInfo> taskInfos = Lists.newArrayList();
+    // The part of the offer not yet allocated to the tasks above.
+    HostOffer remaining;
+
+    OfferLaunch(HostOffer offer, boolean revocable) {
+      this.offer = requireNonNull(offer);
+      this.revocable = revocable;
+      this.remaining = offer;
+    }
+
+    String getOfferId() {
+      return offer.getOffer().getId().getValue();
+    }
+
+    void add(String taskId, Protos.TaskInfo taskInfo) {
+      taskIds.add(taskId);
+      taskInfos.add(taskInfo);
+      remaining = new HostOffer(
+          ResourceManager.subtractFromOffer(
+              remaining.getOffer(),
+              Iterables.concat(
+                  taskInfo.getResourcesList(),
+                  taskInfo.getExecutor().getResourcesList())),
+          offer.getAttributes());
+    }
+
+    long getPackingPercent() {
+      ResourceBag offered = offer.getResourceBag(revocable);
+      ResourceBag used = offered.subtract(remaining.getResourceBag(revocable));
+      double share = 0;
+      for (ResourceType type : ImmutableList.of(CPUS, RAM_MB)) {
+        if (offered.valueOf(type) > 0) {
+          share = Math.max(share, used.valueOf(type) / offered.valueOf(type));
+        }
+      }
+      return Math.round(share * 100);
+    }
+  }
+
+  private void assignToOffer(
       MutableStoreProvider stores,
       ResourceRequest resourceRequest,
       IAssignedTask task,
-      HostOffer offer) throws LaunchException {
+      OfferLaunch launch) {
 
     String taskId = task.getTaskId();
-    Protos.TaskInfo taskInfo =
-        assign(stores, offer.getOffer(), taskId, resourceRequest.isRevocable());
-    resourceRequest.getJobState().updateAttributeAggregate(offer.getAttributes());
+    Protos.TaskInfo taskInfo = assign(
+        stores,
+        launch.remaining.getOffer(),
+        taskId,
+        resourceRequest.isRevocable());
+    resourceRequest.getJobState().updateAttributeAggregate(launch.offer.getAttributes());
+    launch.add(taskId, taskInfo);
+  }
+
+  private void launchUsingOffer(MutableStoreProvider stores, OfferLaunch launch)
+      throws LaunchException {
+
     try {
-      offerManager.launchTask(offer.getOffer().getId(), taskInfo);
+      offerManager.launchTasks(launch.offer.getOffer().getId(), launch.taskInfos);
+      offersLaunched.incrementAndGet();
+      tasksLaunched.addAndGet(launch.taskIds.size());
+      launchesPerOffer.record(launch.taskIds.size());
+      offerPackingPercent.record(launch.getPackingPercent());
     } catch (LaunchException e) {
-      LOG.warn("Failed to launch task.", e);
-      launchFailures.incrementAndGet();
+      LOG.warn("Failed to launch tasks.", e);
+      launchFailures.addAndGet(launch.taskIds.size());
 
-      // The attempt to schedule the task failed, so we need to backpedal on the assignment.
-      // It is in the LOST state and a new task will move to PENDING to replace it.
-      // Should the state change fail due to storage issues, that's okay.  The task will
+      // The attempt to schedule the tasks failed, so we need to backpedal on the assignment.
+      // They are in the LOST state and new tasks will move to PENDING to replace them.
+      // Should the state change fail due to storage issues, that's okay.  The tasks will
       // time out in the ASSIGNED state and be moved to LOST.
-      stateManager.changeState(stores, taskId, Optional.of(ASSIGNED), LOST, LAUNCH_FAILED_MSG);
+      for (String taskId : launch.taskIds) {
+        stateManager.changeState(stores, taskId, Optional.of(ASSIGNED), LOST, LAUNCH_FAILED_MSG);
+      }
       throw e;
     }
   }
@@ -202,48 +308,21 @@ public class TaskAssignerImpl implements TaskAssigner {
     return reservedForPreemption || updateAgentReserver.isReserved(agentId);
   }
 
-  private static class SchedulingMatch {
-    final IAssignedTask task;
-    final HostOffer offer;
-
-    SchedulingMatch(IAssignedTask task, HostOffer offer) {
-      this.task = requireNonNull(task);
-      this.offer = requireNonNull(offer);
-    }
-  }
-
-  private Collection<SchedulingMatch> findMatches(
+  /**
+   * Determines whether another task from the request fits in what is left of an offer that
+   * already has tasks assigned to it.
+   */
+  private boolean canPack(
+      OfferLaunch launch,
       ResourceRequest resourceRequest,
       TaskGroupKey groupKey,
-      Set<IAssignedTask> tasks,
       Map<String, TaskGroupKey> preemptionReservations) {
 
-    // Avoid matching multiple tasks against any offer.
-    Map<String, SchedulingMatch> matchesByOffer = Maps.newHashMap();
-
-    tasks.forEach(task -> {
-      ReservationStatus reservation = getReservation(task, resourceRequest);
-      Optional<HostOffer> chosenOffer;
-      if (reservation.isTaskReserving()) {
-        // Use the reserved offer, which may not currently exist.
-        chosenOffer = reservation.getOffer();
-      } else {
-        // Get all offers that will satisfy the given ResourceRequest and that are not reserved
-        // for updates or preemption.
-        Iterable<HostOffer> matchingOffers = Iterables.filter(
-            offerManager.getAllMatching(groupKey, resourceRequest),
-            o -> !matchesByOffer.containsKey(o.getOffer().getId().getValue())
-                && !isAgentReserved(o, groupKey, preemptionReservations));
-
-        chosenOffer = Optional.ofNullable(Iterables.getFirst(matchingOffers, null));
-      }
-
-      chosenOffer.ifPresent(hostOffer -> matchesByOffer.put(
-          hostOffer.getOffer().getId().getValue(),
-          new SchedulingMatch(task, hostOffer)));
-    });
-
-    return matchesByOffer.values();
+    return launch.taskIds.size() < maxTasksPerOffer
+        && !isAgentReserved(launch.offer, groupKey, preemptionReservations)
+        && schedulingFilter.filter(
+            new UnusedResource(launch.remaining, resourceRequest.isRevocable()),
+            resourceRequest).isEmpty();
   }
 
   @Timed("assigner_maybe_assign")
@@ -256,15 +335,66 @@ public class TaskAssignerImpl implements TaskAssigner {
       Map<String, TaskGroupKey> reservations) {
 
     ImmutableSet.Builder<String> assigned = ImmutableSet.builder();
+    // Avoid matching tasks against an offer once it has been launched.
+    Set<String> usedOffers = Sets.newHashSet();
+    // Tasks are packed onto the offer of the previous task while it has room, and the offer is
+    // launched once the next task has to be placed elsewhere.
+    Optional<OfferLaunch> pending = Optional.empty();
 
-    for (SchedulingMatch match : findMatches(resourceRequest, groupKey, tasks, reservations)) {
-      try {
-        launchUsingOffer(storeProvider, resourceRequest, match.task, match.offer);
-        assigned.add(match.task.getTaskId());
-      } catch (LaunchException e) {
-        // Any launch exception causes the scheduling round to terminate for this TaskGroup.
-        break;
+    try {
+      for (IAssignedTask task : tasks) {
+        ReservationStatus reservation = getReservation(task, resourceRequest);
+        Optional<HostOffer> chosenOffer;
+        if (reservation.isTaskReserving()) {
+          // Use the reserved offer, which may not currently exist.
+          chosenOffer = reservation.getOffer();
+        } else if (pending.isPresent()
+            && canPack(pending.get(), resourceRequest, groupKey, reservations)) {
+
+          chosenOffer = Optional.of(pending.get().offer);
+        } else {
+          // Get all offers that will satisfy the given ResourceRequest and that are not reserved
+          // for updates or preemption.
+          Iterable<HostOffer> matchingOffers = Iterables.filter(
+              offerManager.getAllMatching(groupKey, resourceRequest),
+              o -> !usedOffers.contains(o.getOffer().getId().getValue())
+                  && !isAgentReserved(o, groupKey, reservations));
+
+          chosenOffer = Optional.ofNullable(Iterables.getFirst(matchingOffers, null));
+        }
+
+        if (!chosenOffer.isPresent()) {
+          continue;
+        }
+
+        HostOffer offer = chosenOffer.get();
+        String offerId = offer.getOffer().getId().getValue();
+        if (pending.isPresent() && pending.get().getOfferId().equals(offerId)) {
+          if (reservation.isTaskReserving()
+              && !canPack(pending.get(), resourceRequest, groupKey, reservations)) {
+            // The reserved offer is already taken up by other tasks from this round.
+            continue;
+          }
+        } else if (usedOffers.contains(offerId)) {
+          continue;
+        } else {
+          if (pending.isPresent()) {
+            launchUsingOffer(storeProvider, pending.get());
+            assigned.addAll(pending.get().taskIds);
+          }
+          pending = Optional.of(new OfferLaunch(offer, resourceRequest.isRevocable()));
+          usedOffers.add(offerId);
+        }
+
+        assignToOffer(storeProvider, resourceRequest, task, pending.get());
       }
+
+      if (pending.isPresent()) {
+        launchUsingOffer(storeProvider, pending.get());
+        assigned.addAll(pending.get().taskIds);
+      }
+    } catch (LaunchException e) {
+      // Any launch exception causes the scheduling round to terminate for this TaskGroup.
     }
 
     return assigned.build();
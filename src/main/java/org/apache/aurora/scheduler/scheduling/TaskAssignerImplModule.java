@@ -16,14 +16,26 @@ package org.apache.aurora.scheduler.scheduling;
 import javax.inject.Singleton;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.TypeLiteral;
+
+import org.apache.aurora.scheduler.config.CliOptions;
 
 /**
  * The default TaskAssigner implementation.
  */
 public class TaskAssignerImplModule extends AbstractModule {
 
+  private final CliOptions options;
+
+  public TaskAssignerImplModule(CliOptions options) {
+    this.options = options;
+  }
+
   @Override
   protected void configure() {
+    bind(new TypeLiteral<Integer>() { })
+        .annotatedWith(TaskAssignerImpl.MaxTasksPerOffer.class)
+        .toInstance(options.scheduling.maxTasksPerOffer);
     bind(TaskAssigner.class).to(TaskAssignerImpl.class);
     bind(TaskAssignerImpl.class).in(Singleton.class);
   }
@@ -15,6 +15,7 @@ package org.apache.aurora.scheduler.scheduling;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
@@ -66,7 +67,9 @@ import static org.apache.aurora.gen.ScheduleStatus.PENDING;
  * <p>
  * This is used to prevent redundant work in trying to schedule tasks as well as to provide
  * nearly-equal responsiveness when scheduling across jobs.  In other words, a 1000 instance job
- * cannot starve a 1 instance job.
+ * cannot starve a 1 instance job. When configured with {@link FairShareSettings}, attempts are
+ * also shared between roles by a {@link FairShareDispatcher}, so that a role with many jobs
+ * cannot starve a role with few.
  */
 public class TaskGroups implements EventSubscriber {
 
@@ -79,6 +82,7 @@ public class TaskGroups implements EventSubscriber {
   private final TaskScheduler taskScheduler;
   private final RescheduleCalculator rescheduleCalculator;
   private final BatchWorker<Set<String>> batchWorker;
+  private final Optional<FairShareDispatcher> dispatcher;
 
   // Track the penalties of tasks at the time they were scheduled. This is to provide data that
   // may influence the selection of a different backoff strategy.
@@ -116,6 +120,7 @@ public class TaskGroups implements EventSubscriber {
     private final BackoffStrategy taskGroupBackoff;
     private final RateLimiter rateLimiter;
     private final int maxTasksPerSchedule;
+    private final Optional<FairShareSettings> fairShare;
 
     public TaskGroupsSettings(
         Amount<Long, Time> firstScheduleDelay,
@@ -123,12 +128,43 @@ public class TaskGroups implements EventSubscriber {
         RateLimiter rateLimiter,
         int maxTasksPerSchedule) {
 
+      this(
+          firstScheduleDelay,
+          taskGroupBackoff,
+          rateLimiter,
+          maxTasksPerSchedule,
+          Optional.empty());
+    }
+
+    public TaskGroupsSettings(
+        Amount<Long, Time> firstScheduleDelay,
+        BackoffStrategy taskGroupBackoff,
+        RateLimiter rateLimiter,
+        int maxTasksPerSchedule,
+        Optional<FairShareSettings> fairShare) {
+
       this.firstScheduleDelay = requireNonNull(firstScheduleDelay);
       Preconditions.checkArgument(firstScheduleDelay.getValue() > 0);
       this.taskGroupBackoff = requireNonNull(taskGroupBackoff);
       this.rateLimiter = requireNonNull(rateLimiter);
       this.maxTasksPerSchedule = maxTasksPerSchedule;
       Preconditions.checkArgument(maxTasksPerSchedule > 0);
+      this.fairShare = requireNonNull(fairShare);
+    }
+  }
+
+  /**
+   * Settings for running scheduling attempts through a {@link FairShareDispatcher}.
+   */
+  public static class FairShareSettings {
+    private final int schedulingThreads;
+    private final int productionWeight;
+
+    public FairShareSettings(int schedulingThreads, int productionWeight) {
+      Preconditions.checkArgument(schedulingThreads > 0);
+      Preconditions.checkArgument(productionWeight > 0);
+      this.schedulingThreads = schedulingThreads;
+      this.productionWeight = productionWeight;
     }
   }
 
@@ -142,12 +178,36 @@ public class TaskGroups implements EventSubscriber {
       TaskGroupBatchWorker batchWorker,
       StatsProvider statsProvider) {
 
+    this(
+        executor,
+        settings,
+        taskScheduler,
+        rescheduleCalculator,
+        batchWorker,
+        statsProvider,
+        settings.fairShare.map(fairShare -> new FairShareDispatcher(
+            fairShare.schedulingThreads,
+            fairShare.productionWeight,
+            statsProvider)));
+  }
+
+  @VisibleForTesting
+  TaskGroups(
+      ScheduledExecutorService executor,
+      TaskGroupsSettings settings,
+      TaskScheduler taskScheduler,
+      RescheduleCalculator rescheduleCalculator,
+      TaskGroupBatchWorker batchWorker,
+      StatsProvider statsProvider,
+      Optional<FairShareDispatcher> dispatcher) {
+
     this.executor = requireNonNull(executor);
     this.settings = requireNonNull(settings);
     this.taskScheduler = requireNonNull(taskScheduler);
     this.rescheduleCalculator = requireNonNull(rescheduleCalculator);
     this.batchWorker = requireNonNull(batchWorker);
     this.scheduleAttemptsBlocks = statsProvider.makeCounter(SCHEDULE_ATTEMPTS_BLOCKS);
+    this.dispatcher = requireNonNull(dispatcher);
   }
 
   private synchronized void evaluateGroupLater(Runnable evaluate, TaskGroup group) {
@@ -164,41 +224,49 @@ public class TaskGroups implements EventSubscriber {
     Runnable monitor = new Runnable() {
       @Override
       public void run() {
-        final Set<String> taskIds = group.peek(settings.maxTasksPerSchedule);
-        long penaltyMs = 0;
-        if (!taskIds.isEmpty()) {
-          if (settings.rateLimiter.acquire() > 0) {
-            scheduleAttemptsBlocks.incrementAndGet();
-          }
-          CompletableFuture<Set<String>> result = batchWorker.execute(storeProvider ->
-              taskScheduler.schedule(storeProvider, taskIds));
-
-          Set<String> scheduled = null;
-          try {
-            scheduled = result.get();
-          } catch (ExecutionException | InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException(e);
-          }
-
-          scheduledTaskPenalties.accumulate(group.getPenaltyMs());
-          if (scheduled.isEmpty()) {
-            penaltyMs = settings.taskGroupBackoff.calculateBackoffMs(group.getPenaltyMs());
-          } else {
-            group.remove(scheduled);
-            if (group.hasMore()) {
-              penaltyMs = settings.firstScheduleDelay.as(Time.MILLISECONDS);
-            }
-          }
+        if (dispatcher.isPresent()) {
+          dispatcher.get().dispatch(group.getKey(), () -> attemptSchedule(group, this));
+        } else {
+          attemptSchedule(group, this);
         }
-
-        group.setPenaltyMs(penaltyMs);
-        evaluateGroupLater(this, group);
       }
     };
     evaluateGroupLater(monitor, group);
   }
 
+  private void attemptSchedule(TaskGroup group, Runnable monitor) {
+    final Set<String> taskIds = group.peek(settings.maxTasksPerSchedule);
+    long penaltyMs = 0;
+    if (!taskIds.isEmpty()) {
+      if (settings.rateLimiter.acquire() > 0) {
+        scheduleAttemptsBlocks.incrementAndGet();
+      }
+      CompletableFuture<Set<String>> result = batchWorker.execute(storeProvider ->
+          taskScheduler.schedule(storeProvider, taskIds));
+
+      Set<String> scheduled = null;
+      try {
+        scheduled = result.get();
+      } catch (ExecutionException | InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+
+      scheduledTaskPenalties.accumulate(group.getPenaltyMs());
+      if (scheduled.isEmpty()) {
+        penaltyMs = settings.taskGroupBackoff.calculateBackoffMs(group.getPenaltyMs());
+      } else {
+        group.remove(scheduled);
+        if (group.hasMore()) {
+          penaltyMs = settings.firstScheduleDelay.as(Time.MILLISECONDS);
+        }
+      }
+    }
+
+    group.setPenaltyMs(penaltyMs);
+    evaluateGroupLater(monitor, group);
+  }
+
   /**
    * Informs the task groups of a task state change.
    * <p>
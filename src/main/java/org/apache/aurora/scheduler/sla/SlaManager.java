@@ -16,9 +16,12 @@ package org.apache.aurora.scheduler.sla;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
@@ -26,10 +29,14 @@ import javax.inject.Qualifier;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.Striped;
 import com.google.gson.Gson;
@@ -40,6 +47,7 @@ import com.google.inject.Inject;
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.Histogram;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.scheduler.TierManager;
@@ -73,6 +81,11 @@ import static java.util.Objects.requireNonNull;
 /**
  * Provides methods for performing SLA-safe work. It is used for maintenance and job update
  * operations to guarantee that a job's SLA requirements are always satisfied.
+ * <p>
+ * When a {@link SlaStateCache} is provided, percentage and count SLAs are checked against the
+ * cached task states of a job rather than against all of its tasks in storage. Checks with a
+ * coordinator are made at most once at a time for each task, and further requests for a task
+ * with a pending check are dropped.
  */
 public class SlaManager extends AbstractIdleService {
   private static final Logger LOG = LoggerFactory.getLogger(SlaManager.class);
@@ -110,6 +123,10 @@ public class SlaManager extends AbstractIdleService {
   private static final String ERRORS_STAT_NAME = "sla_coordinator_errors";
   private static final String USER_ERRORS_STAT_NAME = "sla_coordinator_user_errors";
   private static final String LOCK_STARVATION_STAT_NAME = "sla_coordinator_lock_starvation";
+  @VisibleForTesting
+  static final String COALESCED_STAT_NAME = "sla_coordinator_coalesced";
+  private static final String QUEUE_DELAY_STAT_NAME = "sla_coordinator_queue_delay_ms";
+  private static final String LATENCY_STAT_NAME = "sla_coordinator_latency_ms";
 
   private final ScheduledExecutorService executor;
   private final Storage storage;
@@ -119,12 +136,18 @@ public class SlaManager extends AbstractIdleService {
   private final int minRequiredInstances;
   private final TierManager tierManager;
   private final boolean slaAwareKillNonProd;
+  private final Optional<SlaStateCache> stateCache;
+  // Coordinator checks that are queued or in flight, by coordinator url and task key.
+  private final Set<String> pendingCoordinatorChecks = ConcurrentHashMap.newKeySet();
 
   private final AtomicLong attemptsCounter;
   private final AtomicLong successCounter;
   private final AtomicLong errorsCounter;
   private final AtomicLong userErrorsCounter;
   private final AtomicLong lockStarvationCounter;
+  private final AtomicLong coalescedCounter;
+  private final Histogram queueDelay;
+  private final Histogram latency;
   private final LoadingCache<String, AtomicLong> errorsByTaskCounter;
   private final LoadingCache<String, AtomicLong> userErrorsByTaskCounter;
   private final LoadingCache<String, AtomicLong> lockStarvationByTaskCounter;
@@ -137,6 +160,7 @@ public class SlaManager extends AbstractIdleService {
              IServerInfo serverInfo,
              @HttpClient AsyncHttpClient httpClient,
              TierManager tierManager,
+             Optional<SlaStateCache> stateCache,
              StatsProvider statsProvider,
              @SlaAwareKillNonProd boolean slaAwareKillNonProd) {
 
@@ -145,12 +169,16 @@ public class SlaManager extends AbstractIdleService {
     this.serverInfo = requireNonNull(serverInfo);
     this.httpClient = requireNonNull(httpClient);
     this.tierManager = requireNonNull(tierManager);
+    this.stateCache = requireNonNull(stateCache);
     this.minRequiredInstances = requireNonNull(minRequiredInstances);
     this.attemptsCounter = statsProvider.makeCounter(ATTEMPTS_STAT_NAME);
     this.successCounter = statsProvider.makeCounter(SUCCESS_STAT_NAME);
     this.errorsCounter = statsProvider.makeCounter(ERRORS_STAT_NAME);
     this.userErrorsCounter = statsProvider.makeCounter(USER_ERRORS_STAT_NAME);
     this.lockStarvationCounter = statsProvider.makeCounter(LOCK_STARVATION_STAT_NAME);
+    this.coalescedCounter = statsProvider.makeCounter(COALESCED_STAT_NAME);
+    this.queueDelay = statsProvider.makeHistogram(QUEUE_DELAY_STAT_NAME);
+    this.latency = statsProvider.makeHistogram(LATENCY_STAT_NAME);
     this.lock = Striped.lazyWeakLock(requireNonNull(maxCoordinatorLocks));
     this.errorsByTaskCounter = CacheBuilder.newBuilder().build(
         new CacheLoader<String, AtomicLong>() {
@@ -230,12 +258,32 @@ public class SlaManager extends AbstractIdleService {
         .orElse(false);
   }
 
+  private long countActive(IJobKey job, StoreProvider store) {
+    if (stateCache.isPresent()) {
+      return stateCache.get().countActive(store, job);
+    }
+    return store.getTaskStore().fetchTasks(Query.jobScoped(job).active()).size();
+  }
+
+  private Set<String> findHealthy(
+      IJobKey job,
+      Amount<Long, Time> slaDuration,
+      StoreProvider store) {
+
+    if (stateCache.isPresent()) {
+      return stateCache.get().findHealthy(store, job, slaDuration);
+    }
+    return store.getTaskStore().fetchTasks(Query.jobScoped(job).byStatus(ScheduleStatus.RUNNING))
+        .stream()
+        .filter(t -> meetsSLADuration(t, slaDuration)) // task is running for sla duration
+        .map(Tasks::id)
+        .collect(Collectors.toSet());
+  }
+
   private boolean checkSla(IScheduledTask task, ISlaPolicy slaPolicy, StoreProvider store) {
     // Find the number of active tasks for the job, it will be used as the set of tasks
     // against which the percentage/count based SLA will be calculated against.
-    final long numActive = store.getTaskStore().fetchTasks(
-        Query.jobScoped(task.getAssignedTask().getTask().getJob()).active()
-    ).size();
+    final long numActive = countActive(Tasks.getJob(task), store);
 
     if (skipSla(task, numActive)) {
       LOG.info("Skip SLA for {} because it is not production or does not have enough instances.",
@@ -245,25 +293,82 @@ public class SlaManager extends AbstractIdleService {
 
     // Find tasks which have been RUNNING for the required SLA duration.
     Amount<Long, Time> slaDuration = new TimeAmount(getSlaDuration(slaPolicy), Time.SECONDS);
-    final Set<IScheduledTask> running = store.getTaskStore().fetchTasks(
-        Query.jobScoped(task.getAssignedTask().getTask().getJob())
-            .byStatus(ScheduleStatus.RUNNING))
-        .stream()
-        .filter(t -> !Tasks.id(t).equals(Tasks.id(task))) // exclude the task to be removed
-        .filter(t -> meetsSLADuration(t, slaDuration)) // task is running for sla duration
-        .collect(Collectors.toSet());
+    Set<String> healthy = findHealthy(Tasks.getJob(task), slaDuration, store);
+    // exclude the task to be removed
+    long unaffected = healthy.contains(Tasks.id(task)) ? healthy.size() - 1 : healthy.size();
 
     // Check it we satisfy the number of RUNNING tasks per duration time.
-    boolean meetsSla = meetsSLAInstances(slaPolicy, running.size(), numActive);
+    boolean meetsSla = meetsSLAInstances(slaPolicy, unaffected, numActive);
 
     LOG.info("SlaCheck: {}, {} tasks unaffected after updating state for {}.",
         meetsSla,
-        running.size(),
+        unaffected,
         Tasks.id(task));
 
     return meetsSla;
   }
 
+  /**
+   * Checks the SLA for tasks of a single job together, as though they were all removed from the
+   * job. Tasks are considered in order, and each is admitted if the job would still meet the
+   * task's SLA policy with that task and all previously admitted tasks removed, so tasks with
+   * different SLA policies account for each other. The job's healthy tasks are fetched once for
+   * each SLA duration, rather than once for each task.
+   * <p>
+   * Coordinator SLA policies are not supported, as a coordinator is asked about one task at a
+   * time. The caller is expected to remove the returned tasks within the same storage operation.
+   *
+   * @param tasks Tasks of a single job and the {@link ISlaPolicy} to use for each, in the order to
+   *     consider them.
+   * @param store Store to fetch the job's tasks from.
+   * @return The tasks that may be removed together without violating the SLA.
+   */
+  public Set<IScheduledTask> checkSla(Map<IScheduledTask, ISlaPolicy> tasks, StoreProvider store) {
+    Preconditions.checkArgument(
+        tasks.values().stream().noneMatch(ISlaPolicy::isSetCoordinatorSlaPolicy),
+        "Coordinator SLA policies must be checked one task at a time.");
+    if (tasks.isEmpty()) {
+      return ImmutableSet.of();
+    }
+
+    IScheduledTask first = tasks.keySet().iterator().next();
+    IJobKey job = Tasks.getJob(first);
+    Preconditions.checkArgument(
+        tasks.keySet().stream().allMatch(t -> Tasks.getJob(t).equals(job)),
+        "Tasks must belong to a single job.");
+
+    long numActive = countActive(job, store);
+    if (skipSla(first, numActive)) {
+      LOG.info("Skip SLA for {} because it is not production or does not have enough instances.",
+          job);
+      return ImmutableSet.copyOf(tasks.keySet());
+    }
+
+    // The healthy tasks for each SLA duration, less the tasks admitted so far.
+    Map<Long, Set<String>> unaffectedByDuration = Maps.newHashMap();
+    Set<String> admittedIds = Sets.newHashSet();
+    ImmutableSet.Builder<IScheduledTask> admitted = ImmutableSet.builder();
+    for (Map.Entry<IScheduledTask, ISlaPolicy> entry : tasks.entrySet()) {
+      String taskId = Tasks.id(entry.getKey());
+      Set<String> unaffected = unaffectedByDuration.computeIfAbsent(
+          getSlaDuration(entry.getValue()),
+          durationSecs -> Sets.newHashSet(Sets.difference(
+              findHealthy(job, new TimeAmount(durationSecs, Time.SECONDS), store),
+              admittedIds)));
+      long remaining = unaffected.contains(taskId) ? unaffected.size() - 1 : unaffected.size();
+      if (meetsSLAInstances(entry.getValue(), remaining, numActive)) {
+        admitted.add(entry.getKey());
+        admittedIds.add(taskId);
+        unaffectedByDuration.values().forEach(healthy -> healthy.remove(taskId));
+      }
+    }
+
+    Set<IScheduledTask> result = admitted.build();
+    stateCache.ifPresent(cache -> result.forEach(cache::remove));
+    LOG.info("SlaCheck: {} of {} tasks of {} may be removed.", result.size(), tasks.size(), job);
+    return result;
+  }
+
   /**
    * Performs the supplied {@link Storage.MutateWork} after checking with the configured
    * coordinator endpoint to make sure it is safe to perform the work.
@@ -347,11 +452,17 @@ public class SlaManager extends AbstractIdleService {
     jsonBody.addProperty(TASK_PARAM, taskKey);
     params.forEach(jsonBody::addProperty);
 
-    Response response = httpClient.preparePost(slaPolicy.getCoordinatorUrl())
-        .setQueryParams(ImmutableList.of(new Param(TASK_PARAM, taskKey)))
-        .setBody(new Gson().toJson(jsonBody))
-        .execute()
-        .get();
+    long startNanos = System.nanoTime();
+    Response response;
+    try {
+      response = httpClient.preparePost(slaPolicy.getCoordinatorUrl())
+          .setQueryParams(ImmutableList.of(new Param(TASK_PARAM, taskKey)))
+          .setBody(new Gson().toJson(jsonBody))
+          .execute()
+          .get();
+    } finally {
+      latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
 
     if (response.getStatusCode() != HttpConstants.ResponseStatusCodes.OK_200) {
       LOG.error("Request failed to coordinator: {} for task: {}. Response: {}",
@@ -435,17 +546,39 @@ public class SlaManager extends AbstractIdleService {
 
     // has custom coordinator sla policy
     if (slaPolicy.isSetCoordinatorSlaPolicy()) {
+      ICoordinatorSlaPolicy coordinatorSlaPolicy = slaPolicy.getCoordinatorSlaPolicy();
+      String checkKey = coordinatorSlaPolicy.getCoordinatorUrl() + " " + getTaskKey(task);
+      if (!pendingCoordinatorChecks.add(checkKey)) {
+        // A check for the task is already queued or in flight. Its callers retry until the
+        // coordinator allows the work, so there is no need to ask the coordinator twice.
+        coalescedCounter.incrementAndGet();
+        LOG.info("Coalesced check of coordinator: {} for {} with a pending check.",
+            coordinatorSlaPolicy.getCoordinatorUrl(),
+            Tasks.id(task));
+        return;
+      }
+
       // schedule work to perform coordinated transition
-      executor.execute(() -> askCoordinatorThenAct(
-          task,
-          slaPolicy.getCoordinatorSlaPolicy(),
-          work,
-          params));
+      long queuedNanos = System.nanoTime();
+      try {
+        executor.execute(() -> {
+          try {
+            queueDelay.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedNanos));
+            askCoordinatorThenAct(task, coordinatorSlaPolicy, work, params);
+          } finally {
+            pendingCoordinatorChecks.remove(checkKey);
+          }
+        });
+      } catch (RuntimeException e) {
+        pendingCoordinatorChecks.remove(checkKey);
+        throw e;
+      }
     } else {
       // verify sla and perform work if satisfied
       storage.write(store -> {
         if (checkSla(task, slaPolicy, store)) {
           work.apply(store);
+          stateCache.ifPresent(cache -> cache.remove(task));
         }
         return null; // TODO(sshanmugham) we need to satisfy the interface, refactor later
       });
@@ -16,9 +16,11 @@ package org.apache.aurora.scheduler.sla;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Qualifier;
 
 import com.beust.jcommander.Parameter;
@@ -28,15 +30,19 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 
 import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.config.splitters.CommaSplitter;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
 import org.apache.aurora.scheduler.config.validators.PositiveAmount;
+import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCalculatorSettings;
 import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCategory;
 import org.apache.aurora.scheduler.sla.SlaManager.SlaAwareKillNonProd;
@@ -107,6 +113,17 @@ public class SlaModule extends AbstractModule {
         description = "Enables SLA awareness for drain and and update for non-production tasks",
         arity = 1)
     public boolean slaAwareKillNonProd = false;
+
+    @Parameter(names = "-enable_sla_state_cache",
+        arity = 1,
+        description = "Cache the task states of jobs whose SLA is checked, updating them from task "
+            + "state changes, rather than fetching all tasks of a job for every SLA check.")
+    public boolean enableSlaStateCache = false;
+
+    @Parameter(names = "-sla_state_cache_max_age",
+        validateValueWith = PositiveAmount.class,
+        description = "Age after which the cached task states of a job are reloaded from storage.")
+    public TimeAmount slaStateCacheMaxAge = new TimeAmount(1, Time.MINUTES);
   }
 
   @VisibleForTesting
@@ -169,10 +186,26 @@ public class SlaModule extends AbstractModule {
             options.maxParallelCoordinators,
             "SlaManager-%d", LOG));
 
+    if (options.enableSlaStateCache) {
+      PubsubEventModule.bindSubscriber(binder(), SlaStateCache.class);
+    }
+
     bind(SlaManager.class).in(javax.inject.Singleton.class);
     SchedulerServicesModule.addSchedulerActiveServiceBinding(binder()).to(SlaManager.class);
   }
 
+  @Provides
+  @Singleton
+  SlaStateCache provideSlaStateCache(Clock clock, StatsProvider statsProvider) {
+    return new SlaStateCache(clock, options.slaStateCacheMaxAge, statsProvider);
+  }
+
+  @Provides
+  @Singleton
+  Optional<SlaStateCache> provideOptionalSlaStateCache(Provider<SlaStateCache> cache) {
+    return options.enableSlaStateCache ? Optional.of(cache.get()) : Optional.empty();
+  }
+
   // TODO(ksweeney): This should use AbstractScheduledService.
   static class SlaUpdater extends AbstractIdleService {
     private final ScheduledExecutorService executor;
@@ -0,0 +1,248 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.sla;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskEvent;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.GuavaUtils.toImmutableSet;
+
+/**
+ * Caches the state of the tasks of jobs whose SLA has been checked, so that repeated SLA checks
+ * for a job do not fetch all of its tasks from storage.
+ * <p>
+ * A job's tasks are loaded from storage when its SLA is first checked, and are kept up to date
+ * from task state changes after that. State changes are delivered asynchronously, so a job is
+ * reloaded once its cached state reaches a maximum age, which bounds how long a late change can
+ * affect SLA checks. Tasks removed by SLA-checked work are counted as unhealthy right away,
+ * rather than when their state change is delivered.
+ */
+class SlaStateCache implements EventSubscriber {
+  @VisibleForTesting
+  static final String LOADS = "sla_state_cache_loads";
+  @VisibleForTesting
+  static final String HITS = "sla_state_cache_hits";
+  @VisibleForTesting
+  static final String JOBS = "sla_state_cache_jobs";
+
+  private final Clock clock;
+  private final long maxAgeMs;
+  private final AtomicLong loads;
+  private final AtomicLong hits;
+  private final Map<IJobKey, JobState> jobs = new ConcurrentHashMap<>();
+
+  SlaStateCache(Clock clock, Amount<Long, Time> maxAge, StatsProvider statsProvider) {
+    this.clock = requireNonNull(clock);
+    this.maxAgeMs = maxAge.as(Time.MILLISECONDS);
+    this.loads = statsProvider.makeCounter(LOADS);
+    this.hits = statsProvider.makeCounter(HITS);
+    statsProvider.makeGauge(JOBS, jobs::size);
+  }
+
+  private static final class TaskState {
+    // The timestamp of the latest event of the task, and the number of its events. Together they
+    // order states of a task regardless of the order in which they are delivered. The timestamp
+    // comes first since the number of events stops increasing once old events are pruned.
+    final long latestEventMs;
+    final int events;
+    final ScheduleStatus status;
+    final long runningSinceMs;
+    final boolean removed;
+
+    TaskState(
+        long latestEventMs,
+        int events,
+        ScheduleStatus status,
+        long runningSinceMs,
+        boolean removed) {
+
+      this.latestEventMs = latestEventMs;
+      this.events = events;
+      this.status = status;
+      this.runningSinceMs = runningSinceMs;
+      this.removed = removed;
+    }
+
+    static TaskState of(IScheduledTask task) {
+      long latestEventMs = task.getTaskEvents().stream()
+          .mapToLong(ITaskEvent::getTimestamp)
+          .max()
+          .orElse(Long.MIN_VALUE);
+      long runningSinceMs = task.getTaskEvents().stream()
+          .filter(e -> e.getStatus() == ScheduleStatus.RUNNING)
+          .mapToLong(ITaskEvent::getTimestamp)
+          .max()
+          .orElse(Long.MAX_VALUE);
+      return new TaskState(
+          latestEventMs,
+          task.getTaskEvents().size(),
+          task.getStatus(),
+          runningSinceMs,
+          false);
+    }
+
+    boolean isOlderThan(TaskState other) {
+      if (latestEventMs != other.latestEventMs) {
+        return latestEventMs < other.latestEventMs;
+      }
+      return events < other.events;
+    }
+
+    TaskState asRemoved() {
+      return new TaskState(latestEventMs, events, status, runningSinceMs, true);
+    }
+
+    boolean isHealthy(long runningBeforeMs) {
+      return !removed && status == ScheduleStatus.RUNNING && runningSinceMs < runningBeforeMs;
+    }
+  }
+
+  private static final class JobState {
+    final long loadedMs;
+    // Includes terminated tasks until they are deleted, so that a late state change does not
+    // bring them back.
+    final Map<String, TaskState> tasks = Maps.newHashMap();
+
+    JobState(long loadedMs) {
+      this.loadedMs = loadedMs;
+    }
+
+    synchronized void update(IScheduledTask task) {
+      TaskState current = tasks.get(Tasks.id(task));
+      TaskState updated = TaskState.of(task);
+      if (current == null || current.isOlderThan(updated)) {
+        tasks.put(Tasks.id(task), updated);
+      }
+    }
+
+    synchronized void remove(String taskId) {
+      TaskState current = tasks.get(taskId);
+      if (current != null) {
+        tasks.put(taskId, current.asRemoved());
+      }
+    }
+
+    synchronized boolean delete(String taskId) {
+      tasks.remove(taskId);
+      return tasks.isEmpty();
+    }
+
+    synchronized long countActive() {
+      return tasks.values().stream().filter(t -> Tasks.isActive(t.status)).count();
+    }
+
+    synchronized Set<String> healthy(long runningBeforeMs) {
+      return tasks.entrySet().stream()
+          .filter(e -> e.getValue().isHealthy(runningBeforeMs))
+          .map(Map.Entry::getKey)
+          .collect(toImmutableSet());
+    }
+  }
+
+  private JobState get(StoreProvider store, IJobKey job) {
+    long nowMs = clock.nowMillis();
+    JobState state = jobs.get(job);
+    if (state != null && nowMs - state.loadedMs < maxAgeMs) {
+      hits.incrementAndGet();
+      return state;
+    }
+
+    loads.incrementAndGet();
+    state = new JobState(nowMs);
+    for (IScheduledTask task : store.getTaskStore().fetchTasks(Query.jobScoped(job))) {
+      state.update(task);
+    }
+    jobs.put(job, state);
+    return state;
+  }
+
+  /**
+   * Counts the active tasks of a job.
+   *
+   * @param store Store to load the job's tasks from, if they are not cached.
+   * @param job Job to count tasks of.
+   * @return The number of active tasks of the job.
+   */
+  long countActive(StoreProvider store, IJobKey job) {
+    return get(store, job).countActive();
+  }
+
+  /**
+   * Finds the tasks of a job that have been RUNNING for longer than a duration, excluding tasks
+   * that SLA-checked work has removed.
+   *
+   * @param store Store to load the job's tasks from, if they are not cached.
+   * @param job Job to find tasks of.
+   * @param duration Duration the tasks must have been RUNNING for.
+   * @return IDs of the healthy tasks of the job.
+   */
+  Set<String> findHealthy(StoreProvider store, IJobKey job, Amount<Long, Time> duration) {
+    return get(store, job).healthy(clock.nowMillis() - duration.as(Time.MILLISECONDS));
+  }
+
+  /**
+   * Records that SLA-checked work has removed a task, so that it no longer counts towards the
+   * SLA of its job.
+   *
+   * @param task Removed task.
+   */
+  void remove(IScheduledTask task) {
+    JobState state = jobs.get(Tasks.getJob(task));
+    if (state != null) {
+      state.remove(Tasks.id(task));
+    }
+  }
+
+  @Subscribe
+  public void taskChangedState(TaskStateChange change) {
+    JobState state = jobs.get(Tasks.getJob(change.getTask()));
+    if (state != null) {
+      state.update(change.getTask());
+    }
+  }
+
+  @Subscribe
+  public void tasksDeleted(TasksDeleted event) {
+    for (IScheduledTask task : event.getTasks()) {
+      IJobKey job = Tasks.getJob(task);
+      JobState state = jobs.get(job);
+      if (state != null && state.delete(Tasks.id(task))) {
+        jobs.remove(job, state);
+      }
+    }
+  }
+}
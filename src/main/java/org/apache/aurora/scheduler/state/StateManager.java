@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.state;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -53,6 +54,27 @@ public interface StateManager {
       ScheduleStatus newState,
       Optional<String> auditMessage);
 
+  /**
+   * Attempts to alter a set of tasks from their existing states to {@code newState}, as
+   * {@link #changeState(MutableStoreProvider, String, Optional, ScheduleStatus, Optional)} would
+   * for each task. All transitions are applied before any external side-effects are performed, so
+   * that kill requests are sent to the driver together and state change events are published
+   * once all tasks have been transitioned.
+   *
+   * @param storeProvider Storage provider.
+   * @param taskIds IDs of the tasks to transition.
+   * @param casState State that each task must be in for its transition to proceed.
+   * @param newState State to move the tasks to.
+   * @param auditMessage Message to include with the transitions.
+   * @return The {@link StateChangeResult} of each task's transition, by task ID.
+   */
+  Map<String, StateChangeResult> changeStates(
+      MutableStoreProvider storeProvider,
+      Set<String> taskIds,
+      Optional<ScheduleStatus> casState,
+      ScheduleStatus newState,
+      Optional<String> auditMessage);
+
   /**
    * Assigns a task to a specific slave.
    * This will modify the task record to reflect the host assignment and return the updated record.
@@ -13,15 +13,19 @@
  */
 package org.apache.aurora.scheduler.state;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
+import javax.inject.Qualifier;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -29,10 +33,12 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
 
 import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.gen.AssignedTask;
@@ -57,6 +63,10 @@ import org.apache.mesos.v1.Protos.AgentID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
 import static java.util.Objects.requireNonNull;
 
 import static org.apache.aurora.common.base.MorePreconditions.checkNotBlank;
@@ -79,6 +89,15 @@ public class StateManagerImpl implements StateManager {
   private final TaskIdGenerator taskIdGenerator;
   private final EventSink eventSink;
   private final RescheduleCalculator rescheduleCalculator;
+  private final int maxTaskEvents;
+
+  /**
+   * Binding annotation for the maximum number of events retained in the history of a task.
+   */
+  @VisibleForTesting
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  public @interface MaxTaskEvents { }
 
   @Inject
   StateManagerImpl(
@@ -86,13 +105,17 @@ public class StateManagerImpl implements StateManager {
       Driver driver,
       TaskIdGenerator taskIdGenerator,
       EventSink eventSink,
-      RescheduleCalculator rescheduleCalculator) {
+      RescheduleCalculator rescheduleCalculator,
+      @MaxTaskEvents int maxTaskEvents) {
+
+    Preconditions.checkArgument(maxTaskEvents > 0, "At least one task event must be retained.");
 
     this.clock = requireNonNull(clock);
     this.driver = requireNonNull(driver);
     this.taskIdGenerator = requireNonNull(taskIdGenerator);
     this.eventSink = requireNonNull(eventSink);
     this.rescheduleCalculator = requireNonNull(rescheduleCalculator);
+    this.maxTaskEvents = maxTaskEvents;
   }
 
   private IScheduledTask createTask(int instanceId, ITaskConfig template) {
@@ -128,14 +151,17 @@ public class StateManagerImpl implements StateManager {
 
     storeProvider.getUnsafeTaskStore().saveTasks(scheduledTasks);
 
+    DeferredWork work = new DeferredWork();
     for (IScheduledTask scheduledTask : scheduledTasks) {
       updateTaskAndExternalState(
           storeProvider.getUnsafeTaskStore(),
           Tasks.id(scheduledTask),
           Optional.of(scheduledTask),
           Optional.of(PENDING),
-          Optional.empty());
+          Optional.empty(),
+          work);
     }
+    perform(work);
   }
 
   @Override
@@ -146,12 +172,42 @@ public class StateManagerImpl implements StateManager {
       final ScheduleStatus newState,
       final Optional<String> auditMessage) {
 
-    return updateTaskAndExternalState(
+    DeferredWork work = new DeferredWork();
+    StateChangeResult result = updateTaskAndExternalState(
         storeProvider.getUnsafeTaskStore(),
         casState,
         taskId,
         newState,
-        auditMessage);
+        auditMessage,
+        work);
+    perform(work);
+    return result;
+  }
+
+  @Override
+  public Map<String, StateChangeResult> changeStates(
+      MutableStoreProvider storeProvider,
+      Set<String> taskIds,
+      Optional<ScheduleStatus> casState,
+      ScheduleStatus newState,
+      Optional<String> auditMessage) {
+
+    requireNonNull(storeProvider);
+    requireNonNull(taskIds);
+
+    DeferredWork work = new DeferredWork();
+    ImmutableMap.Builder<String, StateChangeResult> results = ImmutableMap.builder();
+    for (String taskId : taskIds) {
+      results.put(taskId, updateTaskAndExternalState(
+          storeProvider.getUnsafeTaskStore(),
+          casState,
+          taskId,
+          newState,
+          auditMessage,
+          work));
+    }
+    perform(work);
+    return results.build();
   }
 
   @Override
@@ -177,12 +233,15 @@ public class StateManagerImpl implements StateManager {
           return IScheduledTask.build(builder);
         }).get();
 
+    DeferredWork work = new DeferredWork();
     StateChangeResult changeResult = updateTaskAndExternalState(
         storeProvider.getUnsafeTaskStore(),
         Optional.empty(),
         taskId,
         ASSIGNED,
-        Optional.empty());
+        Optional.empty(),
+        work);
+    perform(work);
 
     Preconditions.checkState(
         changeResult == SUCCESS,
@@ -209,7 +268,8 @@ public class StateManagerImpl implements StateManager {
       Optional<ScheduleStatus> casState,
       String taskId,
       ScheduleStatus targetState,
-      Optional<String> transitionMessage) {
+      Optional<String> transitionMessage,
+      DeferredWork work) {
 
     Optional<IScheduledTask> task = taskStore.fetchTask(taskId);
 
@@ -225,7 +285,8 @@ public class StateManagerImpl implements StateManager {
         taskId,
         task,
         Optional.of(targetState),
-        transitionMessage);
+        transitionMessage,
+        work);
   }
 
   private static final List<Action> ACTIONS_IN_ORDER = ImmutableList.of(
@@ -258,7 +319,8 @@ public class StateManagerImpl implements StateManager {
       // As a result, it would be easy to accidentally clobber mutations.
       Optional<IScheduledTask> task,
       Optional<ScheduleStatus> targetState,
-      Optional<String> transitionMessage) {
+      Optional<String> transitionMessage,
+      DeferredWork work) {
 
     if (task.isPresent()) {
       Preconditions.checkArgument(taskId.equals(task.get().getAssignedTask().getTaskId()));
@@ -301,6 +363,7 @@ public class StateManagerImpl implements StateManager {
                 .setStatus(targetState.get())
                 .setMessage(transitionMessage.orElse(null))
                 .setScheduler(LOCAL_HOST_SUPPLIER.get()));
+            mutableTask.setTaskEvents(truncateEvents(mutableTask.getTaskEvents()));
             return IScheduledTask.build(mutableTask);
           });
           events.add(TaskStateChange.transition(mutated.get(), stateMachine.getPreviousState()));
@@ -312,7 +375,8 @@ public class StateManagerImpl implements StateManager {
               Optional.empty(),
               taskId,
               ScheduleStatus.LOST,
-              Optional.of("Action performed on partitioned task, marking as LOST."));
+              Optional.of("Action performed on partitioned task, marking as LOST."),
+              work);
           break;
 
         case RESCHEDULE:
@@ -346,11 +410,12 @@ public class StateManagerImpl implements StateManager {
               Tasks.id(newTask),
               Optional.of(newTask),
               Optional.of(newState),
-              Optional.of(auditMessage));
+              Optional.of(auditMessage),
+              work);
           break;
 
         case KILL:
-          driver.killTask(taskId);
+          work.killTaskIds.add(taskId);
           break;
 
         case DELETE:
@@ -370,16 +435,34 @@ public class StateManagerImpl implements StateManager {
       }
     }
 
+    work.events.addAll(events);
+    return result.getResult();
+  }
+
+  /**
+   * External side-effects of transitions, deferred until all transitions requested by a caller
+   * have been applied.
+   */
+  private static final class DeferredWork {
+    private final List<PubsubEvent> events = Lists.newArrayList();
+    private final Set<String> killTaskIds = Sets.newLinkedHashSet();
+  }
+
+  private void perform(DeferredWork work) {
+    if (work.killTaskIds.size() == 1) {
+      driver.killTask(Iterables.getOnlyElement(work.killTaskIds));
+    } else if (!work.killTaskIds.isEmpty()) {
+      driver.killTasks(work.killTaskIds);
+    }
+
     // Note (AURORA-138): Delaying events until after the write operation is somewhat futile, since
     // the state may actually not be written to durable store
     // (e.g. if this is a nested transaction). Ideally, Storage would add a facility to attach
     // side-effects that are performed after the outer-most transaction completes (meaning state
     // has been durably persisted).
-    for (PubsubEvent event : events) {
+    for (PubsubEvent event : work.events) {
       eventSink.post(event);
     }
-
-    return result.getResult();
   }
 
   /*
@@ -408,6 +491,25 @@ public class StateManagerImpl implements StateManager {
     return taskEvents;
   }
 
+  /**
+   * Bounds the event history of a task to the configured retention cap. The first event, which
+   * records when the task was created, is kept along with the most recent events.
+   */
+  private List<TaskEvent> truncateEvents(List<TaskEvent> taskEvents) {
+    int size = taskEvents.size();
+    if (size <= maxTaskEvents) {
+      return taskEvents;
+    }
+
+    if (maxTaskEvents == 1) {
+      return Lists.newArrayList(taskEvents.get(size - 1));
+    }
+    List<TaskEvent> retained = Lists.newArrayListWithCapacity(maxTaskEvents);
+    retained.add(taskEvents.get(0));
+    retained.addAll(taskEvents.subList(size - maxTaskEvents + 1, size));
+    return retained;
+  }
+
   @Override
   public void deleteTasks(MutableStoreProvider storeProvider, final Set<String> taskIds) {
     TaskStore.Mutable taskStore = storeProvider.getUnsafeTaskStore();
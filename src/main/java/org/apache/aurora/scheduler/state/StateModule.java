@@ -25,6 +25,7 @@ import com.google.inject.Module;
 import org.apache.aurora.scheduler.app.MoreModules;
 import org.apache.aurora.scheduler.config.CliOptions;
 import org.apache.aurora.scheduler.config.splitters.CommaSplitter;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
 import org.apache.aurora.scheduler.mesos.MesosTaskFactory.MesosTaskFactoryImpl;
@@ -43,6 +44,13 @@ public class StateModule extends AbstractModule {
         splitter = CommaSplitter.class)
     @SuppressWarnings("rawtypes")
     public List<Class> taskAssignerModules = ImmutableList.of(TaskAssignerImplModule.class);
+
+    @Parameter(names = "-max_task_events",
+        validateValueWith = PositiveNumber.class,
+        description = "Maximum number of state transition events retained in the history of a "
+            + "task. The first event and the most recent events are kept. By default, all events "
+            + "are kept.")
+    public int maxTaskEvents = Integer.MAX_VALUE;
   }
 
   private final CliOptions options;
@@ -60,6 +68,9 @@ public class StateModule extends AbstractModule {
 
     bind(StateManager.class).to(StateManagerImpl.class);
     bind(StateManagerImpl.class).in(Singleton.class);
+    bind(Integer.class)
+        .annotatedWith(StateManagerImpl.MaxTaskEvents.class)
+        .toInstance(options.state.maxTaskEvents);
 
     bind(UUIDGenerator.class).to(UUIDGeneratorImpl.class);
     bind(UUIDGeneratorImpl.class).in(Singleton.class);
@@ -29,6 +29,7 @@ import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.base.Conversions;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.resources.ResourceBag;
@@ -71,6 +72,8 @@ public class AsyncStatsModule extends AbstractModule {
     bind(CachedCounters.class).in(Singleton.class);
     bind(MachineResourceProvider.class).to(OfferAdapter.class);
     bind(SlotSizeCounter.class).in(Singleton.class);
+    bind(UtilizationRollup.class).in(Singleton.class);
+    PubsubEventModule.bindSubscriber(binder(), UtilizationRollup.class);
 
     install(new PrivateModule() {
       @Override
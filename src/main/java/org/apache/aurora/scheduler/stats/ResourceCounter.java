@@ -21,7 +21,6 @@ import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
@@ -171,7 +170,6 @@ public class ResourceCounter {
       this(copy.type, copy.bag);
     }
 
-    @VisibleForTesting
     Metric(MetricType type, ResourceBag bag) {
       this.type = type;
       this.bag = bag;
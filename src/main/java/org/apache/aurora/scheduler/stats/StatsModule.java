@@ -46,6 +46,16 @@ public class StatsModule extends AbstractModule {
     @Parameter(names = "-stat_retention_period",
         description = "Time for a stat to be retained in memory before expiring.")
     public TimeAmount retentionPeriod = new TimeAmount(1, Time.HOURS);
+
+    @Parameter(names = "-stat_downsampled_sampling_interval",
+        description = "Sampling interval of downsampled statistic values. Must be a multiple of "
+            + "-stat_sampling_interval.")
+    public TimeAmount downsampledSamplingInterval = new TimeAmount(1, Time.MINUTES);
+
+    @Parameter(names = "-stat_downsampled_retention_period",
+        description = "Time for a downsampled stat to be retained in memory before expiring. "
+            + "Zero disables downsampling.")
+    public TimeAmount downsampledRetentionPeriod = new TimeAmount(0, Time.HOURS);
   }
 
   private final Options options;
@@ -66,6 +76,12 @@ public class StatsModule extends AbstractModule {
     bind(new TypeLiteral<Amount<Long, Time>>() { })
         .annotatedWith(Names.named(TimeSeriesRepositoryImpl.SAMPLE_PERIOD))
         .toInstance(options.samplingInterval);
+    bind(new TypeLiteral<Amount<Long, Time>>() { })
+        .annotatedWith(Names.named(TimeSeriesRepositoryImpl.DOWNSAMPLED_RETENTION_PERIOD))
+        .toInstance(options.downsampledRetentionPeriod);
+    bind(new TypeLiteral<Amount<Long, Time>>() { })
+        .annotatedWith(Names.named(TimeSeriesRepositoryImpl.DOWNSAMPLED_PERIOD))
+        .toInstance(options.downsampledSamplingInterval);
     bind(TimeSeriesRepository.class).to(TimeSeriesRepositoryImpl.class);
     bind(TimeSeriesRepositoryImpl.class).in(Singleton.class);
 
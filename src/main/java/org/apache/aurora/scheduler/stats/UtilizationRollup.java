@@ -0,0 +1,171 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.stats;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.stats.ResourceCounter.Metric;
+import org.apache.aurora.scheduler.stats.ResourceCounter.MetricType;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+
+import static org.apache.aurora.scheduler.quota.QuotaManager.QUOTA_RESOURCES;
+
+/**
+ * Resource consumption of active tasks, rolled up by {@link MetricType}, role and job.
+ * <p>
+ * The rollups are kept up to date by pubsub notifications, so reads are proportional to the size
+ * of the result rather than to the number of tasks in the cluster.
+ */
+public class UtilizationRollup implements EventSubscriber {
+
+  private final Map<String, ITaskConfig> activeTasks = Maps.newHashMap();
+  private final Map<MetricType, Rollup> totals = new EnumMap<>(MetricType.class);
+  private final Map<MetricType, Map<String, Rollup>> byRole = new EnumMap<>(MetricType.class);
+  private final Map<MetricType, Map<String, Map<String, Rollup>>> byJob =
+      new EnumMap<>(MetricType.class);
+
+  public UtilizationRollup() {
+    for (MetricType type : MetricType.values()) {
+      totals.put(type, new Rollup());
+      byRole.put(type, Maps.newHashMap());
+      byJob.put(type, Maps.newHashMap());
+    }
+  }
+
+  /**
+   * Gets the consumption totals for each of the {@link MetricType}s.
+   *
+   * @return Aggregates for each metric type.
+   */
+  public synchronized List<Metric> getConsumptionTotals() {
+    ImmutableList.Builder<Metric> metrics = ImmutableList.builder();
+    for (MetricType type : MetricType.values()) {
+      metrics.add(new Metric(type, totals.get(type).bag));
+    }
+    return metrics.build();
+  }
+
+  /**
+   * Gets the consumption of each role with tasks matching a metric type.
+   *
+   * @param type Metric type to aggregate within.
+   * @return A map from role to its aggregate.
+   */
+  public synchronized Map<String, Metric> getRoleAggregates(MetricType type) {
+    return toMetrics(type, byRole.get(type));
+  }
+
+  /**
+   * Gets the consumption of each job within a role with tasks matching a metric type.
+   *
+   * @param type Metric type to aggregate within.
+   * @param role Role to aggregate jobs of.
+   * @return A map from job name to its aggregate.
+   */
+  public synchronized Map<String, Metric> getJobAggregates(MetricType type, String role) {
+    return toMetrics(type, byJob.get(type).getOrDefault(role, ImmutableMap.of()));
+  }
+
+  private static Map<String, Metric> toMetrics(MetricType type, Map<String, Rollup> rollups) {
+    return ImmutableMap.copyOf(Maps.transformValues(rollups, r -> new Metric(type, r.bag)));
+  }
+
+  @Subscribe
+  public synchronized void taskChangedState(TaskStateChange stateChange) {
+    IScheduledTask task = stateChange.getTask();
+    String taskId = stateChange.getTaskId();
+    if (Tasks.isActive(stateChange.getNewState())) {
+      if (!activeTasks.containsKey(taskId)) {
+        ITaskConfig config = task.getAssignedTask().getTask();
+        activeTasks.put(taskId, config);
+        apply(config, 1);
+      }
+    } else {
+      remove(taskId);
+    }
+  }
+
+  @Subscribe
+  public synchronized void tasksDeleted(TasksDeleted event) {
+    for (IScheduledTask task : event.getTasks()) {
+      remove(Tasks.id(task));
+    }
+  }
+
+  private void remove(String taskId) {
+    ITaskConfig config = activeTasks.remove(taskId);
+    if (config != null) {
+      apply(config, -1);
+    }
+  }
+
+  private void apply(ITaskConfig config, int sign) {
+    ResourceBag resources = QUOTA_RESOURCES.apply(config);
+    String role = config.getJob().getRole();
+    String job = config.getJob().getName();
+    for (MetricType type : MetricType.values()) {
+      if (type.filter.apply(config)) {
+        totals.get(type).apply(resources, sign);
+        applyTo(byRole.get(type), role, resources, sign);
+
+        Map<String, Map<String, Rollup>> roleJobs = byJob.get(type);
+        Map<String, Rollup> jobs = roleJobs.computeIfAbsent(role, r -> Maps.newHashMap());
+        applyTo(jobs, job, resources, sign);
+        if (jobs.isEmpty()) {
+          roleJobs.remove(role);
+        }
+      }
+    }
+  }
+
+  private static void applyTo(
+      Map<String, Rollup> rollups,
+      String key,
+      ResourceBag resources,
+      int sign) {
+
+    Rollup rollup = rollups.computeIfAbsent(key, k -> new Rollup());
+    rollup.apply(resources, sign);
+    if (rollup.tasks == 0) {
+      rollups.remove(key);
+    }
+  }
+
+  private static class Rollup {
+    private ResourceBag bag = ResourceBag.EMPTY;
+    private int tasks;
+
+    void apply(ResourceBag resources, int sign) {
+      tasks += sign;
+      // Reset to an exact zero once the last task leaves, so that floating point error does not
+      // accumulate over the lifetime of the scheduler.
+      bag = tasks == 0
+          ? ResourceBag.EMPTY
+          : sign > 0 ? bag.add(resources) : bag.subtract(resources);
+    }
+  }
+}
@@ -21,6 +21,7 @@ import java.util.Set;
 import org.apache.aurora.gen.JobUpdateQuery;
 import org.apache.aurora.gen.JobUpdateStatus;
 import org.apache.aurora.scheduler.storage.entities.IJobInstanceUpdateEvent;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdate;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateDetails;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateEvent;
@@ -64,6 +65,23 @@ public interface JobUpdateStore {
    */
   Optional<IJobUpdateDetails> fetchJobUpdate(IJobUpdateKey key);
 
+  /**
+   * Fetches keys of terminal job updates that are due to be pruned. These are the terminal updates
+   * created before {@code createdBeforeMs}, the oldest terminal updates of each job beyond
+   * {@code maxUpdatesPerJob}, and all terminal updates of jobs that no longer have tasks.
+   *
+   * @param createdBeforeMs Creation time before which terminal updates are pruned.
+   * @param maxUpdatesPerJob Maximum number of terminal updates to retain for each job.
+   * @param jobsWithTasks Jobs that have tasks in the store.
+   * @param limit Maximum number of keys to fetch.
+   * @return Keys of at most {@code limit} updates to prune.
+   */
+  Set<IJobUpdateKey> fetchPrunableJobUpdates(
+      long createdBeforeMs,
+      int maxUpdatesPerJob,
+      Set<IJobKey> jobsWithTasks,
+      int limit);
+
   interface Mutable extends JobUpdateStore {
 
     /**
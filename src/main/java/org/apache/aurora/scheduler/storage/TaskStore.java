@@ -89,6 +89,17 @@ public interface TaskStore {
      */
     void deleteTasks(Set<String> taskIds);
 
+    /**
+     * Performs work that saves tasks in bulk, such as recovering storage.  The store may defer
+     * maintaining secondary indices until the work completes, and build them once instead.
+     * Queries made during the work may therefore be slower, but return the same results.
+     *
+     * @param work Work that saves tasks to the store.
+     */
+    default void bulkLoad(Runnable work) {
+      work.run();
+    }
+
     /**
      * Mutates a single task, if present.
      *
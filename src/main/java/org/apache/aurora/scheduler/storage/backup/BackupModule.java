@@ -21,17 +21,15 @@ import javax.inject.Singleton;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
-import com.google.common.base.Function;
 import com.google.inject.PrivateModule;
 import com.google.inject.Provides;
-import com.google.inject.TypeLiteral;
 
 import org.apache.aurora.common.application.Lifecycle;
 import org.apache.aurora.common.base.Command;
 import org.apache.aurora.common.quantity.Time;
-import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.config.validators.NotNegativeNumber;
 import org.apache.aurora.scheduler.storage.Snapshotter;
 import org.apache.aurora.scheduler.storage.backup.Recovery.RecoveryImpl;
 import org.apache.aurora.scheduler.storage.backup.StorageBackup.StorageBackupImpl;
@@ -63,6 +61,19 @@ public class BackupModule extends PrivateModule {
         required = true,
         description = "Directory to store backups under. Will be created if it does not exist.")
     public File backupDir;
+
+    @Parameter(names = "-enable_indexed_backups",
+        arity = 1,
+        description = "Write backups in an indexed format that recovery memory-maps, so that a "
+            + "staged backup can be queried without loading it into memory.")
+    public boolean enableIndexedBackups = false;
+
+    @Parameter(names = "-incremental_backups_per_full",
+        validateValueWith = NotNegativeNumber.class,
+        description = "Number of indexed backups to write after each full backup as increments of "
+            + "the previous backup, holding only the records that changed. Backups that a "
+            + "retained incremental backup depends on are retained as well.")
+    public int incrementalBackupsPerFull = 5;
   }
 
   private final Options options;
@@ -87,8 +98,7 @@ public class BackupModule extends PrivateModule {
     expose(Snapshotter.class);
     expose(StorageBackup.class);
 
-    bind(new TypeLiteral<Function<Snapshot, TemporaryStorage>>() { })
-        .to(TemporaryStorageFactory.class);
+    bind(TemporaryStorageFactory.class);
 
     bind(Command.class).to(LifecycleHook.class);
     bind(Recovery.class).to(RecoveryImpl.class);
@@ -130,6 +140,11 @@ public class BackupModule extends PrivateModule {
 
   @Provides
   BackupConfig provideBackupConfig(File backupDir) {
-    return new BackupConfig(backupDir, options.maxSavedBackups, options.backupInterval);
+    return new BackupConfig(
+        backupDir,
+        options.maxSavedBackups,
+        options.backupInterval,
+        options.enableIndexedBackups,
+        options.incrementalBackupsPerFull);
   }
 }
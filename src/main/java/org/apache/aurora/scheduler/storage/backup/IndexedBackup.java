@@ -0,0 +1,599 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.backup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CountingOutputStream;
+
+import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.gen.HostAttributes;
+import org.apache.aurora.gen.HostMaintenanceRequest;
+import org.apache.aurora.gen.JobKey;
+import org.apache.aurora.gen.JobUpdateKey;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.storage.QuotaConfiguration;
+import org.apache.aurora.gen.storage.SchedulerMetadata;
+import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.gen.storage.StoredCronJob;
+import org.apache.aurora.gen.storage.StoredJobUpdateDetails;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.thrift.TBase;
+
+/**
+ * A backup format that is read by memory-mapping the backup file, so that records are only
+ * decoded when they are needed.
+ * <p>
+ * A backup file holds a header, the thrift binary encoded records of each store, an index of the
+ * records by store and key, and a trailer with the position of the index:
+ * <pre>
+ *   header:  magic, version, incremental flag, snapshot timestamp, parent backup name
+ *   records: encoded records
+ *   index:   record count, then the store, key, job key, position and length of each record
+ *   trailer: index position, magic
+ * </pre>
+ * An incremental backup holds only the records that were added or changed since its parent
+ * backup, and an index entry with a negative length for each record that was removed. Reading an
+ * incremental backup applies its parents in order, starting from the nearest full backup.
+ * <p>
+ * Backups are mapped in a single buffer, and so may not be larger than 2 GiB.
+ */
+public final class IndexedBackup {
+  private static final byte[] MAGIC = "AURBKIDX".getBytes(StandardCharsets.US_ASCII);
+  private static final int VERSION = 1;
+  private static final int TRAILER_BYTES = Long.BYTES + MAGIC.length;
+  private static final HashFunction FINGERPRINT = Hashing.farmHashFingerprint64();
+
+  private IndexedBackup() {
+    // Utility class.
+  }
+
+  /**
+   * Stores whose records are indexed. The ordinal of a store is written to backups, so stores may
+   * only be added at the end.
+   */
+  private enum Store {
+    METADATA,
+    HOST_ATTRIBUTES,
+    HOST_MAINTENANCE,
+    QUOTA,
+    CRON_JOB,
+    TASK,
+    JOB_UPDATE
+  }
+
+  private static final class Key {
+    private final Store store;
+    private final String name;
+
+    Key(Store store, String name) {
+      this.store = store;
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return store == other.store && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(store, name);
+    }
+  }
+
+  private static final class Header {
+    private final boolean incremental;
+    private final long timestamp;
+    private final String parent;
+
+    Header(boolean incremental, long timestamp, String parent) {
+      this.incremental = incremental;
+      this.timestamp = timestamp;
+      this.parent = parent;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.write(MAGIC);
+      out.writeInt(VERSION);
+      out.writeBoolean(incremental);
+      out.writeLong(timestamp);
+      writeString(out, parent);
+    }
+
+    static Header read(ByteBuffer buffer, File file) throws IOException {
+      byte[] magic = new byte[MAGIC.length];
+      buffer.get(magic);
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new IOException(file + " is not an indexed backup.");
+      }
+      int version = buffer.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported version " + version + " of backup " + file);
+      }
+      return new Header(buffer.get() != 0, buffer.getLong(), readString(buffer));
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static String jobName(JobKey job) {
+    return JobKeys.canonicalString(IJobKey.build(job));
+  }
+
+  private static <T> Set<T> orEmpty(@Nullable Set<T> values) {
+    return values == null ? ImmutableSet.of() : values;
+  }
+
+  /**
+   * Checks whether a file is an indexed backup.
+   *
+   * @param file File to check.
+   * @return {@code true} if the file is an indexed backup.
+   * @throws IOException If the file could not be read.
+   */
+  public static boolean isIndexed(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+      byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      return Arrays.equals(magic, MAGIC);
+    } catch (EOFException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Reads the name of the backup that an incremental backup was written as an increment of.
+   *
+   * @param file Backup file.
+   * @return The name of the parent backup, or empty if the file is not an incremental backup.
+   * @throws IOException If the file could not be read.
+   */
+  static Optional<String> parent(File file) throws IOException {
+    if (!isIndexed(file)) {
+      return Optional.empty();
+    }
+
+    try {
+      Header header = Header.read(map(file), file);
+      return header.incremental ? Optional.of(header.parent) : Optional.empty();
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Backup " + file + " is truncated.", e);
+    }
+  }
+
+  private static ByteBuffer map(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Backup " + file + " is too large to map.");
+      }
+      return channel.map(MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  /**
+   * Writes snapshots as indexed backups. After each full backup, up to a configured number of
+   * backups are written as increments of the backup before them. A fingerprint of each record of
+   * the last backup written is kept to find the records that changed.
+   */
+  public static final class Writer {
+    private final int incrementalsPerFull;
+    private Map<Key, Long> fingerprints = ImmutableMap.of();
+    // Names of the backups written since the last full backup, starting with the full backup.
+    private List<String> chain = ImmutableList.of();
+
+    /**
+     * Creates a backup writer.
+     *
+     * @param incrementalsPerFull Number of incremental backups to write after each full backup.
+     */
+    public Writer(int incrementalsPerFull) {
+      Preconditions.checkArgument(incrementalsPerFull >= 0);
+      this.incrementalsPerFull = incrementalsPerFull;
+    }
+
+    /**
+     * Writes a backup. The backup is written as an increment of the last backup written if fewer
+     * than the configured number of incremental backups were written since the last full backup,
+     * and all of those backups still exist.
+     *
+     * @param out Stream to write the backup to.
+     * @param dir Directory that backups are saved in.
+     * @param name Name that the backup will be saved as.
+     * @param snapshot Snapshot to back up.
+     * @return {@code true} if the backup was written as an incremental backup.
+     * @throws IOException If the backup could not be written, in which case the next backup will
+     *     be a full backup.
+     */
+    public synchronized boolean write(OutputStream out, File dir, String name, Snapshot snapshot)
+        throws IOException {
+
+      boolean incremental = !chain.isEmpty()
+          && chain.size() <= incrementalsPerFull
+          && !chain.contains(name)
+          && chain.stream().allMatch(backup -> new File(dir, backup).exists());
+      Map<Key, Long> base = incremental ? fingerprints : ImmutableMap.of();
+      List<String> parents = incremental ? chain : ImmutableList.of();
+      String parent = incremental ? Iterables.getLast(chain) : "";
+
+      // Forgotten until the backup is written, so that a failed backup is followed by a full one.
+      fingerprints = ImmutableMap.of();
+      chain = ImmutableList.of();
+
+      Output output = new Output(out, base);
+      new Header(incremental, snapshot.getTimestamp(), parent).write(output.data);
+      if (snapshot.isSetSchedulerMetadata()) {
+        output.record(Store.METADATA, "", "", snapshot.getSchedulerMetadata());
+      }
+      for (HostAttributes attributes : orEmpty(snapshot.getHostAttributes())) {
+        output.record(Store.HOST_ATTRIBUTES, attributes.getHost(), "", attributes);
+      }
+      for (HostMaintenanceRequest request : orEmpty(snapshot.getHostMaintenanceRequests())) {
+        output.record(Store.HOST_MAINTENANCE, request.getHost(), "", request);
+      }
+      for (QuotaConfiguration quota : orEmpty(snapshot.getQuotaConfigurations())) {
+        output.record(Store.QUOTA, quota.getRole(), "", quota);
+      }
+      for (StoredCronJob cronJob : orEmpty(snapshot.getCronJobs())) {
+        String job = jobName(cronJob.getJobConfiguration().getKey());
+        output.record(Store.CRON_JOB, job, job, cronJob);
+      }
+      for (ScheduledTask task : orEmpty(snapshot.getTasks())) {
+        output.record(
+            Store.TASK,
+            task.getAssignedTask().getTaskId(),
+            jobName(task.getAssignedTask().getTask().getJob()),
+            task);
+      }
+      for (StoredJobUpdateDetails update : orEmpty(snapshot.getJobUpdateDetails())) {
+        JobUpdateKey key = update.getDetails().getUpdate().getSummary().getKey();
+        String job = jobName(key.getJob());
+        output.record(Store.JOB_UPDATE, job + "/" + key.getId(), job, update);
+      }
+      output.finish();
+
+      fingerprints = output.fingerprints;
+      chain = ImmutableList.<String>builder().addAll(parents).add(name).build();
+      return incremental;
+    }
+  }
+
+  private static final class IndexEntry {
+    private final Key key;
+    private final String job;
+    private final long position;
+    private final int length;
+
+    IndexEntry(Key key, String job, long position, int length) {
+      this.key = key;
+      this.job = job;
+      this.position = position;
+      this.length = length;
+    }
+  }
+
+  private static final class Output {
+    private final CountingOutputStream counting;
+    private final DataOutputStream data;
+    private final Map<Key, Long> base;
+    private final Map<Key, Long> fingerprints = Maps.newHashMap();
+    private final List<IndexEntry> index = Lists.newArrayList();
+
+    Output(OutputStream out, Map<Key, Long> base) {
+      this.counting = new CountingOutputStream(out);
+      this.data = new DataOutputStream(counting);
+      this.base = base;
+    }
+
+    void record(Store store, String name, String job, TBase<?, ?> entity) throws IOException {
+      byte[] bytes = ThriftBinaryCodec.encodeNonNull(entity);
+      long fingerprint = FINGERPRINT.hashBytes(bytes).asLong();
+      Key key = new Key(store, name);
+      fingerprints.put(key, fingerprint);
+
+      Long previous = base.get(key);
+      if (previous == null || previous != fingerprint) {
+        index.add(new IndexEntry(key, job, counting.getCount(), bytes.length));
+        data.write(bytes);
+      }
+    }
+
+    void finish() throws IOException {
+      for (Key removed : Sets.difference(base.keySet(), fingerprints.keySet())) {
+        index.add(new IndexEntry(removed, "", 0, -1));
+      }
+
+      long indexPosition = counting.getCount();
+      data.writeInt(index.size());
+      for (IndexEntry entry : index) {
+        data.writeByte(entry.key.store.ordinal());
+        writeString(data, entry.key.name);
+        writeString(data, entry.job);
+        data.writeLong(entry.position);
+        data.writeInt(entry.length);
+      }
+      data.writeLong(indexPosition);
+      data.write(MAGIC);
+      data.flush();
+    }
+  }
+
+  private static final class Location {
+    private final ByteBuffer buffer;
+    private final int position;
+    private final int length;
+
+    Location(ByteBuffer buffer, int position, int length) {
+      this.buffer = buffer;
+      this.position = position;
+      this.length = length;
+    }
+
+    <T extends TBase<T, ?>> T decode(Class<T> type) {
+      byte[] bytes = new byte[length];
+      ByteBuffer record = buffer.duplicate();
+      record.position(position);
+      record.get(bytes);
+      return ThriftBinaryCodec.decodeNonNull(type, bytes);
+    }
+  }
+
+  /**
+   * An indexed backup opened for reading, with the records of its parents applied. The backup and
+   * its parents are memory-mapped, and only their indices are read into the heap.
+   */
+  public static final class Reader {
+    private final long timestamp;
+    private final Map<Key, Location> records;
+    private final Map<String, String> taskJobs;
+    private final Multimap<String, String> tasksByJob;
+
+    private Reader(long timestamp, Map<Key, Location> records, Map<String, String> taskJobs) {
+      this.timestamp = timestamp;
+      this.records = records;
+      this.taskJobs = taskJobs;
+      this.tasksByJob = HashMultimap.create();
+      taskJobs.forEach((task, job) -> tasksByJob.put(job, task));
+    }
+
+    /**
+     * Opens a backup for reading.
+     *
+     * @param dir Directory that backups are saved in.
+     * @param name Name of the backup to open.
+     * @return The opened backup.
+     * @throws IOException If the backup or one of its parents could not be read.
+     */
+    public static Reader open(File dir, String name) throws IOException {
+      // The backups to apply, from the nearest full backup to the requested backup.
+      Deque<ByteBuffer> chain = new ArrayDeque<>();
+      Set<String> visited = Sets.newHashSet();
+      long timestamp = 0;
+      String next = name;
+      while (true) {
+        if (!visited.add(next)) {
+          throw new IOException("Backup " + name + " has a cycle of parent backups.");
+        }
+        File file = new File(dir, next);
+        if (!file.exists()) {
+          throw new IOException("Backup " + next + " does not exist.");
+        }
+
+        ByteBuffer buffer = map(file);
+        try {
+          Header header = Header.read(buffer.duplicate(), file);
+          if (chain.isEmpty()) {
+            timestamp = header.timestamp;
+          }
+          chain.push(buffer);
+          if (!header.incremental) {
+            break;
+          }
+          next = header.parent;
+        } catch (BufferUnderflowException e) {
+          throw new IOException("Backup " + file + " is truncated.", e);
+        }
+      }
+
+      Map<Key, Location> records = Maps.newLinkedHashMap();
+      Map<String, String> taskJobs = Maps.newHashMap();
+      for (ByteBuffer buffer : chain) {
+        try {
+          applyIndex(buffer, records, taskJobs);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException
+            | IllegalArgumentException e) {
+
+          throw new IOException("Index of backup " + name + " or a parent is corrupt.", e);
+        }
+      }
+      return new Reader(timestamp, records, taskJobs);
+    }
+
+    private static void applyIndex(
+        ByteBuffer buffer,
+        Map<Key, Location> records,
+        Map<String, String> taskJobs) throws IOException {
+
+      byte[] magic = new byte[MAGIC.length];
+      ByteBuffer trailer = buffer.duplicate();
+      trailer.position(buffer.capacity() - TRAILER_BYTES);
+      long indexPosition = trailer.getLong();
+      trailer.get(magic);
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new IOException("Backup is incomplete.");
+      }
+
+      ByteBuffer index = buffer.duplicate();
+      index.position(Math.toIntExact(indexPosition));
+      int count = index.getInt();
+      Store[] stores = Store.values();
+      for (int i = 0; i < count; i++) {
+        Key key = new Key(stores[index.get()], readString(index));
+        String job = readString(index);
+        long position = index.getLong();
+        int length = index.getInt();
+        if (length < 0) {
+          records.remove(key);
+          if (key.store == Store.TASK) {
+            taskJobs.remove(key.name);
+          }
+        } else {
+          records.put(key, new Location(buffer, Math.toIntExact(position), length));
+          if (key.store == Store.TASK) {
+            taskJobs.put(key.name, job);
+          }
+        }
+      }
+    }
+
+    /**
+     * Gets the timestamp of the snapshot that was backed up.
+     *
+     * @return Snapshot timestamp, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    /**
+     * Gets the IDs of all tasks in the backup.
+     *
+     * @return Task IDs.
+     */
+    public Set<String> getTaskIds() {
+      return Collections.unmodifiableSet(taskJobs.keySet());
+    }
+
+    /**
+     * Gets the IDs of the tasks of a job in the backup.
+     *
+     * @param job Job key.
+     * @return IDs of the tasks of the job.
+     */
+    public Collection<String> getTaskIds(IJobKey job) {
+      return Collections.unmodifiableCollection(tasksByJob.get(JobKeys.canonicalString(job)));
+    }
+
+    /**
+     * Decodes a task from the backup.
+     *
+     * @param taskId ID of the task to read.
+     * @return The task, if it is in the backup.
+     */
+    public Optional<IScheduledTask> getTask(String taskId) {
+      return Optional.ofNullable(records.get(new Key(Store.TASK, taskId)))
+          .map(location -> IScheduledTask.build(location.decode(ScheduledTask.class)));
+    }
+
+    /**
+     * Decodes the whole backup into a snapshot.
+     *
+     * @param excludedTaskIds IDs of tasks to leave out of the snapshot.
+     * @return The backed up snapshot.
+     */
+    public Snapshot toSnapshot(Set<String> excludedTaskIds) {
+      Snapshot snapshot = new Snapshot()
+          .setTimestamp(timestamp)
+          .setHostAttributes(Sets.newHashSet())
+          .setHostMaintenanceRequests(Sets.newHashSet())
+          .setQuotaConfigurations(Sets.newHashSet())
+          .setCronJobs(Sets.newHashSet())
+          .setTasks(Sets.newHashSet())
+          .setJobUpdateDetails(Sets.newHashSet());
+      for (Map.Entry<Key, Location> entry : records.entrySet()) {
+        Location location = entry.getValue();
+        switch (entry.getKey().store) {
+          case METADATA:
+            snapshot.setSchedulerMetadata(location.decode(SchedulerMetadata.class));
+            break;
+          case HOST_ATTRIBUTES:
+            snapshot.addToHostAttributes(location.decode(HostAttributes.class));
+            break;
+          case HOST_MAINTENANCE:
+            snapshot.addToHostMaintenanceRequests(location.decode(HostMaintenanceRequest.class));
+            break;
+          case QUOTA:
+            snapshot.addToQuotaConfigurations(location.decode(QuotaConfiguration.class));
+            break;
+          case CRON_JOB:
+            snapshot.addToCronJobs(location.decode(StoredCronJob.class));
+            break;
+          case TASK:
+            if (!excludedTaskIds.contains(entry.getKey().name)) {
+              snapshot.addToTasks(location.decode(ScheduledTask.class));
+            }
+            break;
+          case JOB_UPDATE:
+            snapshot.addToJobUpdateDetails(location.decode(StoredJobUpdateDetails.class));
+            break;
+          default:
+            throw new IllegalStateException("Unknown store " + entry.getKey().store);
+        }
+      }
+      return snapshot;
+    }
+  }
+}
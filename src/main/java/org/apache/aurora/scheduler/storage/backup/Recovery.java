@@ -23,7 +23,6 @@ import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
-import com.google.common.base.Function;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Atomics;
 
@@ -34,6 +33,7 @@ import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.storage.SnapshotStore;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.backup.TemporaryStorage.TemporaryStorageFactory;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
@@ -56,6 +56,8 @@ public interface Recovery {
 
   /**
    * Loads a backup in 'staging' so that it may be queried and modified prior to committing.
+   * Indexed backups are memory-mapped rather than loaded into memory, and tasks are only decoded
+   * as they are queried.
    *
    * @param backupName Name of the backup to load.
    * @throws RecoveryException If the backup could not be found or loaded.
@@ -107,7 +109,7 @@ public interface Recovery {
 
   class RecoveryImpl implements Recovery {
     private final File backupDir;
-    private final Function<Snapshot, TemporaryStorage> tempStorageFactory;
+    private final TemporaryStorageFactory tempStorageFactory;
     private final AtomicReference<PendingRecovery> recovery;
     private final Storage primaryStorage;
     private final SnapshotStore snapshotStore;
@@ -116,7 +118,7 @@ public interface Recovery {
     @Inject
     RecoveryImpl(
         File backupDir,
-        Function<Snapshot, TemporaryStorage> tempStorageFactory,
+        TemporaryStorageFactory tempStorageFactory,
         Storage primaryStorage,
         SnapshotStore snapshotStore,
         Command shutDownNow) {
@@ -136,9 +138,11 @@ public interface Recovery {
 
     @Override
     public void stage(String backupName) throws RecoveryException {
-      Snapshot snapshot = load(new File(backupDir, backupName));
-      boolean applied =
-          recovery.compareAndSet(null, new PendingRecovery(tempStorageFactory.apply(snapshot)));
+      File backupFile = new File(backupDir, backupName);
+      TemporaryStorage tempStorage = isIndexed(backupFile)
+          ? tempStorageFactory.indexed(open(backupFile))
+          : tempStorageFactory.apply(load(backupFile));
+      boolean applied = recovery.compareAndSet(null, new PendingRecovery(tempStorage));
       if (!applied) {
         throw new RecoveryException("Another backup is already loaded.");
       }
@@ -200,11 +204,33 @@ public interface Recovery {
     }
   }
 
-  static Snapshot load(File backupFile) throws RecoveryException {
+  static boolean isIndexed(File backupFile) throws RecoveryException {
     if (!backupFile.exists()) {
       throw new RecoveryException("Backup " + backupFile + " does not exist.");
     }
 
+    try {
+      return IndexedBackup.isIndexed(backupFile);
+    } catch (IOException e) {
+      throw new RecoveryException("Failed to read backup " + e, e);
+    }
+  }
+
+  static IndexedBackup.Reader open(File backupFile) throws RecoveryException {
+    try {
+      return IndexedBackup.Reader.open(
+          backupFile.getAbsoluteFile().getParentFile(),
+          backupFile.getName());
+    } catch (IOException e) {
+      throw new RecoveryException("Failed to read backup " + e, e);
+    }
+  }
+
+  static Snapshot load(File backupFile) throws RecoveryException {
+    if (isIndexed(backupFile)) {
+      return open(backupFile).toSnapshot(ImmutableSet.of());
+    }
+
     try {
       Snapshot snapshot = new Snapshot();
       TBinaryProtocol prot = new TBinaryProtocol(
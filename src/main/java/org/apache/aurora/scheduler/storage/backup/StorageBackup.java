@@ -26,8 +26,13 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -36,7 +41,10 @@ import javax.inject.Qualifier;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 
 import org.apache.aurora.common.quantity.Amount;
@@ -65,6 +73,9 @@ import static java.util.Objects.requireNonNull;
 /**
  * A backup routine that layers over a snapshot store and periodically writes snapshots to
  * local disk.
+ * <p>
+ * Backups are written as thrift encoded snapshots, or as {@link IndexedBackup}s when indexed
+ * backups are enabled.
  */
 public interface StorageBackup {
 
@@ -83,11 +94,25 @@ public interface StorageBackup {
       private final File dir;
       private final int maxBackups;
       private final Amount<Long, Time> interval;
+      private final boolean indexed;
+      private final int incrementalsPerFull;
 
       BackupConfig(File dir, int maxBackups, Amount<Long, Time> interval) {
+        this(dir, maxBackups, interval, false, 0);
+      }
+
+      BackupConfig(
+          File dir,
+          int maxBackups,
+          Amount<Long, Time> interval,
+          boolean indexed,
+          int incrementalsPerFull) {
+
         this.dir = requireNonNull(dir);
         this.maxBackups = maxBackups;
         this.interval = requireNonNull(interval);
+        this.indexed = indexed;
+        this.incrementalsPerFull = incrementalsPerFull;
       }
 
       @VisibleForTesting
@@ -110,6 +135,7 @@ public interface StorageBackup {
     private volatile long lastBackupMs;
     private final DateFormat backupDateFormat;
     private final Executor executor;
+    private final Optional<IndexedBackup.Writer> indexedWriter;
 
     private final AtomicLong successes = Stats.exportLong("scheduler_backup_success");
     @VisibleForTesting
@@ -123,6 +149,16 @@ public interface StorageBackup {
       return failures;
     }
 
+    private final AtomicLong incrementalSuccesses =
+        Stats.exportLong("scheduler_backup_incremental_success");
+    @VisibleForTesting
+    AtomicLong getIncrementalSuccesses() {
+      return incrementalSuccesses;
+    }
+
+    private final AtomicLong lastWriteMs = Stats.exportLong("scheduler_backup_last_write_ms");
+    private final AtomicLong lastSizeBytes = Stats.exportLong("scheduler_backup_last_size_bytes");
+
     @Inject
     StorageBackupImpl(
         Storage storage,
@@ -136,6 +172,9 @@ public interface StorageBackup {
       this.clock = requireNonNull(clock);
       this.config = requireNonNull(config);
       this.executor = requireNonNull(executor);
+      this.indexedWriter = config.indexed
+          ? Optional.of(new IndexedBackup.Writer(config.incrementalsPerFull))
+          : Optional.empty();
       backupDateFormat = new SimpleDateFormat("yyyy-MM-dd-HH-mm", Locale.ENGLISH);
       backupIntervalMs = config.interval.as(Time.MILLISECONDS);
       lastBackupMs = clock.nowMillis();
@@ -167,14 +206,26 @@ public interface StorageBackup {
       String tempBackupName = "temp_" + backupName;
       File tempFile = new File(config.dir, tempBackupName);
       LOG.info("Saving backup to " + tempFile);
+      long startNanos = System.nanoTime();
       try (
           OutputStream tempFileStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
 
-        TTransport transport = new TIOStreamTransport(tempFileStream);
-        TProtocol protocol = new TBinaryProtocol(transport);
-        snapshot.write(protocol);
+        boolean incremental = false;
+        if (indexedWriter.isPresent()) {
+          incremental = indexedWriter.get().write(tempFileStream, config.dir, backupName, snapshot);
+        } else {
+          TTransport transport = new TIOStreamTransport(tempFileStream);
+          TProtocol protocol = new TBinaryProtocol(transport);
+          snapshot.write(protocol);
+        }
+        tempFileStream.flush();
+        lastSizeBytes.set(tempFile.length());
         Files.move(tempFile, new File(config.dir, backupName));
+        lastWriteMs.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
         successes.incrementAndGet();
+        if (incremental) {
+          incrementalSuccesses.incrementAndGet();
+        }
       } catch (IOException e) {
         failures.incrementAndGet();
         LOG.error("Failed to prepare backup " + backupName + ": " + e, e);
@@ -192,15 +243,52 @@ public interface StorageBackup {
       if (backups == null) {
         LOG.error("Failed to list backup dir " + config.dir);
       } else {
-        int backupsToDelete = backups.length - config.maxBackups;
-        if (backupsToDelete > 0) {
-          List<File> toDelete = Ordering.natural()
-              .onResultOf(FILE_NAME)
-              .sortedCopy(ImmutableList.copyOf(backups)).subList(0, backupsToDelete);
-          LOG.info("Deleting " + backupsToDelete + " outdated backups: " + toDelete);
-          for (File outdated : toDelete) {
-            tryDelete(outdated);
-          }
+        deleteOutdated(Ordering.natural()
+            .onResultOf(FILE_NAME)
+            .sortedCopy(ImmutableList.copyOf(backups)));
+      }
+    }
+
+    /**
+     * Deletes all but the newest backups that can be restored, keeping the backups that the
+     * kept incremental backups were written as increments of.
+     *
+     * @param backups All backups, oldest first so that each backup follows its parent.
+     */
+    private void deleteOutdated(List<File> backups) {
+      Map<String, Optional<String>> parents = Maps.newHashMap();
+      List<File> restorable = Lists.newArrayList();
+      for (File backup : backups) {
+        Optional<String> parent;
+        try {
+          parent = IndexedBackup.parent(backup);
+        } catch (IOException e) {
+          LOG.warn("Failed to read backup " + backup + ": " + e, e);
+          parent = Optional.empty();
+        }
+        // An incremental backup can not be restored once a backup it depends on is deleted.
+        if (!parent.isPresent() || parents.containsKey(parent.get())) {
+          parents.put(backup.getName(), parent);
+          restorable.add(backup);
+        }
+      }
+
+      Set<String> kept = Sets.newHashSet();
+      int outdated = Math.max(0, restorable.size() - config.maxBackups);
+      for (File backup : restorable.subList(outdated, restorable.size())) {
+        Optional<String> next = Optional.of(backup.getName());
+        while (next.isPresent() && kept.add(next.get())) {
+          next = parents.get(next.get());
+        }
+      }
+
+      List<File> toDelete = backups.stream()
+          .filter(backup -> !kept.contains(backup.getName()))
+          .collect(Collectors.toList());
+      if (!toDelete.isEmpty()) {
+        LOG.info("Deleting " + toDelete.size() + " outdated backups: " + toDelete);
+        for (File outdatedBackup : toDelete) {
+          tryDelete(outdatedBackup);
         }
       }
     }
@@ -17,20 +17,25 @@ import java.util.Set;
 
 import com.google.common.base.Function;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 
 import org.apache.aurora.common.util.BuildInfo;
 import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.storage.Snapshotter;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.TaskStore;
 import org.apache.aurora.scheduler.storage.durability.Loader;
 import org.apache.aurora.scheduler.storage.durability.Persistence.Edit;
 import org.apache.aurora.scheduler.storage.durability.ThriftBackfill;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskQuery;
 import org.apache.aurora.scheduler.storage.log.SnapshotterImpl;
 import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
 
@@ -68,6 +73,8 @@ interface TemporaryStorage {
 
   /**
    * A factory that creates temporary storage instances, detached from the rest of the system.
+   * Snapshots are loaded with {@link ThriftBackfill} and re-created with a {@link Snapshotter},
+   * whether they were read from a thrift backup or an {@link IndexedBackup}.
    */
   class TemporaryStorageFactory implements Function<Snapshot, TemporaryStorage> {
 
@@ -78,6 +85,16 @@ interface TemporaryStorage {
       this.thriftBackfill = requireNonNull(thriftBackfill);
     }
 
+    /**
+     * Creates temporary storage over an indexed backup, without loading the backup into memory.
+     *
+     * @param backup Backup to stage.
+     * @return Temporary storage over the backup.
+     */
+    public TemporaryStorage indexed(IndexedBackup.Reader backup) {
+      return new IndexedTemporaryStorage(backup, thriftBackfill, this);
+    }
+
     @Override
     public TemporaryStorage apply(Snapshot snapshot) {
       Storage storage = MemStorageModule.newEmptyStorage();
@@ -113,4 +130,64 @@ interface TemporaryStorage {
       };
     }
   }
+
+  /**
+   * Temporary storage over an {@link IndexedBackup}, which decodes tasks from the backup as they
+   * are queried rather than loading the backup into memory. Deleted tasks are left out of
+   * the snapshot, which is otherwise built the same way as for a thrift backup.
+   */
+  class IndexedTemporaryStorage implements TemporaryStorage {
+    private final IndexedBackup.Reader backup;
+    private final ThriftBackfill thriftBackfill;
+    private final Function<Snapshot, TemporaryStorage> snapshotStorage;
+    private final Set<String> deletedTaskIds = Sets.newConcurrentHashSet();
+
+    IndexedTemporaryStorage(
+        IndexedBackup.Reader backup,
+        ThriftBackfill thriftBackfill,
+        Function<Snapshot, TemporaryStorage> snapshotStorage) {
+
+      this.backup = requireNonNull(backup);
+      this.thriftBackfill = requireNonNull(thriftBackfill);
+      this.snapshotStorage = requireNonNull(snapshotStorage);
+    }
+
+    @Override
+    public void deleteTasks(Query.Builder query) {
+      for (IScheduledTask task : fetchTasks(query)) {
+        deletedTaskIds.add(Tasks.id(task));
+      }
+    }
+
+    @Override
+    public Iterable<IScheduledTask> fetchTasks(Query.Builder query) {
+      ITaskQuery taskQuery = query.get();
+      Iterable<String> candidates;
+      if (!taskQuery.getTaskIds().isEmpty()) {
+        candidates = taskQuery.getTaskIds();
+      } else if (!taskQuery.getJobKeys().isEmpty()) {
+        candidates = FluentIterable.from(taskQuery.getJobKeys())
+            .transformAndConcat(backup::getTaskIds);
+      } else {
+        candidates = backup.getTaskIds();
+      }
+
+      Set<ScheduledTask> tasks = Sets.newHashSet();
+      for (String taskId : candidates) {
+        if (!deletedTaskIds.contains(taskId)) {
+          backup.getTask(taskId).ifPresent(task -> tasks.add(task.newBuilder()));
+        }
+      }
+      return Iterables.filter(
+          thriftBackfill.backfillTasks(tasks),
+          TaskStore.Util.queryFilter(query));
+    }
+
+    @Override
+    public Snapshot toSnapshot() {
+      // Restores go through the same backfill as thrift backups, so that both produce the same
+      // snapshot from the same contents.
+      return snapshotStorage.apply(backup.toSnapshot(deletedTaskIds)).toSnapshot();
+    }
+  }
 }
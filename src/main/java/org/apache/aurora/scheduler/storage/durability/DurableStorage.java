@@ -13,14 +13,24 @@
  */
 package org.apache.aurora.scheduler.storage.durability;
 
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
+import javax.inject.Qualifier;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.stats.SlidingStats;
 import org.apache.aurora.gen.storage.Op;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.base.SchedulerException;
 import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.storage.AttributeStore;
@@ -33,7 +43,9 @@ import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.Storage.NonVolatileStorage;
 import org.apache.aurora.scheduler.storage.TaskStore;
+import org.apache.aurora.scheduler.storage.durability.Persistence.Edit;
 import org.apache.aurora.scheduler.storage.durability.Persistence.PersistenceException;
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static java.util.Objects.requireNonNull;
@@ -62,9 +74,26 @@ import static java.util.Objects.requireNonNull;
  *
  * <p>If the op fails to apply to local storage we will never persist the op, and if the op
  * fails to persist, it'll throw and abort the local storage operation as well.
+ *
+ * <p>With {@link WarmStandby warm standby}, records persisted by the leading scheduler are applied
+ * to local storage between {@link #prepare()} and {@link #start}, so that starting only needs to
+ * recover the records persisted since they were last caught up with.
+ *
+ * <p>With more than one {@link RecoveryThreads recovery thread}, recovered records are applied
+ * to independent stores in parallel.
  */
 public class DurableStorage implements NonVolatileStorage {
 
+  private static final Logger LOG = LoggerFactory.getLogger(DurableStorage.class);
+
+  /**
+   * Number of threads to apply recovered records with.
+   */
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ElementType.METHOD, ElementType.PARAMETER})
+  @Qualifier
+  public @interface RecoveryThreads { }
+
   /**
    * A maintainer for context about open transactions. Assumes that an external entity is
    * responsible for opening and closing transactions.
@@ -90,11 +119,17 @@ public class DurableStorage implements NonVolatileStorage {
   private final Storage writeBehindStorage;
   private final ReentrantLock writeLock;
   private final ThriftBackfill thriftBackfill;
+  private final WarmStandby warmStandby;
+  private final int recoveryThreads;
 
   private final WriteRecorder writeRecorder;
 
   private TransactionRecorder transaction = null;
 
+  // Whether storage has been started, after which persisted records are no longer caught up with.
+  // Guarded by the write lock.
+  private boolean started = false;
+
   private final SlidingStats writerWaitStats = new SlidingStats("storage_write_lock_wait", "ns");
 
   @Inject
@@ -110,7 +145,9 @@ public class DurableStorage implements NonVolatileStorage {
       @Volatile HostMaintenanceStore.Mutable hostMaintenanceStore,
       EventSink eventSink,
       ReentrantLock writeLock,
-      ThriftBackfill thriftBackfill) {
+      ThriftBackfill thriftBackfill,
+      WarmStandby warmStandby,
+      @RecoveryThreads int recoveryThreads) {
 
     this.persistence = requireNonNull(persistence);
 
@@ -120,6 +157,8 @@ public class DurableStorage implements NonVolatileStorage {
     this.writeBehindStorage = requireNonNull(delegateStorage);
     this.writeLock = requireNonNull(writeLock);
     this.thriftBackfill = requireNonNull(thriftBackfill);
+    this.warmStandby = requireNonNull(warmStandby);
+    this.recoveryThreads = recoveryThreads;
     TransactionManager transactionManager = new TransactionManager() {
       @Override
       public boolean hasActiveTransaction() {
@@ -149,6 +188,7 @@ public class DurableStorage implements NonVolatileStorage {
   public synchronized void prepare() {
     writeBehindStorage.prepare();
     persistence.prepare();
+    warmStandby.start(this::catchUp);
   }
 
   @Override
@@ -156,6 +196,9 @@ public class DurableStorage implements NonVolatileStorage {
   public void start(final MutateWork.NoResult.Quiet initializationLogic) {
     writeLock.lock();
     try {
+      started = true;
+      warmStandby.stop();
+
       // We recover directly into the forwarded system to avoid persisting replayed operations.
       writeBehindStorage.write((NoResult.Quiet) this::recover);
 
@@ -169,18 +212,66 @@ public class DurableStorage implements NonVolatileStorage {
 
   @Override
   public void stop() {
-    // No-op.
+    warmStandby.stop();
   }
 
   @Timed("scheduler_storage_recover")
   void recover(MutableStoreProvider stores) throws RecoveryFailedException {
     try {
-      Loader.load(stores, thriftBackfill, persistence.recover());
+      long edits = load(stores, persistence.recover(), recoveryThreads);
+      LOG.info("Recovered " + edits + " edits");
+      warmStandby.recovered(edits);
     } catch (PersistenceException e) {
       throw new RecoveryFailedException(e);
     }
   }
 
+  /**
+   * Applies the records persisted by the leading scheduler since the last catch up, while this
+   * storage has not been started.
+   *
+   * @return The number of edits applied.
+   */
+  private int catchUp() {
+    writeLock.lock();
+    try {
+      if (started) {
+        return 0;
+      }
+
+      return writeBehindStorage.write(stores -> {
+        try {
+          return (int) load(stores, persistence.tail(), 1);
+        } catch (PersistenceException e) {
+          throw new RecoveryFailedException(e);
+        }
+      });
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private long load(MutableStoreProvider stores, Stream<Edit> edits, int threads) {
+    AtomicLong count = new AtomicLong();
+    Stream<Edit> counted = edits.peek(edit -> count.incrementAndGet());
+    if (threads > 1) {
+      ThreadPoolExecutor executor = AsyncUtil.loggingExecutor(
+          threads,
+          threads,
+          new LinkedBlockingQueue<>(),
+          "StorageRecovery-%d",
+          LOG);
+      try {
+        Loader.load(stores, thriftBackfill, counted, executor);
+      } finally {
+        executor.shutdownNow();
+      }
+    } else {
+      Loader.load(stores, thriftBackfill, counted);
+    }
+    return count.get();
+  }
+
   private static final class RecoveryFailedException extends SchedulerException {
     RecoveryFailedException(Throwable cause) {
       super(cause);
@@ -13,22 +13,67 @@
  */
 package org.apache.aurora.scheduler.storage.durability;
 
+import java.util.Optional;
+
 import javax.inject.Singleton;
 
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
 import com.google.inject.PrivateModule;
 
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.storage.CallOrderEnforcingStorage;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.NonVolatileStorage;
+import org.apache.aurora.scheduler.storage.durability.DurableStorage.RecoveryThreads;
 
 /**
  * Binding module for a durable storage layer.
  */
 public class DurableStorageModule extends PrivateModule {
+
+  @Parameters(separators = "=")
+  public static class Options {
+    @Parameter(names = "-enable_warm_standby",
+        description = "Keep storage up to date with the records persisted by the leading scheduler "
+            + "while not leading, so that a newly elected leader only recovers the most recent "
+            + "records.",
+        arity = 1)
+    public boolean enableWarmStandby = false;
+
+    @Parameter(names = "-warm_standby_poll_interval",
+        validateValueWith = PositiveAmount.class,
+        description = "Interval at which a warm standby scheduler catches up with the records "
+            + "persisted by the leading scheduler.")
+    public TimeAmount warmStandbyPollInterval = new TimeAmount(1, Time.SECONDS);
+
+    @Parameter(names = "-storage_recovery_threads",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of threads to apply recovered records to independent stores with. "
+            + "With more than one thread, task store indices are built once all records are "
+            + "applied.")
+    public int recoveryThreads = 1;
+  }
+
+  private final Options options;
+
+  public DurableStorageModule(Options options) {
+    this.options = options;
+  }
+
   @Override
   protected void configure() {
     install(CallOrderEnforcingStorage.wrappingModule(DurableStorage.class));
     bind(DurableStorage.class).in(Singleton.class);
+    bind(WarmStandby.Settings.class).toInstance(new WarmStandby.Settings(
+        options.enableWarmStandby
+            ? Optional.of(options.warmStandbyPollInterval)
+            : Optional.empty()));
+    bind(WarmStandby.class).in(Singleton.class);
+    bind(Integer.class).annotatedWith(RecoveryThreads.class).toInstance(options.recoveryThreads);
     expose(Storage.class);
     expose(NonVolatileStorage.class);
   }
@@ -13,8 +13,19 @@
  */
 package org.apache.aurora.scheduler.storage.durability;
 
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+
 import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.gen.storage.Op;
 import org.apache.aurora.gen.storage.SaveJobInstanceUpdateEvent;
@@ -35,6 +46,23 @@ public final class Loader {
 
   private static final Logger LOG = LoggerFactory.getLogger(Loader.class);
 
+  // Maximum number of edits to buffer before applying them in parallel.
+  private static final int BATCH_SIZE = 100000;
+
+  /**
+   * The stores that edits apply to.  Each store is independent of the others.
+   */
+  private enum Store {
+    SCHEDULER,
+    CRON_JOBS,
+    TASKS,
+    QUOTAS,
+    HOST_ATTRIBUTES,
+    JOB_UPDATES,
+    HOST_MAINTENANCE,
+    NONE
+  }
+
   private Loader() {
     // Utility class.
   }
@@ -54,6 +82,105 @@ public final class Loader {
     edits.forEach(edit -> load(stores, backfill, edit));
   }
 
+  /**
+   * Loads a sequence of storage operations into the provided stores like
+   * {@link #load(MutableStoreProvider, ThriftBackfill, Stream)}, applying the operations of
+   * independent stores in parallel.
+   * <p>
+   * Operations are buffered in batches that end at each reset of storage, and the operations of
+   * each store in a batch are applied in order on the executor, concurrently with those of other
+   * stores.  Task store indices are built once all operations are applied.
+   *
+   * @param stores Stores to populate.
+   * @param backfill Backfill mechanism to use.
+   * @param edits Edits to apply.
+   * @param executor Executor to apply the operations of each store on.
+   */
+  public static void load(
+      MutableStoreProvider stores,
+      ThriftBackfill backfill,
+      Stream<Edit> edits,
+      Executor executor) {
+
+    stores.getUnsafeTaskStore().bulkLoad(() -> {
+      Map<Store, List<Edit>> batch = new EnumMap<>(Store.class);
+      int batched = 0;
+      Iterator<Edit> iterator = edits.iterator();
+      while (iterator.hasNext()) {
+        Edit edit = iterator.next();
+        if (edit.isDeleteAll()) {
+          apply(stores, backfill, batch, executor);
+          batched = 0;
+          load(stores, backfill, edit);
+        } else {
+          batch.computeIfAbsent(storeOf(edit.getOp()), store -> Lists.newArrayList()).add(edit);
+          batched++;
+          if (batched == BATCH_SIZE) {
+            apply(stores, backfill, batch, executor);
+            batched = 0;
+          }
+        }
+      }
+      apply(stores, backfill, batch, executor);
+    });
+  }
+
+  private static void apply(
+      MutableStoreProvider stores,
+      ThriftBackfill backfill,
+      Map<Store, List<Edit>> batch,
+      Executor executor) {
+
+    List<CompletableFuture<Void>> applied = batch.values().stream()
+        .map(storeEdits -> CompletableFuture.runAsync(
+            () -> storeEdits.forEach(edit -> load(stores, backfill, edit)),
+            executor))
+        .collect(Collectors.toList());
+    batch.clear();
+    try {
+      CompletableFuture.allOf(applied.toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  private static Store storeOf(Op op) {
+    switch (op.getSetField()) {
+      case SAVE_FRAMEWORK_ID:
+        return Store.SCHEDULER;
+
+      case SAVE_CRON_JOB:
+      case REMOVE_JOB:
+        return Store.CRON_JOBS;
+
+      case SAVE_TASKS:
+      case REMOVE_TASKS:
+        return Store.TASKS;
+
+      case SAVE_QUOTA:
+      case REMOVE_QUOTA:
+        return Store.QUOTAS;
+
+      case SAVE_HOST_ATTRIBUTES:
+        return Store.HOST_ATTRIBUTES;
+
+      case SAVE_JOB_UPDATE:
+      case SAVE_JOB_UPDATE_EVENT:
+      case SAVE_JOB_INSTANCE_UPDATE_EVENT:
+      case REMOVE_JOB_UPDATE:
+        return Store.JOB_UPDATES;
+
+      case SAVE_HOST_MAINTENANCE_REQUEST:
+      case REMOVE_HOST_MAINTENANCE_REQUEST:
+        return Store.HOST_MAINTENANCE;
+
+      default:
+        // Dropped and unrecognized operations do not modify any store.
+        return Store.NONE;
+    }
+  }
+
   private static void load(MutableStoreProvider stores, ThriftBackfill backfill, Edit edit) {
     if (edit.isDeleteAll()) {
       LOG.info("Resetting storage");
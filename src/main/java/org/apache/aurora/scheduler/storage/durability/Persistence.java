@@ -34,13 +34,27 @@ public interface Persistence {
   void prepare();
 
   /**
-   * Recovers previously-persisted records.
+   * Recovers previously-persisted records.  If edits have been read with {@link #tail()}, only
+   * the edits persisted since those need to be returned.
    *
    * @return All edits to apply.
    * @throws PersistenceException If recovery failed.
    */
   Stream<Edit> recover() throws PersistenceException;
 
+  /**
+   * Reads the records persisted by another scheduler since the last call, so that a standby can
+   * keep storage up to date ahead of {@link #recover()}.  The edits are only considered applied
+   * once the returned stream has been fully consumed.  The implementation may return no edits if
+   * it does not support reading records while another scheduler persists them.
+   *
+   * @return Edits to apply.
+   * @throws PersistenceException If the records could not be read.
+   */
+  default Stream<Edit> tail() throws PersistenceException {
+    return Stream.empty();
+  }
+
   /**
    * Saves new records.  No records may be considered durably saved until this method returns
    * successfully.
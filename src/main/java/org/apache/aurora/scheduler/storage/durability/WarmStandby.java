@@ -0,0 +1,144 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.durability;
+
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.base.AsyncUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the storage of a scheduler that is not leading up to date with the records persisted by
+ * the leader, so that when elected only the records persisted since the last catch up need to be
+ * recovered.
+ */
+class WarmStandby {
+  private static final Logger LOG = LoggerFactory.getLogger(WarmStandby.class);
+
+  @VisibleForTesting
+  static final String REPLAY_LAG = "scheduler_standby_replay_lag_ms";
+  @VisibleForTesting
+  static final String REPLAYED_EDITS = "scheduler_standby_replayed_edits";
+  @VisibleForTesting
+  static final String REPLAY_FAILURES = "scheduler_standby_replay_failures";
+  @VisibleForTesting
+  static final String RECOVERED_EDITS = "scheduler_storage_recovered_edits";
+
+  private final Optional<Amount<Long, Time>> pollInterval;
+  private final Clock clock;
+  private final AtomicLong replayedEdits;
+  private final AtomicLong replayFailures;
+  private final AtomicLong recoveredEdits;
+
+  private volatile boolean standby = false;
+  private volatile long lastCaughtUpMs;
+  private ScheduledExecutorService executor;
+
+  @Inject
+  WarmStandby(Settings settings, Clock clock, StatsProvider statsProvider) {
+    this.pollInterval = settings.getPollInterval();
+    this.clock = requireNonNull(clock);
+    this.replayedEdits = statsProvider.makeCounter(REPLAYED_EDITS);
+    this.replayFailures = statsProvider.makeCounter(REPLAY_FAILURES);
+    this.recoveredEdits = statsProvider.makeCounter(RECOVERED_EDITS);
+    statsProvider.makeGauge(REPLAY_LAG, () -> standby ? clock.nowMillis() - lastCaughtUpMs : 0L);
+  }
+
+  /**
+   * Starts catching up periodically, if warm standby is enabled.
+   *
+   * @param catchUp Applies the records persisted since the last catch up, returning the number of
+   *     edits applied.
+   */
+  synchronized void start(IntSupplier catchUp) {
+    if (!pollInterval.isPresent() || executor != null) {
+      return;
+    }
+
+    LOG.info("Tailing persisted records as a warm standby.");
+    lastCaughtUpMs = clock.nowMillis();
+    standby = true;
+    executor = AsyncUtil.singleThreadLoggingScheduledExecutor("WarmStandby-%d", LOG);
+    executor.scheduleWithFixedDelay(
+        () -> catchUp(catchUp),
+        0,
+        pollInterval.get().getValue(),
+        pollInterval.get().getUnit().getTimeUnit());
+  }
+
+  private void catchUp(IntSupplier catchUp) {
+    long startMs = clock.nowMillis();
+    try {
+      replayedEdits.addAndGet(catchUp.getAsInt());
+      lastCaughtUpMs = startMs;
+    } catch (RuntimeException e) {
+      replayFailures.incrementAndGet();
+      LOG.warn("Failed to catch up with persisted records, will retry.", e);
+    }
+  }
+
+  /**
+   * Stops catching up, once this scheduler is recovering storage to lead or shutting down.
+   */
+  synchronized void stop() {
+    standby = false;
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  /**
+   * Records the number of edits applied when recovering storage.
+   *
+   * @param edits Edits recovered.
+   */
+  void recovered(long edits) {
+    recoveredEdits.addAndGet(edits);
+  }
+
+  /**
+   * Configuration settings for warm standby.
+   */
+  static class Settings {
+    private final Optional<Amount<Long, Time>> pollInterval;
+
+    /**
+     * Creates settings.
+     *
+     * @param pollInterval Interval between catching up, or empty to disable warm standby.
+     */
+    Settings(Optional<Amount<Long, Time>> pollInterval) {
+      this.pollInterval = requireNonNull(pollInterval);
+    }
+
+    Optional<Amount<Long, Time>> getPollInterval() {
+      return pollInterval;
+    }
+  }
+}
@@ -404,6 +404,20 @@ public class WriteRecorder implements
     return this.jobUpdateStore.fetchJobUpdate(key);
   }
 
+  @Override
+  public Set<IJobUpdateKey> fetchPrunableJobUpdates(
+      long createdBeforeMs,
+      int maxUpdatesPerJob,
+      Set<IJobKey> jobsWithTasks,
+      int limit) {
+
+    return this.jobUpdateStore.fetchPrunableJobUpdates(
+        createdBeforeMs,
+        maxUpdatesPerJob,
+        jobsWithTasks,
+        limit);
+  }
+
   @Override
   public Optional<IHostMaintenanceRequest> getHostMaintenanceRequest(String host) {
     return this.hostMaintenanceStore.getHostMaintenanceRequest(host);
@@ -46,6 +46,14 @@ public class LogManager {
   @Qualifier
   public @interface LogEntryHashFunction { }
 
+  /**
+   * Number of threads to decode log entries with when reading the log from the beginning.
+   */
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ElementType.METHOD, ElementType.PARAMETER})
+  @Qualifier
+  public @interface DecodeThreads { }
+
   private final Log log;
   private final StreamManagerFactory streamManagerFactory;
 
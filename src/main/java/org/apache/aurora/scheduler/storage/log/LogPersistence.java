@@ -16,16 +16,21 @@ package org.apache.aurora.scheduler.storage.log;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import javax.inject.Inject;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Streams;
+
 import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
 import org.apache.aurora.gen.storage.LogEntry;
 import org.apache.aurora.gen.storage.Op;
 import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.scheduler.log.Log;
 import org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
 import org.apache.aurora.scheduler.storage.Snapshotter;
@@ -46,6 +51,11 @@ class LogPersistence implements Persistence {
   private final Snapshotter snapshotter;
   private StreamManager streamManager;
 
+  // Position of the last log entry whose edits were applied by a standby tailing the log, and
+  // whether storage may hold edits beyond that position.  Guarded by the storage write lock.
+  private Optional<Log.Position> tailPosition = Optional.empty();
+  private boolean tailDirty = false;
+
   @Inject
   LogPersistence(LogManager logManager, Snapshotter snapshotter) {
     this.logManager = requireNonNull(logManager);
@@ -82,33 +92,89 @@ class LogPersistence implements Persistence {
 
   @Override
   public Stream<Edit> recover() throws PersistenceException {
+    try {
+      if (tailPosition.isPresent() && !tailDirty) {
+        // Only the entries appended since the last tail remain to be applied.
+        return Streams.stream(streamManager.readAfter(tailPosition, true))
+            .flatMap(this::toEdits);
+      }
+    } catch (InvalidPositionException e) {
+      LOG.warn("Log was truncated past the last tailed entry, recovering from the beginning.");
+    } catch (CodingException | StreamAccessException e) {
+      throw new PersistenceException(e);
+    }
+
     try {
       Iterator<LogEntry> entries = streamManager.readFromBeginning();
       Iterable<LogEntry> iterableEntries = () -> entries;
-      Stream<LogEntry> entryStream = StreamSupport.stream(iterableEntries.spliterator(), false);
-
-      return entryStream
-          .filter(entry -> entry.getSetField() != LogEntry._Fields.NOOP)
-          .flatMap(entry -> {
-            switch (entry.getSetField()) {
-              case SNAPSHOT:
-                Snapshot snapshot = entry.getSnapshot();
-                LOG.info("Applying snapshot taken on " + new Date(snapshot.getTimestamp()));
-                return Stream.concat(
-                    Stream.of(Edit.deleteAll()),
-                    snapshotter.asStream(snapshot)
-                        .map(Edit::op));
-
-              case TRANSACTION:
-                return entry.getTransaction().getOps().stream()
-                    .map(Edit::op);
-
-              default:
-                throw new IllegalStateException("Unknown log entry type: " + entry.getSetField());
-            }
-          });
+      Stream<Edit> edits = StreamSupport.stream(iterableEntries.spliterator(), false)
+          .flatMap(this::toEdits);
+      // Edits already applied by tailing the log must be discarded before replaying them.
+      return tailDirty || tailPosition.isPresent()
+          ? Stream.concat(Stream.of(Edit.deleteAll()), edits)
+          : edits;
     } catch (CodingException | InvalidPositionException | StreamAccessException e) {
       throw new PersistenceException(e);
     }
   }
+
+  @Override
+  public Stream<Edit> tail() throws PersistenceException {
+    // Until the returned edits are consumed, they may be partially applied.
+    boolean reset = tailDirty;
+    tailDirty = true;
+
+    StreamManager.Tail read;
+    try {
+      try {
+        read = streamManager.readAfter(reset ? Optional.empty() : tailPosition, false);
+      } catch (InvalidPositionException e) {
+        LOG.warn("Log was truncated past the last tailed entry, tailing from the beginning.");
+        reset = true;
+        read = streamManager.readAfter(Optional.empty(), false);
+      }
+    } catch (CodingException | InvalidPositionException | StreamAccessException e) {
+      throw new PersistenceException(e);
+    }
+
+    StreamManager.Tail entries = read;
+    // Entries are applied as they are read, rather than buffered until the tail is complete.
+    Iterator<Edit> edits = Stream.concat(
+        reset ? Stream.of(Edit.deleteAll()) : Stream.<Edit>empty(),
+        Streams.stream(entries).flatMap(this::toEdits))
+        .iterator();
+    return Streams.stream(new AbstractIterator<Edit>() {
+      @Override
+      protected Edit computeNext() {
+        if (edits.hasNext()) {
+          return edits.next();
+        }
+        tailPosition = entries.position();
+        tailDirty = false;
+        return endOfData();
+      }
+    });
+  }
+
+  private Stream<Edit> toEdits(LogEntry entry) {
+    switch (entry.getSetField()) {
+      case NOOP:
+        return Stream.empty();
+
+      case SNAPSHOT:
+        Snapshot snapshot = entry.getSnapshot();
+        LOG.info("Applying snapshot taken on " + new Date(snapshot.getTimestamp()));
+        return Stream.concat(
+            Stream.of(Edit.deleteAll()),
+            snapshotter.asStream(snapshot)
+                .map(Edit::op));
+
+      case TRANSACTION:
+        return entry.getTransaction().getOps().stream()
+            .map(Edit::op);
+
+      default:
+        throw new IllegalStateException("Unknown log entry type: " + entry.getSetField());
+    }
+  }
 }
@@ -26,11 +26,14 @@ import com.google.inject.assistedinject.FactoryModuleBuilder;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Data;
 import org.apache.aurora.scheduler.config.types.DataAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.storage.durability.Persistence;
 import org.apache.aurora.scheduler.storage.log.EntrySerializer.EntrySerializerImpl;
+import org.apache.aurora.scheduler.storage.log.LogManager.DecodeThreads;
 import org.apache.aurora.scheduler.storage.log.LogManager.LogEntryHashFunction;
 import org.apache.aurora.scheduler.storage.log.LogManager.MaxEntrySize;
 import org.apache.aurora.scheduler.storage.log.SnapshotDeduplicator.SnapshotDeduplicatorImpl;
+import org.apache.aurora.scheduler.storage.log.SnapshotDeduplicator.SnapshotDeduplicatorImpl.CompactTaskEvents;
 
 /**
  * Bindings for scheduler distributed log based persistence.
@@ -44,6 +47,19 @@ public class LogPersistenceModule extends PrivateModule {
             "Specifies the maximum entry size to append to the log. Larger entries will be "
                 + "split across entry Frames.")
     public DataAmount maxLogEntrySize = new DataAmount(512, Data.KB);
+
+    @Parameter(names = "-dlog_compact_task_events",
+        description = "Write task event histories in snapshots in a compact binary encoding. "
+            + "Schedulers of earlier versions cannot read these events, so only enable this once "
+            + "no scheduler will be rolled back to such a version.",
+        arity = 1)
+    public boolean compactTaskEvents = false;
+
+    @Parameter(names = "-dlog_decode_threads",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of threads to decode, reassemble and inflate log entries with when "
+            + "recovering from the log.")
+    public int decodeThreads = 1;
   }
 
   private final Options options;
@@ -56,6 +72,7 @@ public class LogPersistenceModule extends PrivateModule {
   protected void configure() {
     bind(new TypeLiteral<Amount<Integer, Data>>() { }).annotatedWith(MaxEntrySize.class)
         .toInstance(options.maxLogEntrySize);
+    bind(Integer.class).annotatedWith(DecodeThreads.class).toInstance(options.decodeThreads);
     bind(LogManager.class).in(Singleton.class);
     bind(LogPersistence.class).in(Singleton.class);
     bind(Persistence.class).to(LogPersistence.class);
@@ -69,6 +86,8 @@ public class LogPersistenceModule extends PrivateModule {
     HashFunction hashFunction = Hashing.md5();
     bind(HashFunction.class).annotatedWith(LogEntryHashFunction.class).toInstance(hashFunction);
 
+    bind(Boolean.class).annotatedWith(CompactTaskEvents.class)
+        .toInstance(options.compactTaskEvents);
     bind(SnapshotDeduplicator.class).to(SnapshotDeduplicatorImpl.class);
 
     install(new FactoryModuleBuilder()
@@ -13,10 +13,16 @@
  */
 package org.apache.aurora.scheduler.storage.log;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
 import java.util.List;
 import java.util.Map.Entry;
 
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimaps;
 
@@ -31,8 +37,14 @@ import org.apache.aurora.gen.storage.Snapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
 import static org.apache.aurora.gen.AssignedTask._Fields.TASK;
 import static org.apache.aurora.gen.ScheduledTask._Fields.ASSIGNED_TASK;
+import static org.apache.aurora.gen.ScheduledTask._Fields.TASK_EVENTS;
 import static org.apache.aurora.gen.storage.Snapshot._Fields.TASKS;
 
 /**
@@ -62,10 +74,32 @@ public interface SnapshotDeduplicator {
   class SnapshotDeduplicatorImpl implements SnapshotDeduplicator {
     private static final Logger LOG = LoggerFactory.getLogger(SnapshotDeduplicatorImpl.class);
 
+    /**
+     * Binding annotation for whether task events are written in the compact encoding of
+     * {@link TaskEventCodec}.
+     */
+    @Qualifier
+    @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+    public @interface CompactTaskEvents { }
+
     private static final Function<ScheduledTask, TaskConfig> SCHEDULED_TO_CONFIG =
         task -> task.getAssignedTask().getTask();
 
-    private static ScheduledTask deepCopyWithoutTaskConfig(ScheduledTask scheduledTask) {
+    private final boolean compactTaskEvents;
+
+    public SnapshotDeduplicatorImpl() {
+      this(false);
+    }
+
+    @Inject
+    public SnapshotDeduplicatorImpl(@CompactTaskEvents boolean compactTaskEvents) {
+      this.compactTaskEvents = compactTaskEvents;
+    }
+
+    private static ScheduledTask deepCopyWithoutTaskConfig(
+        ScheduledTask scheduledTask,
+        boolean withTaskEvents) {
+
       ScheduledTask scheduledTaskCopy = new ScheduledTask();
       for (ScheduledTask._Fields scheduledTaskField : ScheduledTask._Fields.values()) {
         if (scheduledTaskField == ASSIGNED_TASK) {
@@ -79,7 +113,9 @@ public interface SnapshotDeduplicator {
             }
           }
           scheduledTaskCopy.setAssignedTask(assignedTaskCopy);
-        } else if (scheduledTask.isSet(scheduledTaskField)) {
+        } else if (scheduledTask.isSet(scheduledTaskField)
+            && (withTaskEvents || scheduledTaskField != TASK_EVENTS)) {
+
           scheduledTaskCopy.setFieldValue(
               scheduledTaskField, scheduledTask.getFieldValue(scheduledTaskField));
         }
@@ -120,14 +156,24 @@ public interface SnapshotDeduplicator {
           snapshot.getTasks(),
           SCHEDULED_TO_CONFIG);
 
+      TaskEventCodec.StringTable eventStrings = new TaskEventCodec.StringTable();
       for (Entry<TaskConfig, List<ScheduledTask>> entry : Multimaps.asMap(index).entrySet()) {
         deduplicatedSnapshot.addToTaskConfigs(entry.getKey());
         for (ScheduledTask scheduledTask : entry.getValue()) {
-          deduplicatedSnapshot.addToPartialTasks(new DeduplicatedScheduledTask()
-              .setPartialScheduledTask(deepCopyWithoutTaskConfig(scheduledTask))
-              .setTaskConfigId(deduplicatedSnapshot.getTaskConfigsSize() - 1));
+          boolean encodeEvents = compactTaskEvents && scheduledTask.isSetTaskEvents();
+          DeduplicatedScheduledTask partialTask = new DeduplicatedScheduledTask()
+              .setPartialScheduledTask(deepCopyWithoutTaskConfig(scheduledTask, !encodeEvents))
+              .setTaskConfigId(deduplicatedSnapshot.getTaskConfigsSize() - 1);
+          if (encodeEvents) {
+            partialTask.setEncodedTaskEvents(
+                TaskEventCodec.encode(scheduledTask.getTaskEvents(), eventStrings));
+          }
+          deduplicatedSnapshot.addToPartialTasks(partialTask);
         }
       }
+      if (compactTaskEvents) {
+        deduplicatedSnapshot.setTaskEventStrings(eventStrings.getStrings());
+      }
 
       int numOutputTasks = deduplicatedSnapshot.getTaskConfigsSize();
 
@@ -161,6 +207,13 @@ public interface SnapshotDeduplicator {
               "DeduplicatedScheduledTask referenced invalid task index " + taskConfigId, e);
         }
         scheduledTask.getAssignedTask().setTask(config);
+        if (partialTask.isSetEncodedTaskEvents()) {
+          scheduledTask.setTaskEvents(TaskEventCodec.decode(
+              partialTask.getEncodedTaskEvents(),
+              deduplicatedSnapshot.isSetTaskEventStrings()
+                  ? deduplicatedSnapshot.getTaskEventStrings()
+                  : ImmutableList.of()));
+        }
         snapshot.addToTasks(scheduledTask);
       }
 
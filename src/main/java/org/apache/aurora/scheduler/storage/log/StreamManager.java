@@ -15,6 +15,7 @@ package org.apache.aurora.scheduler.storage.log;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import org.apache.aurora.gen.storage.LogEntry;
 import org.apache.aurora.gen.storage.Op;
@@ -33,6 +34,20 @@ import static org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
  * {@link #snapshot(org.apache.aurora.gen.storage.Snapshot) snapshotting}.
  */
 public interface StreamManager {
+  /**
+   * Log entries read after a position in the log stream.  Entries are read from the log as they
+   * are iterated, rather than all at once.
+   */
+  interface Tail extends Iterator<LogEntry> {
+    /**
+     * Gets the position of the last log entry iterated so far.
+     *
+     * @return The position of the last log entry iterated, or the position reading started after
+     *     if no entries have been iterated.
+     */
+    Optional<Log.Position> position();
+  }
+
   /**
    * Reads all entries in the log stream.
    *
@@ -43,6 +58,21 @@ public interface StreamManager {
    */
   Iterator<LogEntry> readFromBeginning() throws CodingException, StreamAccessException;
 
+  /**
+   * Reads the entries appended to the log stream after the given position.  An entry framed
+   * across several log entries is only read once all of its frames have been appended, so that a
+   * reader tailing the log can always continue from the returned position.
+   *
+   * @param position Position of the last log entry read, or empty to read from the beginning.
+   * @param coordinated Whether the read must include all entries appended by other writers.
+   * @return The entries appended after {@code position}, in log order.
+   * @throws CodingException if there was a problem decoding a log entry from the stream.
+   * @throws InvalidPositionException if entries after the given position have been truncated.
+   * @throws StreamAccessException if there is a problem reading from the log.
+   */
+  Tail readAfter(Optional<Log.Position> position, boolean coordinated)
+      throws CodingException, StreamAccessException;
+
   /**
    * Truncates all entries in the log stream occuring before the given position.  The entry at the
    * given position becomes the first entry in the stream when this call completes.
@@ -13,16 +13,31 @@
  */
 package org.apache.aurora.scheduler.storage.log;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hasher;
 import com.google.common.primitives.Bytes;
@@ -36,6 +51,7 @@ import org.apache.aurora.gen.storage.Op;
 import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.gen.storage.Transaction;
 import org.apache.aurora.gen.storage.storageConstants;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.log.Log;
 import org.apache.aurora.scheduler.log.Log.Stream;
 import org.slf4j.Logger;
@@ -47,6 +63,7 @@ import static org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
 import static org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import static org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import static org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
+import static org.apache.aurora.scheduler.storage.log.LogManager.DecodeThreads;
 import static org.apache.aurora.scheduler.storage.log.LogManager.LogEntryHashFunction;
 
 class StreamManagerImpl implements StreamManager {
@@ -71,87 +88,258 @@ class StreamManagerImpl implements StreamManager {
   private final EntrySerializer entrySerializer;
   private final HashFunction hashFunction;
   private final SnapshotDeduplicator snapshotDeduplicator;
+  private final int decodeThreads;
+  private final Optional<Executor> decodeExecutor;
 
   @Inject
   StreamManagerImpl(
       @Assisted Stream stream,
       EntrySerializer entrySerializer,
       @LogEntryHashFunction HashFunction hashFunction,
-      SnapshotDeduplicator snapshotDeduplicator) {
+      SnapshotDeduplicator snapshotDeduplicator,
+      @DecodeThreads int decodeThreads) {
 
+    Preconditions.checkArgument(decodeThreads > 0);
     this.stream = requireNonNull(stream);
     this.entrySerializer = requireNonNull(entrySerializer);
     this.hashFunction = requireNonNull(hashFunction);
     this.snapshotDeduplicator = requireNonNull(snapshotDeduplicator);
+    this.decodeThreads = decodeThreads;
+    if (decodeThreads > 1) {
+      ThreadPoolExecutor executor = AsyncUtil.loggingExecutor(
+          decodeThreads,
+          decodeThreads,
+          new LinkedBlockingQueue<>(),
+          "LogDecoder-%d",
+          LOG);
+      // The log is only read from the beginning on recovery, so idle threads are not kept.
+      executor.setKeepAliveTime(1, TimeUnit.MINUTES);
+      executor.allowCoreThreadTimeOut(true);
+      this.decodeExecutor = Optional.of(executor);
+    } else {
+      this.decodeExecutor = Optional.empty();
+    }
   }
 
   @Override
   public Iterator<LogEntry> readFromBeginning()
       throws CodingException, InvalidPositionException, StreamAccessException {
 
-    Iterator<Log.Entry> entries = stream.readAll();
+    // Entries are decoded in two passes that may each run in parallel: entries are first decoded
+    // individually, and after framed entries are reassembled in order, the reassembled entries are
+    // decoded, inflated and reduplicated.
+    EntryReader reader = new EntryReader(decode(stream.readAll(), this::decodeLogEntry), false);
+    return decode(reader, this::complete);
+  }
 
-    return new AbstractIterator<LogEntry>() {
-      @Override
-      protected LogEntry computeNext() {
-        while (entries.hasNext()) {
-          LogEntry logEntry = decodeLogEntry(entries.next());
-          while (logEntry != null && isFrame(logEntry)) {
-            logEntry = tryDecodeFrame(logEntry.getFrame(), entries);
-          }
-          if (logEntry != null) {
-            if (logEntry.isSet(LogEntry._Fields.DEFLATED_ENTRY)) {
-              logEntry = Entries.inflate(logEntry);
-              vars.deflatedEntriesRead.incrementAndGet();
-            }
-
-            if (logEntry.isSetDeduplicatedSnapshot()) {
-              logEntry = LogEntry.snapshot(
-                  snapshotDeduplicator.reduplicate(logEntry.getDeduplicatedSnapshot()));
-            }
-
-            vars.entriesRead.incrementAndGet();
-            return logEntry;
+  private <F, T> Iterator<T> decode(Iterator<F> from, Function<F, T> decoder) {
+    return decodeExecutor.isPresent()
+        ? new OrderedTransform<>(from, decoder, decodeExecutor.get(), 2 * decodeThreads)
+        : Iterators.transform(from, decoder::apply);
+  }
+
+  @Override
+  public Tail readAfter(Optional<Log.Position> position, boolean coordinated)
+      throws CodingException, StreamAccessException {
+
+    return new TailReader(stream.readAfter(position, coordinated), position);
+  }
+
+  /**
+   * Reads and completes the entries appended after a position, tracking the position of the last
+   * entry returned.
+   */
+  private final class TailReader implements Tail {
+    private final AtomicReference<Log.Position> lastDecoded = new AtomicReference<>();
+    private final EntryReader entries;
+    private Optional<Log.Position> lastRead;
+
+    TailReader(Iterator<Log.PositionedEntry> entries, Optional<Log.Position> position) {
+      this.entries = new EntryReader(
+          Iterators.transform(
+              entries,
+              entry -> {
+                lastDecoded.set(entry.position());
+                return decodeLogEntry(entry);
+              }),
+          true);
+      this.lastRead = position;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return entries.hasNext();
+    }
+
+    @Override
+    public LogEntry next() {
+      LogEntry logEntry = complete(entries.next());
+      lastRead = Optional.of(lastDecoded.get());
+      return logEntry;
+    }
+
+    @Override
+    public Optional<Log.Position> position() {
+      return lastRead;
+    }
+  }
+
+  /**
+   * Reassembles framed entries from the entries read from the log stream.  Reassembled entries
+   * are only decoded, and their checksums verified, when they are supplied.
+   */
+  private final class EntryReader extends AbstractIterator<Supplier<LogEntry>> {
+    private final Iterator<LogEntry> entries;
+    private final boolean tailing;
+    private boolean incompleteFrame = false;
+    @Nullable
+    private Supplier<LogEntry> reassembled;
+
+    /**
+     * Creates a reader of log entries.
+     *
+     * @param entries Decoded log entries.
+     * @param tailing Whether to stop at a framed entry whose chunks have not all been appended yet,
+     *     rather than skipping it as aborted.
+     */
+    EntryReader(Iterator<LogEntry> entries, boolean tailing) {
+      this.entries = requireNonNull(entries);
+      this.tailing = tailing;
+    }
+
+    @Override
+    protected Supplier<LogEntry> computeNext() {
+      while (entries.hasNext()) {
+        LogEntry logEntry = entries.next();
+        while (logEntry != null && isFrame(logEntry)) {
+          logEntry = tryReadFrame(logEntry.getFrame());
+        }
+        if (incompleteFrame) {
+          return endOfData();
+        }
+        if (reassembled != null) {
+          Supplier<LogEntry> next = reassembled;
+          reassembled = null;
+          return next;
+        }
+        if (logEntry != null) {
+          LogEntry next = logEntry;
+          return () -> next;
+        }
+      }
+      return endOfData();
+    }
+
+    /**
+     * Reads the chunks of a framed entry, which are held as {@link #reassembled} if all are read.
+     *
+     * @param frame Frame read.
+     * @return An entry read in place of a chunk of the framed entry, or {@code null} if none was.
+     */
+    @Nullable
+    private LogEntry tryReadFrame(Frame frame) {
+      if (!isHeader(frame)) {
+        LOG.warn("Found a frame with no preceding header, skipping.");
+        return null;
+      }
+      FrameHeader header = frame.getHeader();
+      byte[][] chunks = new byte[header.getChunkCount()][];
+
+      for (int i = 0; i < header.getChunkCount(); i++) {
+        if (!entries.hasNext()) {
+          if (tailing) {
+            // The remaining chunks may not have been appended yet.
+            incompleteFrame = true;
+          } else {
+            logBadFrame(header, i);
           }
+          return null;
         }
-        return endOfData();
+        LogEntry logEntry = entries.next();
+        if (!isFrame(logEntry)) {
+          logBadFrame(header, i);
+          return logEntry;
+        }
+        Frame chunkFrame = logEntry.getFrame();
+        if (!isChunk(chunkFrame)) {
+          logBadFrame(header, i);
+          return logEntry;
+        }
+        chunks[i] = chunkFrame.getChunk().getData();
       }
-    };
+      reassembled = () -> {
+        Hasher hasher = hashFunction.newHasher();
+        for (byte[] chunk : chunks) {
+          hasher.putBytes(chunk);
+        }
+        if (!Arrays.equals(header.getChecksum(), hasher.hash().asBytes())) {
+          throw new CodingException("Read back a framed log entry that failed its checksum");
+        }
+        return Entries.thriftBinaryDecode(Bytes.concat(chunks));
+      };
+      return null;
+    }
   }
 
-  @Nullable
-  private LogEntry tryDecodeFrame(Frame frame, Iterator<Log.Entry> entries) throws CodingException {
-    if (!isHeader(frame)) {
-      LOG.warn("Found a frame with no preceding header, skipping.");
-      return null;
+  /**
+   * Applies a function to the elements of an iterator on an executor, keeping a bounded number of
+   * elements in flight, and returns the results in the order of the elements.
+   *
+   * @param <F> Type of elements.
+   * @param <T> Type of results.
+   */
+  private static final class OrderedTransform<F, T> extends AbstractIterator<T> {
+    private final Iterator<F> from;
+    private final Function<F, T> function;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final Deque<CompletableFuture<T>> inFlight = new ArrayDeque<>();
+
+    OrderedTransform(
+        Iterator<F> from,
+        Function<F, T> function,
+        Executor executor,
+        int maxInFlight) {
+
+      this.from = requireNonNull(from);
+      this.function = requireNonNull(function);
+      this.executor = requireNonNull(executor);
+      this.maxInFlight = maxInFlight;
     }
-    FrameHeader header = frame.getHeader();
-    byte[][] chunks = new byte[header.getChunkCount()][];
 
-    Hasher hasher = hashFunction.newHasher();
-    for (int i = 0; i < header.getChunkCount(); i++) {
-      if (!entries.hasNext()) {
-        logBadFrame(header, i);
-        return null;
+    @Override
+    protected T computeNext() {
+      while (inFlight.size() < maxInFlight && from.hasNext()) {
+        F next = from.next();
+        inFlight.add(CompletableFuture.supplyAsync(() -> function.apply(next), executor));
       }
-      LogEntry logEntry = decodeLogEntry(entries.next());
-      if (!isFrame(logEntry)) {
-        logBadFrame(header, i);
-        return logEntry;
+      CompletableFuture<T> result = inFlight.poll();
+      if (result == null) {
+        return endOfData();
       }
-      Frame chunkFrame = logEntry.getFrame();
-      if (!isChunk(chunkFrame)) {
-        logBadFrame(header, i);
-        return logEntry;
+      try {
+        return result.join();
+      } catch (CompletionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw e;
       }
-      byte[] chunkData = chunkFrame.getChunk().getData();
-      hasher.putBytes(chunkData);
-      chunks[i] = chunkData;
     }
-    if (!Arrays.equals(header.getChecksum(), hasher.hash().asBytes())) {
-      throw new CodingException("Read back a framed log entry that failed its checksum");
+  }
+
+  private LogEntry complete(Supplier<LogEntry> reader) throws CodingException {
+    LogEntry logEntry = reader.get();
+    if (logEntry.isSet(LogEntry._Fields.DEFLATED_ENTRY)) {
+      logEntry = Entries.inflate(logEntry);
+      vars.deflatedEntriesRead.incrementAndGet();
+    }
+
+    if (logEntry.isSetDeduplicatedSnapshot()) {
+      logEntry = LogEntry.snapshot(
+          snapshotDeduplicator.reduplicate(logEntry.getDeduplicatedSnapshot()));
     }
-    return Entries.thriftBinaryDecode(Bytes.concat(chunks));
+
+    vars.entriesRead.incrementAndGet();
+    return logEntry;
   }
 
   private static boolean isFrame(LogEntry logEntry) {
@@ -0,0 +1,173 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.log;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.TaskEvent;
+
+/**
+ * A compact binary encoding of task event histories, used to shrink snapshots.
+ * <p>
+ * Each event is encoded as variable-length integers: the status code, the timestamp as a signed
+ * delta from the previous event's timestamp, and the message and scheduler host as indices into a
+ * table of strings shared by all tasks in a snapshot. Task histories repeat a few messages and
+ * scheduler hosts, and events tend to be close together, so most events encode to a few bytes.
+ */
+final class TaskEventCodec {
+
+  private TaskEventCodec() {
+    // Utility class.
+  }
+
+  /**
+   * An ordered table of the distinct strings referenced by encoded events.
+   */
+  static final class StringTable {
+    private final Map<String, Integer> indices = Maps.newHashMap();
+    private final List<String> strings = Lists.newArrayList();
+
+    private int indexOf(String value) {
+      return indices.computeIfAbsent(value, v -> {
+        strings.add(v);
+        return strings.size() - 1;
+      });
+    }
+
+    /**
+     * Gets the strings in the table, in index order.
+     *
+     * @return Strings referenced by encoded events.
+     */
+    List<String> getStrings() {
+      return ImmutableList.copyOf(strings);
+    }
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  // Absent strings are encoded as 0, and present strings as their index plus one.
+  private static void writeString(ByteArrayOutputStream out, String value, StringTable strings) {
+    writeVarint(out, value == null ? 0 : strings.indexOf(value) + 1);
+  }
+
+  /**
+   * Encodes a task's events.
+   *
+   * @param events Events to encode.
+   * @param strings Table to add the events' messages and scheduler hosts to.
+   * @return The encoded events.
+   */
+  static byte[] encode(List<TaskEvent> events, StringTable strings) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(events.size() * 4 + 1);
+    writeVarint(out, events.size());
+    long previousTimestamp = 0;
+    for (TaskEvent event : events) {
+      writeVarint(out, event.getStatus() == null ? 0 : event.getStatus().getValue() + 1);
+      long delta = event.getTimestamp() - previousTimestamp;
+      // Zigzag encoding keeps small negative deltas small.
+      writeVarint(out, (delta << 1) ^ (delta >> 63));
+      previousTimestamp = event.getTimestamp();
+      writeString(out, event.getMessage(), strings);
+      writeString(out, event.getScheduler(), strings);
+    }
+    return out.toByteArray();
+  }
+
+  private static final class Reader {
+    private final byte[] data;
+    private int position;
+
+    Reader(byte[] data) {
+      this.data = data;
+    }
+
+    long readVarint() throws CodingException {
+      long value = 0;
+      for (int shift = 0; shift < Long.SIZE; shift += 7) {
+        if (position >= data.length) {
+          throw new CodingException("Encoded task events are truncated.");
+        }
+        byte b = data[position++];
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new CodingException("Encoded task events contain an invalid integer.");
+    }
+
+    String readString(List<String> strings) throws CodingException {
+      long index = readVarint();
+      if (index == 0) {
+        return null;
+      }
+      if (index > strings.size()) {
+        throw new CodingException("Encoded task event referenced invalid string " + index);
+      }
+      return strings.get((int) index - 1);
+    }
+  }
+
+  /**
+   * Decodes a task's events.
+   *
+   * @param encoded Events encoded by {@link #encode(List, StringTable)}.
+   * @param strings Strings of the table the events were encoded with.
+   * @return The decoded events.
+   * @throws CodingException If the encoded events are corrupt.
+   */
+  static List<TaskEvent> decode(byte[] encoded, List<String> strings) throws CodingException {
+    Reader reader = new Reader(encoded);
+    long count = reader.readVarint();
+    if (count > encoded.length) {
+      throw new CodingException("Encoded task events have an invalid count " + count);
+    }
+
+    List<TaskEvent> events = Lists.newArrayListWithCapacity((int) count);
+    long timestamp = 0;
+    for (int i = 0; i < count; i++) {
+      TaskEvent event = new TaskEvent();
+      long status = reader.readVarint();
+      if (status > 0) {
+        ScheduleStatus value = ScheduleStatus.findByValue((int) status - 1);
+        if (value == null) {
+          throw new CodingException("Encoded task event has unknown status " + (status - 1));
+        }
+        event.setStatus(value);
+      }
+      long zigzag = reader.readVarint();
+      timestamp += (zigzag >>> 1) ^ -(zigzag & 1);
+      event.setTimestamp(timestamp);
+      event.setMessage(reader.readString(strings));
+      event.setScheduler(reader.readString(strings));
+      events.add(event);
+    }
+    return events;
+  }
+}
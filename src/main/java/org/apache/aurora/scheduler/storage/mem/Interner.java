@@ -31,6 +31,7 @@ import com.google.common.collect.Sets;
 class Interner<T, A> {
 
   private final Map<T, InternEntry<A, T>> pool = Maps.newHashMap();
+  private long associationCount;
 
   /**
    * Retrieves the canonical instance of {@code t} and maintains {@code association} with the
@@ -45,8 +46,9 @@ class Interner<T, A> {
     if (entry == null) {
       entry = new InternEntry<>(t, association);
       pool.put(t, entry);
-    } else {
-      entry.associations.add(association);
+      associationCount++;
+    } else if (entry.associations.add(association)) {
+      associationCount++;
     }
     return entry.interned;
   }
@@ -59,8 +61,8 @@ class Interner<T, A> {
    */
   synchronized void removeAssociation(T t, A association) {
     InternEntry<A, T> entry = pool.get(t);
-    if (entry != null) {
-      entry.associations.remove(association);
+    if (entry != null && entry.associations.remove(association)) {
+      associationCount--;
       if (entry.associations.isEmpty()) {
         pool.remove(t);
       }
@@ -72,6 +74,26 @@ class Interner<T, A> {
    */
   synchronized void clear() {
     pool.clear();
+    associationCount = 0;
+  }
+
+  /**
+   * Gets the number of distinct interned values.
+   *
+   * @return Number of canonical instances held.
+   */
+  synchronized int size() {
+    return pool.size();
+  }
+
+  /**
+   * Gets the number of associations across all interned values, which is the number of
+   * references to canonical instances that would otherwise each hold their own copy.
+   *
+   * @return Total number of associations.
+   */
+  synchronized long getAssociationCount() {
+    return associationCount;
   }
 
   @VisibleForTesting
@@ -24,11 +24,14 @@ import com.google.common.collect.Maps;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.gen.JobConfiguration;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.storage.CronJobStore;
 import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * An in-memory cron job store.
  */
@@ -37,29 +40,45 @@ class MemCronJobStore implements CronJobStore.Mutable {
   static final String CRON_STORE_SIZE = "mem_storage_cron_size";
 
   private final Map<IJobKey, IJobConfiguration> jobs = Maps.newConcurrentMap();
+  private final TaskConfigInterner configInterner;
 
   @Inject
-  MemCronJobStore(StatsProvider statsProvider) {
+  MemCronJobStore(StatsProvider statsProvider, TaskConfigInterner configInterner) {
+    this.configInterner = requireNonNull(configInterner);
     statsProvider.makeGauge(CRON_STORE_SIZE, jobs::size);
   }
 
+  private void release(IJobKey key, IJobConfiguration job) {
+    if (job != null && job.isSetTaskConfig()) {
+      configInterner.release(job.getTaskConfig().newBuilder(), key);
+    }
+  }
+
   @Timed("mem_storage_cron_save_accepted_job")
   @Override
   public void saveAcceptedJob(IJobConfiguration jobConfig) {
     IJobKey key = JobKeys.assertValid(jobConfig.getKey());
-    jobs.put(key, jobConfig);
+    // Release the replaced job's configuration before interning, as they may be the same.
+    release(key, jobs.get(key));
+    JobConfiguration builder = jobConfig.newBuilder();
+    if (builder.isSetTaskConfig()) {
+      builder.setTaskConfig(configInterner.intern(builder.getTaskConfig(), key));
+    }
+    jobs.put(key, IJobConfiguration.build(builder));
   }
 
   @Timed("mem_storage_cron_remove_job")
   @Override
   public void removeJob(IJobKey jobKey) {
-    jobs.remove(jobKey);
+    release(jobKey, jobs.remove(jobKey));
   }
 
   @Timed("mem_storage_cron_delete_jobs")
   @Override
   public void deleteJobs() {
-    jobs.clear();
+    for (IJobKey key : ImmutableSet.copyOf(jobs.keySet())) {
+      release(key, jobs.remove(key));
+    }
   }
 
   @Timed("mem_storage_cron_fetch_jobs")
@@ -14,10 +14,14 @@
 
 package org.apache.aurora.scheduler.storage.mem;
 
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -25,28 +29,35 @@ import java.util.stream.Stream;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
 import com.google.common.primitives.Longs;
 import com.google.inject.Inject;
 
 import org.apache.aurora.common.base.MorePreconditions;
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.gen.InstanceTaskConfig;
 import org.apache.aurora.gen.JobInstanceUpdateEvent;
 import org.apache.aurora.gen.JobUpdateDetails;
 import org.apache.aurora.gen.JobUpdateEvent;
+import org.apache.aurora.gen.JobUpdateInstructions;
 import org.apache.aurora.gen.JobUpdateState;
 import org.apache.aurora.scheduler.storage.JobUpdateStore;
 import org.apache.aurora.scheduler.storage.Storage.StorageException;
+import org.apache.aurora.scheduler.storage.entities.IInstanceTaskConfig;
 import org.apache.aurora.scheduler.storage.entities.IJobInstanceUpdateEvent;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdate;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateDetails;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateEvent;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateInstructions;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateKey;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateQuery;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateState;
 
 import static java.util.Objects.requireNonNull;
 
@@ -58,13 +69,89 @@ public class MemJobUpdateStore implements JobUpdateStore.Mutable {
       .reverse()
       .onResultOf(u -> u.getUpdate().getSummary().getState().getLastModifiedTimestampMs());
 
+  private static final Comparator<TerminalUpdate> CREATION_ORDER =
+      Comparator.<TerminalUpdate>comparingLong(u -> u.createdMs).thenComparingLong(u -> u.sequence);
+
   private final Map<IJobUpdateKey, IJobUpdateDetails> updates = Maps.newConcurrentMap();
+  private final TaskConfigInterner configInterner;
+
+  // Terminal updates indexed by creation time, overall and for each job, so that updates to prune
+  // are found without scanning all updates.
+  private final Map<IJobUpdateKey, TerminalUpdate> terminalUpdates = Maps.newHashMap();
+  private final NavigableSet<TerminalUpdate> terminalByAge = new TreeSet<>(CREATION_ORDER);
+  private final Map<IJobKey, NavigableSet<TerminalUpdate>> terminalByJob = Maps.newHashMap();
+  private long terminalSequence;
+
+  private static final class TerminalUpdate {
+    final IJobUpdateKey key;
+    final long createdMs;
+    final long sequence;
+
+    TerminalUpdate(IJobUpdateKey key, long createdMs, long sequence) {
+      this.key = key;
+      this.createdMs = createdMs;
+      this.sequence = sequence;
+    }
+  }
 
   @Inject
-  MemJobUpdateStore(StatsProvider statsProvider) {
+  MemJobUpdateStore(StatsProvider statsProvider, TaskConfigInterner configInterner) {
+    this.configInterner = requireNonNull(configInterner);
     statsProvider.makeGauge(UPDATE_STORE_SIZE, updates::size);
   }
 
+  /**
+   * Replaces the task configurations in an update with their canonical instances, and stores the
+   * update.
+   */
+  private void store(IJobUpdateKey key, JobUpdateDetails mutable) {
+    JobUpdateInstructions instructions = mutable.getUpdate().getInstructions();
+    if (instructions.isSetDesiredState()) {
+      InstanceTaskConfig desired = instructions.getDesiredState();
+      desired.setTask(configInterner.intern(desired.getTask(), key));
+    }
+    for (InstanceTaskConfig initial : instructions.getInitialState()) {
+      initial.setTask(configInterner.intern(initial.getTask(), key));
+    }
+    IJobUpdateDetails details = IJobUpdateDetails.build(mutable);
+    updates.put(key, details);
+    unindex(key);
+    IJobUpdateState state = details.getUpdate().getSummary().getState();
+    if (TERMINAL_STATES.contains(state.getStatus())) {
+      TerminalUpdate terminal =
+          new TerminalUpdate(key, state.getCreatedTimestampMs(), terminalSequence++);
+      terminalUpdates.put(key, terminal);
+      terminalByAge.add(terminal);
+      terminalByJob.computeIfAbsent(key.getJob(), k -> new TreeSet<>(CREATION_ORDER))
+          .add(terminal);
+    }
+  }
+
+  private void unindex(IJobUpdateKey key) {
+    TerminalUpdate terminal = terminalUpdates.remove(key);
+    if (terminal != null) {
+      terminalByAge.remove(terminal);
+      NavigableSet<TerminalUpdate> jobUpdates = terminalByJob.get(key.getJob());
+      jobUpdates.remove(terminal);
+      if (jobUpdates.isEmpty()) {
+        terminalByJob.remove(key.getJob());
+      }
+    }
+  }
+
+  private void release(IJobUpdateKey key, IJobUpdateDetails update) {
+    unindex(key);
+    if (update != null) {
+      IJobUpdateInstructions instructions = update.getUpdate().getInstructions();
+      if (instructions.isSetDesiredState()) {
+        configInterner.release(instructions.getDesiredState().getTask().newBuilder(), key);
+      }
+      for (IInstanceTaskConfig initial : instructions.getInitialState()) {
+        configInterner.release(initial.getTask().newBuilder(), key);
+      }
+    }
+  }
+
   @Timed("job_update_store_fetch_details_query")
   @Override
   public synchronized List<IJobUpdateDetails> fetchJobUpdates(IJobUpdateQuery query) {
@@ -77,6 +164,40 @@ public class MemJobUpdateStore implements JobUpdateStore.Mutable {
     return Optional.ofNullable(updates.get(key));
   }
 
+  @Timed("job_update_store_fetch_prunable")
+  @Override
+  public synchronized Set<IJobUpdateKey> fetchPrunableJobUpdates(
+      long createdBeforeMs,
+      int maxUpdatesPerJob,
+      Set<IJobKey> jobsWithTasks,
+      int limit) {
+
+    Set<IJobUpdateKey> prunable = Sets.newLinkedHashSet();
+    for (TerminalUpdate terminal : terminalByAge) {
+      if (terminal.createdMs >= createdBeforeMs || prunable.size() >= limit) {
+        break;
+      }
+      prunable.add(terminal.key);
+    }
+
+    // Expired updates are the oldest of each job, so are counted towards the updates to prune.
+    for (Map.Entry<IJobKey, NavigableSet<TerminalUpdate>> entry : terminalByJob.entrySet()) {
+      NavigableSet<TerminalUpdate> jobUpdates = entry.getValue();
+      int excess = jobsWithTasks.contains(entry.getKey())
+          ? jobUpdates.size() - maxUpdatesPerJob
+          : jobUpdates.size();
+      Iterator<TerminalUpdate> oldestFirst = jobUpdates.iterator();
+      for (int i = 0; i < excess && prunable.size() < limit; i++) {
+        prunable.add(oldestFirst.next().key);
+      }
+      if (prunable.size() >= limit) {
+        break;
+      }
+    }
+
+    return ImmutableSet.copyOf(prunable);
+  }
+
   private static void validateInstructions(IJobUpdateInstructions instructions) {
     if (!instructions.isSetDesiredState() && instructions.getInitialState().isEmpty()) {
       throw new IllegalArgumentException(
@@ -110,7 +231,10 @@ public class MemJobUpdateStore implements JobUpdateStore.Mutable {
         .setInstanceEvents(ImmutableList.of());
     mutable.getUpdate().getSummary().setState(synthesizeUpdateState(mutable));
 
-    updates.put(update.getSummary().getKey(), IJobUpdateDetails.build(mutable));
+    IJobUpdateKey key = update.getSummary().getKey();
+    // Release the replaced update's configurations before interning, as they may be the same.
+    release(key, updates.get(key));
+    store(key, mutable);
   }
 
   private static final Ordering<JobUpdateEvent> EVENT_ORDERING = Ordering.natural()
@@ -128,7 +252,7 @@ public class MemJobUpdateStore implements JobUpdateStore.Mutable {
     mutable.addToUpdateEvents(event.newBuilder());
     mutable.setUpdateEvents(EVENT_ORDERING.sortedCopy(mutable.getUpdateEvents()));
     mutable.getUpdate().getSummary().setState(synthesizeUpdateState(mutable));
-    updates.put(key, IJobUpdateDetails.build(mutable));
+    store(key, mutable);
   }
 
   private static final Ordering<JobInstanceUpdateEvent> INSTANCE_EVENT_ORDERING = Ordering.natural()
@@ -149,20 +273,24 @@ public class MemJobUpdateStore implements JobUpdateStore.Mutable {
     mutable.addToInstanceEvents(event.newBuilder());
     mutable.setInstanceEvents(INSTANCE_EVENT_ORDERING.sortedCopy(mutable.getInstanceEvents()));
     mutable.getUpdate().getSummary().setState(synthesizeUpdateState(mutable));
-    updates.put(key, IJobUpdateDetails.build(mutable));
+    store(key, mutable);
   }
 
   @Timed("job_update_store_delete_updates")
   @Override
   public synchronized void removeJobUpdates(Set<IJobUpdateKey> key) {
     requireNonNull(key);
-    updates.keySet().removeAll(key);
+    for (IJobUpdateKey updateKey : key) {
+      release(updateKey, updates.remove(updateKey));
+    }
   }
 
   @Timed("job_update_store_delete_all")
   @Override
   public synchronized void deleteAllUpdates() {
-    updates.clear();
+    for (IJobUpdateKey key : ImmutableList.copyOf(updates.keySet())) {
+      release(key, updates.remove(key));
+    }
   }
 
   private static JobUpdateState synthesizeUpdateState(JobUpdateDetails update) {
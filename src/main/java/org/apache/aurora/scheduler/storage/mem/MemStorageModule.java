@@ -71,6 +71,7 @@ public final class MemStorageModule extends PrivateModule {
   protected void configure() {
     bind(new TypeLiteral<Amount<Long, Time>>() { }).annotatedWith(SlowQueryThreshold.class)
         .toInstance(Amount.of(25L, Time.MILLISECONDS));
+    bind(TaskConfigInterner.class).in(Singleton.class);
     bindStore(TaskStore.Mutable.class, MemTaskStore.class);
     bindStore(CronJobStore.Mutable.class, MemCronJobStore.class);
     bindStore(AttributeStore.Mutable.class, MemAttributeStore.class);
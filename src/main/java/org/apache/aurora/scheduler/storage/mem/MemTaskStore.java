@@ -37,6 +37,8 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -48,6 +50,7 @@ import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.gen.TaskEvent;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
@@ -59,6 +62,8 @@ import org.slf4j.LoggerFactory;
 
 import static java.util.Objects.requireNonNull;
 
+import static org.apache.aurora.GuavaUtils.toImmutableSet;
+
 /**
  * An in-memory task store.
  */
@@ -83,6 +88,9 @@ class MemTaskStore implements TaskStore.Mutable {
           ? Optional.empty()
           : Optional.of(query.get().getSlaveHosts());
 
+  // Transition messages and scheduler host names repeat across the event histories of many tasks.
+  private static final Interner<String> EVENT_STRINGS = Interners.newWeakInterner();
+
   // Since this class operates under the API and umbrella of {@link Storage}, it is expected to be
   // thread-safe but not necessarily strongly-consistent unless the externally-controlled storage
   // lock is secured.  To adhere to that, these data structures are individually thread-safe, but
@@ -95,10 +103,13 @@ class MemTaskStore implements TaskStore.Mutable {
   private final Map<String, Task> tasks = Maps.newConcurrentMap();
   private final SecondaryIndex<IJobKey> jobIndex;
   private final List<SecondaryIndex<?>> secondaryIndices;
+  // Whether the secondary indices are maintained as tasks change, which they are not during a bulk
+  // load.
+  private volatile boolean indexed = true;
   // An interner is used here to collapse equivalent TaskConfig instances into canonical instances.
   // Ideally this would fall out of the object hierarchy (TaskConfig being associated with the job
   // rather than the task), but we intuit this detail here for performance reasons.
-  private final Interner<TaskConfig, String> configInterner = new Interner<>();
+  private final TaskConfigInterner configInterner;
 
   private final AtomicLong taskQueriesById;
   private final AtomicLong taskQueriesAll;
@@ -106,8 +117,11 @@ class MemTaskStore implements TaskStore.Mutable {
   @Inject
   MemTaskStore(
       StatsProvider statsProvider,
+      TaskConfigInterner configInterner,
       @SlowQueryThreshold Amount<Long, Time> slowQueryThreshold) {
 
+    this.configInterner = requireNonNull(configInterner);
+
     jobIndex = new SecondaryIndex<>(Tasks::getJob, QUERY_TO_JOB_KEY, statsProvider, "job");
     secondaryIndices = ImmutableList.of(
         jobIndex,
@@ -151,10 +165,31 @@ class MemTaskStore implements TaskStore.Mutable {
   @Timed("mem_storage_get_job_keys")
   @Override
   public Set<IJobKey> getJobKeys() {
+    if (!indexed) {
+      return tasks.values().stream()
+          .map(task -> Tasks.getJob(task.storedTask))
+          .collect(toImmutableSet());
+    }
     return jobIndex.keySet();
   }
 
-  private final Function<IScheduledTask, Task> toTask = task -> new Task(task, configInterner);
+  private static TaskConfig config(IScheduledTask task) {
+    return task.getAssignedTask().getTask().newBuilder();
+  }
+
+  private void release(IScheduledTask task) {
+    configInterner.release(config(task), Tasks.id(task));
+  }
+
+  private Task toTask(IScheduledTask task) {
+    // Release the configuration of any task being replaced before interning, as the replacement
+    // may share the same configuration.
+    Task existing = tasks.get(Tasks.id(task));
+    if (existing != null) {
+      release(existing.storedTask);
+    }
+    return new Task(task, configInterner);
+  }
 
   @Timed("mem_storage_save_tasks")
   @Override
@@ -163,21 +198,26 @@ class MemTaskStore implements TaskStore.Mutable {
     Preconditions.checkState(Tasks.ids(newTasks).size() == newTasks.size(),
         "Proposed new tasks would create task ID collision.");
 
-    Iterable<Task> canonicalized = Iterables.transform(newTasks, toTask);
+    List<Task> canonicalized = ImmutableList.copyOf(Iterables.transform(newTasks, this::toTask));
     tasks.putAll(Maps.uniqueIndex(canonicalized, task -> Tasks.id(task.storedTask)));
-    for (SecondaryIndex<?> index : secondaryIndices) {
-      index.insert(Iterables.transform(canonicalized, task -> task.storedTask));
+    if (indexed) {
+      for (SecondaryIndex<?> index : secondaryIndices) {
+        index.insert(Iterables.transform(canonicalized, task -> task.storedTask));
+      }
     }
   }
 
   @Timed("mem_storage_delete_all_tasks")
   @Override
   public void deleteAllTasks() {
+    // The interner is shared with other stores, so only the references held by tasks are released.
+    for (Task task : tasks.values()) {
+      release(task.storedTask);
+    }
     tasks.clear();
     for (SecondaryIndex<?> index : secondaryIndices) {
       index.clear();
     }
-    configInterner.clear();
   }
 
   @Timed("mem_storage_delete_tasks")
@@ -188,12 +228,12 @@ class MemTaskStore implements TaskStore.Mutable {
     for (String id : taskIds) {
       Task removed = tasks.remove(id);
       if (removed != null) {
-        for (SecondaryIndex<?> index : secondaryIndices) {
-          index.remove(removed.storedTask);
+        if (indexed) {
+          for (SecondaryIndex<?> index : secondaryIndices) {
+            index.remove(removed.storedTask);
+          }
         }
-        configInterner.removeAssociation(
-            removed.storedTask.getAssignedTask().getTask().newBuilder(),
-            id);
+        release(removed.storedTask);
       }
     }
   }
@@ -211,15 +251,33 @@ class MemTaskStore implements TaskStore.Mutable {
         Preconditions.checkState(
             Tasks.id(original).equals(Tasks.id(maybeMutated)),
             "A task's ID may not be mutated.");
-        tasks.put(Tasks.id(maybeMutated), toTask.apply(maybeMutated));
-        for (SecondaryIndex<?> index : secondaryIndices) {
-          index.replace(original, maybeMutated);
+        tasks.put(Tasks.id(maybeMutated), toTask(maybeMutated));
+        if (indexed) {
+          for (SecondaryIndex<?> index : secondaryIndices) {
+            index.replace(original, maybeMutated);
+          }
         }
       }
       return maybeMutated;
     });
   }
 
+  @Timed("mem_storage_bulk_load")
+  @Override
+  public void bulkLoad(Runnable work) {
+    requireNonNull(work);
+
+    indexed = false;
+    try {
+      work.run();
+    } finally {
+      for (SecondaryIndex<?> index : secondaryIndices) {
+        index.rebuild(Iterables.transform(tasks.values(), task -> task.storedTask));
+      }
+      indexed = true;
+    }
+  }
+
   private Collection<IScheduledTask> fromIdIndex(
       Iterable<String> taskIds,
       Predicate<IScheduledTask> filter) {
@@ -237,13 +295,15 @@ class MemTaskStore implements TaskStore.Mutable {
   private Collection<IScheduledTask> matches(Query.Builder query) {
     Predicate<IScheduledTask> filter = Util.queryFilter(query);
     if (query.get().getTaskIds().isEmpty()) {
-      for (SecondaryIndex<?> index : secondaryIndices) {
-        Optional<Iterable<String>> indexMatch = index.getMatches(query);
-        if (indexMatch.isPresent()) {
-          // Note: we could leverage multiple indexes here if the query applies to them, by
-          // choosing to intersect the results.  Given current indexes and query profile, this is
-          // unlikely to offer much improvement, though.
-          return fromIdIndex(indexMatch.get(), filter);
+      if (indexed) {
+        for (SecondaryIndex<?> index : secondaryIndices) {
+          Optional<Iterable<String>> indexMatch = index.getMatches(query);
+          if (indexMatch.isPresent()) {
+            // Note: we could leverage multiple indexes here if the query applies to them, by
+            // choosing to intersect the results.  Given current indexes and query profile, this
+            // is unlikely to offer much improvement, though.
+            return fromIdIndex(indexMatch.get(), filter);
+          }
         }
       }
 
@@ -265,15 +325,20 @@ class MemTaskStore implements TaskStore.Mutable {
   private static class Task {
     private final IScheduledTask storedTask;
 
-    Task(IScheduledTask storedTask, Interner<TaskConfig, String> interner) {
-      interner.removeAssociation(
-          storedTask.getAssignedTask().getTask().newBuilder(),
-          Tasks.id(storedTask));
-      TaskConfig canonical = interner.addAssociation(
-          storedTask.getAssignedTask().getTask().newBuilder(),
-          Tasks.id(storedTask));
+    Task(IScheduledTask storedTask, TaskConfigInterner interner) {
+      TaskConfig canonical = interner.intern(config(storedTask), Tasks.id(storedTask));
       ScheduledTask builder = storedTask.newBuilder();
       builder.getAssignedTask().setTask(canonical);
+      if (builder.isSetTaskEvents()) {
+        for (TaskEvent event : builder.getTaskEvents()) {
+          if (event.isSetMessage()) {
+            event.setMessage(EVENT_STRINGS.intern(event.getMessage()));
+          }
+          if (event.isSetScheduler()) {
+            event.setScheduler(EVENT_STRINGS.intern(event.getScheduler()));
+          }
+        }
+      }
       this.storedTask = IScheduledTask.build(builder);
     }
 
@@ -358,6 +423,25 @@ class MemTaskStore implements TaskStore.Mutable {
       index.clear();
     }
 
+    /**
+     * Replaces the contents of the index with the keys of the provided tasks.
+     *
+     * @param tasks All tasks in the store.
+     */
+    void rebuild(Iterable<IScheduledTask> tasks) {
+      Multimap<K, String> rebuilt = HashMultimap.create();
+      for (IScheduledTask task : tasks) {
+        K key = indexer.apply(task);
+        if (key != null) {
+          rebuilt.put(key, Tasks.id(task));
+        }
+      }
+      synchronized (index) {
+        index.clear();
+        index.putAll(rebuilt);
+      }
+    }
+
     void remove(IScheduledTask task) {
       K key = indexer.apply(task);
       if (key != null) {
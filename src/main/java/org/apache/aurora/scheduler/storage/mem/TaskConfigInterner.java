@@ -0,0 +1,71 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.mem;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.gen.TaskConfig;
+
+/**
+ * A pool of canonical {@link TaskConfig} instances shared by all of the in-memory stores, so that
+ * tasks, cron jobs and job updates with equivalent configurations reference a single copy of the
+ * configuration's fields.
+ * <p>
+ * Each canonical instance is reference counted by its owners, and is evicted once its last owner
+ * releases it. Owners are compared by equality, so owners of different stores must be of
+ * different types: task IDs for tasks, job keys for cron jobs and update keys for job updates.
+ */
+class TaskConfigInterner {
+  @VisibleForTesting
+  static final String UNIQUE_CONFIGS = "mem_storage_task_config_unique";
+  @VisibleForTesting
+  static final String CONFIG_REFERENCES = "mem_storage_task_config_references";
+
+  private final Interner<TaskConfig, Object> interner = new Interner<>();
+
+  @Inject
+  TaskConfigInterner(StatsProvider statsProvider) {
+    statsProvider.makeGauge(UNIQUE_CONFIGS, interner::size);
+    statsProvider.makeGauge(CONFIG_REFERENCES, interner::getAssociationCount);
+  }
+
+  /**
+   * Gets the canonical instance of a configuration, and records that it is referenced by an owner.
+   *
+   * @param config Configuration to intern.
+   * @param owner Owner of the configuration.
+   * @return The canonical instance, which may be {@code config} itself.
+   */
+  TaskConfig intern(TaskConfig config, Object owner) {
+    return interner.addAssociation(config, owner);
+  }
+
+  /**
+   * Releases an owner's reference to a configuration.
+   *
+   * @param config Configuration that was interned for the owner.
+   * @param owner Owner of the configuration.
+   */
+  void release(TaskConfig config, Object owner) {
+    interner.removeAssociation(config, owner);
+  }
+
+  @VisibleForTesting
+  boolean isInterned(TaskConfig config) {
+    return interner.isInterned(config);
+  }
+}
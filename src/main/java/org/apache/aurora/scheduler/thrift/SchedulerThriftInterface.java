@@ -484,17 +484,15 @@ class SchedulerThriftInterface implements AnnotatedAuroraAdmin {
 
       LOG.info("Killing tasks matching " + query);
 
-      int tasksKilled = 0;
-      for (String taskId : Tasks.ids(tasks)) {
-        if (StateChangeResult.SUCCESS == stateManager.changeState(
-            storeProvider,
-            taskId,
-            Optional.empty(),
-            ScheduleStatus.KILLING,
-            auditMessages.killedByRemoteUser(Optional.ofNullable(message)))) {
-          ++tasksKilled;
-        }
-      }
+      Map<String, StateChangeResult> results = stateManager.changeStates(
+          storeProvider,
+          Tasks.ids(tasks),
+          Optional.empty(),
+          ScheduleStatus.KILLING,
+          auditMessages.killedByRemoteUser(Optional.ofNullable(message)));
+      int tasksKilled = (int) results.values().stream()
+          .filter(result -> result == StateChangeResult.SUCCESS)
+          .count();
       killTasksCounter.addAndGet(tasksKilled);
 
       return tasksKilled > 0
@@ -522,14 +520,12 @@ class SchedulerThriftInterface implements AnnotatedAuroraAdmin {
       }
 
       LOG.info("Restarting shards matching " + query);
-      for (String taskId : Tasks.ids(matchingTasks)) {
-        stateManager.changeState(
-            storeProvider,
-            taskId,
-            Optional.empty(),
-            ScheduleStatus.RESTARTING,
-            auditMessages.restartedByRemoteUser());
-      }
+      stateManager.changeStates(
+          storeProvider,
+          Tasks.ids(matchingTasks),
+          Optional.empty(),
+          ScheduleStatus.RESTARTING,
+          auditMessages.restartedByRemoteUser());
       restartShardsCounter.addAndGet(shardIds.size());
 
       return ok();
@@ -56,6 +56,7 @@ import org.apache.aurora.scheduler.SchedulerModule.TaskEventBatchWorker;
 import org.apache.aurora.scheduler.base.InstanceKeys;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.quota.QuotaLedger;
 import org.apache.aurora.scheduler.state.StateManager;
 import org.apache.aurora.scheduler.storage.JobUpdateStore;
 import org.apache.aurora.scheduler.storage.Storage;
@@ -131,6 +132,7 @@ class JobUpdateControllerImpl implements JobUpdateController {
   private final TaskEventBatchWorker taskEventBatchWorker;
   private final UpdateAgentReserver updateAgentReserver;
   private final SlaKillController slaKillController;
+  private final Optional<QuotaLedger> quotaLedger;
 
   // Currently-active updaters. An active updater is one that is rolling forward or back. Paused
   // and completed updates are represented only in storage, not here.
@@ -155,7 +157,8 @@ class JobUpdateControllerImpl implements JobUpdateController {
       Lifecycle lifecycle,
       TaskEventBatchWorker taskEventBatchWorker,
       StatsProvider statsProvider,
-      SlaKillController slaKillController) {
+      SlaKillController slaKillController,
+      Optional<QuotaLedger> quotaLedger) {
 
     this.updateFactory = requireNonNull(updateFactory);
     this.storage = requireNonNull(storage);
@@ -167,6 +170,7 @@ class JobUpdateControllerImpl implements JobUpdateController {
     this.pulseHandler = new PulseHandler(clock);
     this.updateAgentReserver = requireNonNull(updateAgentReserver);
     this.slaKillController = requireNonNull(slaKillController);
+    this.quotaLedger = requireNonNull(quotaLedger);
 
     this.jobUpdateEventStats = CacheBuilder.newBuilder()
         .build(new CacheLoader<JobUpdateStatus, AtomicLong>() {
@@ -564,6 +568,8 @@ class JobUpdateControllerImpl implements JobUpdateController {
           key,
           IJobUpdateEvent.build(proposedEvent.setTimestampMs(clock.nowMillis()).setStatus(status)));
       jobUpdateEventStats.getUnchecked(status).incrementAndGet();
+      // The quota consumption of an update depends on its status.
+      quotaLedger.ifPresent(ledger -> ledger.invalidate(key.getJob()));
     }
 
     if (JobUpdateStore.TERMINAL_STATES.contains(status)) {
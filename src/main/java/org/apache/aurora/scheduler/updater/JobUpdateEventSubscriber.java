@@ -22,6 +22,7 @@ import com.google.inject.Inject;
 import org.apache.aurora.common.stats.Stats;
 import org.apache.aurora.scheduler.base.InstanceKeys;
 import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.EventDispatcher.CoalesceByTask;
 import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.slf4j.Logger;
@@ -51,6 +52,7 @@ class JobUpdateEventSubscriber extends AbstractIdleService implements PubsubEven
   }
 
   @Subscribe
+  @CoalesceByTask
   public void taskChangedState(TaskStateChange change) {
     try {
       controller.instanceChangedState(change.getTask());
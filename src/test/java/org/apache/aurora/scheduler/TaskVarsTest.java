@@ -359,8 +359,7 @@ public class TaskVarsTest extends EasyMockTest {
   @Test
   public void testRackMissing() {
     expectStatusCountersInitialized();
-    expect(storageUtil.attributeStore.getHostAttributes("a"))
-        .andReturn(Optional.empty());
+    // Rack and dedicated counters are resolved from a single attribute lookup.
     expect(storageUtil.attributeStore.getHostAttributes("a"))
         .andReturn(Optional.empty());
 
@@ -228,7 +228,7 @@ public class SchedulerIT extends BaseZooKeeperTest {
         ImmutableList.<Module>builder()
             .add(SchedulerMain.getUniversalModule(new CliOptions()))
             .add(new TierModule(TaskTestUtil.TIER_CONFIG))
-            .add(new DurableStorageModule())
+            .add(new DurableStorageModule(new DurableStorageModule.Options()))
             .add(new LogPersistenceModule(new LogPersistenceModule.Options()))
             .add(new SnapshotModule(new SnapshotModule.Options()))
             .add(new ServiceDiscoveryModule(zkClientConfig, SERVERSET_PATH))
@@ -45,9 +45,11 @@ import org.apache.aurora.scheduler.app.MoreModules;
 import org.apache.aurora.scheduler.app.SchedulerMain.Options.DriverKind;
 import org.apache.aurora.scheduler.config.types.DataAmount;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.cron.quartz.CronEngineType;
 import org.apache.aurora.scheduler.http.api.security.HttpSecurityModule.Options.HttpAuthenticationMechanism;
 import org.apache.aurora.scheduler.http.api.security.ShiroIniConverterTest;
 import org.apache.aurora.scheduler.offers.OfferOrder;
+import org.apache.aurora.scheduler.offers.PlacementStrategy;
 import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCategory;
 import org.apache.shiro.authc.credential.AllowAllCredentialsMatcher;
 import org.apache.shiro.config.Ini;
@@ -124,6 +126,9 @@ public class CommandLineTest {
     expected.offer.unavailabilityThreshold = TEST_TIME;
     expected.offer.offerOrder = ImmutableList.of(OfferOrder.CPU, OfferOrder.DISK);
     expected.offer.offerSetModule = NoopModule.class;
+    expected.offer.offerPlacementStrategy = PlacementStrategy.WORST_FIT;
+    expected.offer.offerFragmentationWeight = 42.0;
+    expected.offer.offerPlacementCandidates = 42;
     expected.executor.customExecutorConfig = tempFile;
     expected.executor.thermosExecutorPath = "testing";
     expected.executor.thermosExecutorResources = ImmutableList.of("testing");
@@ -160,6 +165,10 @@ public class CommandLineTest {
     expected.scheduling.reservationDuration = TEST_TIME;
     expected.scheduling.schedulingMaxBatchSize = 42;
     expected.scheduling.maxTasksPerScheduleAttempt = 42;
+    expected.scheduling.maxTasksPerOffer = 42;
+    expected.scheduling.enableFairShareScheduling = true;
+    expected.scheduling.schedulingThreads = 42;
+    expected.scheduling.productionSchedulingWeight = 42;
     expected.async.asyncWorkerThreads = 42;
     expected.zk.inProcess = true;
     expected.zk.zkEndpoints = ImmutableList.of(InetSocketAddress.createUnresolved("testing", 42));
@@ -173,18 +182,31 @@ public class CommandLineTest {
     expected.updater.slaAwareKillRetryMinDelay = new TimeAmount(42, Time.DAYS);
     expected.updater.slaAwareKillRetryMaxDelay = new TimeAmount(42, Time.DAYS);
     expected.state.taskAssignerModules = ImmutableList.of(NoopModule.class);
+    expected.state.maxTaskEvents = 42;
     expected.snapshot.snapshotInterval = TEST_TIME;
     expected.logPersistence.maxLogEntrySize = TEST_DATA;
+    expected.logPersistence.compactTaskEvents = true;
+    expected.logPersistence.decodeThreads = 42;
+    expected.durableStorage.enableWarmStandby = true;
+    expected.durableStorage.warmStandbyPollInterval = TEST_TIME;
+    expected.durableStorage.recoveryThreads = 42;
     expected.backup.backupInterval = TEST_TIME;
     expected.backup.maxSavedBackups = 42;
     expected.backup.backupDir = new File("testing");
+    expected.backup.enableIndexedBackups = true;
+    expected.backup.incrementalBackupsPerFull = 42;
     expected.aop.methodInterceptorModules = ImmutableList.of(NoopModule.class);
     expected.pruning.historyPruneThreshold = TEST_TIME;
     expected.pruning.historyMaxPerJobThreshold = 42;
     expected.pruning.historyMinRetentionThreshold = TEST_TIME;
+    expected.pruning.enableBucketedHistoryPruning = true;
+    expected.pruning.historyPruneSweepInterval = TEST_TIME;
+    expected.pruning.historyPruneBatchSize = 42;
     expected.pruning.jobUpdateHistoryPerJobThreshold = 42;
     expected.pruning.jobUpdateHistoryPruningInterval = TEST_TIME;
     expected.pruning.jobUpdateHistoryPruningThreshold = TEST_TIME;
+    expected.pruning.jobUpdateHistoryPruningBatchSize = 42;
+    expected.pruning.jobUpdateHistoryPruningBatchInterval = TEST_TIME;
     expected.driver.mesosMasterAddress = "testing";
     expected.driver.frameworkAuthenticationFile = new File("testing");
     expected.driver.frameworkFailoverTimeout = TEST_TIME;
@@ -242,7 +264,11 @@ public class CommandLineTest {
     expected.sla.slaNonProdMetrics = ImmutableList.of(MetricCategory.JOB_UPTIMES);
     expected.sla.slaRefreshInterval = TEST_TIME;
     expected.sla.slaAwareKillNonProd = true;
+    expected.sla.enableSlaStateCache = true;
+    expected.sla.slaStateCacheMaxAge = TEST_TIME;
     expected.webhook.webhookConfigFile = tempFile;
+    expected.events.enableEventDispatcher = true;
+    expected.events.eventDispatcherQueueLimit = 42;
     expected.scheduler.maxRegistrationDelay = TEST_TIME;
     expected.scheduler.maxLeadingDuration = TEST_TIME;
     expected.scheduler.maxStatusUpdateBatchSize = 42;
@@ -252,14 +278,21 @@ public class CommandLineTest {
     expected.asyncStats.slotStatInterval = TEST_TIME;
     expected.stats.samplingInterval = TEST_TIME;
     expected.stats.retentionPeriod = TEST_TIME;
+    expected.stats.downsampledSamplingInterval = TEST_TIME;
+    expected.stats.downsampledRetentionPeriod = TEST_TIME;
+    expected.cron.cronEngine = CronEngineType.TIMING_WHEEL;
     expected.cron.cronSchedulerNumThreads = 42;
     expected.cron.cronTimezone = "testing";
     expected.cron.cronStartInitialBackoff = TEST_TIME;
     expected.cron.cronStartMaxBackoff = TEST_TIME;
     expected.cron.cronMaxBatchSize = 42;
+    expected.cron.cronPrewarmWindow = TEST_TIME;
     expected.resourceSettings.enableRevocableCpus = false;
     expected.resourceSettings.enableRevocableRam = true;
     expected.maintenance.hostMaintenancePollingInterval = TEST_TIME;
+    expected.maintenance.enableDrainPlanner = true;
+    expected.quota.enableQuotaLedger = true;
+    expected.quota.quotaLedgerVerificationInterval = TEST_TIME;
 
     assertAllNonDefaultParameters(expected);
 
@@ -280,6 +313,9 @@ public class CommandLineTest {
         "-offer_order=CPU,DISK",
         "-offer_set_module=org.apache.aurora.scheduler.config.CommandLineTest$NoopModule",
         "-offer_static_ban_cache_max_size=42",
+        "-offer_placement_strategy=WORST_FIT",
+        "-offer_fragmentation_weight=42",
+        "-offer_placement_candidates=42",
         "-custom_executor_config=" + tempFile.getAbsolutePath(),
         "-thermos_executor_path=testing",
         "-thermos_executor_resources=testing",
@@ -315,6 +351,10 @@ public class CommandLineTest {
         "-offer_reservation_duration=42days",
         "-scheduling_max_batch_size=42",
         "-max_tasks_per_schedule_attempt=42",
+        "-max_tasks_per_offer=42",
+        "-enable_fair_share_scheduling=true",
+        "-scheduling_threads=42",
+        "-production_scheduling_weight=42",
         "-async_worker_threads=42",
         "-zk_in_proc=true",
         "-zk_endpoints=testing:42",
@@ -331,17 +371,29 @@ public class CommandLineTest {
         "-task_assigner_modules=org.apache.aurora.scheduler.config.CommandLineTest$NoopModule",
         "-dlog_snapshot_interval=42days",
         "-dlog_max_entry_size=42GB",
+        "-dlog_compact_task_events=true",
+        "-enable_warm_standby=true",
+        "-warm_standby_poll_interval=42days",
+        "-dlog_decode_threads=42",
+        "-storage_recovery_threads=42",
         "-backup_interval=42days",
         "-max_saved_backups=42",
         "-backup_dir=testing",
+        "-enable_indexed_backups=true",
+        "-incremental_backups_per_full=42",
         "-thrift_method_interceptor_modules="
             + "org.apache.aurora.scheduler.config.CommandLineTest$NoopModule",
         "-history_prune_threshold=42days",
         "-history_max_per_job_threshold=42",
         "-history_min_retention_threshold=42days",
+        "-enable_bucketed_history_pruning=true",
+        "-history_prune_sweep_interval=42days",
+        "-history_prune_batch_size=42",
         "-job_update_history_per_job_threshold=42",
         "-job_update_history_pruning_interval=42days",
         "-job_update_history_pruning_threshold=42days",
+        "-job_update_history_pruning_batch_size=42",
+        "-job_update_history_pruning_batch_interval=42days",
         "-mesos_master_address=testing",
         "-framework_authentication_file=testing",
         "-framework_failover_timeout=42days",
@@ -382,28 +434,40 @@ public class CommandLineTest {
         "-sla_prod_metrics=JOB_UPTIMES",
         "-sla_non_prod_metrics=JOB_UPTIMES",
         "-webhook_config=" + tempFile.getAbsolutePath(),
+        "-enable_event_dispatcher=true",
+        "-event_dispatcher_queue_limit=42",
         "-max_registration_delay=42days",
         "-max_leading_duration=42days",
         "-max_status_update_batch_size=42",
         "-max_task_event_batch_size=42",
+        "-max_task_events=42",
         "-tier_config=" + tempFile.getAbsolutePath(),
         "-async_task_stat_update_interval=42days",
         "-async_slot_stat_update_interval=42days",
         "-stat_sampling_interval=42days",
         "-stat_retention_period=42days",
+        "-stat_downsampled_sampling_interval=42days",
+        "-stat_downsampled_retention_period=42days",
+        "-cron_engine=TIMING_WHEEL",
         "-cron_scheduler_num_threads=42",
         "-cron_timezone=testing",
         "-cron_start_initial_backoff=42days",
         "-cron_start_max_backoff=42days",
         "-cron_scheduling_max_batch_size=42",
+        "-cron_prewarm_window=42days",
         "-enable_revocable_cpus=false",
         "-enable_revocable_ram=true",
         "-partition_aware=true",
         "-sla_coordinator_timeout=42days",
         "-host_maintenance_polling_interval=42days",
+        "-enable_drain_planner=true",
         "-max_parallel_coordinated_maintenance=42",
         "-min_required_instances_for_sla_check=42",
-        "-max_sla_duration_secs=42days"
+        "-max_sla_duration_secs=42days",
+        "-enable_sla_state_cache=true",
+        "-sla_state_cache_max_age=42days",
+        "-enable_quota_ledger=true",
+        "-quota_ledger_verification_interval=42days"
     );
     assertEqualOptions(expected, parsed);
   }
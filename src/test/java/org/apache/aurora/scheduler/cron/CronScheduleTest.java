@@ -0,0 +1,101 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.TimeZone;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class CronScheduleTest {
+  private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+  private static final ZoneId LOS_ANGELES = ZoneId.of("America/Los_Angeles");
+
+  private static long nextFireTime(String schedule, TimeZone timeZone, long afterMs) {
+    OptionalLong next =
+        CronSchedule.of(CrontabEntry.parse(schedule), timeZone).nextFireTimeAfter(afterMs);
+    return next.getAsLong();
+  }
+
+  private static long localTime(int year, int month, int day, int hour, int minute) {
+    return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, LOS_ANGELES)
+        .toInstant()
+        .toEpochMilli();
+  }
+
+  @Test
+  public void testConformsToExpectedPredictions() {
+    for (ExpectedPrediction prediction : ExpectedPrediction.getAll()) {
+      CronSchedule schedule = CronSchedule.of(prediction.parseCrontabEntry(), GMT);
+      List<Long> results = Lists.newArrayList();
+      long nowMs = 0;
+      for (int i = 0; i < prediction.getTriggerTimes().size(); i++) {
+        nowMs = schedule.nextFireTimeAfter(nowMs).getAsLong();
+        results.add(nowMs);
+      }
+      assertEquals(
+          "Cron schedule " + prediction.getSchedule() + " made unexpected predictions.",
+          prediction.getTriggerTimes(),
+          results);
+    }
+  }
+
+  @Test
+  public void testNextFireTimeIsStrictlyAfter() {
+    assertEquals(60000L, nextFireTime("* * * * *", GMT, 0));
+    assertEquals(60000L, nextFireTime("* * * * *", GMT, 59999));
+    assertEquals(120000L, nextFireTime("* * * * *", GMT, 60000));
+  }
+
+  @Test
+  public void testSkippedLocalTimeFiresAfterTransition() {
+    // 02:30 does not exist on 2021-03-14 in Los Angeles, as clocks move from 02:00 to 03:00.
+    TimeZone timeZone = TimeZone.getTimeZone(LOS_ANGELES);
+    assertEquals(
+        localTime(2021, 3, 14, 3, 30),
+        nextFireTime("30 2 * * *", timeZone, localTime(2021, 3, 14, 0, 0)));
+  }
+
+  @Test
+  public void testRepeatedLocalTimeFiresOnce() {
+    // 01:30 occurs twice on 2021-11-07 in Los Angeles, as clocks move from 02:00 back to 01:00.
+    TimeZone timeZone = TimeZone.getTimeZone(LOS_ANGELES);
+    long first = nextFireTime("30 1 * * *", timeZone, localTime(2021, 11, 7, 0, 0));
+    assertEquals(localTime(2021, 11, 7, 1, 30), first);
+    assertEquals(localTime(2021, 11, 8, 1, 30), nextFireTime("30 1 * * *", timeZone, first));
+  }
+
+  @Test
+  public void testDayOfWeek() {
+    // The epoch was a Thursday.
+    assertEquals(
+        3 * 24 * 60 * 60 * 1000L,
+        nextFireTime("0 0 * * SUN", GMT, 0));
+  }
+
+  @Test
+  public void testNeverFires() {
+    assertFalse(CronSchedule.of(CrontabEntry.parse("0 0 31 2 *"), GMT)
+        .nextFireTimeAfter(0)
+        .isPresent());
+  }
+}
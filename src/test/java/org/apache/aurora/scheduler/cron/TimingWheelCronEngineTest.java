@@ -0,0 +1,315 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TimeZone;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.junit.Assert.assertEquals;
+
+public class TimingWheelCronEngineTest extends EasyMockTest {
+  private static final CrontabEntry EVERY_MINUTE = CrontabEntry.parse("* * * * *");
+  private static final long MINUTE_MS = 60000;
+  private static final IJobKey JOB_KEY = JobKeys.from("role", "env", "job");
+  private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+
+  private TimingWheelCronEngine.Trigger trigger;
+  private ScheduledExecutorService ticker;
+  private FakeClock clock;
+  private FakeStatsProvider statsProvider;
+  private TimingWheelCronEngine engine;
+
+  @Before
+  public void setUp() {
+    trigger = createMock(TimingWheelCronEngine.Trigger.class);
+    ticker = createMock(ScheduledExecutorService.class);
+    clock = new FakeClock();
+    statsProvider = new FakeStatsProvider();
+    engine = newEngine(TimeZone.getTimeZone("GMT"));
+  }
+
+  private TimingWheelCronEngine newEngine(TimeZone timeZone) {
+    return new TimingWheelCronEngine(
+        trigger,
+        timeZone,
+        clock,
+        ticker,
+        MoreExecutors.newDirectExecutorService(),
+        statsProvider);
+  }
+
+  private static long utcTime(int year, int month, int day, int hour, int minute) {
+    return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZoneId.of("UTC"))
+        .toInstant()
+        .toEpochMilli();
+  }
+
+  private void expectTrigger(long fireTimeMs) throws Exception {
+    trigger.fire(eq(JOB_KEY), eq(fireTimeMs), anyObject());
+  }
+
+  private void advanceAndTick(long ms) {
+    clock.advance(Amount.of(ms, Time.MILLISECONDS));
+    engine.tick();
+  }
+
+  private long misfires() {
+    return statsProvider.getLongValue(TimingWheelCronEngine.CRON_TRIGGER_MISFIRES);
+  }
+
+  @Test
+  public void testStart() {
+    clock.setNowMillis(1500);
+    expect(ticker.scheduleAtFixedRate(
+        anyObject(Runnable.class),
+        eq(500L),
+        eq(TimingWheelCronEngine.TICK_MS),
+        eq(TimeUnit.MILLISECONDS)))
+        .andReturn(null);
+
+    control.replay();
+
+    engine.start();
+  }
+
+  @Test
+  public void testFiresOnSchedule() throws Exception {
+    expectTrigger(MINUTE_MS);
+    expectTrigger(2 * MINUTE_MS);
+
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+    advanceAndTick(MINUTE_MS - 1);
+    advanceAndTick(1);
+    advanceAndTick(MINUTE_MS - 1);
+    advanceAndTick(1);
+    assertEquals(0L, misfires());
+  }
+
+  @Test
+  public void testMisfire() throws Exception {
+    // Missed fire times trigger once, when the engine catches up.
+    expectTrigger(MINUTE_MS);
+
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+    advanceAndTick(10 * MINUTE_MS);
+    assertEquals(1L, misfires());
+  }
+
+  @Test
+  public void testQueuesOverlappingTrigger() throws Exception {
+    expectTrigger(MINUTE_MS);
+    expectLastCall().andAnswer(() -> {
+      // Fire the next minute while this trigger is still running.
+      advanceAndTick(MINUTE_MS);
+      return null;
+    });
+    expectTrigger(2 * MINUTE_MS);
+
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+    advanceAndTick(MINUTE_MS);
+    assertEquals(0L, misfires());
+  }
+
+  @Test
+  public void testCoalescesOverlappingTriggers() throws Exception {
+    expectTrigger(MINUTE_MS);
+    expectLastCall().andAnswer(() -> {
+      // Fire the next two minutes while this trigger is still running.
+      advanceAndTick(MINUTE_MS);
+      advanceAndTick(MINUTE_MS);
+      return null;
+    });
+    expectTrigger(2 * MINUTE_MS);
+
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+    advanceAndTick(MINUTE_MS);
+    assertEquals(1L, misfires());
+  }
+
+  @Test
+  public void testTriggerJobWhileRunning() throws Exception {
+    expectTrigger(MINUTE_MS);
+    expectLastCall().andAnswer(() -> {
+      clock.advance(Amount.of(1000L, Time.MILLISECONDS));
+      engine.triggerJob(JOB_KEY);
+      return null;
+    });
+    // The manual trigger runs once the scheduled trigger completes.
+    expectTrigger(MINUTE_MS + 1000);
+
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+    advanceAndTick(MINUTE_MS);
+    assertEquals(0L, misfires());
+  }
+
+  @Test
+  public void testTriggerJob() throws Exception {
+    clock.setNowMillis(100);
+    expectTrigger(100);
+
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+    engine.triggerJob(JOB_KEY);
+  }
+
+  @Test(expected = CronException.class)
+  public void testTriggerUnscheduled() throws Exception {
+    control.replay();
+
+    engine.triggerJob(JOB_KEY);
+  }
+
+  @Test
+  public void testDeschedule() throws Exception {
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+    assertEquals(Optional.of(EVERY_MINUTE), engine.getSchedule(JOB_KEY));
+    engine.descheduleJob(JOB_KEY);
+    assertEquals(Optional.empty(), engine.getSchedule(JOB_KEY));
+    advanceAndTick(10 * MINUTE_MS);
+  }
+
+  @Test
+  public void testReschedule() throws Exception {
+    CrontabEntry hourly = CrontabEntry.parse("0 * * * *");
+    expectTrigger(60 * MINUTE_MS);
+
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+    engine.descheduleJob(JOB_KEY);
+    engine.scheduleJob(JOB_KEY, hourly);
+    assertEquals(ImmutableMap.of(JOB_KEY, hourly), engine.getScheduledJobs());
+    for (int i = 0; i < 60; i++) {
+      advanceAndTick(MINUTE_MS);
+    }
+  }
+
+  @Test(expected = CronException.class)
+  public void testScheduleTwice() throws Exception {
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+  }
+
+  @Test(expected = CronException.class)
+  public void testScheduleNeverFires() throws Exception {
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, CrontabEntry.parse("0 0 31 2 *"));
+  }
+
+  @Test
+  public void testJobDataIsKeptAcrossTriggers() throws Exception {
+    expectTrigger(MINUTE_MS);
+    expectLastCall().andAnswer(() -> {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> jobData = (Map<String, Object>) EasyMock.getCurrentArguments()[2];
+      jobData.put("key", "value");
+      return null;
+    });
+    expectTrigger(2 * MINUTE_MS);
+    expectLastCall().andAnswer(() -> {
+      assertEquals("value", ((Map<?, ?>) EasyMock.getCurrentArguments()[2]).get("key"));
+      return null;
+    });
+
+    control.replay();
+
+    engine.scheduleJob(JOB_KEY, EVERY_MINUTE);
+    advanceAndTick(MINUTE_MS);
+    advanceAndTick(MINUTE_MS);
+  }
+
+  @Test
+  public void testSkippedLocalTimeFiresWhenPredicted() throws Exception {
+    // 02:30 does not exist on 2018-03-11 in New York, as clocks move from 02:00 EST to 03:00 EDT.
+    CrontabEntry entry = CrontabEntry.parse("30 2 * * *");
+    long predictedMs = utcTime(2018, 3, 11, 7, 30);
+    expectTrigger(predictedMs);
+
+    control.replay();
+
+    clock.setNowMillis(utcTime(2018, 3, 11, 5, 0));
+    engine = newEngine(NEW_YORK);
+    assertEquals(
+        OptionalLong.of(predictedMs),
+        engine.nextFireTimeAfter(entry, clock.nowMillis()));
+    engine.scheduleJob(JOB_KEY, entry);
+    advanceAndTick(predictedMs - clock.nowMillis() - 1);
+    advanceAndTick(1);
+    assertEquals(0L, misfires());
+  }
+
+  @Test
+  public void testRepeatedLocalTimeFiresOnce() throws Exception {
+    // 01:30 occurs twice on 2018-11-04 in New York, as clocks move from 02:00 EDT to 01:00 EST.
+    CrontabEntry entry = CrontabEntry.parse("30 1 * * *");
+    long predictedMs = utcTime(2018, 11, 4, 5, 30);
+    expectTrigger(predictedMs);
+
+    control.replay();
+
+    clock.setNowMillis(utcTime(2018, 11, 4, 4, 0));
+    engine = newEngine(NEW_YORK);
+    assertEquals(
+        OptionalLong.of(predictedMs),
+        engine.nextFireTimeAfter(entry, clock.nowMillis()));
+    assertEquals(
+        OptionalLong.of(utcTime(2018, 11, 5, 6, 30)),
+        engine.nextFireTimeAfter(entry, predictedMs));
+    engine.scheduleJob(JOB_KEY, entry);
+    advanceAndTick(predictedMs - clock.nowMillis());
+    // The second 01:30, in EST, does not fire again.
+    advanceAndTick(60 * MINUTE_MS);
+    assertEquals(0L, misfires());
+  }
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+  private static final long TICK_MS = 10;
+  private static final int BITS = 2;
+
+  private TimingWheel<String> wheel;
+  private List<String> expired;
+
+  @Before
+  public void setUp() {
+    wheel = new TimingWheel<>(TICK_MS, BITS, 0);
+    expired = Lists.newArrayList();
+  }
+
+  private void advanceTo(long nowMs) {
+    wheel.advanceTo(nowMs, expired::add);
+  }
+
+  @Test
+  public void testExpiresAtDeadline() {
+    wheel.add("a", 25);
+    wheel.add("b", 10);
+    assertEquals(2, wheel.size());
+
+    advanceTo(19);
+    assertEquals(ImmutableList.of("b"), expired);
+    advanceTo(29);
+    assertEquals(ImmutableList.of("b"), expired);
+    advanceTo(30);
+    assertEquals(ImmutableList.of("b", "a"), expired);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void testPastDeadlineExpiresOnNextTick() {
+    advanceTo(100);
+    wheel.add("a", 0);
+    advanceTo(109);
+    assertEquals(ImmutableList.of(), expired);
+    advanceTo(110);
+    assertEquals(ImmutableList.of("a"), expired);
+  }
+
+  @Test
+  public void testRemove() {
+    wheel.add("a", 10);
+    wheel.add("b", 1000);
+    assertTrue(wheel.remove("a"));
+    assertFalse(wheel.remove("a"));
+    assertTrue(wheel.remove("b"));
+    advanceTo(2000);
+    assertEquals(ImmutableList.of(), expired);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateAdd() {
+    wheel.add("a", 10);
+    wheel.add("a", 20);
+  }
+
+  @Test
+  public void testReaddFromConsumer() {
+    wheel.add("a", 10);
+    wheel.advanceTo(50, item -> {
+      expired.add(item);
+      if (expired.size() < 3) {
+        wheel.add(item, expired.size() * 20L);
+      }
+    });
+    assertEquals(ImmutableList.of("a", "a", "a"), expired);
+  }
+
+  @Test
+  public void testCascadesDistantDeadlines() {
+    // With 4 slots per level, these deadlines are held several levels up the wheel.
+    wheel.add("c", 100000);
+    wheel.add("a", 650);
+    wheel.add("b", 6400);
+
+    advanceTo(640);
+    assertEquals(ImmutableList.of(), expired);
+    advanceTo(650);
+    assertEquals(ImmutableList.of("a"), expired);
+    advanceTo(6399);
+    assertEquals(ImmutableList.of("a"), expired);
+    advanceTo(6400);
+    assertEquals(ImmutableList.of("a", "b"), expired);
+    advanceTo(99999);
+    assertEquals(ImmutableList.of("a", "b"), expired);
+    advanceTo(100000);
+    assertEquals(ImmutableList.of("a", "b", "c"), expired);
+  }
+
+  @Test
+  public void testRandomDeadlines() {
+    Random random = new Random(0);
+    long[] deadlines = new long[10000];
+    TimingWheel<Integer> items = new TimingWheel<>(TICK_MS, BITS, 0);
+    for (int i = 0; i < deadlines.length; i++) {
+      deadlines[i] = TICK_MS + random.nextInt(10000000);
+      items.add(i, deadlines[i]);
+    }
+
+    long previousMs = 0;
+    long nowMs = 0;
+    List<Integer> due = Lists.newArrayList();
+    while (items.size() > 0) {
+      previousMs = nowMs;
+      nowMs += random.nextInt(100000);
+      due.clear();
+      items.advanceTo(nowMs, due::add);
+
+      long lastDeadline = 0;
+      for (int item : due) {
+        // Each item expires on the first advance past its deadline, rounded up to a tick.
+        long deadlineTick = (deadlines[item] + TICK_MS - 1) / TICK_MS;
+        assertTrue(deadlineTick <= nowMs / TICK_MS);
+        assertTrue(deadlineTick > previousMs / TICK_MS);
+        assertTrue(deadlineTick >= lastDeadline);
+        lastDeadline = deadlineTick;
+      }
+    }
+  }
+}
@@ -13,12 +13,18 @@
  */
 package org.apache.aurora.scheduler.cron.quartz;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Optional;
+import java.util.TimeZone;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.BackoffHelper;
 import org.apache.aurora.gen.AssignedTask;
@@ -35,12 +41,15 @@ import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
+import org.apache.aurora.scheduler.testing.FakeScheduledExecutor;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.easymock.Capture;
 import org.junit.Before;
 import org.junit.Test;
 import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.Scheduler;
 import org.quartz.impl.JobDetailImpl;
 
 import static org.apache.aurora.scheduler.cron.quartz.QuartzTestUtil.AURORA_JOB_KEY;
@@ -55,12 +64,18 @@ import static org.junit.Assert.assertTrue;
 
 public class AuroraCronJobTest extends EasyMockTest {
   private static final String TASK_ID = "A";
+  // The first minute of a Sunday, matching the schedule of the test job.
+  private static final Date FIRE_TIME =
+      new Date(Amount.of(3L, Time.DAYS).as(Time.MILLISECONDS) + 60000);
+
   private JobDetailImpl jobDetails;
   private Storage storage;
   private StateManager stateManager;
   private BackoffHelper backoffHelper;
   private CronBatchWorker batchWorker;
   private JobExecutionContext context;
+  private FakeScheduledExecutor clock;
+  private CronPrewarmer prewarmer;
   private AuroraCronJob auroraCronJob;
 
   @Before
@@ -74,14 +89,33 @@ public class AuroraCronJobTest extends EasyMockTest {
     jobDetails.setKey(Quartz.jobKey(AURORA_JOB_KEY));
     jobDetails.setJobDataMap(new JobDataMap(new HashMap()));
     expect(context.getJobDetail()).andReturn(jobDetails).anyTimes();
+    expect(context.getScheduledFireTime()).andReturn(FIRE_TIME).anyTimes();
 
     batchWorker = createMock(CronBatchWorker.class);
     expectBatchExecute(batchWorker, storage, control).anyTimes();
 
+    ScheduledExecutorService executor = createMock(ScheduledExecutorService.class);
+    clock = FakeScheduledExecutor.fromScheduledExecutorService(executor);
+    CronLatencyTracker latencyTracker = new CronLatencyTracker(new FakeStatsProvider());
+    prewarmer = new CronPrewarmer(
+        Amount.of(1L, Time.MINUTES),
+        clock,
+        storage,
+        stateManager,
+        new CronPredictorImpl(
+            clock,
+            new QuartzCronEngine(createMock(Scheduler.class), TimeZone.getTimeZone("GMT"))),
+        latencyTracker,
+        executor,
+        new FakeStatsProvider());
+
     auroraCronJob = new AuroraCronJob(
         new AuroraCronJob.Config(backoffHelper),
         stateManager,
-        batchWorker);
+        batchWorker,
+        prewarmer,
+        latencyTracker,
+        clock);
   }
 
   @Test
@@ -135,13 +169,13 @@ public class AuroraCronJobTest extends EasyMockTest {
     expect(batchWorker.executeWithReplay(anyObject(), capture(killCapture))).andReturn(killResult);
 
     expect(backoffHelper.getBackoffStrategy()).andReturn(null).anyTimes();
-    expect(stateManager.changeState(
+    expect(stateManager.changeStates(
         anyObject(),
-        eq(TASK_ID),
+        eq(ImmutableSet.of(TASK_ID)),
         eq(Optional.empty()),
         eq(ScheduleStatus.KILLING),
         eq(AuroraCronJob.KILL_AUDIT_MESSAGE)))
-        .andReturn(StateChangeResult.SUCCESS);
+        .andReturn(ImmutableMap.of(TASK_ID, StateChangeResult.SUCCESS));
     stateManager.insertPendingTasks(anyObject(), anyObject(), anyObject());
     expectLastCall().times(2);
 
@@ -168,6 +202,52 @@ public class AuroraCronJobTest extends EasyMockTest {
     assertTrue(jobDetails.getJobDataMap().isEmpty());
   }
 
+  @Test
+  public void testTriggerAfterPrewarmedLaunch() throws Exception {
+    stateManager.insertPendingTasks(anyObject(), anyObject(), anyObject());
+
+    control.replay();
+
+    populateStorage(CronCollisionPolicy.KILL_EXISTING);
+    clock.advance(Amount.of(FIRE_TIME.getTime() - 30000, Time.MILLISECONDS));
+    prewarmer.runOneIteration();
+    clock.advance(Amount.of(30L, Time.SECONDS));
+
+    // The trigger must not launch the job again, or treat the launched tasks as a collision.
+    auroraCronJob.doExecute(context);
+  }
+
+  @Test
+  public void testKillExistingHoldsPrewarmedLaunch() throws Exception {
+    Capture<RepeatableWork<BatchWorker.NoResult>> killCapture = createCapture();
+    CompletableFuture<BatchWorker.NoResult> killResult = new CompletableFuture<>();
+    expect(batchWorker.executeWithReplay(anyObject(), capture(killCapture))).andReturn(killResult);
+    expect(backoffHelper.getBackoffStrategy()).andReturn(null).anyTimes();
+    expect(stateManager.changeStates(
+        anyObject(),
+        eq(ImmutableSet.of(TASK_ID)),
+        eq(Optional.empty()),
+        eq(ScheduleStatus.KILLING),
+        eq(AuroraCronJob.KILL_AUDIT_MESSAGE)))
+        .andReturn(ImmutableMap.of(TASK_ID, StateChangeResult.SUCCESS));
+
+    control.replay();
+
+    populateStorage(CronCollisionPolicy.KILL_EXISTING);
+    populateTaskStore();
+    auroraCronJob.doExecute(context);
+
+    // The previous run is gone, but the delayed launch has not yet happened.
+    storage.write(
+        (NoResult.Quiet) storeProvider -> storeProvider.getUnsafeTaskStore().deleteAllTasks());
+    clock.advance(Amount.of(FIRE_TIME.getTime() + 30000, Time.MILLISECONDS));
+    prewarmer.runOneIteration();
+    clock.advance(Amount.of(30L, Time.SECONDS));
+    assertFalse(prewarmer.wasLaunched(
+        AURORA_JOB_KEY,
+        FIRE_TIME.getTime() + Amount.of(1L, Time.MINUTES).as(Time.MILLISECONDS)));
+  }
+
   @Test
   public void testNoConcurrentRun() throws Exception {
     jobDetails.getJobDataMap().put(JobKeys.canonicalString(AURORA_JOB_KEY), null);
@@ -29,6 +29,7 @@ import org.apache.aurora.scheduler.cron.CronException;
 import org.apache.aurora.scheduler.cron.CronJobManager;
 import org.apache.aurora.scheduler.cron.CrontabEntry;
 import org.apache.aurora.scheduler.cron.SanitizedCronJob;
+import org.apache.aurora.scheduler.quota.QuotaLedger;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
@@ -54,6 +55,7 @@ import static org.junit.Assert.fail;
 public class CronJobManagerImplTest extends EasyMockTest {
   private Storage storage;
   private Scheduler scheduler;
+  private CronPrewarmer prewarmer;
 
   private CronJobManager cronJobManager;
 
@@ -61,8 +63,13 @@ public class CronJobManagerImplTest extends EasyMockTest {
   public void setUp() {
     storage = MemStorageModule.newEmptyStorage();
     scheduler = createMock(Scheduler.class);
+    prewarmer = createMock(CronPrewarmer.class);
 
-    cronJobManager = new CronJobManagerImpl(storage, scheduler, TimeZone.getTimeZone("GMT"));
+    cronJobManager = new CronJobManagerImpl(
+        storage,
+        new QuartzCronEngine(scheduler, TimeZone.getTimeZone("GMT")),
+        prewarmer,
+        Optional.empty());
   }
 
   @Test
@@ -98,6 +105,7 @@ public class CronJobManagerImplTest extends EasyMockTest {
     SanitizedCronJob sanitizedCronJob = QuartzTestUtil.makeSanitizedCronJob();
 
     expect(scheduler.deleteJob(QuartzTestUtil.QUARTZ_JOB_KEY)).andReturn(true);
+    prewarmer.forget(QuartzTestUtil.AURORA_JOB_KEY);
     expect(scheduler.scheduleJob(anyObject(JobDetail.class), anyObject(Trigger.class)))
        .andReturn(null);
 
@@ -190,6 +198,7 @@ public class CronJobManagerImplTest extends EasyMockTest {
   @Test
   public void testDeleteJob() throws Exception {
     expect(scheduler.deleteJob(QuartzTestUtil.QUARTZ_JOB_KEY)).andReturn(true);
+    prewarmer.forget(QuartzTestUtil.AURORA_JOB_KEY);
 
     control.replay();
 
@@ -199,9 +208,28 @@ public class CronJobManagerImplTest extends EasyMockTest {
     assertEquals(Optional.empty(), fetchFromStorage());
   }
 
+  @Test
+  public void testDeleteJobInvalidatesQuotaLedger() throws Exception {
+    QuotaLedger quotaLedger = createMock(QuotaLedger.class);
+    cronJobManager = new CronJobManagerImpl(
+        storage,
+        new QuartzCronEngine(scheduler, TimeZone.getTimeZone("GMT")),
+        prewarmer,
+        Optional.of(quotaLedger));
+    expect(scheduler.deleteJob(QuartzTestUtil.QUARTZ_JOB_KEY)).andReturn(true);
+    prewarmer.forget(QuartzTestUtil.AURORA_JOB_KEY);
+    quotaLedger.invalidate(QuartzTestUtil.AURORA_JOB_KEY);
+
+    control.replay();
+
+    populateStorage();
+    assertTrue(cronJobManager.deleteJob(QuartzTestUtil.AURORA_JOB_KEY));
+  }
+
   @Test
   public void testFailedDeleteJobDoesNotThrow() throws Exception {
     expect(scheduler.deleteJob(QuartzTestUtil.QUARTZ_JOB_KEY)).andThrow(new SchedulerException());
+    prewarmer.forget(QuartzTestUtil.AURORA_JOB_KEY);
 
     control.replay();
 
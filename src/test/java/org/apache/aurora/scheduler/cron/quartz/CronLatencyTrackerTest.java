@@ -0,0 +1,111 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import com.google.common.collect.ImmutableList;
+
+import org.apache.aurora.common.stats.Histogram;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.TaskEvent;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.cron.quartz.QuartzTestUtil.AURORA_JOB_KEY;
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+
+public class CronLatencyTrackerTest extends EasyMockTest {
+  private static final long FIRE_TIME_MS = 10000;
+
+  private FakeClock clock;
+  private Histogram histogram;
+  private CronLatencyTracker tracker;
+
+  @Before
+  public void setUp() {
+    clock = new FakeClock();
+    histogram = new Histogram(Histogram.DEFAULT_WINDOW, clock);
+    StatsProvider statsProvider = createMock(StatsProvider.class);
+    expect(statsProvider.untracked()).andReturn(statsProvider);
+    expect(statsProvider.makeHistogram(CronLatencyTracker.statName(AURORA_JOB_KEY)))
+        .andReturn(histogram)
+        .anyTimes();
+
+    control.replay();
+
+    tracker = new CronLatencyTracker(statsProvider);
+  }
+
+  private static IScheduledTask makeTask(String id, long pendingMs, long runningMs) {
+    return IScheduledTask.build(TaskTestUtil.makeTask(id, AURORA_JOB_KEY).newBuilder()
+        .setStatus(RUNNING)
+        .setAncestorId(null)
+        .setTaskEvents(ImmutableList.of(
+            new TaskEvent(pendingMs, PENDING),
+            new TaskEvent(runningMs, RUNNING))));
+  }
+
+  private void changeState(IScheduledTask task, ScheduleStatus oldState) {
+    tracker.taskChangedState(TaskStateChange.transition(task, oldState));
+  }
+
+  private long recordedCount() {
+    clock.advance(Histogram.DEFAULT_WINDOW);
+    return histogram.getCount();
+  }
+
+  @Test
+  public void testLatencyRecorded() {
+    tracker.launched(AURORA_JOB_KEY, FIRE_TIME_MS);
+    changeState(makeTask("a", FIRE_TIME_MS + 100, FIRE_TIME_MS + 5000), ASSIGNED);
+    changeState(makeTask("b", FIRE_TIME_MS + 100, FIRE_TIME_MS + 7000), ASSIGNED);
+
+    assertEquals(2L, recordedCount());
+    assertEquals(5000L, histogram.getPercentile(0));
+    assertEquals(7000L, histogram.getPercentile(100));
+  }
+
+  @Test
+  public void testUntriggeredJobIgnored() {
+    changeState(makeTask("a", FIRE_TIME_MS + 100, FIRE_TIME_MS + 5000), ASSIGNED);
+
+    assertEquals(0L, recordedCount());
+  }
+
+  @Test
+  public void testTasksOfPreviousTriggerIgnored() {
+    tracker.launched(AURORA_JOB_KEY, FIRE_TIME_MS);
+    changeState(makeTask("a", FIRE_TIME_MS - 100, FIRE_TIME_MS + 5000), ASSIGNED);
+
+    assertEquals(0L, recordedCount());
+  }
+
+  @Test
+  public void testRescheduledTasksIgnored() {
+    tracker.launched(AURORA_JOB_KEY, FIRE_TIME_MS);
+    IScheduledTask task = makeTask("a", FIRE_TIME_MS + 100, FIRE_TIME_MS + 5000);
+    changeState(IScheduledTask.build(task.newBuilder().setAncestorId("b")), ASSIGNED);
+
+    assertEquals(0L, recordedCount());
+  }
+}
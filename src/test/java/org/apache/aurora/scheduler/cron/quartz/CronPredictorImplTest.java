@@ -13,10 +13,14 @@
  */
 package org.apache.aurora.scheduler.cron.quartz;
 
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import com.google.common.collect.Lists;
 
@@ -26,8 +30,12 @@ import org.apache.aurora.common.util.testing.FakeClock;
 import org.apache.aurora.scheduler.cron.CronPredictor;
 import org.apache.aurora.scheduler.cron.CrontabEntry;
 import org.apache.aurora.scheduler.cron.ExpectedPrediction;
+import org.apache.aurora.scheduler.cron.TimingWheelCronEngine;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
+import org.quartz.Scheduler;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -43,7 +51,9 @@ public class CronPredictorImplTest {
   @Before
   public void setUp() {
     clock = new FakeClock();
-    cronPredictor = new CronPredictorImpl(clock, TIME_ZONE);
+    cronPredictor = new CronPredictorImpl(
+        clock,
+        new QuartzCronEngine(EasyMock.createMock(Scheduler.class), TIME_ZONE));
   }
 
   @Test
@@ -92,4 +102,24 @@ public class CronPredictorImplTest {
           results);
     }
   }
+
+  @Test
+  public void testPredictsWithEngine() {
+    // 02:30 does not exist on 2018-03-11 in New York, so the timing wheel fires at 03:30 EDT.
+    TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+    ZoneId utc = ZoneId.of("UTC");
+    clock.setNowMillis(ZonedDateTime.of(2018, 3, 11, 5, 0, 0, 0, utc).toInstant().toEpochMilli());
+    CronPredictor timingWheelPredictor = new CronPredictorImpl(
+        clock,
+        new TimingWheelCronEngine(
+            (key, fireTimeMs, jobData) -> { },
+            newYork,
+            clock,
+            EasyMock.createMock(ScheduledExecutorService.class),
+            EasyMock.createMock(ExecutorService.class),
+            new FakeStatsProvider()));
+    assertEquals(
+        Optional.of(Date.from(ZonedDateTime.of(2018, 3, 11, 7, 30, 0, 0, utc).toInstant())),
+        timingWheelPredictor.predictNextRun(CrontabEntry.parse("30 2 * * *")));
+  }
 }
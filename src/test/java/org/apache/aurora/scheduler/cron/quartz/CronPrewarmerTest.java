@@ -0,0 +1,257 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.gen.AssignedTask;
+import org.apache.aurora.gen.CronCollisionPolicy;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.cron.SanitizedCronJob;
+import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
+import org.apache.aurora.scheduler.testing.FakeScheduledExecutor;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.Scheduler;
+
+import static org.apache.aurora.scheduler.cron.quartz.CronPrewarmer.CRON_JOBS_BATCH_LAUNCHED;
+import static org.apache.aurora.scheduler.cron.quartz.CronPrewarmer.CRON_JOBS_PREWARMED;
+import static org.apache.aurora.scheduler.cron.quartz.QuartzTestUtil.AURORA_JOB_KEY;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CronPrewarmerTest extends EasyMockTest {
+  private static final IJobKey OTHER_JOB_KEY = JobKeys.from("role", "prod", "other");
+  // The first minute of a Sunday, matching the schedule of the test jobs.
+  private static final long FIRE_TIME_MS =
+      Amount.of(3L, Time.DAYS).as(Time.MILLISECONDS) + 60000;
+
+  private Storage storage;
+  private StateManager stateManager;
+  private FakeScheduledExecutor clock;
+  private FakeStatsProvider statsProvider;
+  private CronPrewarmer prewarmer;
+
+  @Before
+  public void setUp() {
+    storage = MemStorageModule.newEmptyStorage();
+    stateManager = createMock(StateManager.class);
+    ScheduledExecutorService executor = createMock(ScheduledExecutorService.class);
+    clock = FakeScheduledExecutor.fromScheduledExecutorService(executor);
+    clock.advance(Amount.of(FIRE_TIME_MS - 30000, Time.MILLISECONDS));
+    statsProvider = new FakeStatsProvider();
+    prewarmer = new CronPrewarmer(
+        Amount.of(1L, Time.MINUTES),
+        clock,
+        storage,
+        stateManager,
+        new CronPredictorImpl(
+            clock,
+            new QuartzCronEngine(createMock(Scheduler.class), TimeZone.getTimeZone("GMT"))),
+        new CronLatencyTracker(statsProvider),
+        executor,
+        statsProvider);
+  }
+
+  private static IJobConfiguration makeJob(IJobKey key) {
+    SanitizedCronJob cronJob = QuartzTestUtil.makeSanitizedCronJob(CronCollisionPolicy.CANCEL_NEW);
+    return IJobConfiguration.build(
+        cronJob.getSanitizedConfig().getJobConfig().newBuilder().setKey(key.newBuilder()));
+  }
+
+  private void saveJobs(IJobConfiguration... jobs) {
+    storage.write((NoResult.Quiet) storeProvider -> {
+      for (IJobConfiguration job : jobs) {
+        storeProvider.getCronJobStore().saveAcceptedJob(job);
+      }
+    });
+  }
+
+  private void saveActiveTask(IJobConfiguration job) {
+    storage.write((NoResult.Quiet)
+        storeProvider -> storeProvider.getUnsafeTaskStore().saveTasks(ImmutableSet.of(
+            IScheduledTask.build(new ScheduledTask()
+                .setStatus(ScheduleStatus.RUNNING)
+                .setAssignedTask(new AssignedTask()
+                    .setTaskId("active")
+                    .setTask(job.getTaskConfig().newBuilder()))))));
+  }
+
+  @Test
+  public void testBatchLaunch() {
+    IJobConfiguration job = makeJob(AURORA_JOB_KEY);
+    IJobConfiguration other = makeJob(OTHER_JOB_KEY);
+    stateManager.insertPendingTasks(anyObject(), anyObject(), anyObject());
+    expectLastCall().times(2);
+
+    control.replay();
+
+    saveJobs(job, other);
+    prewarmer.runOneIteration();
+    assertEquals(2L, statsProvider.getLongValue(CRON_JOBS_PREWARMED));
+
+    // Scanning again before the fire time must not prepare the jobs again.
+    prewarmer.runOneIteration();
+    assertEquals(2L, statsProvider.getLongValue(CRON_JOBS_PREWARMED));
+    assertEquals(1, clock.countDeferredWork());
+
+    clock.advance(Amount.of(30L, Time.SECONDS));
+    assertEquals(2L, statsProvider.getLongValue(CRON_JOBS_BATCH_LAUNCHED));
+    assertFalse(prewarmer.wasLaunched(AURORA_JOB_KEY, FIRE_TIME_MS + 60000));
+    assertTrue(prewarmer.wasLaunched(AURORA_JOB_KEY, FIRE_TIME_MS));
+    assertTrue(prewarmer.wasLaunched(OTHER_JOB_KEY, FIRE_TIME_MS));
+    assertEquals(Optional.empty(), prewarmer.claim(job, FIRE_TIME_MS));
+
+    // A launch is only matched by a single trigger.
+    assertFalse(prewarmer.wasLaunched(AURORA_JOB_KEY, FIRE_TIME_MS));
+  }
+
+  @Test
+  public void testOutsideWindow() {
+    control.replay();
+
+    // Fires at the start of the next hour.
+    saveJobs(IJobConfiguration.build(
+        makeJob(AURORA_JOB_KEY).newBuilder().setCronSchedule("0 * * * SUN")));
+    prewarmer.runOneIteration();
+    assertEquals(0L, statsProvider.getLongValue(CRON_JOBS_PREWARMED));
+    clock.assertEmpty();
+  }
+
+  @Test
+  public void testCollisionLeftToTrigger() {
+    IJobConfiguration job = makeJob(AURORA_JOB_KEY);
+
+    control.replay();
+
+    saveJobs(job);
+    saveActiveTask(job);
+    prewarmer.runOneIteration();
+    clock.advance(Amount.of(30L, Time.SECONDS));
+
+    assertEquals(0L, statsProvider.getLongValue(CRON_JOBS_BATCH_LAUNCHED));
+    assertFalse(prewarmer.wasLaunched(AURORA_JOB_KEY, FIRE_TIME_MS));
+    Optional<SanitizedCronJob> claimed = prewarmer.claim(job, FIRE_TIME_MS);
+    assertTrue(claimed.isPresent());
+    assertEquals(job, claimed.get().getSanitizedConfig().getJobConfig());
+
+    // A template may only be claimed once.
+    assertEquals(Optional.empty(), prewarmer.claim(job, FIRE_TIME_MS));
+  }
+
+  @Test
+  public void testClaimedByTrigger() {
+    IJobConfiguration job = makeJob(AURORA_JOB_KEY);
+
+    control.replay();
+
+    saveJobs(job);
+    prewarmer.runOneIteration();
+    assertEquals(Optional.empty(), prewarmer.claim(job, FIRE_TIME_MS + 60000));
+    assertTrue(prewarmer.claim(job, FIRE_TIME_MS).isPresent());
+
+    clock.advance(Amount.of(30L, Time.SECONDS));
+    assertEquals(0L, statsProvider.getLongValue(CRON_JOBS_BATCH_LAUNCHED));
+  }
+
+  @Test
+  public void testChangedConfigNotLaunched() {
+    IJobConfiguration job = makeJob(AURORA_JOB_KEY);
+    IJobConfiguration updated = IJobConfiguration.build(job.newBuilder().setInstanceCount(2));
+
+    control.replay();
+
+    saveJobs(job);
+    prewarmer.runOneIteration();
+    saveJobs(updated);
+    clock.advance(Amount.of(30L, Time.SECONDS));
+
+    assertEquals(0L, statsProvider.getLongValue(CRON_JOBS_BATCH_LAUNCHED));
+    assertEquals(Optional.empty(), prewarmer.claim(updated, FIRE_TIME_MS));
+  }
+
+  @Test
+  public void testHeldJobNotLaunched() {
+    IJobConfiguration job = makeJob(AURORA_JOB_KEY);
+    IJobConfiguration other = makeJob(OTHER_JOB_KEY);
+    stateManager.insertPendingTasks(anyObject(), anyObject(), anyObject());
+
+    control.replay();
+
+    saveJobs(job, other);
+    prewarmer.hold(AURORA_JOB_KEY);
+    prewarmer.runOneIteration();
+    clock.advance(Amount.of(30L, Time.SECONDS));
+
+    assertFalse(prewarmer.wasLaunched(AURORA_JOB_KEY, FIRE_TIME_MS));
+    assertTrue(prewarmer.wasLaunched(OTHER_JOB_KEY, FIRE_TIME_MS));
+
+    prewarmer.release(AURORA_JOB_KEY);
+    assertTrue(prewarmer.claim(job, FIRE_TIME_MS).isPresent());
+  }
+
+  @Test
+  public void testDescheduledJobForgotten() {
+    IJobConfiguration job = makeJob(AURORA_JOB_KEY);
+    IJobConfiguration other = makeJob(OTHER_JOB_KEY);
+    stateManager.insertPendingTasks(anyObject(), anyObject(), anyObject());
+
+    control.replay();
+
+    saveJobs(job, other);
+    prewarmer.runOneIteration();
+    prewarmer.forget(AURORA_JOB_KEY);
+    clock.advance(Amount.of(30L, Time.SECONDS));
+    assertEquals(1L, statsProvider.getLongValue(CRON_JOBS_BATCH_LAUNCHED));
+
+    // A launch made ahead of a trigger that will no longer fire is forgotten.
+    prewarmer.forget(OTHER_JOB_KEY);
+    assertFalse(prewarmer.wasLaunched(OTHER_JOB_KEY, FIRE_TIME_MS));
+  }
+
+  @Test
+  public void testDeletedJobForgotten() {
+    IJobConfiguration job = makeJob(AURORA_JOB_KEY);
+
+    control.replay();
+
+    saveJobs(job);
+    prewarmer.runOneIteration();
+    storage.write((NoResult.Quiet)
+        storeProvider -> storeProvider.getCronJobStore().removeJob(AURORA_JOB_KEY));
+    prewarmer.runOneIteration();
+    clock.advance(Amount.of(30L, Time.SECONDS));
+
+    assertEquals(Optional.empty(), prewarmer.claim(job, FIRE_TIME_MS));
+  }
+}
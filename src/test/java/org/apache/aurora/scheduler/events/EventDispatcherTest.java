@@ -0,0 +1,224 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.events;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.EventDispatcher.CoalesceByTask;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.FINISHED;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.junit.Assert.assertEquals;
+
+public class EventDispatcherTest {
+
+  private Queue<Runnable> executor;
+  private FakeStatsProvider statsProvider;
+  private List<Object> exceptions;
+  private EventDispatcher dispatcher;
+
+  @Before
+  public void setUp() {
+    executor = new ArrayDeque<>();
+    statsProvider = new FakeStatsProvider();
+    exceptions = Lists.newArrayList();
+    dispatcher = new EventDispatcher(
+        executor::add,
+        2,
+        statsProvider,
+        (exception, event, method) -> exceptions.add(event));
+  }
+
+  private void runExecutor() {
+    while (!executor.isEmpty()) {
+      executor.poll().run();
+    }
+  }
+
+  private static TaskStateChange change(String taskId, ScheduleStatus from, ScheduleStatus to) {
+    IScheduledTask task = IScheduledTask.build(
+        TaskTestUtil.makeTask(taskId, TaskTestUtil.JOB).newBuilder().setStatus(to));
+    return TaskStateChange.transition(task, from);
+  }
+
+  public static class Recorder {
+    private final List<Object> events = Lists.newArrayList();
+
+    @Subscribe
+    public void receive(String event) {
+      events.add(event);
+      if ("fail".equals(event)) {
+        throw new IllegalStateException();
+      }
+    }
+
+    @Subscribe
+    public void receive(TaskStateChange event) {
+      events.add(event);
+    }
+  }
+
+  public static class CoalescingRecorder {
+    private final List<Object> events = Lists.newArrayList();
+
+    @Subscribe
+    public void receive(String event) {
+      events.add(event);
+    }
+
+    @Subscribe
+    @CoalesceByTask
+    public void receive(TaskStateChange event) {
+      events.add(event);
+    }
+  }
+
+  public static class DeadEventRecorder {
+    private final List<Object> events = Lists.newArrayList();
+
+    @Subscribe
+    public void receive(DeadEvent event) {
+      events.add(event.getEvent());
+    }
+  }
+
+  @Test
+  public void testDispatchInOrder() {
+    Recorder recorder = new Recorder();
+    dispatcher.register(recorder);
+
+    dispatcher.post("a");
+    dispatcher.post("b");
+    dispatcher.post(change("t", PENDING, ASSIGNED));
+    assertEquals(ImmutableList.of(), recorder.events);
+
+    runExecutor();
+    assertEquals(
+        ImmutableList.of("a", "b", change("t", PENDING, ASSIGNED)),
+        recorder.events);
+    assertEquals(3L, statsProvider.getLongValue("event_dispatcher_Recorder_events_dispatched"));
+  }
+
+  @Test
+  public void testSubscribersIsolated() {
+    Recorder slow = new Recorder();
+    Recorder fast = new Recorder();
+    dispatcher.register(slow);
+    dispatcher.register(fast);
+
+    for (int i = 0; i < EventDispatcher.DRAIN_BATCH_SIZE * 2; i++) {
+      dispatcher.post(Integer.toString(i));
+    }
+    // Each subscriber drains its own queue, and yields after a batch.
+    assertEquals(2, executor.size());
+    executor.poll().run();
+    assertEquals(EventDispatcher.DRAIN_BATCH_SIZE, slow.events.size());
+    assertEquals(0, fast.events.size());
+    executor.poll().run();
+    assertEquals(EventDispatcher.DRAIN_BATCH_SIZE, fast.events.size());
+
+    runExecutor();
+    assertEquals(EventDispatcher.DRAIN_BATCH_SIZE * 2, slow.events.size());
+    assertEquals(slow.events, fast.events);
+    assertEquals(
+        (long) EventDispatcher.DRAIN_BATCH_SIZE * 2 - 2,
+        statsProvider.getLongValue("event_dispatcher_Recorder_queue_overflows"));
+    assertEquals(0L, statsProvider.getLongValue("event_dispatcher_Recorder_2_queue_size"));
+  }
+
+  @Test
+  public void testCoalesce() {
+    CoalescingRecorder recorder = new CoalescingRecorder();
+    dispatcher.register(recorder);
+
+    dispatcher.post(change("a", PENDING, ASSIGNED));
+    dispatcher.post(change("b", PENDING, ASSIGNED));
+    dispatcher.post(change("a", ASSIGNED, RUNNING));
+    // Events of other types are not reordered with later state changes.
+    dispatcher.post("barrier");
+    dispatcher.post(change("a", RUNNING, FINISHED));
+    runExecutor();
+
+    assertEquals(
+        ImmutableList.of(
+            change("a", PENDING, RUNNING),
+            change("b", PENDING, ASSIGNED),
+            "barrier",
+            change("a", RUNNING, FINISHED)),
+        recorder.events);
+    assertEquals(
+        1L,
+        statsProvider.getLongValue("event_dispatcher_CoalescingRecorder_events_coalesced"));
+
+    // Changes are not merged into changes that were already dispatched.
+    dispatcher.post(change("b", ASSIGNED, RUNNING));
+    runExecutor();
+    assertEquals(change("b", ASSIGNED, RUNNING), recorder.events.get(4));
+  }
+
+  @Test
+  public void testExceptionsHandled() {
+    Recorder recorder = new Recorder();
+    dispatcher.register(recorder);
+
+    dispatcher.post("fail");
+    dispatcher.post("after");
+    runExecutor();
+
+    assertEquals(ImmutableList.of("fail"), exceptions);
+    assertEquals(ImmutableList.of("fail", "after"), recorder.events);
+  }
+
+  @Test
+  public void testDeadEvents() {
+    DeadEventRecorder recorder = new DeadEventRecorder();
+    dispatcher.register(new Recorder());
+    dispatcher.register(recorder);
+
+    dispatcher.post("handled");
+    dispatcher.post(1);
+    runExecutor();
+
+    assertEquals(ImmutableList.of(1), recorder.events);
+  }
+
+  static class InvalidCoalescingSubscriber {
+    @Subscribe
+    @CoalesceByTask
+    public void receive(String event) {
+      // Not reached.
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCoalesceRequiresStateChange() {
+    dispatcher.register(new InvalidCoalescingSubscriber());
+  }
+}
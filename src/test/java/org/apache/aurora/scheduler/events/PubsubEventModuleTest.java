@@ -96,6 +96,32 @@ public class PubsubEventModuleTest extends EasyMockTest {
     assertEquals(0, statsProvider.getLongValue(PubsubEventModule.EVENT_BUS_DEAD_EVENTS));
   }
 
+  @Test
+  public void testEventDispatcher() throws Exception {
+    logger.warn(String.format(PubsubEventModule.DEAD_EVENT_MESSAGE, 42));
+    logger.error(anyString(), EasyMock.<Throwable>anyObject());
+
+    control.replay();
+
+    PubsubEventModule.Options options = new PubsubEventModule.Options();
+    options.enableEventDispatcher = true;
+    Injector injector = getInjector(
+        new PubsubEventModule(options, logger, MoreExecutors.directExecutor()),
+        new AbstractModule() {
+          @Override
+          protected void configure() {
+            PubsubEventModule.bindSubscriber(binder(), ThrowingSubscriber.class);
+          }
+        });
+    injector.getInstance(Key.get(GuavaUtils.ServiceManagerIface.class, AppStartup.class))
+        .startAsync().awaitHealthy();
+    EventSink eventSink = injector.getInstance(EventSink.class);
+    eventSink.post("hello");
+    assertEquals(1, statsProvider.getLongValue(PubsubEventModule.EXCEPTIONS_STAT));
+    eventSink.post(42);
+    assertEquals(1, statsProvider.getLongValue(PubsubEventModule.EVENT_BUS_DEAD_EVENTS));
+  }
+
   static class ThrowingSubscriber implements PubsubEvent.EventSubscriber {
     @Subscribe
     public void receiveString(String value) {
@@ -104,9 +130,15 @@ public class PubsubEventModuleTest extends EasyMockTest {
   }
 
   public Injector getInjector(Module... additionalModules) {
+    return getInjector(
+        new PubsubEventModule(logger, MoreExecutors.directExecutor()),
+        additionalModules);
+  }
+
+  private Injector getInjector(PubsubEventModule pubsubModule, Module... additionalModules) {
     return Guice.createInjector(
         new LifecycleModule(),
-        new PubsubEventModule(logger, MoreExecutors.directExecutor()),
+        pubsubModule,
         new SchedulerServicesModule(),
         new AbstractModule() {
           @Override
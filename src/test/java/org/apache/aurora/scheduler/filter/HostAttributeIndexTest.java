@@ -0,0 +1,151 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.filter;
+
+import java.util.BitSet;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.gen.Attribute;
+import org.apache.aurora.gen.HostAttributes;
+import org.apache.aurora.scheduler.filter.HostAttributeIndex.Host;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HostAttributeIndexTest {
+
+  private HostAttributeIndex index;
+
+  @Before
+  public void setUp() {
+    index = new HostAttributeIndex();
+  }
+
+  private static IHostAttributes attributes(String host, Attribute... attributes) {
+    return IHostAttributes.build(
+        new HostAttributes()
+            .setHost(host)
+            .setSlaveId(agentId(host))
+            .setAttributes(ImmutableSet.copyOf(attributes)));
+  }
+
+  private static String agentId(String host) {
+    return host + "-agent";
+  }
+
+  private static Attribute attribute(String name, String... values) {
+    return new Attribute(name, ImmutableSet.copyOf(values));
+  }
+
+  private static BitSet hosts(Host... hosts) {
+    BitSet bits = new BitSet();
+    for (Host host : hosts) {
+      bits.set(host.getOrdinal());
+    }
+    return bits;
+  }
+
+  @Test
+  public void testIntern() {
+    IHostAttributes attributesA = attributes("a", attribute("rack", "1"));
+    Host a = index.intern(attributesA);
+    Host b = index.intern(attributes("b", attribute("rack", "1", "2")));
+    long version = index.getVersion("rack");
+
+    assertNotEquals(a.getOrdinal(), b.getOrdinal());
+    assertSame(a, index.intern(attributesA));
+    Host equalAttributes = index.intern(attributes("a", attribute("rack", "1")));
+    assertEquals(a.getOrdinal(), equalAttributes.getOrdinal());
+    assertEquals(version, index.getVersion("rack"));
+
+    assertTrue(a.hasAttribute("rack"));
+    assertFalse(a.hasAttribute("zone"));
+    assertEquals(ImmutableSet.of("1", "2"), b.getValues("rack"));
+    assertEquals(ImmutableSet.of(), b.getValues("zone"));
+  }
+
+  @Test
+  public void testDuplicatedAttributesMerged() {
+    Host a = index.intern(attributes("a", attribute("jvm", "1.6"), attribute("jvm", "1.7")));
+    assertEquals(ImmutableSet.of("1.6", "1.7"), a.getValues("jvm"));
+    assertEquals(hosts(a), index.getHostsWithAnyValue("jvm", ImmutableSet.of("1.7")));
+  }
+
+  @Test
+  public void testHostsWithAnyValue() {
+    Host a = index.intern(attributes("a", attribute("rack", "1")));
+    Host b = index.intern(attributes("b", attribute("rack", "2")));
+    index.intern(attributes("c", attribute("rack", "3")));
+
+    assertEquals(hosts(a, b), index.getHostsWithAnyValue("rack", ImmutableSet.of("1", "2")));
+    assertEquals(hosts(), index.getHostsWithAnyValue("rack", ImmutableSet.of("4")));
+    assertEquals(hosts(), index.getHostsWithAnyValue("zone", ImmutableSet.of("1")));
+  }
+
+  @Test
+  public void testReindex() {
+    Host a = index.intern(attributes("a", attribute("rack", "1")));
+    long version = index.getVersion("rack");
+    BitSet before = index.getHostsWithAnyValue("rack", ImmutableSet.of("1"));
+
+    Host updated = index.intern(attributes("a", attribute("rack", "2")));
+    assertEquals(a.getOrdinal(), updated.getOrdinal());
+    assertNotEquals(version, index.getVersion("rack"));
+    assertEquals(hosts(), index.getHostsWithAnyValue("rack", ImmutableSet.of("1")));
+    assertEquals(hosts(a), index.getHostsWithAnyValue("rack", ImmutableSet.of("2")));
+
+    // Previously returned bitsets are not modified.
+    assertEquals(hosts(a), before);
+  }
+
+  @Test
+  public void testReindexOnlyChangesAttributeVersion() {
+    index.intern(attributes("a", attribute("rack", "1"), attribute("zone", "east")));
+    long rackVersion = index.getVersion("rack");
+    long zoneVersion = index.getVersion("zone");
+
+    index.intern(attributes("a", attribute("rack", "1"), attribute("zone", "west")));
+    assertEquals(rackVersion, index.getVersion("rack"));
+    assertNotEquals(zoneVersion, index.getVersion("zone"));
+  }
+
+  @Test
+  public void testRemove() {
+    Host a = index.intern(attributes("a", attribute("rack", "1")));
+    Host b = index.intern(attributes("b", attribute("rack", "1")));
+    long version = index.getVersion("rack");
+
+    index.remove(agentId("a"));
+    assertNotEquals(version, index.getVersion("rack"));
+    assertEquals(hosts(b), index.getHostsWithAnyValue("rack", ImmutableSet.of("1")));
+
+    // The ordinal of a removed host is reused.
+    Host c = index.intern(attributes("c", attribute("rack", "2")));
+    assertEquals(a.getOrdinal(), c.getOrdinal());
+    assertEquals(hosts(b), index.getHostsWithAnyValue("rack", ImmutableSet.of("1")));
+    assertEquals(hosts(c), index.getHostsWithAnyValue("rack", ImmutableSet.of("2")));
+
+    // Removing an agent that is not indexed has no effect.
+    version = index.getVersion("rack");
+    index.remove(agentId("a"));
+    assertEquals(version, index.getVersion("rack"));
+  }
+}
@@ -39,6 +39,7 @@ import org.apache.aurora.gen.ValueConstraint;
 import org.apache.aurora.gen.apiConstants;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.PubsubEvent.AgentLost;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
@@ -50,6 +51,7 @@ import org.apache.aurora.scheduler.storage.entities.IAttribute;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.mesos.v1.Protos;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -95,7 +97,7 @@ public class SchedulingFilterImplTest extends EasyMockTest {
 
   private static final Amount<Long, Time> UNAVAILABILITY_THRESHOLD = Amount.of(2L, Time.MINUTES);
   private final FakeClock clock = new FakeClock();
-  private SchedulingFilter defaultFilter;
+  private SchedulingFilterImpl defaultFilter;
 
   @Before
   public void setUp() {
@@ -475,6 +477,43 @@ public class SchedulingFilterImplTest extends EasyMockTest {
         Veto.constraintMismatch("jvm"));
   }
 
+  @Test
+  public void testHostAttributesChanged() {
+    control.replay();
+
+    ITaskConfig task = makeTask(JOB_A, makeConstraint("jvm", "1.0"));
+    IHostAttributes hostB = hostAttributes(HOST_B, valueAttribute("jvm", "1.0"));
+    assertNoVetoes(task, hostAttributes(HOST_A, valueAttribute("jvm", "1.0")));
+    assertNoVetoes(task, hostB);
+
+    // Constraints are evaluated against the latest attributes of a host.
+    assertVetoes(
+        task,
+        hostAttributes(HOST_A, valueAttribute("jvm", "1.4")),
+        Veto.constraintMismatch("jvm"));
+    assertNoVetoes(task, hostB);
+    assertNoVetoes(task, hostAttributes(HOST_A, valueAttribute("jvm", "1.0")));
+  }
+
+  @Test
+  public void testAgentLost() {
+    control.replay();
+
+    ITaskConfig task = makeTask(JOB_A, makeConstraint("jvm", "1.0"));
+    IHostAttributes hostA = IHostAttributes.build(
+        hostAttributes(HOST_A, valueAttribute("jvm", "1.0")).newBuilder().setSlaveId("agentA"));
+    assertNoVetoes(task, hostA);
+
+    // Hosts indexed after the host of a lost agent is removed are checked against their own
+    // attributes.
+    defaultFilter.agentLost(new AgentLost(Protos.AgentID.newBuilder().setValue("agentA").build()));
+    assertVetoes(
+        task,
+        hostAttributes(HOST_B, valueAttribute("jvm", "1.4")),
+        Veto.constraintMismatch("jvm"));
+    assertNoVetoes(task, hostA);
+  }
+
   @Test
   public void testVetoScaling() {
     control.replay();
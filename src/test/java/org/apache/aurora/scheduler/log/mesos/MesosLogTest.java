@@ -17,7 +17,9 @@ import java.lang.reflect.Constructor;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
@@ -32,6 +34,8 @@ import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.scheduler.log.Log.Entry;
+import org.apache.aurora.scheduler.log.Log.PositionedEntry;
+import org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
 import org.apache.aurora.scheduler.log.mesos.LogInterface.ReaderInterface;
 import org.apache.aurora.scheduler.log.mesos.LogInterface.WriterInterface;
@@ -45,6 +49,7 @@ import static org.apache.aurora.scheduler.log.mesos.MesosLog.LogStream.LogPositi
 import static org.apache.mesos.Log.Position;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 public class MesosLogTest extends EasyMockTest {
@@ -209,6 +214,38 @@ public class MesosLogTest extends EasyMockTest {
 
   }
 
+  @Test
+  public void testLogReadAfter() throws Exception {
+    Position beginning = makePosition(1);
+    Position middle = makePosition(2);
+    Position end = makePosition(3);
+    expect(logReader.beginning()).andReturn(beginning);
+    expect(logReader.ending()).andReturn(end);
+    expectRead(middle, "middleData");
+    expectRead(end, "endData");
+
+    control.replay();
+
+    // An uncoordinated read does not append a noop.
+    List<PositionedEntry> entries = ImmutableList.copyOf(
+        logStream.readAfter(Optional.of(new LogPosition(beginning)), false));
+    assertEquals(
+        ImmutableList.of("middleData", "endData"),
+        entries.stream()
+            .map(entry -> new String(entry.contents(), StandardCharsets.UTF_8))
+            .collect(Collectors.toList()));
+    assertSame(end, ((LogPosition) entries.get(1).position()).unwrap());
+  }
+
+  @Test(expected = InvalidPositionException.class)
+  public void testLogReadAfterTruncated() throws Exception {
+    expect(logReader.beginning()).andReturn(makePosition(5));
+
+    control.replay();
+
+    logStream.readAfter(Optional.of(new LogPosition(makePosition(2))), false);
+  }
+
   @Test(expected = StreamAccessException.class)
   public void testInitialAppendFails() throws Exception {
     expectWrite(DUMMY_CONTENT).andThrow(new Log.WriterFailedException("injected"));
@@ -0,0 +1,250 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.maintenance;
+
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.gen.HostMaintenanceRequest;
+import org.apache.aurora.gen.PercentageSlaPolicy;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.SlaPolicy;
+import org.apache.aurora.scheduler.base.InstanceKeys;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.sla.SlaManager;
+import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.entities.IHostMaintenanceRequest;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ISlaPolicy;
+import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.easymock.Capture;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.DRAINING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.maintenance.DrainPlanner.MISSING_MAINTENANCE_REQUEST;
+import static org.apache.aurora.scheduler.maintenance.DrainPlanner.REMAINING_TASKS_PREFIX;
+import static org.apache.aurora.scheduler.maintenance.DrainPlanner.TASKS_BLOCKED;
+import static org.apache.aurora.scheduler.maintenance.DrainPlanner.TASKS_DRAINED;
+import static org.apache.aurora.scheduler.maintenance.MaintenanceController.MaintenanceControllerImpl.DRAINING_MESSAGE;
+import static org.apache.aurora.scheduler.maintenance.MaintenanceController.MaintenanceControllerImpl.MAINTENANCE_COUNTDOWN_STAT_NAME;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DrainPlannerTest extends EasyMockTest {
+  private static final String HOST_A = "a";
+  private static final String HOST_B = "b";
+  private static final SlaPolicy DEFAULT_SLA_POLICY = SlaPolicy.percentageSlaPolicy(
+      new PercentageSlaPolicy(50, 60));
+  private static final SlaPolicy OTHER_SLA_POLICY = SlaPolicy.percentageSlaPolicy(
+      new PercentageSlaPolicy(80, 60));
+
+  private StorageTestUtil storageUtil;
+  private SlaManager slaManager;
+  private StateManager stateManager;
+  private FakeStatsProvider statsProvider;
+  private DrainPlanner planner;
+
+  @Before
+  public void setUp() {
+    storageUtil = new StorageTestUtil(this);
+    storageUtil.expectStoreAccesses();
+    slaManager = createMock(SlaManager.class);
+    stateManager = createMock(StateManager.class);
+    statsProvider = new FakeStatsProvider();
+    planner = new DrainPlanner(slaManager, stateManager, statsProvider);
+  }
+
+  @Test
+  public void testDrainAcrossHosts() {
+    IScheduledTask a1 = makeTask(HOST_A, "a1", RUNNING);
+    IScheduledTask a2 = makeTask(HOST_A, "a2", DRAINING);
+    IScheduledTask b1 = makeTask(HOST_B, "b1", RUNNING);
+    IScheduledTask b2 = makeTask(HOST_B, "b2", RUNNING);
+    IScheduledTask b3 = makeTask(HOST_B, "b3", RUNNING);
+    storageUtil.expectTaskFetch(
+        Query.slaveScoped(ImmutableSet.of(HOST_A, HOST_B)).active(),
+        a1, a2, b1, b2, b3);
+    expectMaintenanceRequest(HOST_A, System.currentTimeMillis(), 3600);
+    expectMaintenanceRequest(HOST_B, System.currentTimeMillis(), 3600);
+
+    // One SLA check covers the job's tasks on both hosts, with the host closest to being drained
+    // first. Tasks that are already draining are not checked again.
+    Capture<Map<IScheduledTask, ISlaPolicy>> checked = createCapture();
+    expect(slaManager.checkSla(capture(checked), eq(storageUtil.mutableStoreProvider)))
+        .andReturn(ImmutableSet.of(a1, b1));
+    expectDrain(a1, b1);
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(),
+        planner.drain(storageUtil.mutableStoreProvider, ImmutableSet.of(HOST_A, HOST_B)));
+    assertEquals(
+        ImmutableList.of(a1, b1, b2, b3),
+        ImmutableList.copyOf(checked.getValue().keySet()));
+    assertEquals(ImmutableSet.of(slaPolicy(a1)), ImmutableSet.copyOf(checked.getValue().values()));
+    assertTrue(planner.isBlocked(TaskTestUtil.JOB));
+    assertEquals(2L, statsProvider.getLongValue(TASKS_DRAINED));
+    assertEquals(2L, statsProvider.getLongValue(TASKS_BLOCKED));
+    assertEquals(2L, statsProvider.getLongValue(REMAINING_TASKS_PREFIX + HOST_A));
+    assertEquals(3L, statsProvider.getLongValue(REMAINING_TASKS_PREFIX + HOST_B));
+    assertTrue(statsProvider.getLongValue(countdownStat(a2)) > 0);
+  }
+
+  @Test
+  public void testDrainJobWithDifferentDefaultPolicies() {
+    IScheduledTask a1 = withoutSlaPolicy(makeTask(HOST_A, "a1", RUNNING));
+    IScheduledTask b1 = withoutSlaPolicy(makeTask(HOST_B, "b1", RUNNING));
+    storageUtil.expectTaskFetch(
+        Query.slaveScoped(ImmutableSet.of(HOST_A, HOST_B)).active(),
+        a1, b1);
+    expectMaintenanceRequest(HOST_A, System.currentTimeMillis(), 3600, DEFAULT_SLA_POLICY);
+    expectMaintenanceRequest(HOST_B, System.currentTimeMillis(), 3600, OTHER_SLA_POLICY);
+
+    // Tasks of a job that fall back to different default policies are still checked together.
+    expect(slaManager.checkSla(
+        ImmutableMap.of(
+            a1, ISlaPolicy.build(DEFAULT_SLA_POLICY),
+            b1, ISlaPolicy.build(OTHER_SLA_POLICY)),
+        storageUtil.mutableStoreProvider))
+        .andReturn(ImmutableSet.of(a1));
+    expectDrain(a1);
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(),
+        planner.drain(storageUtil.mutableStoreProvider, ImmutableSet.of(HOST_A, HOST_B)));
+    assertTrue(planner.isBlocked(TaskTestUtil.JOB));
+    assertEquals(1L, statsProvider.getLongValue(TASKS_BLOCKED));
+  }
+
+  @Test
+  public void testEmptyHostAndTimedOutRequest() {
+    IScheduledTask b1 = makeTask(HOST_B, "b1", RUNNING);
+    storageUtil.expectTaskFetch(Query.slaveScoped(ImmutableSet.of(HOST_A, HOST_B)).active(), b1);
+    expectMaintenanceRequest(HOST_B, 0, 0);
+    // The SLA is not checked for tasks on hosts whose maintenance request has timed out.
+    expectDrain(b1);
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(HOST_A),
+        planner.drain(storageUtil.mutableStoreProvider, ImmutableSet.of(HOST_A, HOST_B)));
+    assertFalse(planner.isBlocked(TaskTestUtil.JOB));
+    assertEquals(0L, statsProvider.getLongValue(REMAINING_TASKS_PREFIX + HOST_A));
+    assertEquals(1L, statsProvider.getLongValue(REMAINING_TASKS_PREFIX + HOST_B));
+    assertTrue(statsProvider.getLongValue(countdownStat(b1)) < 0);
+    assertEquals(1L, statsProvider.getLongValue(TASKS_DRAINED));
+
+    // Hosts that are no longer draining no longer report remaining tasks.
+    assertEquals(
+        ImmutableSet.of(),
+        planner.drain(storageUtil.mutableStoreProvider, ImmutableSet.of()));
+    assertEquals(0L, statsProvider.getLongValue(REMAINING_TASKS_PREFIX + HOST_B));
+  }
+
+  @Test
+  public void testMissingMaintenanceRequest() {
+    IScheduledTask a1 = makeTask(HOST_A, "a1", RUNNING);
+    storageUtil.expectTaskFetch(Query.slaveScoped(ImmutableSet.of(HOST_A)).active(), a1);
+    expect(storageUtil.hostMaintenanceStore.getHostMaintenanceRequest(HOST_A))
+        .andReturn(Optional.empty());
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(),
+        planner.drain(storageUtil.mutableStoreProvider, ImmutableSet.of(HOST_A)));
+    assertEquals(1L, statsProvider.getLongValue(MISSING_MAINTENANCE_REQUEST));
+    assertEquals(0L, statsProvider.getLongValue(TASKS_DRAINED));
+  }
+
+  @Test
+  public void testNoDrainingHosts() {
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(),
+        planner.drain(storageUtil.mutableStoreProvider, ImmutableSet.of()));
+  }
+
+  private void expectMaintenanceRequest(String host, long createdMs, long timeoutSecs) {
+    expectMaintenanceRequest(host, createdMs, timeoutSecs, DEFAULT_SLA_POLICY);
+  }
+
+  private void expectMaintenanceRequest(
+      String host,
+      long createdMs,
+      long timeoutSecs,
+      SlaPolicy defaultSlaPolicy) {
+
+    expect(storageUtil.hostMaintenanceStore.getHostMaintenanceRequest(host))
+        .andReturn(Optional.of(IHostMaintenanceRequest.build(new HostMaintenanceRequest()
+            .setHost(host)
+            .setCreatedTimestampMs(createdMs)
+            .setTimeoutSecs(timeoutSecs)
+            .setDefaultSlaPolicy(defaultSlaPolicy))));
+  }
+
+  private void expectDrain(IScheduledTask... tasks) {
+    expect(stateManager.changeStates(
+        storageUtil.mutableStoreProvider,
+        Tasks.ids(tasks),
+        Optional.empty(),
+        DRAINING,
+        Optional.of(DRAINING_MESSAGE)))
+        .andReturn(ImmutableMap.of());
+  }
+
+  private static ISlaPolicy slaPolicy(IScheduledTask task) {
+    return task.getAssignedTask().getTask().getSlaPolicy();
+  }
+
+  private static String countdownStat(IScheduledTask task) {
+    return MAINTENANCE_COUNTDOWN_STAT_NAME + "_"
+        + InstanceKeys.toString(Tasks.getJob(task), Tasks.getInstanceId(task));
+  }
+
+  private static IScheduledTask makeTask(String host, String taskId, ScheduleStatus status) {
+    ScheduledTask builder = TaskTestUtil.addStateTransition(
+        TaskTestUtil.makeTask(taskId, TaskTestUtil.JOB),
+        status,
+        1000).newBuilder();
+    builder.getAssignedTask().setSlaveHost(host);
+    return IScheduledTask.build(builder);
+  }
+
+  private static IScheduledTask withoutSlaPolicy(IScheduledTask task) {
+    ScheduledTask builder = task.newBuilder();
+    builder.getAssignedTask().getTask().unsetSlaPolicy();
+    return IScheduledTask.build(builder);
+  }
+}
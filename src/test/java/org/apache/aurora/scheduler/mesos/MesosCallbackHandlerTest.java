@@ -512,6 +512,8 @@ public class MesosCallbackHandlerTest extends EasyMockTest {
 
   @Test
   public void testLostAgent() {
+    eventSink.post(new PubsubEvent.AgentLost(AGENT_ID));
+
     control.replay();
 
     handler.handleLostAgent(AGENT_ID);
@@ -14,8 +14,10 @@
 package org.apache.aurora.scheduler.mesos;
 
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.scheduler.events.PubsubEvent;
@@ -25,6 +27,7 @@ import org.apache.mesos.v1.scheduler.Mesos;
 import org.apache.mesos.v1.scheduler.Protos.Call;
 import org.apache.mesos.v1.scheduler.Scheduler;
 import org.easymock.Capture;
+import org.easymock.CaptureType;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -134,6 +137,29 @@ public class VersionedSchedulerDriverServiceTest extends EasyMockTest {
     assertEquals(kill.getKill().getTaskId().getValue(), "task-id");
   }
 
+  @Test
+  public void testKillTasks() {
+    expectStart();
+    // The framework ID is read once for all kills.
+    expect(storage.schedulerStore.fetchFrameworkId()).andReturn(Optional.of(FRAMEWORK_ID)).once();
+
+    Capture<Call> killCapture = new Capture<>(CaptureType.ALL);
+    mesos.send(capture(killCapture));
+    expectLastCall().times(2);
+
+    control.replay();
+    driverService.startAsync().awaitRunning();
+    driverService.registered(new PubsubEvent.DriverRegistered());
+
+    driverService.killTasks(ImmutableSet.of("task-a", "task-b"));
+
+    assertEquals(
+        ImmutableList.of("task-a", "task-b"),
+        killCapture.getValues().stream()
+            .map(call -> call.getKill().getTaskId().getValue())
+            .collect(Collectors.toList()));
+  }
+
   @Test
   public void testDecline() {
     expectStart();
@@ -13,11 +13,13 @@
  */
 package org.apache.aurora.scheduler.metadata;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -32,6 +34,7 @@ import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.events.EventDispatcher;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
@@ -40,6 +43,7 @@ import org.apache.aurora.scheduler.scheduling.TaskGroup;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -123,6 +127,32 @@ public class NearestFitTest {
     assertNearest();
   }
 
+  @Test
+  public void testStateChangedQueuedTogether() {
+    Queue<Runnable> executor = new ArrayDeque<>();
+    EventDispatcher dispatcher = new EventDispatcher(
+        executor::add,
+        10,
+        new FakeStatsProvider(),
+        (exception, event, method) -> {
+          throw new AssertionError(exception);
+        });
+    dispatcher.register(nearest);
+
+    vetoed(SEVERITY_2);
+    ScheduledTask task = new ScheduledTask()
+        .setStatus(ScheduleStatus.PENDING)
+        .setAssignedTask(new AssignedTask().setTask(TASK.newBuilder()));
+    dispatcher.post(TaskStateChange.initialized(IScheduledTask.build(task)));
+    dispatcher.post(TaskStateChange.transition(
+        IScheduledTask.build(task.deepCopy().setStatus(ScheduleStatus.ASSIGNED)),
+        ScheduleStatus.PENDING));
+    while (!executor.isEmpty()) {
+      executor.poll().run();
+    }
+    assertNearest();
+  }
+
   @Test
   public void testGetPendingReasons() {
     // Making task that requires lot of CPUs and RAM.
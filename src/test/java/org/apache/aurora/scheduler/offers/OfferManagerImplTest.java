@@ -15,22 +15,28 @@ package org.apache.aurora.scheduler.offers;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 
 import org.apache.aurora.common.collections.Pair;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.testing.FakeTicker;
+import org.apache.aurora.gen.Attribute;
 import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.gen.MaintenanceMode;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.AgentLost;
 import org.apache.aurora.scheduler.events.PubsubEvent.DriverDisconnected;
 import org.apache.aurora.scheduler.events.PubsubEvent.HostAttributesChanged;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
@@ -58,11 +64,13 @@ import static org.apache.aurora.gen.MaintenanceMode.NONE;
 import static org.apache.aurora.scheduler.base.TaskTestUtil.JOB;
 import static org.apache.aurora.scheduler.base.TaskTestUtil.makeTask;
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.GLOBALLY_BANNED_OFFERS;
+import static org.apache.aurora.scheduler.offers.OfferManagerImpl.HOST_VETO_CACHE_SIZE;
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.OFFER_ACCEPT_RACES;
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.OFFER_CANCEL_FAILURES;
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.OUTSTANDING_OFFERS;
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.STATICALLY_BANNED_OFFERS;
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.VETO_EVALUATED_OFFERS;
+import static org.apache.aurora.scheduler.offers.OfferManagerImpl.VETO_EVALUATIONS_AVOIDED;
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosRange;
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosScalar;
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.offer;
@@ -184,7 +192,7 @@ public class OfferManagerImplTest extends EasyMockTest {
     assertEquals(
         ImmutableSet.of(OFFER_B, offerA, offerC),
         ImmutableSet.copyOf(offerManager.getAll()));
-    offerManager.launchTask(OFFER_B.getOffer().getId(), TASK_INFO);
+    offerManager.launchTasks(OFFER_B.getOffer().getId(), ImmutableList.of(TASK_INFO));
     assertEquals(2, statsProvider.getLongValue(OUTSTANDING_OFFERS));
   }
 
@@ -314,14 +322,36 @@ public class OfferManagerImplTest extends EasyMockTest {
     control.replay();
 
     offerManager.add(OFFER_A);
-    offerManager.launchTask(OFFER_A_ID, TASK_INFO);
+    offerManager.launchTasks(OFFER_A_ID, ImmutableList.of(TASK_INFO));
+  }
+
+  @Test
+  public void testLaunchMultipleTasks() throws Exception {
+    TaskInfo secondTaskInfo = TASK_INFO.toBuilder()
+        .setTaskId(Protos.TaskID.newBuilder().setValue("id2"))
+        .build();
+    driver.acceptOffers(
+        OFFER_A_ID,
+        ImmutableList.of(Operation.newBuilder()
+            .setType(Operation.Type.LAUNCH)
+            .setLaunch(Operation.Launch.newBuilder()
+                .addTaskInfos(TASK_INFO)
+                .addTaskInfos(secondTaskInfo))
+            .build()),
+        OFFER_FILTER);
+
+    control.replay();
+
+    offerManager.add(OFFER_A);
+    offerManager.launchTasks(OFFER_A_ID, ImmutableList.of(TASK_INFO, secondTaskInfo));
+    assertEquals(0, statsProvider.getLongValue(OUTSTANDING_OFFERS));
   }
 
   @Test
   public void testLaunchTaskOfferRaceThrows() {
     control.replay();
     try {
-      offerManager.launchTask(OFFER_A_ID, TASK_INFO);
+      offerManager.launchTasks(OFFER_A_ID, ImmutableList.of(TASK_INFO));
       fail("Method invocation is expected to throw exception.");
     } catch (OfferManager.LaunchException e) {
       assertEquals(1, statsProvider.getLongValue(OFFER_ACCEPT_RACES));
@@ -753,4 +783,151 @@ public class OfferManagerImplTest extends EasyMockTest {
     assertEquals(ImmutableSet.of(Pair.of(OFFER_A.getOffer().getId(), GROUP_KEY)),
         offerManager.getStaticBans());
   }
+
+  private static HostOffer sameAgentOffer(HostOffer offer, String offerId, IHostAttributes attrs) {
+    return new HostOffer(
+        offer.getOffer().toBuilder().setId(OfferID.newBuilder().setValue(offerId)).build(),
+        attrs);
+  }
+
+  @Test
+  public void testHostVetoCachedAcrossOffers() {
+    HostOffer nextOffer = sameAgentOffer(OFFER_A, "OFFER_A2", HOST_ATTRIBUTES_A);
+    expect(schedulingFilter.filter(new UnusedResource(OFFER_A, false), EMPTY_REQUEST))
+        .andReturn(ImmutableSet.of(SchedulingFilter.Veto.constraintMismatch("rack")));
+
+    control.replay();
+    offerManager.add(OFFER_A);
+    assertEquals(ImmutableSet.of(),
+        ImmutableSet.copyOf(offerManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+    assertEquals(1, statsProvider.getLongValue(HOST_VETO_CACHE_SIZE));
+
+    // A new offer from the same agent is vetoed without evaluating the scheduling filter.
+    assertTrue(offerManager.cancel(OFFER_A_ID));
+    offerManager.add(nextOffer);
+    assertEquals(ImmutableSet.of(),
+        ImmutableSet.copyOf(offerManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+    assertEquals(1, statsProvider.getLongValue(VETO_EVALUATED_OFFERS));
+    assertEquals(1, statsProvider.getLongValue(VETO_EVALUATIONS_AVOIDED));
+    assertTrue(offerManager.getStaticBans()
+        .contains(Pair.of(nextOffer.getOffer().getId(), GROUP_KEY)));
+  }
+
+  @Test
+  public void testHostVetoInvalidatedByAttributeChange() {
+    IHostAttributes updated = IHostAttributes.build(
+        HOST_ATTRIBUTES_A.newBuilder().setAttributes(ImmutableSet.of(
+            new Attribute("rack", ImmutableSet.of("a")))));
+    HostOffer nextOffer = sameAgentOffer(OFFER_A, "OFFER_A2", updated);
+    expect(schedulingFilter.filter(new UnusedResource(OFFER_A, false), EMPTY_REQUEST))
+        .andReturn(ImmutableSet.of(SchedulingFilter.Veto.constraintMismatch("rack")));
+    expect(schedulingFilter.filter(new UnusedResource(nextOffer, false), EMPTY_REQUEST))
+        .andReturn(ImmutableSet.of());
+
+    control.replay();
+    offerManager.add(OFFER_A);
+    assertEquals(ImmutableSet.of(),
+        ImmutableSet.copyOf(offerManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+
+    offerManager.hostAttributesChanged(new HostAttributesChanged(updated));
+    assertEquals(0, statsProvider.getLongValue(HOST_VETO_CACHE_SIZE));
+    assertTrue(offerManager.cancel(OFFER_A_ID));
+    offerManager.add(nextOffer);
+    assertEquals(ImmutableSet.of(nextOffer),
+        ImmutableSet.copyOf(offerManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+    assertEquals(2, statsProvider.getLongValue(VETO_EVALUATED_OFFERS));
+    assertEquals(0, statsProvider.getLongValue(VETO_EVALUATIONS_AVOIDED));
+  }
+
+  @Test
+  public void testHostVetoesRemovedForLostAgent() {
+    IHostAttributes updated = IHostAttributes.build(
+        HOST_ATTRIBUTES_A.newBuilder().setAttributes(ImmutableSet.of(
+            new Attribute("rack", ImmutableSet.of("a")))));
+    HostOffer updatedOffer = new HostOffer(OFFER_A.getOffer(), updated);
+    expect(schedulingFilter.filter(new UnusedResource(updatedOffer, false), EMPTY_REQUEST))
+        .andReturn(ImmutableSet.of(SchedulingFilter.Veto.constraintMismatch("rack")));
+
+    control.replay();
+    offerManager.add(OFFER_A);
+    offerManager.hostAttributesChanged(new HostAttributesChanged(updated));
+    assertEquals(ImmutableSet.of(HOST_A), offerManager.getVersionedHosts());
+    assertEquals(ImmutableSet.of(),
+        ImmutableSet.copyOf(offerManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+    assertEquals(1, statsProvider.getLongValue(HOST_VETO_CACHE_SIZE));
+
+    assertTrue(offerManager.cancel(OFFER_A_ID));
+    offerManager.agentLost(new AgentLost(OFFER_A.getOffer().getAgentId()));
+    assertEquals(ImmutableSet.of(), offerManager.getVersionedHosts());
+    assertEquals(0, statsProvider.getLongValue(HOST_VETO_CACHE_SIZE));
+  }
+
+  @Test
+  public void testHostVersionDroppedWithoutOffer() {
+    control.replay();
+
+    offerManager.add(OFFER_A);
+    offerManager.hostAttributesChanged(new HostAttributesChanged(HOST_ATTRIBUTES_A));
+    assertEquals(ImmutableSet.of(HOST_A), offerManager.getVersionedHosts());
+
+    assertTrue(offerManager.cancel(OFFER_A_ID));
+    offerManager.hostAttributesChanged(new HostAttributesChanged(HOST_ATTRIBUTES_A));
+    assertEquals(ImmutableSet.of(), offerManager.getVersionedHosts());
+  }
+
+  @Test
+  public void testOfferSpecificVetoesNotCachedForHost() {
+    HostOffer nextOffer = sameAgentOffer(OFFER_A, "OFFER_A2", HOST_ATTRIBUTES_A);
+    expect(schedulingFilter.filter(new UnusedResource(OFFER_A, false), EMPTY_REQUEST))
+        .andReturn(ImmutableSet.of(SchedulingFilter.Veto.insufficientResources("ram", 100)));
+    expect(schedulingFilter.filter(new UnusedResource(nextOffer, false), EMPTY_REQUEST))
+        .andReturn(ImmutableSet.of());
+
+    control.replay();
+    offerManager.add(OFFER_A);
+    assertEquals(ImmutableSet.of(),
+        ImmutableSet.copyOf(offerManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+    assertEquals(0, statsProvider.getLongValue(HOST_VETO_CACHE_SIZE));
+
+    assertTrue(offerManager.cancel(OFFER_A_ID));
+    offerManager.add(nextOffer);
+    assertEquals(ImmutableSet.of(nextOffer),
+        ImmutableSet.copyOf(offerManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+    assertEquals(2, statsProvider.getLongValue(VETO_EVALUATED_OFFERS));
+  }
+
+  @Test
+  public void testConcurrentAddAndCancel() throws Exception {
+    control.replay();
+
+    int threads = 4;
+    int offersPerThread = 500;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> results = Lists.newArrayList();
+    for (int t = 0; t < threads; t++) {
+      int thread = t;
+      results.add(executor.submit(() -> {
+        for (int i = 0; i < offersPerThread; i++) {
+          String host = "host-" + thread + "-" + i;
+          HostOffer offer = new HostOffer(
+              Offers.makeOffer("offer-" + thread + "-" + i, host),
+              IHostAttributes.build(new HostAttributes().setMode(NONE).setHost(host)));
+          offerManager.add(offer);
+          assertEquals(Optional.of(offer), offerManager.get(offer.getOffer().getAgentId()));
+          if (i % 2 == 0) {
+            assertTrue(offerManager.cancel(offer.getOffer().getId()));
+          }
+        }
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+
+    assertEquals(threads * offersPerThread / 2, Iterables.size(offerManager.getAll()));
+    assertEquals(
+        (long) threads * offersPerThread / 2,
+        statsProvider.getLongValue(OUTSTANDING_OFFERS));
+  }
 }
@@ -0,0 +1,209 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.offers;
+
+import com.google.common.collect.ImmutableList;
+
+import org.apache.aurora.gen.HostAttributes;
+import org.apache.aurora.gen.MaintenanceMode;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.resources.ResourceType;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.MaintenanceMode.DRAINING;
+import static org.apache.aurora.gen.MaintenanceMode.NONE;
+import static org.apache.aurora.gen.MaintenanceMode.SCHEDULED;
+import static org.apache.aurora.scheduler.base.TaskTestUtil.JOB;
+import static org.apache.aurora.scheduler.base.TaskTestUtil.makeTask;
+import static org.apache.aurora.scheduler.base.TaskTestUtil.toResourceRequest;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosScalar;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.offer;
+import static org.apache.aurora.scheduler.resources.ResourceType.CPUS;
+import static org.apache.aurora.scheduler.resources.ResourceType.DISK_MB;
+import static org.apache.aurora.scheduler.resources.ResourceType.RAM_MB;
+import static org.junit.Assert.assertEquals;
+
+public class ScoringOfferSetTest {
+
+  private static final IScheduledTask TASK = makeTask("id", JOB);
+  private static final TaskGroupKey GROUP_KEY = TaskGroupKey.from(TASK.getAssignedTask().getTask());
+  // The task requests 1 cpu, 1024 MB of RAM and 1024 MB of disk.
+  private static final ResourceRequest REQUEST =
+      toResourceRequest(TASK.getAssignedTask().getTask());
+
+  private static final HostOffer TOO_SMALL = hostOffer("too-small", 0.5, 512, 512);
+  private static final HostOffer SMALL = hostOffer("small", 2, 2048, 2048);
+  private static final HostOffer MEDIUM = hostOffer("medium", 4, 4096, 4096);
+  private static final HostOffer LARGE = hostOffer("large", 8, 8192, 8192);
+
+  @Before
+  public void setUp() {
+    ResourceType.initializeEmptyCliArgsForTest();
+  }
+
+  private static HostOffer hostOffer(String agent, double cpus, double ramMb, double diskMb) {
+    return new HostOffer(
+        offer(
+            agent,
+            mesosScalar(CPUS, cpus),
+            mesosScalar(RAM_MB, ramMb),
+            mesosScalar(DISK_MB, diskMb)),
+        IHostAttributes.build(new HostAttributes().setMode(NONE).setHost(agent)));
+  }
+
+  private static HostOffer setMode(HostOffer offer, MaintenanceMode mode) {
+    return new HostOffer(
+        offer.getOffer(),
+        IHostAttributes.build(offer.getAttributes().newBuilder().setMode(mode)));
+  }
+
+  private static OfferSet create(PlacementStrategy strategy, HostOffer... offers) {
+    OfferSet set = new ScoringOfferSet(strategy, 0, 16);
+    for (HostOffer offer : offers) {
+      set.add(offer);
+    }
+    return set;
+  }
+
+  @Test
+  public void testBestFit() {
+    OfferSet set = create(PlacementStrategy.BEST_FIT, LARGE, TOO_SMALL, SMALL, MEDIUM);
+    assertEquals(
+        ImmutableList.of(SMALL, MEDIUM, LARGE),
+        ImmutableList.copyOf(set.getOrdered(GROUP_KEY, REQUEST)));
+  }
+
+  @Test
+  public void testWorstFit() {
+    OfferSet set = create(PlacementStrategy.WORST_FIT, SMALL, TOO_SMALL, LARGE, MEDIUM);
+    assertEquals(
+        ImmutableList.of(LARGE, MEDIUM, SMALL),
+        ImmutableList.copyOf(set.getOrdered(GROUP_KEY, REQUEST)));
+  }
+
+  @Test
+  public void testDominantResourceFit() {
+    OfferSet set =
+        create(PlacementStrategy.DOMINANT_RESOURCE_FIT, MEDIUM, TOO_SMALL, LARGE, SMALL);
+    assertEquals(
+        ImmutableList.of(SMALL, MEDIUM, LARGE),
+        ImmutableList.copyOf(set.getOrdered(GROUP_KEY, REQUEST)));
+  }
+
+  @Test
+  public void testFragmentationPenalty() {
+    // Leaves no cpu but plenty of RAM behind, which is the tighter fit by total leftovers.
+    HostOffer unbalanced = hostOffer("unbalanced", 1, 4096, 2048);
+    HostOffer balanced = hostOffer("balanced", 2, 2560, 2048);
+
+    OfferSet unweighted = new ScoringOfferSet(PlacementStrategy.BEST_FIT, 0, 16);
+    OfferSet weighted = new ScoringOfferSet(PlacementStrategy.BEST_FIT, 1, 16);
+    for (OfferSet set : ImmutableList.of(unweighted, weighted)) {
+      set.add(unbalanced);
+      set.add(balanced);
+    }
+
+    assertEquals(
+        ImmutableList.of(unbalanced, balanced),
+        ImmutableList.copyOf(unweighted.getOrdered(GROUP_KEY, REQUEST)));
+    assertEquals(
+        ImmutableList.of(balanced, unbalanced),
+        ImmutableList.copyOf(weighted.getOrdered(GROUP_KEY, REQUEST)));
+  }
+
+  @Test
+  public void testMaintenanceOffersLast() {
+    HostOffer draining = setMode(SMALL, DRAINING);
+    OfferSet set = create(PlacementStrategy.BEST_FIT, draining, MEDIUM, LARGE);
+    assertEquals(
+        ImmutableList.of(MEDIUM, LARGE, draining),
+        ImmutableList.copyOf(set.getOrdered(GROUP_KEY, REQUEST)));
+  }
+
+  @Test
+  public void testMaintenanceOffersAfterUnscoredOffers() {
+    // The draining offer is the best fit, but is kept out of the single scored candidate and
+    // placed after every offer from a host that is not in maintenance.
+    HostOffer draining = setMode(SMALL, DRAINING);
+    HostOffer scheduled = setMode(hostOffer("scheduled", 3, 3072, 3072), SCHEDULED);
+    OfferSet set = new ScoringOfferSet(PlacementStrategy.BEST_FIT, 0, 1);
+    set.add(draining);
+    set.add(scheduled);
+    set.add(MEDIUM);
+    set.add(LARGE);
+    assertEquals(
+        ImmutableList.of(MEDIUM, LARGE, draining, scheduled),
+        ImmutableList.copyOf(set.getOrdered(GROUP_KEY, REQUEST)));
+  }
+
+  @Test
+  public void testScalesFollowCurrentOffers() {
+    HostOffer unbalanced = hostOffer("unbalanced", 1, 4096, 2048);
+    HostOffer balanced = hostOffer("balanced", 2, 2560, 2048);
+    // Too small to fit, but dwarfs the RAM of the other offers while present.
+    HostOffer ramHeavy = hostOffer("ram-heavy", 0.5, 1048576, 512);
+
+    OfferSet set = new ScoringOfferSet(PlacementStrategy.BEST_FIT, 1, 16);
+    set.add(unbalanced);
+    set.add(balanced);
+    set.add(ramHeavy);
+    assertEquals(
+        ImmutableList.of(unbalanced, balanced),
+        ImmutableList.copyOf(set.getOrdered(GROUP_KEY, REQUEST)));
+
+    set.remove(ramHeavy);
+    assertEquals(
+        ImmutableList.of(balanced, unbalanced),
+        ImmutableList.copyOf(set.getOrdered(GROUP_KEY, REQUEST)));
+  }
+
+  @Test
+  public void testCandidatesBeyondLimitInIndexOrder() {
+    HostOffer unbalanced = hostOffer("unbalanced", 1, 4096, 2048);
+    HostOffer balanced = hostOffer("balanced", 2, 2560, 2048);
+
+    // Only the first offer in cpu order is scored, so the fragmentation penalty is not applied.
+    OfferSet set = new ScoringOfferSet(PlacementStrategy.BEST_FIT, 1, 1);
+    set.add(balanced);
+    set.add(unbalanced);
+    assertEquals(
+        ImmutableList.of(unbalanced, balanced),
+        ImmutableList.copyOf(set.getOrdered(GROUP_KEY, REQUEST)));
+  }
+
+  @Test
+  public void testAddRemove() {
+    OfferSet set = create(PlacementStrategy.BEST_FIT, SMALL, MEDIUM, LARGE);
+    assertEquals(3, set.size());
+
+    set.remove(SMALL);
+    assertEquals(2, set.size());
+    assertEquals(
+        ImmutableList.of(MEDIUM, LARGE),
+        ImmutableList.copyOf(set.getOrdered(GROUP_KEY, REQUEST)));
+
+    // Re-adding an offer replaces it rather than duplicating it.
+    set.add(MEDIUM);
+    assertEquals(2, set.size());
+    assertEquals(ImmutableList.of(MEDIUM, LARGE), ImmutableList.copyOf(set.values()));
+
+    set.clear();
+    assertEquals(0, set.size());
+    assertEquals(ImmutableList.of(), ImmutableList.copyOf(set.values()));
+  }
+}
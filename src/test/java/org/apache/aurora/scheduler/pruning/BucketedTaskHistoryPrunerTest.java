@@ -0,0 +1,211 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.pruning;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.SchedulerModule.TaskEventBatchWorker;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.pruning.TaskHistoryPruner.HistoryPrunerSettings;
+import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.FINISHED;
+import static org.apache.aurora.gen.ScheduleStatus.KILLED;
+import static org.apache.aurora.gen.ScheduleStatus.LOST;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.gen.ScheduleStatus.STARTING;
+import static org.apache.aurora.scheduler.pruning.BucketedTaskHistoryPruner.JOBS_OVER_GOAL;
+import static org.apache.aurora.scheduler.pruning.BucketedTaskHistoryPruner.PRUNE_BACKLOG;
+import static org.apache.aurora.scheduler.pruning.TaskHistoryPruner.TASKS_PRUNED;
+import static org.apache.aurora.scheduler.testing.BatchWorkerUtil.expectBatchExecute;
+import static org.junit.Assert.assertEquals;
+
+public class BucketedTaskHistoryPrunerTest extends EasyMockTest {
+  private static final Amount<Long, Time> ONE_MS = Amount.of(1L, Time.MILLISECONDS);
+  private static final Amount<Long, Time> ONE_MINUTE = Amount.of(1L, Time.MINUTES);
+  private static final Amount<Long, Time> ONE_HOUR = Amount.of(1L, Time.HOURS);
+  private static final Amount<Long, Time> ONE_DAY = Amount.of(1L, Time.DAYS);
+  private static final int PER_JOB_HISTORY = 2;
+  private static final int BATCH_SIZE = 2;
+
+  private FakeClock clock;
+  private StateManager stateManager;
+  private StorageTestUtil storageUtil;
+  private FakeStatsProvider statsProvider;
+  private BucketedTaskHistoryPruner pruner;
+
+  @Before
+  public void setUp() throws Exception {
+    clock = new FakeClock();
+    clock.setNowMillis(ONE_DAY.as(Time.MILLISECONDS));
+    stateManager = createMock(StateManager.class);
+    storageUtil = new StorageTestUtil(this);
+    storageUtil.expectOperations();
+    TaskEventBatchWorker batchWorker = createMock(TaskEventBatchWorker.class);
+    expectBatchExecute(batchWorker, storageUtil.storage, control).anyTimes();
+    statsProvider = new FakeStatsProvider();
+
+    pruner = new BucketedTaskHistoryPruner(
+        stateManager,
+        clock,
+        new BucketedTaskHistoryPruner.Settings(
+            new HistoryPrunerSettings(ONE_DAY, ONE_HOUR, PER_JOB_HISTORY),
+            ONE_MINUTE,
+            BATCH_SIZE),
+        batchWorker,
+        statsProvider);
+  }
+
+  @Test
+  public void testNonTerminalStateIgnored() {
+    control.replay();
+
+    IScheduledTask starting = makeTask("a", STARTING);
+    changeState(starting, copy(starting, RUNNING));
+    assertEquals(0L, statsProvider.getLongValue(PRUNE_BACKLOG));
+  }
+
+  @Test
+  public void testPruneExpiredTask() {
+    expectDeleteTasks("a");
+
+    control.replay();
+
+    IScheduledTask running = makeTask("a", RUNNING);
+    changeState(running, copy(running, KILLED));
+    assertEquals(1L, statsProvider.getLongValue(PRUNE_BACKLOG));
+
+    clock.advance(Amount.of(ONE_DAY.as(Time.MINUTES) - 1, Time.MINUTES));
+    pruner.runForTest();
+    assertEquals(0L, statsProvider.getLongValue(TASKS_PRUNED));
+
+    clock.advance(ONE_MINUTE);
+    pruner.runForTest();
+    assertEquals(1L, statsProvider.getLongValue(TASKS_PRUNED));
+    assertEquals(0L, statsProvider.getLongValue(PRUNE_BACKLOG));
+  }
+
+  @Test
+  public void testStorageStartedWithOldTask() {
+    expectDeleteTasks("a");
+
+    control.replay();
+
+    IScheduledTask a = makeTask("a", FINISHED);
+    clock.advance(ONE_DAY);
+    // The task is past the prune threshold already, so is retained for the minimum time only.
+    pruner.recordStateChange(TaskStateChange.initialized(a));
+
+    clock.advance(Amount.of(ONE_HOUR.as(Time.MINUTES) - 1, Time.MINUTES));
+    pruner.runForTest();
+    assertEquals(0L, statsProvider.getLongValue(TASKS_PRUNED));
+
+    clock.advance(ONE_MINUTE);
+    pruner.runForTest();
+    assertEquals(1L, statsProvider.getLongValue(TASKS_PRUNED));
+  }
+
+  @Test
+  public void testJobHistoryExceeded() {
+    expectDeleteTasks("a", "b");
+
+    control.replay();
+
+    for (String taskId : ImmutableSet.of("a", "b", "c", "d")) {
+      IScheduledTask running = makeTask(taskId, RUNNING);
+      clock.advance(ONE_MS);
+      changeState(running, copy(running, LOST));
+    }
+    assertEquals(1L, statsProvider.getLongValue(JOBS_OVER_GOAL));
+
+    // No pruning yet due to the min retention threshold.
+    pruner.runForTest();
+    assertEquals(0L, statsProvider.getLongValue(TASKS_PRUNED));
+
+    clock.advance(ONE_HOUR);
+    pruner.runForTest();
+    assertEquals(2L, statsProvider.getLongValue(TASKS_PRUNED));
+    assertEquals(2L, statsProvider.getLongValue(PRUNE_BACKLOG));
+    assertEquals(0L, statsProvider.getLongValue(JOBS_OVER_GOAL));
+  }
+
+  @Test
+  public void testDeletedTaskNotPruned() {
+    control.replay();
+
+    IScheduledTask running = makeTask("a", RUNNING);
+    IScheduledTask killed = copy(running, KILLED);
+    changeState(running, killed);
+    pruner.tasksDeleted(new TasksDeleted(ImmutableSet.of(killed)));
+    assertEquals(0L, statsProvider.getLongValue(PRUNE_BACKLOG));
+
+    clock.advance(ONE_DAY);
+    pruner.runForTest();
+    assertEquals(0L, statsProvider.getLongValue(TASKS_PRUNED));
+  }
+
+  @Test
+  public void testDeleteInBatches() {
+    expectDeleteTasks("a", "b");
+    expectDeleteTasks("c", "d");
+    expectDeleteTasks("e");
+
+    control.replay();
+
+    for (String taskId : ImmutableSet.of("a", "b", "c", "d", "e")) {
+      IScheduledTask running = makeTask(JobKeys.from("role", "env", taskId), taskId, RUNNING);
+      changeState(running, copy(running, FINISHED));
+    }
+
+    clock.advance(ONE_DAY);
+    pruner.runForTest();
+    assertEquals(5L, statsProvider.getLongValue(TASKS_PRUNED));
+    assertEquals(0L, statsProvider.getLongValue(PRUNE_BACKLOG));
+  }
+
+  private void expectDeleteTasks(String... tasks) {
+    stateManager.deleteTasks(storageUtil.mutableStoreProvider, ImmutableSet.copyOf(tasks));
+  }
+
+  private void changeState(IScheduledTask oldStateTask, IScheduledTask newStateTask) {
+    pruner.recordStateChange(TaskStateChange.transition(newStateTask, oldStateTask.getStatus()));
+  }
+
+  private IScheduledTask copy(IScheduledTask task, ScheduleStatus status) {
+    return TaskTestUtil.addStateTransition(task, status, clock.nowMillis());
+  }
+
+  private IScheduledTask makeTask(IJobKey job, String taskId, ScheduleStatus status) {
+    return TaskTestUtil.addStateTransition(
+        TaskTestUtil.makeTask(taskId, job), status, clock.nowMillis());
+  }
+
+  private IScheduledTask makeTask(String taskId, ScheduleStatus status) {
+    return makeTask(TaskTestUtil.JOB, taskId, status);
+  }
+}
@@ -56,6 +56,8 @@ import static org.apache.aurora.gen.JobUpdateStatus.ROLLING_FORWARD;
 import static org.apache.aurora.scheduler.base.TaskTestUtil.JOB;
 import static org.apache.aurora.scheduler.base.TaskTestUtil.makeTask;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class JobUpdateHistoryPrunerTest {
 
@@ -103,18 +105,48 @@ public class JobUpdateHistoryPrunerTest {
     assertRetainedUpdates(update1, update7);
   }
 
-  private void pruneHistory(int retainCount, long pruningThresholdMs) {
+  @Test
+  public void testPruneInBatches() {
+    IJobUpdateDetails update1 = makeAndSave(makeKey("u1"), ABORTED, 121L, 121L, true);
+    IJobUpdateDetails update2 = makeAndSave(makeKey("u2"), ROLLED_BACK, 122L, 122L, true);
+    IJobUpdateDetails update3 = makeAndSave(makeKey("u3"), FAILED, 123L, 123L, true);
+    IJobUpdateDetails update4 = makeAndSave(makeKey("u4"), ERROR, 124L, 124L, true);
+    IJobUpdateDetails update5 = makeAndSave(makeKey("u5"), ROLLING_FORWARD, 125L, 125L, true);
+
+    JobUpdateHistoryPruner pruner = makePruner(10, 125, 3);
+
+    // The oldest updates are pruned first, and more remain.
+    assertTrue(pruner.runForTest());
+    assertRetainedUpdates(update4, update5);
+
+    assertFalse(pruner.runForTest());
+    assertRetainedUpdates(update5);
+
+    assertFalse(pruner.runForTest());
+    assertRetainedUpdates(update5);
+  }
+
+  private JobUpdateHistoryPruner makePruner(
+      int retainCount,
+      long pruningThresholdMs,
+      int batchSize) {
+
     FakeClock clock = new FakeClock();
     clock.setNowMillis(100 + pruningThresholdMs);
-    JobUpdateHistoryPruner pruner = new JobUpdateHistoryPruner(
+    return new JobUpdateHistoryPruner(
         clock,
         storage,
         new HistoryPrunerSettings(
             Amount.of(1L, Time.DAYS),
             Amount.of(100L, Time.MILLISECONDS),
-            retainCount),
+            retainCount,
+            batchSize,
+            Amount.of(1L, Time.SECONDS)),
         new FakeStatsProvider());
-    pruner.runForTest();
+  }
+
+  private void pruneHistory(int retainCount, long pruningThresholdMs) {
+    assertFalse(makePruner(retainCount, pruningThresholdMs, 100).runForTest());
   }
 
   private void assertRetainedUpdates(IJobUpdateDetails... updates) {
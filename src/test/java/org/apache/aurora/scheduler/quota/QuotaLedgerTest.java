@@ -0,0 +1,184 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.quota;
+
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.quota.QuotaManager.QuotaManagerImpl;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.Resource.diskMb;
+import static org.apache.aurora.gen.Resource.numCpus;
+import static org.apache.aurora.gen.Resource.ramMb;
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.INIT;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.bag;
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+
+public class QuotaLedgerTest extends EasyMockTest {
+  private static final String ROLE = "role";
+  private static final IJobKey JOB_A = JobKeys.from(ROLE, "env", "a");
+  private static final IJobKey JOB_B = JobKeys.from(ROLE, "env", "b");
+  private static final IScheduledTask TASK_A0 = makeTask(JOB_A, "a0", 1);
+  private static final IScheduledTask TASK_A1 = makeTask(JOB_A, "a1", 4);
+  private static final IScheduledTask TASK_B0 = makeTask(JOB_B, "b0", 2);
+
+  private StorageTestUtil storageUtil;
+  private FakeStatsProvider statsProvider;
+  private QuotaLedger ledger;
+
+  @Before
+  public void setUp() {
+    storageUtil = new StorageTestUtil(this);
+    storageUtil.expectOperations();
+    statsProvider = new FakeStatsProvider();
+    ledger = new QuotaLedger(statsProvider);
+  }
+
+  private static IScheduledTask makeTask(IJobKey job, String id, int size) {
+    ScheduledTask builder = TaskTestUtil.makeTask(id, job).newBuilder();
+    builder.getAssignedTask().getTask()
+        .setResources(ImmutableSet.of(numCpus(size), ramMb(size), diskMb(size)))
+        .setProduction(true);
+    return IScheduledTask.build(builder);
+  }
+
+  private void expectRoleLoad(IScheduledTask... tasks) {
+    storageUtil.expectTaskFetch(Query.roleScoped(ROLE).active(), tasks);
+    expect(storageUtil.jobUpdateStore.fetchJobUpdates(QuotaManagerImpl.updateQuery(ROLE)))
+        .andReturn(ImmutableList.of());
+    expect(storageUtil.jobStore.fetchJobs()).andReturn(ImmutableSet.of());
+  }
+
+  private void expectJobLoad(IJobKey job, IScheduledTask... tasks) {
+    storageUtil.expectTaskFetch(Query.jobScoped(job).active(), tasks);
+    expect(storageUtil.jobUpdateStore.fetchJobUpdates(QuotaManagerImpl.updateQuery(job)))
+        .andReturn(ImmutableList.of());
+    expect(storageUtil.jobStore.fetchJob(job)).andReturn(Optional.empty());
+  }
+
+  private ResourceBag getProdConsumption() {
+    return ledger.getConsumption(ROLE, storageUtil.storeProvider).getProdSharedConsumption();
+  }
+
+  @Test
+  public void testRoleLoadedOnce() {
+    expectRoleLoad(TASK_A0, TASK_B0);
+
+    control.replay();
+
+    assertEquals(bag(3, 3, 3), getProdConsumption());
+    assertEquals(bag(3, 3, 3), getProdConsumption());
+    assertEquals(bag(1, 1, 1), ledger.getJobConsumption(JOB_A).getProdSharedConsumption());
+    assertEquals(1L, statsProvider.getLongValue(QuotaLedger.ROLES));
+  }
+
+  @Test
+  public void testChangedJobRecomputed() {
+    expectRoleLoad(TASK_A0, TASK_B0);
+    expectJobLoad(JOB_A, TASK_A0, TASK_A1);
+
+    control.replay();
+
+    assertEquals(bag(3, 3, 3), getProdConsumption());
+    ledger.taskChangedState(TaskStateChange.transition(TASK_A1, INIT));
+    assertEquals(bag(7, 7, 7), getProdConsumption());
+    assertEquals(bag(7, 7, 7), getProdConsumption());
+    assertEquals(1L, statsProvider.getLongValue(QuotaLedger.JOB_REFRESHES));
+  }
+
+  @Test
+  public void testActiveTransitionIgnored() {
+    expectRoleLoad(TASK_A0);
+
+    control.replay();
+
+    assertEquals(bag(1, 1, 1), getProdConsumption());
+    ledger.taskChangedState(TaskStateChange.transition(
+        IScheduledTask.build(TASK_A0.newBuilder().setStatus(RUNNING)),
+        ASSIGNED));
+    assertEquals(bag(1, 1, 1), getProdConsumption());
+    assertEquals(0L, statsProvider.getLongValue(QuotaLedger.JOB_REFRESHES));
+  }
+
+  @Test
+  public void testTasksDeleted() {
+    expectRoleLoad(TASK_A0, TASK_B0);
+    expectJobLoad(JOB_B);
+
+    control.replay();
+
+    assertEquals(bag(3, 3, 3), getProdConsumption());
+    ledger.tasksDeleted(new TasksDeleted(ImmutableSet.of(TASK_B0)));
+    assertEquals(bag(1, 1, 1), getProdConsumption());
+  }
+
+  @Test
+  public void testUnloadedRoleNotTracked() {
+    control.replay();
+
+    ledger.invalidate(JOB_A);
+    assertEquals(0L, statsProvider.getLongValue(QuotaLedger.ROLES));
+    assertEquals(QuotaLedger.NO_CONSUMPTION, ledger.getJobConsumption(JOB_A));
+  }
+
+  @Test
+  public void testVerifyCorrectsDrift() {
+    expectRoleLoad(TASK_A0);
+    // A job that was changed without an observed event.
+    expectRoleLoad(TASK_A0, TASK_B0);
+
+    control.replay();
+
+    assertEquals(bag(1, 1, 1), getProdConsumption());
+    ledger.verify(storageUtil.storage);
+    assertEquals(1L, statsProvider.getLongValue(QuotaLedger.VERIFICATIONS));
+    assertEquals(1L, statsProvider.getLongValue(QuotaLedger.DRIFTED_JOBS));
+    assertEquals(bag(3, 3, 3), getProdConsumption());
+  }
+
+  @Test
+  public void testVerifyIgnoresChangedJobs() {
+    expectRoleLoad(TASK_A0);
+    expectRoleLoad(TASK_A0, TASK_A1);
+    expectJobLoad(JOB_A, TASK_A0, TASK_A1);
+
+    control.replay();
+
+    assertEquals(bag(1, 1, 1), getProdConsumption());
+    ledger.invalidate(JOB_A);
+    ledger.verify(storageUtil.storage);
+    assertEquals(0L, statsProvider.getLongValue(QuotaLedger.DRIFTED_JOBS));
+    assertEquals(bag(5, 5, 5), getProdConsumption());
+    assertEquals(1L, statsProvider.getLongValue(QuotaLedger.JOB_REFRESHES));
+  }
+}
@@ -50,6 +50,7 @@ import org.apache.aurora.scheduler.storage.entities.IResourceAggregate;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.easymock.IExpectationSetters;
 import org.junit.Before;
 import org.junit.Test;
@@ -193,6 +194,34 @@ public class QuotaManagerImplTest extends EasyMockTest {
     assertEquals(SUFFICIENT_QUOTA, checkQuota.getResult());
   }
 
+  @Test
+  public void testCheckQuotaWithLedger() {
+    quotaManager = new QuotaManagerImpl(Optional.of(new QuotaLedger(new FakeStatsProvider())));
+    expectQuota(aggregate(4, 4, 4)).times(2);
+    expectTasks(prodTask("foo", 2, 2, 2));
+    expectNoJobUpdates();
+    expectNoCronJobs();
+
+    // Only the job checked first is recomputed for the second check.
+    IJobKey job = JobKeys.from(ROLE, ENV, JOB_NAME);
+    storageUtil.expectTaskFetch(
+        Query.jobScoped(job).active(),
+        createTask(JOB_NAME, "id1", 1, 1, 1, true, 0));
+    expect(jobUpdateStore.fetchJobUpdates(updateQuery(job))).andReturn(ImmutableList.of());
+    expectNoCronJob();
+
+    control.replay();
+
+    assertEquals(
+        SUFFICIENT_QUOTA,
+        quotaManager.checkInstanceAddition(taskConfig(1, 1, 1, true), 1, storeProvider)
+            .getResult());
+    assertEquals(
+        INSUFFICIENT_QUOTA,
+        quotaManager.checkInstanceAddition(taskConfig(1, 1, 1, true), 2, storeProvider)
+            .getResult());
+  }
+
   @Test
   public void testCheckQuotaPassesNoTasks() {
     expectQuota(aggregate(4, 4, 4));
@@ -14,8 +14,10 @@
 package org.apache.aurora.scheduler.resources;
 
 import java.util.EnumSet;
+import java.util.Optional;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -189,6 +191,25 @@ public class ResourceManagerTest {
             ImmutableSet.of(mesosScalar(CPUS, 3.0), unsupported)));
   }
 
+  @Test
+  public void testSubtractFromOffer() {
+    Offer offer = ResourceTestUtil.offer(
+        mesosScalar(CPUS, Optional.of("role"), false, 1.0),
+        mesosScalar(CPUS, 2.0),
+        mesosScalar(RAM_MB, 1024),
+        mesosRange(PORTS, 80, 81, 82));
+
+    assertEquals(
+        ResourceTestUtil.offer(mesosScalar(CPUS, 1.5), mesosRange(PORTS, 80, 82)),
+        ResourceManager.subtractFromOffer(
+            offer,
+            ImmutableList.of(
+                mesosScalar(CPUS, Optional.of("role"), false, 1.0),
+                mesosScalar(CPUS, 0.5),
+                mesosScalar(RAM_MB, 1024),
+                mesosRange(PORTS, 81))));
+  }
+
   @Test
   public void testBagFromAggregate() {
     assertEquals(bag(1.0, 32, 64), ResourceManager.bagFromAggregate(aggregate(1.0, 32, 64)));
@@ -0,0 +1,164 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.scheduling;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.Histogram;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.JobKey;
+import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FairShareDispatcherTest {
+  private static final TaskGroupKey ROLE_A = makeKey("a", false);
+  private static final TaskGroupKey ROLE_A_PROD = makeKey("a", true);
+  private static final TaskGroupKey ROLE_B = makeKey("b", false);
+
+  private List<Runnable> drains;
+  private List<String> attempts;
+  private FakeClock clock;
+  private FakeStatsProvider statsProvider;
+
+  @Before
+  public void setUp() {
+    drains = Lists.newArrayList();
+    attempts = Lists.newArrayList();
+    clock = new FakeClock();
+    statsProvider = new FakeStatsProvider();
+  }
+
+  private static TaskGroupKey makeKey(String role, boolean production) {
+    return TaskGroupKey.from(ITaskConfig.build(new TaskConfig()
+        .setJob(new JobKey(role, "test", "job"))
+        .setProduction(production)));
+  }
+
+  private FairShareDispatcher makeDispatcher(int threads, int productionWeight) {
+    return new FairShareDispatcher(drains::add, threads, productionWeight, clock, statsProvider);
+  }
+
+  private void dispatch(FairShareDispatcher dispatcher, TaskGroupKey key, String name) {
+    dispatcher.dispatch(key, () -> attempts.add(name));
+  }
+
+  private void runDrains() {
+    List<Runnable> pending = ImmutableList.copyOf(drains);
+    drains.clear();
+    pending.forEach(Runnable::run);
+  }
+
+  @Test
+  public void testRolesShareAttempts() {
+    FairShareDispatcher dispatcher = makeDispatcher(1, 1);
+    dispatch(dispatcher, ROLE_A, "a1");
+    dispatch(dispatcher, ROLE_A, "a2");
+    dispatch(dispatcher, ROLE_A, "a3");
+    dispatch(dispatcher, ROLE_B, "b1");
+    dispatch(dispatcher, ROLE_B, "b2");
+    assertEquals(5L, statsProvider.getLongValue(FairShareDispatcher.QUEUED_ATTEMPTS));
+
+    runDrains();
+    assertEquals(ImmutableList.of("a1", "b1", "a2", "b2", "a3"), attempts);
+    assertEquals(0L, statsProvider.getLongValue(FairShareDispatcher.QUEUED_ATTEMPTS));
+  }
+
+  @Test
+  public void testIdleRoleDoesNotBankShare() {
+    FairShareDispatcher dispatcher = makeDispatcher(1, 1);
+    dispatch(dispatcher, ROLE_A, "a1");
+    dispatch(dispatcher, ROLE_A, "a2");
+    runDrains();
+
+    // Role B was idle while role A was served, and is not owed the attempts A made meanwhile.
+    dispatch(dispatcher, ROLE_A, "a3");
+    dispatch(dispatcher, ROLE_A, "a4");
+    dispatch(dispatcher, ROLE_B, "b1");
+    dispatch(dispatcher, ROLE_B, "b2");
+    runDrains();
+    assertEquals(ImmutableList.of("a1", "a2", "a3", "b1", "a4", "b2"), attempts);
+  }
+
+  @Test
+  public void testProductionWeight() {
+    FairShareDispatcher dispatcher = makeDispatcher(1, 2);
+    dispatch(dispatcher, ROLE_A, "n1");
+    dispatch(dispatcher, ROLE_A, "n2");
+    dispatch(dispatcher, ROLE_A_PROD, "p1");
+    dispatch(dispatcher, ROLE_A_PROD, "p2");
+    dispatch(dispatcher, ROLE_A_PROD, "p3");
+    dispatch(dispatcher, ROLE_A_PROD, "p4");
+
+    runDrains();
+    assertEquals(ImmutableList.of("n1", "p1", "p2", "n2", "p3", "p4"), attempts);
+  }
+
+  @Test
+  public void testThreadsLimited() {
+    FairShareDispatcher dispatcher = makeDispatcher(2, 1);
+    dispatch(dispatcher, ROLE_A, "a1");
+    dispatch(dispatcher, ROLE_A, "a2");
+    dispatch(dispatcher, ROLE_B, "b1");
+    assertEquals(2, drains.size());
+
+    runDrains();
+    assertEquals(3, attempts.size());
+
+    dispatch(dispatcher, ROLE_A, "a3");
+    assertEquals(1, drains.size());
+    runDrains();
+    assertEquals("a3", attempts.get(3));
+  }
+
+  @Test
+  public void testFailedAttempt() {
+    FairShareDispatcher dispatcher = makeDispatcher(1, 1);
+    dispatcher.dispatch(ROLE_A, () -> {
+      throw new IllegalStateException("Expected");
+    });
+    dispatch(dispatcher, ROLE_B, "b1");
+
+    runDrains();
+    assertEquals(ImmutableList.of("b1"), attempts);
+    assertEquals(0L, statsProvider.getLongValue(FairShareDispatcher.QUEUED_ATTEMPTS));
+  }
+
+  @Test
+  public void testQueueDelayStats() {
+    FairShareDispatcher dispatcher = makeDispatcher(1, 1);
+    dispatch(dispatcher, ROLE_A, "a1");
+    dispatch(dispatcher, ROLE_A_PROD, "p1");
+    clock.advance(Amount.of(5L, Time.MILLISECONDS));
+    runDrains();
+
+    for (double percentile : Histogram.EXPORTED_PERCENTILES) {
+      String stat = Histogram.statName(FairShareDispatcher.queueDelayStatName("a"), percentile);
+      assertTrue(stat, statsProvider.getAllValues().containsKey(stat));
+    }
+    assertTrue(statsProvider.getAllValues().keySet().stream()
+        .noneMatch(stat -> stat.startsWith(FairShareDispatcher.queueDelayStatName("b"))));
+  }
+}
@@ -17,6 +17,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
@@ -30,7 +31,10 @@ import org.apache.aurora.scheduler.base.InstanceKeys;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.filter.AttributeAggregate;
+import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
 import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferManager;
@@ -60,6 +64,8 @@ import static org.apache.aurora.scheduler.resources.ResourceType.CPUS;
 import static org.apache.aurora.scheduler.resources.ResourceType.PORTS;
 import static org.apache.aurora.scheduler.resources.ResourceType.RAM_MB;
 import static org.apache.aurora.scheduler.scheduling.TaskAssignerImpl.ASSIGNER_LAUNCH_FAILURES;
+import static org.apache.aurora.scheduler.scheduling.TaskAssignerImpl.ASSIGNER_OFFERS_LAUNCHED;
+import static org.apache.aurora.scheduler.scheduling.TaskAssignerImpl.ASSIGNER_TASKS_LAUNCHED;
 import static org.apache.aurora.scheduler.scheduling.TaskAssignerImpl.LAUNCH_FAILED_MSG;
 import static org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 import static org.apache.mesos.v1.Protos.Offer;
@@ -108,6 +114,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
   private StateManager stateManager;
   private MesosTaskFactory taskFactory;
   private OfferManager offerManager;
+  private SchedulingFilter schedulingFilter;
   private TaskAssignerImpl assigner;
   private FakeStatsProvider statsProvider;
   private UpdateAgentReserver updateAgentReserver;
@@ -119,13 +126,9 @@ public class TaskAssignerImplTest extends EasyMockTest {
     stateManager = createMock(StateManager.class);
     offerManager = createMock(OfferManager.class);
     updateAgentReserver = createMock(UpdateAgentReserver.class);
+    schedulingFilter = createMock(SchedulingFilter.class);
     statsProvider = new FakeStatsProvider();
-    assigner = new TaskAssignerImpl(
-        stateManager,
-        taskFactory,
-        offerManager,
-        updateAgentReserver,
-        statsProvider);
+    assigner = createAssigner(1);
     aggregate = empty();
     resourceRequest = ResourceRequest.fromTask(
         TASK.getTask(),
@@ -155,7 +158,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
 
     expect(offerManager.getAllMatching(GROUP_KEY, resourceRequest))
         .andReturn(ImmutableSet.of(OFFER, OFFER_2)).atLeastOnce();
-    offerManager.launchTask(MESOS_OFFER.getId(), TASK_INFO);
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO));
     expectLastCall().andThrow(new OfferManager.LaunchException("expected"));
     expectAssignTask(MESOS_OFFER);
     expect(stateManager.changeState(
@@ -216,7 +219,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expectAssignTask(OFFER_2.getOffer());
     expect(taskFactory.createFrom(TASK, OFFER_2.getOffer(), false))
         .andReturn(TASK_INFO);
-    offerManager.launchTask(OFFER_2.getOffer().getId(), TASK_INFO);
+    offerManager.launchTasks(OFFER_2.getOffer().getId(), ImmutableList.of(TASK_INFO));
 
     control.replay();
 
@@ -249,7 +252,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expect(offerManager.getMatching(MESOS_OFFER.getAgentId(), resourceRequest))
         .andReturn(Optional.of(OFFER));
     expectAssignTask(MESOS_OFFER);
-    offerManager.launchTask(MESOS_OFFER.getId(), TASK_INFO);
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO));
 
     expect(taskFactory.createFrom(TASK, MESOS_OFFER, false))
         .andReturn(TASK_INFO);
@@ -295,7 +298,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expect(offerManager.getMatching(MESOS_OFFER.getAgentId(), resourceRequest))
         .andReturn(Optional.of(OFFER));
     expectAssignTask(MESOS_OFFER);
-    offerManager.launchTask(MESOS_OFFER.getId(), TASK_INFO);
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO));
     expect(taskFactory.createFrom(TASK, MESOS_OFFER, false))
         .andReturn(TASK_INFO);
 
@@ -312,7 +315,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expect(updateAgentReserver.isReserved(OFFER_2.getOffer().getAgentId().getValue()))
         .andReturn(false);
     expectAssignTask(MESOS_OFFER_2, secondTask);
-    offerManager.launchTask(MESOS_OFFER_2.getId(), secondTaskInfo);
+    offerManager.launchTasks(MESOS_OFFER_2.getId(), ImmutableList.of(secondTaskInfo));
     expect(taskFactory.createFrom(secondTask, MESOS_OFFER_2, false)).andReturn(secondTaskInfo);
 
     control.replay();
@@ -328,6 +331,134 @@ public class TaskAssignerImplTest extends EasyMockTest {
     assertNotEquals(empty(), aggregate);
   }
 
+  @Test
+  public void testPackTasksOntoOffer() throws Exception {
+    assigner = createAssigner(2);
+    IAssignedTask secondTask = makeTask("id2", JOB, 2).getAssignedTask();
+    TaskInfo secondTaskInfo = makeTaskInfo(secondTask);
+
+    expect(updateAgentReserver.getAgent(anyObject())).andReturn(Optional.empty()).times(2);
+    expect(updateAgentReserver.isReserved(SLAVE_ID)).andReturn(false).times(2);
+    expect(offerManager.getAllMatching(GROUP_KEY, resourceRequest))
+        .andReturn(ImmutableSet.of(OFFER, OFFER_2));
+    expectAssignTask(MESOS_OFFER);
+    expect(taskFactory.createFrom(TASK, MESOS_OFFER, false)).andReturn(TASK_INFO);
+    expect(schedulingFilter.filter(
+        new UnusedResource(OFFER, false),
+        resourceRequest)).andReturn(ImmutableSet.of());
+    expectAssignTask(MESOS_OFFER, secondTask);
+    expect(taskFactory.createFrom(secondTask, MESOS_OFFER, false)).andReturn(secondTaskInfo);
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO, secondTaskInfo));
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(TASK.getTaskId(), secondTask.getTaskId()),
+        assigner.maybeAssign(
+            storeProvider,
+            resourceRequest,
+            GROUP_KEY,
+            ImmutableSet.of(TASK, secondTask),
+            NO_RESERVATION));
+    assertEquals(1L, statsProvider.getLongValue(ASSIGNER_OFFERS_LAUNCHED));
+    assertEquals(2L, statsProvider.getLongValue(ASSIGNER_TASKS_LAUNCHED));
+  }
+
+  @Test
+  public void testPackingMovesToNextOfferWhenFull() throws Exception {
+    assigner = createAssigner(2);
+    IAssignedTask secondTask = makeTask("id2", JOB, 2).getAssignedTask();
+    TaskInfo secondTaskInfo = makeTaskInfo(secondTask);
+
+    expect(updateAgentReserver.getAgent(anyObject())).andReturn(Optional.empty()).times(2);
+    expect(updateAgentReserver.isReserved(anyString())).andReturn(false).atLeastOnce();
+    expect(offerManager.getAllMatching(GROUP_KEY, resourceRequest))
+        .andReturn(ImmutableSet.of(OFFER, OFFER_2)).times(2);
+    expectAssignTask(MESOS_OFFER);
+    expect(taskFactory.createFrom(TASK, MESOS_OFFER, false)).andReturn(TASK_INFO);
+    expect(schedulingFilter.filter(
+        new UnusedResource(OFFER, false),
+        resourceRequest)).andReturn(ImmutableSet.of(Veto.insufficientResources("ram", 1)));
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO));
+    expectAssignTask(MESOS_OFFER_2, secondTask);
+    expect(taskFactory.createFrom(secondTask, MESOS_OFFER_2, false)).andReturn(secondTaskInfo);
+    offerManager.launchTasks(MESOS_OFFER_2.getId(), ImmutableList.of(secondTaskInfo));
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(TASK.getTaskId(), secondTask.getTaskId()),
+        assigner.maybeAssign(
+            storeProvider,
+            resourceRequest,
+            GROUP_KEY,
+            ImmutableSet.of(TASK, secondTask),
+            NO_RESERVATION));
+    assertEquals(2L, statsProvider.getLongValue(ASSIGNER_OFFERS_LAUNCHED));
+    assertEquals(2L, statsProvider.getLongValue(ASSIGNER_TASKS_LAUNCHED));
+  }
+
+  @Test
+  public void testPackedAssignmentsClearedOnError() throws Exception {
+    assigner = createAssigner(2);
+    IAssignedTask secondTask = makeTask("id2", JOB, 2).getAssignedTask();
+    TaskInfo secondTaskInfo = makeTaskInfo(secondTask);
+
+    expect(updateAgentReserver.getAgent(anyObject())).andReturn(Optional.empty()).times(2);
+    expect(updateAgentReserver.isReserved(SLAVE_ID)).andReturn(false).times(2);
+    expect(offerManager.getAllMatching(GROUP_KEY, resourceRequest))
+        .andReturn(ImmutableSet.of(OFFER));
+    expectAssignTask(MESOS_OFFER);
+    expect(taskFactory.createFrom(TASK, MESOS_OFFER, false)).andReturn(TASK_INFO);
+    expect(schedulingFilter.filter(
+        new UnusedResource(OFFER, false),
+        resourceRequest)).andReturn(ImmutableSet.of());
+    expectAssignTask(MESOS_OFFER, secondTask);
+    expect(taskFactory.createFrom(secondTask, MESOS_OFFER, false)).andReturn(secondTaskInfo);
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO, secondTaskInfo));
+    expectLastCall().andThrow(new OfferManager.LaunchException("expected"));
+    for (IAssignedTask task : ImmutableList.of(TASK, secondTask)) {
+      expect(stateManager.changeState(
+          storeProvider,
+          task.getTaskId(),
+          Optional.of(ASSIGNED),
+          LOST,
+          LAUNCH_FAILED_MSG))
+          .andReturn(StateChangeResult.SUCCESS);
+    }
+
+    control.replay();
+
+    assertEquals(
+        NO_ASSIGNMENT,
+        assigner.maybeAssign(
+            storeProvider,
+            resourceRequest,
+            GROUP_KEY,
+            ImmutableSet.of(TASK, secondTask),
+            NO_RESERVATION));
+    assertEquals(2L, statsProvider.getLongValue(ASSIGNER_LAUNCH_FAILURES));
+  }
+
+  private TaskAssignerImpl createAssigner(int maxTasksPerOffer) {
+    return new TaskAssignerImpl(
+        stateManager,
+        taskFactory,
+        offerManager,
+        updateAgentReserver,
+        schedulingFilter,
+        statsProvider,
+        maxTasksPerOffer);
+  }
+
+  private static TaskInfo makeTaskInfo(IAssignedTask task) {
+    return TaskInfo.newBuilder()
+        .setName(task.getTaskId())
+        .setTaskId(TaskID.newBuilder().setValue(task.getTaskId()))
+        .setAgentId(MESOS_OFFER.getAgentId())
+        .build();
+  }
+
   private void expectAssignTask(Offer offer) {
     expectAssignTask(offer, TASK);
   }
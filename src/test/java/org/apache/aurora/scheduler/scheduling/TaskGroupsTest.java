@@ -13,16 +13,20 @@
  */
 package org.apache.aurora.scheduler.scheduling;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.RateLimiter;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.BackoffStrategy;
+import org.apache.aurora.common.util.testing.FakeClock;
 import org.apache.aurora.gen.AssignedTask;
 import org.apache.aurora.gen.JobKey;
 import org.apache.aurora.gen.ScheduleStatus;
@@ -56,6 +60,7 @@ public class TaskGroupsTest extends EasyMockTest {
   private static final String TASK_A_ID = "a";
   private static final Set<String> SCHEDULED_RESULT = ImmutableSet.of(TASK_A_ID);
 
+  private ScheduledExecutorService executor;
   private BackoffStrategy backoffStrategy;
   private TaskScheduler taskScheduler;
   private RateLimiter rateLimiter;
@@ -70,7 +75,7 @@ public class TaskGroupsTest extends EasyMockTest {
   public void setUp() throws Exception {
     storageUtil = new StorageTestUtil(this);
     storageUtil.expectOperations();
-    ScheduledExecutorService executor = createMock(ScheduledExecutorService.class);
+    executor = createMock(ScheduledExecutorService.class);
     clock = FakeScheduledExecutor.fromScheduledExecutorService(executor);
     backoffStrategy = createMock(BackoffStrategy.class);
     taskScheduler = createMock(TaskScheduler.class);
@@ -80,13 +85,17 @@ public class TaskGroupsTest extends EasyMockTest {
     statsProvider = new FakeStatsProvider();
     taskGroups = new TaskGroups(
         executor,
-        new TaskGroupsSettings(FIRST_SCHEDULE_DELAY, backoffStrategy, rateLimiter, 2),
+        makeSettings(),
         taskScheduler,
         rescheduleCalculator,
         batchWorker,
         statsProvider);
   }
 
+  private TaskGroupsSettings makeSettings() {
+    return new TaskGroupsSettings(FIRST_SCHEDULE_DELAY, backoffStrategy, rateLimiter, 2);
+  }
+
   @Test
   public void testEvaluatedAfterFirstSchedulePenalty() throws Exception {
     expect(rateLimiter.acquire()).andReturn(0D);
@@ -171,6 +180,37 @@ public class TaskGroupsTest extends EasyMockTest {
     assertEquals(2L, statsProvider.getLongValue(TaskGroups.SCHEDULE_ATTEMPTS_BLOCKS));
   }
 
+  @Test
+  public void testFairShareDispatch() throws Exception {
+    expect(rateLimiter.acquire()).andReturn(0D);
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of(TASK_A_ID))))
+        .andReturn(SCHEDULED_RESULT);
+    expectBatchExecute(batchWorker, storageUtil.storage, control, SCHEDULED_RESULT)
+        .anyTimes();
+
+    control.replay();
+
+    List<Runnable> drains = Lists.newArrayList();
+    taskGroups = new TaskGroups(
+        executor,
+        makeSettings(),
+        taskScheduler,
+        rescheduleCalculator,
+        batchWorker,
+        statsProvider,
+        Optional.of(new FairShareDispatcher(drains::add, 1, 1, new FakeClock(), statsProvider)));
+
+    taskGroups.taskChangedState(TaskStateChange.transition(makeTask(TASK_A_ID), INIT));
+    clock.advance(FIRST_SCHEDULE_DELAY);
+    // The attempt is queued with the dispatcher rather than made on the executor.
+    assertEquals(1L, statsProvider.getLongValue(FairShareDispatcher.QUEUED_ATTEMPTS));
+    assertEquals(1, drains.size());
+
+    drains.get(0).run();
+    assertEquals(0L, statsProvider.getLongValue(FairShareDispatcher.QUEUED_ATTEMPTS));
+    assertEquals(ImmutableSet.of(), ImmutableSet.copyOf(taskGroups.getGroups()));
+  }
+
   @Test
   public void testNonPendingIgnored() {
     control.replay();
@@ -101,6 +101,7 @@ public class SlaManagerTest extends EasyMockTest {
   private SlaManager slaManager;
   private StorageTestUtil storageUtil;
   private StateManager stateManager;
+  private FakeStatsProvider statsProvider;
   private IServerInfo serverInfo;
   private Server jettyServer;
   private CountDownLatch coordinatorResponded;
@@ -111,6 +112,7 @@ public class SlaManagerTest extends EasyMockTest {
     storageUtil = new StorageTestUtil(this);
     storageUtil.expectOperations();
     stateManager = createMock(StateManager.class);
+    statsProvider = new FakeStatsProvider();
     httpClient = new DefaultAsyncHttpClient();
     coordinatorResponded = new CountDownLatch(1);
 
@@ -125,8 +127,9 @@ public class SlaManagerTest extends EasyMockTest {
           protected void configure() {
             bind(Storage.class).toInstance(storageUtil.storage);
             bind(StateManager.class).toInstance(stateManager);
-            bind(StatsProvider.class).toInstance(new FakeStatsProvider());
+            bind(StatsProvider.class).toInstance(statsProvider);
             bind(TierManager.class).toInstance(TIER_MANAGER);
+            bind(new TypeLiteral<Optional<SlaStateCache>>() { }).toInstance(Optional.empty());
             bind(AsyncHttpClient.class)
                 .annotatedWith(SlaManager.HttpClient.class)
                 .toInstance(httpClient);
@@ -447,6 +450,67 @@ public class SlaManagerTest extends EasyMockTest {
         true);
   }
 
+  /**
+   * Verifies that a batch SLA check admits tasks in order while the job still has
+   * {@link CountSlaPolicy#count} tasks RUNNING for the required
+   * {@link CountSlaPolicy#durationSecs}, and that tasks which are not RUNNING do not count against
+   * the SLA.
+   */
+  @Test
+  public void testCheckCountSlaForTasks() {
+    IScheduledTask task1 = makeTask("taskA", 1, RUNNING);
+    IScheduledTask task2 = makeTask("taskB", 2, RUNNING);
+    IScheduledTask task3 = makeTask("taskC", 3, RUNNING);
+    IScheduledTask task4 = makeTask("taskD", 4, PENDING);
+
+    // mock calls to fetch all active tasks for the job for sla calculation
+    expect(storageUtil.taskStore.fetchTasks(Query.jobScoped(Tasks.getJob(task1)).active()))
+        .andReturn(ImmutableSet.of(task1, task2, task3, task4));
+
+    // mock calls to fetch all RUNNING tasks for the job for sla calculation
+    expect(storageUtil.taskStore.fetchTasks(Query.jobScoped(Tasks.getJob(task1)).byStatus(RUNNING)))
+        .andReturn(ImmutableSet.of(task1, task2, task3));
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(task1, task4),
+        slaManager.checkSla(
+            ImmutableMap.of(
+                task1, COUNT_SLA_POLICY,
+                task2, COUNT_SLA_POLICY,
+                task4, COUNT_SLA_POLICY),
+            storageUtil.storeProvider));
+  }
+
+  /**
+   * Verifies that a batch SLA check counts tasks admitted under one SLA policy against tasks of
+   * the same job checked under another.
+   */
+  @Test
+  public void testCheckSlaForTasksWithDifferentPolicies() {
+    IScheduledTask task1 = makeTask("taskA", 1, RUNNING);
+    IScheduledTask task2 = makeTask("taskB", 2, RUNNING);
+    IScheduledTask task3 = makeTask("taskC", 3, RUNNING);
+
+    // mock calls to fetch all active tasks for the job for sla calculation
+    expect(storageUtil.taskStore.fetchTasks(Query.jobScoped(Tasks.getJob(task1)).active()))
+        .andReturn(ImmutableSet.of(task1, task2, task3));
+
+    // mock calls to fetch all RUNNING tasks for the job for sla calculation
+    expect(storageUtil.taskStore.fetchTasks(Query.jobScoped(Tasks.getJob(task1)).byStatus(RUNNING)))
+        .andReturn(ImmutableSet.of(task1, task2, task3));
+
+    control.replay();
+
+    // Checked on its own, task2 would leave 2 of 3 tasks RUNNING, which meets the percentage SLA.
+    assertEquals(
+        ImmutableSet.of(task1),
+        slaManager.checkSla(
+            ImmutableMap.of(task1, COUNT_SLA_POLICY, task2, PERCENTAGE_SLA_POLICY),
+            storageUtil.storeProvider));
+  }
+
   /**
    * Verifies that SLA check passes and the supplied {@link Storage.MutateWork} gets executed
    * for a job that has more {@link PercentageSlaPolicy#percentage} tasks that have been RUNNING for
@@ -1243,6 +1307,60 @@ public class SlaManagerTest extends EasyMockTest {
     assertEquals(0, finished.getCount());
   }
 
+  /**
+   * Verifies that a coordinator check for a task is not made while another check for the same
+   * task is still pending, and that the work of the pending check is still performed.
+   */
+  @Test
+  public void testCheckCoordinatorSlaCoalescesPendingCheck() throws Exception {
+    IScheduledTask task1 = makeTask("taskA", 1, RUNNING);
+    CountDownLatch action = new CountDownLatch(1);
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch finished = new CountDownLatch(1);
+
+    jettyServer.setHandler(mockCoordinatorResponse(task1, "{\"drain\": true}"));
+    jettyServer.start();
+
+    // expect that the fetchTask in the work is called only once
+    expect(storageUtil.taskStore.fetchTask(task1.getAssignedTask().getTaskId()))
+        .andReturn(Optional.of(task1));
+
+    control.replay();
+
+    slaManager.checkSlaThenAct(
+        task1,
+        createCoordinatorSlaPolicy(),
+        storeProvider -> {
+          action.countDown();
+          storeProvider
+              .getUnsafeTaskStore()
+              .fetchTask(task1.getAssignedTask().getTaskId());
+          // we will block here to keep the check pending
+          blocked.await();
+          finished.countDown();
+          return null;
+        },
+        ImmutableMap.of(),
+        false);
+
+    // wait for the first check to perform its work
+    action.await();
+
+    slaManager.checkSlaThenAct(
+        task1,
+        createCoordinatorSlaPolicy(),
+        storeProvider -> {
+          fail();
+          return null;
+        },
+        ImmutableMap.of(),
+        false);
+    assertEquals(1L, statsProvider.getLongValue(SlaManager.COALESCED_STAT_NAME));
+
+    blocked.countDown();
+    finished.await();
+  }
+
   private ISlaPolicy createCoordinatorSlaPolicy() {
     return createCoordinatorSlaPolicy("drain");
   }
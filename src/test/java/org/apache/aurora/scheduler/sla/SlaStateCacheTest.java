@@ -0,0 +1,234 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.sla;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.FINISHED;
+import static org.apache.aurora.gen.ScheduleStatus.KILLING;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.base.TaskTestUtil.JOB;
+import static org.junit.Assert.assertEquals;
+
+public class SlaStateCacheTest extends EasyMockTest {
+  private static final Amount<Long, Time> MAX_AGE = Amount.of(1L, Time.MINUTES);
+  private static final Amount<Long, Time> SLA_DURATION = Amount.of(10L, Time.MINUTES);
+  private static final long NOW_MS = Amount.of(1L, Time.HOURS).as(Time.MILLISECONDS);
+
+  private StorageTestUtil storageUtil;
+  private FakeClock clock;
+  private FakeStatsProvider statsProvider;
+  private SlaStateCache cache;
+
+  @Before
+  public void setUp() {
+    storageUtil = new StorageTestUtil(this);
+    storageUtil.expectStoreAccesses();
+    clock = new FakeClock();
+    clock.setNowMillis(NOW_MS);
+    statsProvider = new FakeStatsProvider();
+    cache = new SlaStateCache(clock, MAX_AGE, statsProvider);
+  }
+
+  private static IScheduledTask makeTask(String taskId, ScheduleStatus status, long timestamp) {
+    return TaskTestUtil.addStateTransition(TaskTestUtil.makeTask(taskId, JOB), status, timestamp);
+  }
+
+  private static IScheduledTask transition(
+      IScheduledTask task,
+      ScheduleStatus status,
+      long timestamp) {
+
+    return TaskTestUtil.addStateTransition(task, status, timestamp);
+  }
+
+  private static IScheduledTask transitionCapped(
+      IScheduledTask task,
+      ScheduleStatus status,
+      long timestamp) {
+
+    // Mirrors the task event retention cap, which keeps the first event and drops the oldest of
+    // the rest.
+    ScheduledTask builder = transition(task, status, timestamp).newBuilder();
+    builder.getTaskEvents().remove(1);
+    return IScheduledTask.build(builder);
+  }
+
+  private void changeState(IScheduledTask task) {
+    cache.taskChangedState(TaskStateChange.initialized(task));
+  }
+
+  @Test
+  public void testLoadOnce() {
+    IScheduledTask healthy = makeTask("a", RUNNING, 0);
+    IScheduledTask recent = makeTask("b", RUNNING, NOW_MS - 1000);
+    IScheduledTask pending = makeTask("c", PENDING, 0);
+    IScheduledTask finished = transition(makeTask("d", RUNNING, 0), FINISHED, 1);
+    storageUtil.expectTaskFetch(Query.jobScoped(JOB), healthy, recent, pending, finished);
+
+    control.replay();
+
+    assertEquals(3L, cache.countActive(storageUtil.storeProvider, JOB));
+    assertEquals(
+        ImmutableSet.of("a"),
+        cache.findHealthy(storageUtil.storeProvider, JOB, SLA_DURATION));
+    assertEquals(
+        ImmutableSet.of("a", "b"),
+        cache.findHealthy(storageUtil.storeProvider, JOB, Amount.of(1L, Time.MILLISECONDS)));
+    assertEquals(1L, statsProvider.getLongValue(SlaStateCache.LOADS));
+    assertEquals(2L, statsProvider.getLongValue(SlaStateCache.HITS));
+    assertEquals(1, statsProvider.getValue(SlaStateCache.JOBS));
+  }
+
+  @Test
+  public void testStateChanges() {
+    IScheduledTask a = makeTask("a", RUNNING, 0);
+    IScheduledTask b = makeTask("b", RUNNING, 0);
+    storageUtil.expectTaskFetch(Query.jobScoped(JOB), a, b);
+
+    control.replay();
+
+    // Changes to jobs that are not cached are ignored.
+    changeState(makeTask("c", RUNNING, 0));
+
+    assertEquals(2L, cache.countActive(storageUtil.storeProvider, JOB));
+
+    IScheduledTask killing = transition(a, KILLING, NOW_MS);
+    changeState(killing);
+    changeState(makeTask("c", PENDING, NOW_MS));
+    assertEquals(3L, cache.countActive(storageUtil.storeProvider, JOB));
+    assertEquals(
+        ImmutableSet.of("b"),
+        cache.findHealthy(storageUtil.storeProvider, JOB, SLA_DURATION));
+
+    // A change that is delivered late does not undo a later one.
+    changeState(a);
+    assertEquals(
+        ImmutableSet.of("b"),
+        cache.findHealthy(storageUtil.storeProvider, JOB, SLA_DURATION));
+
+    changeState(transition(killing, FINISHED, NOW_MS));
+    assertEquals(2L, cache.countActive(storageUtil.storeProvider, JOB));
+  }
+
+  @Test
+  public void testStateChangesPastEventCap() {
+    IScheduledTask a = makeTask("a", PENDING, 0);
+    for (int i = 1; i < 100; i++) {
+      a = transition(a, i % 2 == 0 ? PENDING : RUNNING, i);
+    }
+    storageUtil.expectTaskFetch(Query.jobScoped(JOB), a);
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of("a"),
+        cache.findHealthy(storageUtil.storeProvider, JOB, SLA_DURATION));
+
+    IScheduledTask killing = transitionCapped(a, KILLING, NOW_MS);
+    assertEquals(a.getTaskEvents().size(), killing.getTaskEvents().size());
+    changeState(killing);
+    assertEquals(
+        ImmutableSet.of(),
+        cache.findHealthy(storageUtil.storeProvider, JOB, SLA_DURATION));
+
+    // A change that is delivered late does not undo a later one.
+    changeState(a);
+    assertEquals(
+        ImmutableSet.of(),
+        cache.findHealthy(storageUtil.storeProvider, JOB, SLA_DURATION));
+
+    changeState(transitionCapped(killing, FINISHED, NOW_MS + 1));
+    assertEquals(0L, cache.countActive(storageUtil.storeProvider, JOB));
+  }
+
+  @Test
+  public void testRemove() {
+    IScheduledTask a = makeTask("a", RUNNING, 0);
+    IScheduledTask b = makeTask("b", RUNNING, 0);
+    storageUtil.expectTaskFetch(Query.jobScoped(JOB), a, b);
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of("a", "b"),
+        cache.findHealthy(storageUtil.storeProvider, JOB, SLA_DURATION));
+
+    // A removed task is unhealthy until its state changes.
+    cache.remove(a);
+    assertEquals(
+        ImmutableSet.of("b"),
+        cache.findHealthy(storageUtil.storeProvider, JOB, SLA_DURATION));
+    assertEquals(2L, cache.countActive(storageUtil.storeProvider, JOB));
+    changeState(a);
+    assertEquals(
+        ImmutableSet.of("b"),
+        cache.findHealthy(storageUtil.storeProvider, JOB, SLA_DURATION));
+
+    changeState(transition(a, KILLING, NOW_MS));
+    assertEquals(
+        ImmutableSet.of("b"),
+        cache.findHealthy(storageUtil.storeProvider, JOB, SLA_DURATION));
+  }
+
+  @Test
+  public void testReloadAfterMaxAge() {
+    IScheduledTask a = makeTask("a", RUNNING, 0);
+    storageUtil.expectTaskFetch(Query.jobScoped(JOB), a);
+    storageUtil.expectTaskFetch(Query.jobScoped(JOB));
+
+    control.replay();
+
+    assertEquals(1L, cache.countActive(storageUtil.storeProvider, JOB));
+    clock.advance(MAX_AGE);
+    assertEquals(0L, cache.countActive(storageUtil.storeProvider, JOB));
+    assertEquals(2L, statsProvider.getLongValue(SlaStateCache.LOADS));
+  }
+
+  @Test
+  public void testTasksDeleted() {
+    IScheduledTask a = transition(makeTask("a", RUNNING, 0), FINISHED, 1);
+    IScheduledTask b = makeTask("b", RUNNING, 0);
+    storageUtil.expectTaskFetch(Query.jobScoped(JOB), a, b);
+
+    control.replay();
+
+    assertEquals(1L, cache.countActive(storageUtil.storeProvider, JOB));
+    cache.tasksDeleted(new TasksDeleted(ImmutableSet.of(
+        a,
+        TaskTestUtil.makeTask("c", JobKeys.from("role", "env", "other")))));
+    assertEquals(1, statsProvider.getValue(SlaStateCache.JOBS));
+
+    cache.tasksDeleted(new TasksDeleted(ImmutableSet.of(b)));
+    assertEquals(0, statsProvider.getValue(SlaStateCache.JOBS));
+  }
+}
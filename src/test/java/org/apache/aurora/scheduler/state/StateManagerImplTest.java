@@ -98,6 +98,7 @@ public class StateManagerImplTest extends EasyMockTest {
   private static final ITaskConfig NON_SERVICE_CONFIG =
       setIsService(TaskTestUtil.makeConfig(TaskTestUtil.JOB), false);
   private static final ITaskConfig SERVICE_CONFIG = setIsService(NON_SERVICE_CONFIG, true);
+  private static final int MAX_TASK_EVENTS = 100;
 
   private Driver driver;
   private TaskIdGenerator taskIdGenerator;
@@ -120,7 +121,8 @@ public class StateManagerImplTest extends EasyMockTest {
         driver,
         taskIdGenerator,
         eventSink,
-        rescheduleCalculator);
+        rescheduleCalculator,
+        MAX_TASK_EVENTS);
     storage.write((NoResult.Quiet) storeProvider -> {
       AttributeStore.Mutable attributeStore = storeProvider.getAttributeStore();
       attributeStore.saveHostAttributes(HOST_A);
@@ -330,6 +332,41 @@ public class StateManagerImplTest extends EasyMockTest {
     changeState(unknownTask, RUNNING);
   }
 
+  @Test
+  public void testBulkKill() {
+    String taskA = "a";
+    String taskB = "b";
+    String unknownTask = "unknown";
+    expect(taskIdGenerator.generate(NON_SERVICE_CONFIG, 0)).andReturn(taskA);
+    expect(taskIdGenerator.generate(NON_SERVICE_CONFIG, 1)).andReturn(taskB);
+    expectStateTransitions(taskA, INIT, PENDING, ASSIGNED, RUNNING, KILLING);
+    expectStateTransitions(taskB, INIT, PENDING, ASSIGNED, RUNNING, KILLING);
+    driver.killTasks(ImmutableSet.of(taskA, taskB, unknownTask));
+
+    control.replay();
+
+    insertTask(NON_SERVICE_CONFIG, 0);
+    insertTask(NON_SERVICE_CONFIG, 1);
+    assignTask(taskA, HOST_A);
+    assignTask(taskB, HOST_A);
+    changeState(taskA, RUNNING);
+    changeState(taskB, RUNNING);
+    Map<String, StateChangeResult> results = storage.write(storeProvider ->
+        stateManager.changeStates(
+            storeProvider,
+            ImmutableSet.of(taskA, taskB, unknownTask),
+            Optional.empty(),
+            KILLING,
+            Optional.empty()));
+    assertEquals(SUCCESS, results.get(taskA));
+    assertEquals(SUCCESS, results.get(taskB));
+    assertEquals(
+        ImmutableSet.of(KILLING),
+        ImmutableSet.copyOf(Iterables.transform(
+            Storage.Util.fetchTasks(storage, Query.unscoped()),
+            IScheduledTask::getStatus)));
+  }
+
   private void noFlappingPenalty() {
     expect(rescheduleCalculator.getFlappingPenaltyMs(EasyMock.anyObject())).andReturn(0L);
   }
@@ -435,6 +472,33 @@ public class StateManagerImplTest extends EasyMockTest {
             .collect(Collectors.toList()));
   }
 
+  @Test
+  public void testTaskEventsTruncated() {
+    stateManager = new StateManagerImpl(
+        clock,
+        driver,
+        taskIdGenerator,
+        eventSink,
+        rescheduleCalculator,
+        3);
+    String taskId = "a";
+    expect(taskIdGenerator.generate(SERVICE_CONFIG, 0)).andReturn(taskId);
+    expectStateTransitions(taskId, INIT, PENDING, ASSIGNED, STARTING, RUNNING);
+
+    control.replay();
+
+    insertTask(SERVICE_CONFIG, 0);
+    assignTask(taskId, HOST_A);
+    changeState(taskId, STARTING);
+    changeState(taskId, RUNNING);
+    IScheduledTask updatedTask = Storage.Util.fetchTask(storage, taskId).get();
+    assertEquals(
+        ImmutableList.of(PENDING, STARTING, RUNNING),
+        updatedTask.getTaskEvents().stream()
+            .map(e -> e.getStatus())
+            .collect(Collectors.toList()));
+  }
+
   private static ITaskConfig setMaxFailures(ITaskConfig config, int maxFailures) {
     return ITaskConfig.build(config.newBuilder().setMaxTaskFailures(maxFailures));
   }
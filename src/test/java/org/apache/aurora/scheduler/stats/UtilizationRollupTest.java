@@ -0,0 +1,180 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.stats;
+
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.gen.Constraint;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.gen.TaskConstraint;
+import org.apache.aurora.gen.ValueConstraint;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.configuration.ConfigurationManager;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.stats.ResourceCounter.Metric;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.Resource.diskMb;
+import static org.apache.aurora.gen.Resource.numCpus;
+import static org.apache.aurora.gen.Resource.ramMb;
+import static org.apache.aurora.gen.ScheduleStatus.FINISHED;
+import static org.apache.aurora.gen.ScheduleStatus.KILLING;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.bag;
+import static org.apache.aurora.scheduler.stats.ResourceCounter.MetricType.DEDICATED_CONSUMED;
+import static org.apache.aurora.scheduler.stats.ResourceCounter.MetricType.FREE_POOL_CONSUMED;
+import static org.apache.aurora.scheduler.stats.ResourceCounter.MetricType.QUOTA_CONSUMED;
+import static org.apache.aurora.scheduler.stats.ResourceCounter.MetricType.TOTAL_CONSUMED;
+import static org.junit.Assert.assertEquals;
+
+public class UtilizationRollupTest {
+
+  private static final long GB = 1024;
+  private static final Optional<String> NOT_DEDICATED = Optional.empty();
+
+  private static final boolean PRODUCTION = true;
+  private static final boolean NONPRODUCTION = false;
+
+  private UtilizationRollup rollup;
+
+  @Before
+  public void setUp() {
+    rollup = new UtilizationRollup();
+  }
+
+  @Test
+  public void testNoTasks() {
+    for (Metric metric : rollup.getConsumptionTotals()) {
+      assertEquals(ResourceBag.EMPTY, metric.getBag());
+    }
+    assertEquals(ImmutableMap.of(), rollup.getRoleAggregates(TOTAL_CONSUMED));
+    assertEquals(ImmutableMap.of(), rollup.getJobAggregates(TOTAL_CONSUMED, "bob"));
+  }
+
+  @Test
+  public void testConsumptionTotals() {
+    initialize(
+        task("bob", "jobA", "a", 1, GB, GB, PRODUCTION,    RUNNING,  NOT_DEDICATED),
+        task("bob", "jobB", "b", 1, GB, GB, PRODUCTION,    PENDING,  NOT_DEDICATED),
+        task("tim", "jobC", "c", 1, GB, GB, PRODUCTION,    KILLING,  NOT_DEDICATED),
+        task("tom", "jobD", "d", 1, GB, GB, NONPRODUCTION, RUNNING,  NOT_DEDICATED),
+        task("lil", "jobE", "e", 1, GB, GB, PRODUCTION,    RUNNING,  Optional.of("queue")),
+        task("lil", "jobF", "f", 1, GB, GB, PRODUCTION,    FINISHED, NOT_DEDICATED));
+
+    assertEquals(
+        ImmutableList.of(
+            new Metric(TOTAL_CONSUMED,     bag(5, 5 * GB, 5 * GB)),
+            new Metric(DEDICATED_CONSUMED, bag(1, 1 * GB, 1 * GB)),
+            new Metric(QUOTA_CONSUMED,     bag(3, 3 * GB, 3 * GB)),
+            new Metric(FREE_POOL_CONSUMED, bag(1, 1 * GB, 1 * GB))),
+        rollup.getConsumptionTotals());
+  }
+
+  @Test
+  public void testRoleAndJobAggregates() {
+    initialize(
+        task("bob", "jobA", "a",  1, GB, GB, PRODUCTION,    RUNNING, NOT_DEDICATED),
+        task("bob", "jobA", "a2", 1, GB, GB, PRODUCTION,    RUNNING, NOT_DEDICATED),
+        task("bob", "jobB", "b",  2, GB, GB, NONPRODUCTION, RUNNING, NOT_DEDICATED),
+        task("tim", "jobC", "c",  1, GB, GB, PRODUCTION,    PENDING, NOT_DEDICATED));
+
+    assertEquals(
+        ImmutableMap.of(
+            "bob", new Metric(QUOTA_CONSUMED, bag(2, 2 * GB, 2 * GB)),
+            "tim", new Metric(QUOTA_CONSUMED, bag(1, 1 * GB, 1 * GB))),
+        rollup.getRoleAggregates(QUOTA_CONSUMED));
+    assertEquals(
+        ImmutableMap.of(
+            "jobA", new Metric(TOTAL_CONSUMED, bag(2, 2 * GB, 2 * GB)),
+            "jobB", new Metric(TOTAL_CONSUMED, bag(2, 1 * GB, 1 * GB))),
+        rollup.getJobAggregates(TOTAL_CONSUMED, "bob"));
+    assertEquals(ImmutableMap.of(), rollup.getJobAggregates(FREE_POOL_CONSUMED, "tim"));
+  }
+
+  @Test
+  public void testTransitions() {
+    IScheduledTask a = task("bob", "jobA", "a", 1, GB, GB, PRODUCTION, PENDING, NOT_DEDICATED);
+    IScheduledTask b = task("bob", "jobB", "b", 1, GB, GB, PRODUCTION, PENDING, NOT_DEDICATED);
+    initialize(a, b);
+
+    // Repeated active transitions must not double count.
+    rollup.taskChangedState(TaskStateChange.transition(setStatus(a, RUNNING), PENDING));
+    assertEquals(
+        ImmutableMap.of("bob", new Metric(TOTAL_CONSUMED, bag(2, 2 * GB, 2 * GB))),
+        rollup.getRoleAggregates(TOTAL_CONSUMED));
+
+    rollup.taskChangedState(TaskStateChange.transition(setStatus(a, FINISHED), RUNNING));
+    assertEquals(
+        ImmutableMap.of("jobB", new Metric(TOTAL_CONSUMED, bag(1, 1 * GB, 1 * GB))),
+        rollup.getJobAggregates(TOTAL_CONSUMED, "bob"));
+
+    rollup.tasksDeleted(new TasksDeleted(ImmutableSet.of(a, b)));
+    assertEquals(ImmutableMap.of(), rollup.getRoleAggregates(TOTAL_CONSUMED));
+    assertEquals(ImmutableMap.of(), rollup.getJobAggregates(TOTAL_CONSUMED, "bob"));
+    assertEquals(
+        new Metric(TOTAL_CONSUMED, ResourceBag.EMPTY),
+        rollup.getConsumptionTotals().get(0));
+  }
+
+  private void initialize(IScheduledTask... tasks) {
+    for (IScheduledTask task : tasks) {
+      rollup.taskChangedState(TaskStateChange.initialized(task));
+    }
+  }
+
+  private static IScheduledTask setStatus(IScheduledTask task, ScheduleStatus status) {
+    return IScheduledTask.build(task.newBuilder().setStatus(status));
+  }
+
+  private static IScheduledTask task(
+      String role,
+      String job,
+      String id,
+      int numCpus,
+      long ramMb,
+      long diskMb,
+      boolean production,
+      ScheduleStatus status,
+      Optional<String> dedicated) {
+
+    ScheduledTask task = TaskTestUtil.makeTask(id, JobKeys.from(role, "test", job)).newBuilder();
+    TaskConfig config = task.getAssignedTask().getTask()
+        .setResources(ImmutableSet.of(
+            numCpus(numCpus),
+            ramMb(ramMb),
+            diskMb(diskMb)))
+        .setProduction(production);
+
+    if (dedicated.isPresent()) {
+      config.addToConstraints(new Constraint(
+          ConfigurationManager.DEDICATED_ATTRIBUTE,
+          TaskConstraint.value(new ValueConstraint(false, ImmutableSet.of(dedicated.get())))));
+    }
+
+    task.setStatus(status);
+    return IScheduledTask.build(task);
+  }
+}
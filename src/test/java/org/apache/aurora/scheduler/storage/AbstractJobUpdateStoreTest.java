@@ -378,6 +378,32 @@ public abstract class AbstractJobUpdateStoreTest {
     assertQueryMatches(new JobUpdateQuery());
   }
 
+  @Test
+  public void testFetchPrunableJobUpdates() {
+    IJobKey job1 = JobKeys.from("role", "env", "name1");
+    IJobKey job2 = JobKeys.from("role", "env", "name2");
+    IJobUpdateKey u1 = makeKey(job1, "u1");
+    IJobUpdateKey u2 = makeKey(job1, "u2");
+    IJobUpdateKey u3 = makeKey(job2, "u3");
+    saveTerminalUpdate(u1, 100L);
+    saveTerminalUpdate(u2, 200L);
+    saveTerminalUpdate(u3, 300L);
+    // Active updates are never pruned.
+    saveUpdate(makeJobUpdate(makeKey(job1, "u4")));
+
+    Set<IJobKey> bothJobs = ImmutableSet.of(job1, job2);
+    assertEquals(ImmutableSet.of(), fetchPrunable(100L, 2, bothJobs, 10));
+    assertEquals(ImmutableSet.of(u1, u2), fetchPrunable(250L, 2, bothJobs, 10));
+    assertEquals(ImmutableSet.of(u1), fetchPrunable(0L, 1, bothJobs, 10));
+    assertEquals(ImmutableSet.of(u3), fetchPrunable(0L, 2, ImmutableSet.of(job1), 10));
+    assertEquals(ImmutableSet.of(u1), fetchPrunable(250L, 2, bothJobs, 1));
+
+    storage.write((NoResult.Quiet) store ->
+        store.getJobUpdateStore().removeJobUpdates(ImmutableSet.of(u1)));
+    assertEquals(ImmutableSet.of(u2), fetchPrunable(250L, 2, bothJobs, 10));
+    assertEquals(ImmutableSet.of(), fetchPrunable(0L, 1, bothJobs, 10));
+  }
+
   @Test
   public void testSaveJobUpdateWithDuplicateMetadataKeys() {
     IJobUpdateKey updateId = makeKey(JobKeys.from("role", "env", "name1"), "u1");
@@ -534,6 +560,23 @@ public abstract class AbstractJobUpdateStoreTest {
     });
   }
 
+  private void saveTerminalUpdate(IJobUpdateKey key, long createdMs) {
+    saveUpdate(IJobUpdateDetails.build(makeJobUpdate(key).newBuilder()
+        .setUpdateEvents(ImmutableList.of(
+            makeJobUpdateEvent(ROLLING_FORWARD, createdMs).newBuilder(),
+            makeJobUpdateEvent(ABORTED, createdMs + 1).newBuilder()))));
+  }
+
+  private Set<IJobUpdateKey> fetchPrunable(
+      long createdBeforeMs,
+      int maxUpdatesPerJob,
+      Set<IJobKey> jobsWithTasks,
+      int limit) {
+
+    return storage.read(storeProvider -> storeProvider.getJobUpdateStore()
+        .fetchPrunableJobUpdates(createdBeforeMs, maxUpdatesPerJob, jobsWithTasks, limit));
+  }
+
   private void saveJobEvent(IJobUpdateEvent event, IJobUpdateKey key) {
     storage.write((NoResult.Quiet)
         storeProvider -> storeProvider.getJobUpdateStore().saveJobUpdateEvent(key, event));
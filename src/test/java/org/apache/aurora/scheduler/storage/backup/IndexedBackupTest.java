@@ -0,0 +1,231 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.backup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+
+import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.gen.Attribute;
+import org.apache.aurora.gen.HostAttributes;
+import org.apache.aurora.gen.HostMaintenanceRequest;
+import org.apache.aurora.gen.JobConfiguration;
+import org.apache.aurora.gen.JobUpdate;
+import org.apache.aurora.gen.JobUpdateDetails;
+import org.apache.aurora.gen.JobUpdateKey;
+import org.apache.aurora.gen.JobUpdateSummary;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.storage.QuotaConfiguration;
+import org.apache.aurora.gen.storage.SchedulerMetadata;
+import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.gen.storage.StoredCronJob;
+import org.apache.aurora.gen.storage.StoredJobUpdateDetails;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.aggregate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IndexedBackupTest {
+
+  private static final IJobKey JOB_A = JobKeys.from("role", "env", "a");
+  private static final IJobKey JOB_B = JobKeys.from("role", "env", "b");
+  private static final IScheduledTask TASK_A1 = TaskTestUtil.makeTask("a1", JOB_A);
+  private static final IScheduledTask TASK_A2 = TaskTestUtil.makeTask("a2", JOB_A);
+  private static final IScheduledTask TASK_B1 = TaskTestUtil.makeTask("b1", JOB_B);
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = temporaryFolder.newFolder();
+  }
+
+  private static Snapshot makeSnapshot(long timestamp, IScheduledTask... tasks) {
+    JobUpdateKey updateKey = new JobUpdateKey(JOB_A.newBuilder(), "update");
+    return new Snapshot()
+        .setTimestamp(timestamp)
+        .setSchedulerMetadata(new SchedulerMetadata()
+            .setFrameworkId("framework")
+            .setDetails(ImmutableMap.of("key", "value")))
+        .setHostAttributes(ImmutableSet.of(new HostAttributes(
+            "host",
+            ImmutableSet.of(new Attribute("attr", ImmutableSet.of("value"))))))
+        .setHostMaintenanceRequests(ImmutableSet.of(
+            new HostMaintenanceRequest().setHost("host").setTimeoutSecs(10)))
+        .setQuotaConfigurations(ImmutableSet.of(
+            new QuotaConfiguration("role", aggregate(10, 1024, 1024).newBuilder())))
+        .setCronJobs(ImmutableSet.of(
+            new StoredCronJob(new JobConfiguration().setKey(JOB_B.newBuilder()))))
+        .setTasks(IScheduledTask.toBuildersSet(ImmutableSet.copyOf(tasks)))
+        .setJobUpdateDetails(ImmutableSet.of(new StoredJobUpdateDetails(new JobUpdateDetails()
+            .setUpdate(new JobUpdate().setSummary(new JobUpdateSummary().setKey(updateKey))))));
+  }
+
+  private boolean write(IndexedBackup.Writer writer, String name, Snapshot snapshot)
+      throws IOException {
+
+    try (OutputStream out = new FileOutputStream(new File(dir, name))) {
+      return writer.write(out, dir, name, snapshot);
+    }
+  }
+
+  private IndexedBackup.Reader open(String name) throws IOException {
+    return IndexedBackup.Reader.open(dir, name);
+  }
+
+  @Test
+  public void testFullBackup() throws Exception {
+    Snapshot snapshot = makeSnapshot(10L, TASK_A1, TASK_A2, TASK_B1);
+    assertFalse(write(new IndexedBackup.Writer(0), "full", snapshot));
+
+    IndexedBackup.Reader backup = open("full");
+    assertEquals(10L, backup.getTimestamp());
+    assertEquals(snapshot, backup.toSnapshot(ImmutableSet.of()));
+    assertEquals(ImmutableSet.of("a1", "a2", "b1"), backup.getTaskIds());
+    assertEquals(ImmutableSet.of("a1", "a2"), ImmutableSet.copyOf(backup.getTaskIds(JOB_A)));
+    assertEquals(Optional.of(TASK_B1), backup.getTask("b1"));
+    assertEquals(Optional.empty(), backup.getTask("c1"));
+    assertEquals(
+        makeSnapshot(10L, TASK_A1, TASK_B1),
+        backup.toSnapshot(ImmutableSet.of("a2")));
+
+    assertTrue(IndexedBackup.isIndexed(new File(dir, "full")));
+    assertEquals(Optional.empty(), IndexedBackup.parent(new File(dir, "full")));
+  }
+
+  @Test
+  public void testEmptySnapshot() throws Exception {
+    Snapshot snapshot = new Snapshot().setTimestamp(10L);
+    write(new IndexedBackup.Writer(0), "empty", snapshot);
+
+    assertEquals(
+        new Snapshot()
+            .setTimestamp(10L)
+            .setHostAttributes(ImmutableSet.of())
+            .setHostMaintenanceRequests(ImmutableSet.of())
+            .setQuotaConfigurations(ImmutableSet.of())
+            .setCronJobs(ImmutableSet.of())
+            .setTasks(ImmutableSet.of())
+            .setJobUpdateDetails(ImmutableSet.of()),
+        open("empty").toSnapshot(ImmutableSet.of()));
+  }
+
+  @Test
+  public void testIncrementalBackups() throws Exception {
+    IndexedBackup.Writer writer = new IndexedBackup.Writer(2);
+    Snapshot full = makeSnapshot(10L, TASK_A1, TASK_A2);
+    IScheduledTask changed = IScheduledTask.build(
+        TASK_A2.newBuilder().setStatus(ScheduleStatus.FINISHED));
+    Snapshot first = makeSnapshot(20L, changed, TASK_B1);
+    Snapshot second = makeSnapshot(30L, TASK_B1);
+    Snapshot third = makeSnapshot(40L, TASK_A1);
+
+    assertFalse(write(writer, "1", full));
+    assertTrue(write(writer, "2", first));
+    assertTrue(write(writer, "3", second));
+    assertFalse(write(writer, "4", third));
+
+    assertEquals(full, open("1").toSnapshot(ImmutableSet.of()));
+    assertEquals(first, open("2").toSnapshot(ImmutableSet.of()));
+    assertEquals(second, open("3").toSnapshot(ImmutableSet.of()));
+    assertEquals(third, open("4").toSnapshot(ImmutableSet.of()));
+    assertEquals(20L, open("2").getTimestamp());
+    assertEquals(Optional.of(changed), open("2").getTask("a2"));
+    assertEquals(ImmutableSet.of("b1"), open("3").getTaskIds());
+    assertEquals(ImmutableSet.of(), ImmutableSet.copyOf(open("3").getTaskIds(JOB_A)));
+
+    assertEquals(Optional.of("1"), IndexedBackup.parent(new File(dir, "2")));
+    assertEquals(Optional.of("2"), IndexedBackup.parent(new File(dir, "3")));
+    assertEquals(Optional.empty(), IndexedBackup.parent(new File(dir, "4")));
+    assertTrue(new File(dir, "2").length() < new File(dir, "1").length());
+  }
+
+  @Test
+  public void testFullBackupWhenParentMissing() throws Exception {
+    IndexedBackup.Writer writer = new IndexedBackup.Writer(5);
+    write(writer, "1", makeSnapshot(10L, TASK_A1));
+    assertTrue(new File(dir, "1").delete());
+
+    assertFalse(write(writer, "2", makeSnapshot(20L, TASK_A1)));
+    assertEquals(makeSnapshot(20L, TASK_A1), open("2").toSnapshot(ImmutableSet.of()));
+  }
+
+  @Test
+  public void testFullBackupAfterFailure() throws Exception {
+    IndexedBackup.Writer writer = new IndexedBackup.Writer(5);
+    write(writer, "1", makeSnapshot(10L, TASK_A1));
+
+    try {
+      writer.write(
+          new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+              throw new IOException("Disk full");
+            }
+          },
+          dir,
+          "2",
+          makeSnapshot(20L, TASK_A1));
+      fail();
+    } catch (IOException e) {
+      // Expected.
+    }
+
+    assertFalse(write(writer, "3", makeSnapshot(30L, TASK_A1, TASK_B1)));
+  }
+
+  @Test
+  public void testOpenMissingParent() throws Exception {
+    IndexedBackup.Writer writer = new IndexedBackup.Writer(5);
+    write(writer, "1", makeSnapshot(10L, TASK_A1));
+    write(writer, "2", makeSnapshot(20L, TASK_B1));
+    assertTrue(new File(dir, "1").delete());
+
+    try {
+      open("2");
+      fail();
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testThriftBackupNotIndexed() throws Exception {
+    File backup = new File(dir, "thrift");
+    Files.write(ThriftBinaryCodec.encodeNonNull(makeSnapshot(10L, TASK_A1)), backup);
+
+    assertFalse(IndexedBackup.isIndexed(backup));
+    assertEquals(Optional.empty(), IndexedBackup.parent(backup));
+  }
+}
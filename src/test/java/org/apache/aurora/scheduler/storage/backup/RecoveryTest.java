@@ -68,6 +68,7 @@ public class RecoveryTest extends EasyMockTest {
   private Command shutDownNow;
   private FakeClock clock;
   private StorageBackupImpl storageBackup;
+  private StorageBackupImpl indexedBackup;
   private RecoveryImpl recovery;
   @Rule
   public TemporaryFolder temporaryFolder = new TemporaryFolder();
@@ -90,6 +91,12 @@ public class RecoveryTest extends EasyMockTest {
         clock,
         new BackupConfig(backupDir, 5, INTERVAL),
         executor);
+    indexedBackup = new StorageBackupImpl(
+        primaryStorage,
+        snapshotter,
+        clock,
+        new BackupConfig(backupDir, 5, INTERVAL, true, 5),
+        executor);
 
     recovery = new RecoveryImpl(backupDir, factory, primaryStorage, distributedStore, shutDownNow);
   }
@@ -151,6 +158,44 @@ public class RecoveryTest extends EasyMockTest {
     assertEquals(modified, snapshot.getValue());
   }
 
+  @Test
+  public void testRecoverIndexedIncremental() throws Exception {
+    IScheduledTask task3 = TaskTestUtil.makeTask("task3", TaskTestUtil.JOB);
+    Snapshot snapshot2 = makeSnapshot(TASK1, task3);
+    expect(snapshotter.from(anyObject())).andReturn(SNAPSHOT1);
+    expect(snapshotter.from(anyObject())).andReturn(snapshot2);
+    Capture<MutateWork<Object, Exception>> transaction = createCapture();
+    expect(primaryStorage.write(capture(transaction))).andReturn(null);
+    Capture<Snapshot> snapshot = createCapture();
+    distributedStore.snapshotWith(capture(snapshot));
+    shutDownNow.execute();
+
+    control.replay();
+
+    clock.advance(INTERVAL);
+    indexedBackup.from(storeProvider);
+    clock.advance(INTERVAL);
+    indexedBackup.from(storeProvider);
+    assertEquals(1, indexedBackup.getIncrementalSuccesses().get());
+    String backup2 = indexedBackup.createBackupName();
+
+    recovery.stage(backup2);
+    assertEquals(
+        ImmutableSet.of(TASK1, task3),
+        ImmutableSet.copyOf(recovery.query(Query.unscoped())));
+    assertEquals(
+        ImmutableSet.of(task3),
+        ImmutableSet.copyOf(recovery.query(Query.taskScoped("task3", "task2"))));
+    recovery.deleteTasks(Query.jobScoped(TaskTestUtil.JOB).byId("task3"));
+    assertEquals(
+        ImmutableSet.of(TASK1),
+        ImmutableSet.copyOf(recovery.query(Query.jobScoped(TaskTestUtil.JOB))));
+    recovery.commit();
+    transaction.getValue().apply(storeProvider);
+
+    assertEquals(makeSnapshot(TASK1), snapshot.getValue());
+  }
+
   @Test(expected = RecoveryException.class)
   public void testLoadUnknownBackup() throws Exception {
     control.replay();
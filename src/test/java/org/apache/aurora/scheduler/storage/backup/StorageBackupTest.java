@@ -39,6 +39,7 @@ import org.apache.aurora.gen.storage.QuotaConfiguration;
 import org.apache.aurora.gen.storage.SchedulerMetadata;
 import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.gen.storage.StoredCronJob;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.storage.Snapshotter;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
@@ -56,6 +57,7 @@ import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class StorageBackupTest extends EasyMockTest {
 
@@ -65,6 +67,7 @@ public class StorageBackupTest extends EasyMockTest {
   private Storage storage;
   private Snapshotter delegate;
   private FakeClock clock;
+  private ScheduledExecutorService executor;
   private BackupConfig config;
   private StorageBackupImpl storageBackup;
   @Rule
@@ -75,7 +78,7 @@ public class StorageBackupTest extends EasyMockTest {
     storage = MemStorageModule.newEmptyStorage();
     delegate = createMock(Snapshotter.class);
     final File backupDir = temporaryFolder.newFolder();
-    ScheduledExecutorService executor = createMock(ScheduledExecutorService.class);
+    executor = createMock(ScheduledExecutorService.class);
     clock = FakeScheduledExecutor.scheduleExecutor(executor);
     config = new BackupConfig(backupDir, MAX_BACKUPS, INTERVAL);
     clock.advance(Amount.of(365 * 30L, Time.DAYS));
@@ -157,6 +160,58 @@ public class StorageBackupTest extends EasyMockTest {
             .toSet());
   }
 
+  @Test
+  public void testIndexedBackupsKeepParents() throws Exception {
+    Snapshot snapshot = makeIndexedSnapshot();
+    expect(delegate.from(anyObject())).andReturn(snapshot).times(9);
+
+    control.replay();
+
+    config = new BackupConfig(config.getDir(), MAX_BACKUPS, INTERVAL, true, 3);
+    storageBackup = new StorageBackupImpl(storage, delegate, clock, config, executor);
+    // Full backups are written first and then every fourth backup. Backups that the newest five
+    // backups were written as increments of are kept.
+    List<Integer> expectedCounts = ImmutableList.of(1, 2, 3, 4, 5, 6, 7, 8, 5);
+    for (int expectedCount : expectedCounts) {
+      clock.advance(INTERVAL);
+      triggerSnapshot(snapshot);
+      assertBackupCount(expectedCount);
+    }
+    assertEquals(9, storageBackup.getSuccesses().get());
+    assertEquals(6, storageBackup.getIncrementalSuccesses().get());
+
+    String newest = storageBackup.createBackupName();
+    assertEquals(
+        snapshot,
+        IndexedBackup.Reader.open(config.getDir(), newest).toSnapshot(ImmutableSet.of()));
+  }
+
+  @Test
+  public void testIncrementalBackupOfDeletedBackupDeleted() throws Exception {
+    Snapshot snapshot = makeIndexedSnapshot();
+    expect(delegate.from(anyObject())).andReturn(snapshot).times(3);
+
+    control.replay();
+
+    config = new BackupConfig(config.getDir(), MAX_BACKUPS, INTERVAL, true, 3);
+    storageBackup = new StorageBackupImpl(storage, delegate, clock, config, executor);
+    clock.advance(INTERVAL);
+    triggerSnapshot(snapshot);
+    String full = storageBackup.createBackupName();
+    clock.advance(INTERVAL);
+    triggerSnapshot(snapshot);
+    assertBackupCount(2);
+
+    assertTrue(new File(config.getDir(), full).delete());
+    clock.advance(INTERVAL);
+    triggerSnapshot(snapshot);
+    // The increment of the deleted backup is deleted, and the new backup is a full backup.
+    assertEquals(
+        ImmutableSet.of(storageBackup.createBackupName()),
+        ImmutableSet.copyOf(config.getDir().list()));
+    assertEquals(1, storageBackup.getIncrementalSuccesses().get());
+  }
+
   @Test
   public void testInterval() {
     // Ensures that a long initial interval does not result in shortened subsequent intervals.
@@ -180,6 +235,12 @@ public class StorageBackupTest extends EasyMockTest {
     assertEquals(count, config.getDir().list().length);
   }
 
+  private Snapshot makeIndexedSnapshot() {
+    // Indexed backups index tasks by ID, so tasks must be assigned.
+    return makeSnapshot().setTasks(
+        ImmutableSet.of(TaskTestUtil.makeTask("task", TaskTestUtil.JOB).newBuilder()));
+  }
+
   private Snapshot makeSnapshot() {
     Snapshot snapshot = new Snapshot();
     snapshot.setTimestamp(clock.nowMillis());
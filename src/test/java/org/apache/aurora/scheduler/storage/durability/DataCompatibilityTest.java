@@ -45,6 +45,8 @@ import com.google.inject.Injector;
 
 import org.apache.aurora.common.inject.Bindings;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.common.util.testing.FakeClock;
 import org.apache.aurora.gen.Resource;
 import org.apache.aurora.gen.ResourceAggregate;
 import org.apache.aurora.gen.storage.Op;
@@ -91,7 +93,7 @@ public class DataCompatibilityTest {
 
   private NonVolatileStorage createStorage(Persistence persistence) {
     Injector injector = Guice.createInjector(
-        new DurableStorageModule(),
+        new DurableStorageModule(new DurableStorageModule.Options()),
         new MemStorageModule(Bindings.annotatedKeyFactory(Volatile.class)),
         new LifecycleModule(),
         new TierModule(new TierConfig(
@@ -101,6 +103,7 @@ public class DataCompatibilityTest {
           @Override
           protected void configure() {
             bind(StatsProvider.class).toInstance(new FakeStatsProvider());
+            bind(Clock.class).toInstance(new FakeClock());
             bind(EventSink.class).toInstance(event -> { });
             bind(Persistence.class).toInstance(persistence);
           }
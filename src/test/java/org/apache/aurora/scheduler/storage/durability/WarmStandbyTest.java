@@ -0,0 +1,209 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.durability;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import org.apache.aurora.common.application.ShutdownRegistry;
+import org.apache.aurora.common.application.ShutdownRegistry.ShutdownRegistryImpl;
+import org.apache.aurora.common.inject.Bindings;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.testing.TearDownTestCase;
+import org.apache.aurora.common.util.BuildInfo;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.common.util.testing.FakeBuildInfo;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.scheduler.TierModule;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.events.EventSink;
+import org.apache.aurora.scheduler.log.Log;
+import org.apache.aurora.scheduler.storage.SnapshotStore;
+import org.apache.aurora.scheduler.storage.Snapshotter;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.Storage.NonVolatileStorage;
+import org.apache.aurora.scheduler.storage.Storage.Volatile;
+import org.apache.aurora.scheduler.storage.log.FakeLog;
+import org.apache.aurora.scheduler.storage.log.LogPersistenceModule;
+import org.apache.aurora.scheduler.storage.log.SnapshotModule;
+import org.apache.aurora.scheduler.storage.log.SnapshotterImpl;
+import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.aurora.scheduler.storage.durability.WarmStandby.RECOVERED_EDITS;
+import static org.apache.aurora.scheduler.storage.durability.WarmStandby.REPLAYED_EDITS;
+import static org.apache.aurora.scheduler.storage.durability.WarmStandby.REPLAY_LAG;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Fails over between schedulers sharing an in-memory log, each with its own injector and storage.
+ */
+public class WarmStandbyTest extends TearDownTestCase {
+  private static final Logger LOG = LoggerFactory.getLogger(WarmStandbyTest.class);
+
+  private static final int TASKS = 2000;
+  private static final int TAIL_TASKS = 10;
+
+  private FakeLog log;
+
+  @Before
+  public void setUp() {
+    log = new FakeLog();
+  }
+
+  private final class Scheduler {
+    private final NonVolatileStorage storage;
+    private final SnapshotStore snapshotStore;
+    private final FakeStatsProvider stats = new FakeStatsProvider();
+
+    Scheduler(boolean warmStandby) {
+      DurableStorageModule.Options options = new DurableStorageModule.Options();
+      options.enableWarmStandby = warmStandby;
+      options.warmStandbyPollInterval = new TimeAmount(10, Time.MILLISECONDS);
+
+      ShutdownRegistryImpl shutdownRegistry = new ShutdownRegistryImpl();
+      Injector injector = Guice.createInjector(
+          new MemStorageModule(Bindings.annotatedKeyFactory(Volatile.class)),
+          new DurableStorageModule(options),
+          new LogPersistenceModule(new LogPersistenceModule.Options()),
+          new SnapshotModule(new SnapshotModule.Options()),
+          new TierModule(new TierModule.Options()),
+          new AbstractModule() {
+            @Override
+            protected void configure() {
+              bind(Clock.class).toInstance(new FakeClock());
+              bind(BuildInfo.class).toInstance(FakeBuildInfo.generateBuildInfo());
+              bind(EventSink.class).toInstance(e -> { });
+              bind(ShutdownRegistry.class).toInstance(shutdownRegistry);
+              bind(StatsProvider.class).toInstance(stats);
+              bind(Log.class).toInstance(log);
+              bind(Snapshotter.class).to(SnapshotterImpl.class);
+            }
+          });
+      storage = injector.getInstance(NonVolatileStorage.class);
+      snapshotStore = injector.getInstance(SnapshotStore.class);
+      addTearDown(() -> {
+        storage.stop();
+        shutdownRegistry.execute();
+      });
+      storage.prepare();
+    }
+
+    long lead() {
+      long start = System.nanoTime();
+      storage.start(stores -> { });
+      return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    void saveTasks(int from, int to) {
+      // Each write is persisted as a separate log entry holding a single edit.
+      for (int i = from; i < to; i++) {
+        String id = "task-" + i;
+        storage.write((NoResult.Quiet) stores -> stores.getUnsafeTaskStore()
+            .saveTasks(ImmutableSet.of(TaskTestUtil.makeTask(id, TaskTestUtil.JOB))));
+      }
+    }
+
+    Set<String> taskIds() {
+      return storage.read(stores -> stores.getTaskStore().fetchTasks(Query.unscoped()).stream()
+          .map(Tasks::id)
+          .collect(Collectors.toSet()));
+    }
+
+    long stat(String name) {
+      return stats.getLongValue(name);
+    }
+  }
+
+  private static Set<String> expectedTaskIds(int count) {
+    return IntStream.range(0, count).mapToObj(i -> "task-" + i).collect(Collectors.toSet());
+  }
+
+  private static void awaitReplayed(Scheduler standby, long edits) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+    while (standby.stat(REPLAYED_EDITS) < edits) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("Standby replayed " + standby.stat(REPLAYED_EDITS) + " of " + edits + " edits");
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  public void testFailoverToWarmStandby() throws Exception {
+    Scheduler leader = new Scheduler(false);
+    leader.lead();
+    Scheduler standby = new Scheduler(true);
+
+    leader.saveTasks(0, TASKS);
+    awaitReplayed(standby, TASKS);
+    assertTrue(standby.stats.getAllValues().containsKey(REPLAY_LAG));
+
+    leader.saveTasks(TASKS, TASKS + TAIL_TASKS);
+    leader.storage.stop();
+
+    long failoverMs = standby.lead();
+    LOG.info("Warm standby failed over in " + failoverMs + " ms");
+
+    assertEquals(expectedTaskIds(TASKS + TAIL_TASKS), standby.taskIds());
+    // Edits not replayed before the election are recovered on start, and no edit is applied twice.
+    assertTrue(standby.stat(RECOVERED_EDITS) <= TAIL_TASKS);
+    assertEquals(TASKS + TAIL_TASKS, standby.stat(REPLAYED_EDITS) + standby.stat(RECOVERED_EDITS));
+    assertEquals(0L, standby.stat(REPLAY_LAG));
+
+    // The new leader persists as usual.
+    standby.saveTasks(TASKS + TAIL_TASKS, TASKS + TAIL_TASKS + 1);
+    Scheduler cold = new Scheduler(false);
+    long coldFailoverMs = cold.lead();
+    LOG.info("Cold standby failed over in " + coldFailoverMs + " ms");
+    assertEquals(expectedTaskIds(TASKS + TAIL_TASKS + 1), cold.taskIds());
+    assertEquals(TASKS + TAIL_TASKS + 1, cold.stat(RECOVERED_EDITS));
+  }
+
+  @Test
+  public void testStandbyFollowsSnapshots() throws Exception {
+    Scheduler leader = new Scheduler(false);
+    leader.lead();
+    Scheduler standby = new Scheduler(true);
+
+    leader.saveTasks(0, TASKS);
+    awaitReplayed(standby, TASKS);
+
+    // The snapshot truncates the log, and replaces storage contents on the standby.
+    leader.snapshotStore.snapshot();
+    leader.saveTasks(TASKS, TASKS + TAIL_TASKS);
+    awaitReplayed(standby, TASKS + TAIL_TASKS);
+    leader.storage.stop();
+
+    standby.lead();
+    assertEquals(expectedTaskIds(TASKS + TAIL_TASKS), standby.taskIds());
+  }
+}
@@ -15,8 +15,11 @@ package org.apache.aurora.scheduler.storage.log;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Optional;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 
@@ -41,28 +44,67 @@ public class FakeLog implements Log {
   private class FakeStream implements Stream {
     @Override
     public Position append(byte[] contents) throws StreamAccessException {
-      long position = data.isEmpty() ? 1 : data.lastKey() + 1;
-      data.put(position, contents);
-      return new LongPosition(position);
+      synchronized (FakeLog.this) {
+        long position = data.isEmpty() ? 1 : data.lastKey() + 1;
+        data.put(position, contents);
+        return new LongPosition(position);
+      }
     }
 
     @Override
     public Iterator<Entry> readAll() throws StreamAccessException {
-      return Iterators.transform(data.values().iterator(), e -> new Entry() {
-        @Override
-        public byte[] contents() {
-          return e;
+      synchronized (FakeLog.this) {
+        return Iterators.transform(
+            ImmutableList.copyOf(data.values()).iterator(),
+            e -> new Entry() {
+              @Override
+              public byte[] contents() {
+                return e;
+              }
+            });
+      }
+    }
+
+    @Override
+    public Iterator<PositionedEntry> readAfter(Optional<Position> position, boolean coordinated) {
+      synchronized (FakeLog.this) {
+        NavigableMap<Long, byte[]> entries = data;
+        if (position.isPresent()) {
+          long after = toLong(position.get());
+          if (!data.isEmpty() && after < data.firstKey() - 1) {
+            throw new InvalidPositionException("Entries after " + after + " were truncated");
+          }
+          entries = data.tailMap(after, false);
         }
-      });
+        return Iterators.transform(
+            ImmutableList.copyOf(entries.entrySet()).iterator(),
+            (Map.Entry<Long, byte[]> e) -> new PositionedEntry() {
+              @Override
+              public byte[] contents() {
+                return e.getValue();
+              }
+
+              @Override
+              public Position position() {
+                return new LongPosition(e.getKey());
+              }
+            });
+      }
     }
 
     @Override
     public void truncateBefore(Position position) {
+      synchronized (FakeLog.this) {
+        data.headMap(toLong(position)).clear();
+      }
+    }
+
+    private long toLong(Position position) {
       if (!(position instanceof LongPosition)) {
         throw new IllegalArgumentException("Wrong position type");
       }
 
-      data.headMap(((LongPosition) position).position).clear();
+      return ((LongPosition) position).position;
     }
   }
 }
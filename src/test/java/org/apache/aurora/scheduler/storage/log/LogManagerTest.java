@@ -17,6 +17,7 @@ import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -83,7 +84,8 @@ public class LogManagerTest extends EasyMockTest {
         stream,
         new EntrySerializer.EntrySerializerImpl(maxEntrySize, Hashing.md5()),
         Hashing.md5(),
-        new SnapshotDeduplicatorImpl());
+        new SnapshotDeduplicatorImpl(),
+        1);
   }
 
   @Test
@@ -284,6 +286,80 @@ public class LogManagerTest extends EasyMockTest {
         ImmutableList.copyOf(streamManager.readFromBeginning()));
   }
 
+  @Test
+  public void testStreamManagerReadAfterIncompleteFrame() throws Exception {
+    LogEntry transaction1 = createLogEntry(
+        Op.removeJob(new RemoveJob(JobKeys.from("r1", "env", "name").newBuilder())));
+    LogEntry transaction2 = createLogEntry(
+        Op.removeJob(new RemoveJob(JobKeys.from("r2", "env", "name").newBuilder())));
+    Message message = frame(transaction2);
+
+    control.replay();
+
+    Stream fakeStream = new FakeLog().open();
+    StreamManager streamManager = new StreamManagerImpl(
+        fakeStream,
+        new EntrySerializer.EntrySerializerImpl(message.chunkSize, Hashing.md5()),
+        Hashing.md5(),
+        new SnapshotDeduplicatorImpl(),
+        1);
+    fakeStream.append(encode(transaction1));
+    fakeStream.append(encode(message.header));
+    fakeStream.append(encode(message.chunks.get(0)));
+
+    // The framed entry is not read until all of its chunks have been appended.
+    StreamManager.Tail tail = streamManager.readAfter(Optional.empty(), false);
+    assertEquals(Optional.empty(), tail.position());
+    assertEquals(ImmutableList.of(transaction1), ImmutableList.copyOf(tail));
+    Optional<Position> position = tail.position();
+
+    for (LogEntry chunk : message.chunks.subList(1, message.chunks.size())) {
+      fakeStream.append(encode(chunk));
+    }
+    tail = streamManager.readAfter(position, false);
+    assertEquals(ImmutableList.of(transaction2), ImmutableList.copyOf(tail));
+    position = tail.position();
+
+    tail = streamManager.readAfter(position, false);
+    assertEquals(ImmutableList.of(), ImmutableList.copyOf(tail));
+    assertEquals(position, tail.position());
+  }
+
+  @Test
+  public void testStreamManagerReadFromBeginningInParallel() throws Exception {
+    Snapshot snapshot = createSnapshot();
+    List<LogEntry> transactions = Lists.newArrayList();
+    for (int i = 0; i < 100; i++) {
+      transactions.add(createLogEntry(
+          Op.removeJob(new RemoveJob(JobKeys.from("r" + i, "env", "name").newBuilder()))));
+    }
+    Message message = frame(transactions.get(0));
+
+    control.replay();
+
+    Stream fakeStream = new FakeLog().open();
+    StreamManager streamManager = new StreamManagerImpl(
+        fakeStream,
+        new EntrySerializer.EntrySerializerImpl(message.chunkSize, Hashing.md5()),
+        Hashing.md5(),
+        new SnapshotDeduplicatorImpl(),
+        4);
+    streamManager.snapshot(snapshot);
+    // Should be read and skipped.
+    fakeStream.append(encode(message.header));
+    fakeStream.append(encode(message.chunks.get(0)));
+    for (LogEntry transaction : transactions) {
+      streamManager.commit(transaction.getTransaction().getOps());
+    }
+
+    assertEquals(
+        ImmutableList.<LogEntry>builder()
+            .add(LogEntry.snapshot(snapshot))
+            .addAll(transactions)
+            .build(),
+        ImmutableList.copyOf(streamManager.readFromBeginning()));
+  }
+
   @Test
   public void testWriteAndReadDeflatedEntry() throws Exception {
     Snapshot snapshot = createSnapshot();
@@ -306,7 +382,8 @@ public class LogManagerTest extends EasyMockTest {
         stream,
         new EntrySerializer.EntrySerializerImpl(NO_FRAMES_EVER_SIZE, md5),
         md5,
-        new SnapshotDeduplicatorImpl());
+        new SnapshotDeduplicatorImpl(),
+        1);
     streamManager.snapshot(snapshot);
     assertEquals(
         ImmutableList.of(snapshotLogEntry),
@@ -13,11 +13,14 @@
  */
 package org.apache.aurora.scheduler.storage.log;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -40,7 +43,10 @@ import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.log.Log;
 import org.apache.aurora.scheduler.log.Log.Entry;
+import org.apache.aurora.scheduler.log.Log.Position;
+import org.apache.aurora.scheduler.log.Log.PositionedEntry;
 import org.apache.aurora.scheduler.log.Log.Stream;
+import org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import org.apache.aurora.scheduler.storage.Snapshotter;
 import org.apache.aurora.scheduler.storage.Storage.Volatile;
 import org.apache.aurora.scheduler.storage.durability.Persistence;
@@ -128,6 +134,87 @@ public class LogPersistenceTest extends EasyMockTest {
         persistence.recover().collect(Collectors.toList()));
   }
 
+  private static Op saveTask(String id) {
+    return Op.saveTasks(new SaveTasks().setTasks(ImmutableSet.of(
+        TaskTestUtil.makeTask(id, TaskTestUtil.JOB).newBuilder())));
+  }
+
+  private static Iterator<PositionedEntry> transactions(Position position, Op... ops) {
+    LogEntry entry = LogEntry.transaction(new Transaction().setOps(ImmutableList.copyOf(ops)));
+    return Iterators.singletonIterator(new PositionedEntry() {
+      @Override
+      public byte[] contents() {
+        return ThriftBinaryCodec.encodeNonNull(entry);
+      }
+
+      @Override
+      public Position position() {
+        return position;
+      }
+    });
+  }
+
+  @Test
+  public void testTailThenRecover() throws Exception {
+    Position position = createMock(Position.class);
+    Op saveA = saveTask("a");
+    Op saveB = saveTask("b");
+    expect(mockLog.open()).andReturn(mockStream);
+    expect(mockStream.readAfter(Optional.empty(), false)).andReturn(transactions(position, saveA));
+    expect(mockStream.readAfter(Optional.of(position), true))
+        .andReturn(transactions(createMock(Position.class), saveB));
+
+    control.replay();
+
+    persistence.prepare();
+    assertEquals(ImmutableList.of(Edit.op(saveA)), persistence.tail().collect(Collectors.toList()));
+    // Only the entries appended since the tail are recovered.
+    assertEquals(
+        ImmutableList.of(Edit.op(saveB)),
+        persistence.recover().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testTailNotAppliedRecoversFully() throws Exception {
+    Op saveA = saveTask("a");
+    expect(mockLog.open()).andReturn(mockStream);
+    expect(mockStream.readAfter(Optional.empty(), false))
+        .andReturn(transactions(createMock(Position.class), saveA));
+    List<Entry> entries = ImmutableList.of(
+        logEntry(LogEntry.transaction(new Transaction().setOps(ImmutableList.of(saveA)))));
+    expect(mockStream.readAll()).andReturn(entries.iterator());
+
+    control.replay();
+
+    persistence.prepare();
+    // The tailed edits are never consumed, so storage may hold some of them.
+    persistence.tail();
+    assertEquals(
+        ImmutableList.of(Edit.deleteAll(), Edit.op(saveA)),
+        persistence.recover().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testTailTruncated() throws Exception {
+    Position position = createMock(Position.class);
+    Op saveA = saveTask("a");
+    Op saveB = saveTask("b");
+    expect(mockLog.open()).andReturn(mockStream);
+    expect(mockStream.readAfter(Optional.empty(), false)).andReturn(transactions(position, saveA));
+    expect(mockStream.readAfter(Optional.of(position), false))
+        .andThrow(new InvalidPositionException("truncated"));
+    expect(mockStream.readAfter(Optional.empty(), false))
+        .andReturn(transactions(createMock(Position.class), saveB));
+
+    control.replay();
+
+    persistence.prepare();
+    assertEquals(ImmutableList.of(Edit.op(saveA)), persistence.tail().collect(Collectors.toList()));
+    assertEquals(
+        ImmutableList.of(Edit.deleteAll(), Edit.op(saveB)),
+        persistence.tail().collect(Collectors.toList()));
+  }
+
   private static Entry logEntry(LogEntry entry) {
     return () -> ThriftBinaryCodec.encodeNonNull(entry);
   }
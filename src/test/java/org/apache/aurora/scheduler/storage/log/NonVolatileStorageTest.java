@@ -77,7 +77,7 @@ public class NonVolatileStorageTest extends TearDownTestCase {
     ShutdownRegistryImpl shutdownRegistry = new ShutdownRegistryImpl();
     Injector injector = Guice.createInjector(
         new MemStorageModule(Bindings.annotatedKeyFactory(Volatile.class)),
-        new DurableStorageModule(),
+        new DurableStorageModule(new DurableStorageModule.Options()),
         new LogPersistenceModule(options),
         new SnapshotModule(new SnapshotModule.Options()),
         new TierModule(new TierModule.Options()),
@@ -23,8 +23,10 @@ import com.google.common.collect.ImmutableSet;
 import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
 import org.apache.aurora.gen.AssignedTask;
 import org.apache.aurora.gen.ExecutorConfig;
+import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.gen.TaskEvent;
 import org.apache.aurora.gen.storage.DeduplicatedScheduledTask;
 import org.apache.aurora.gen.storage.DeduplicatedSnapshot;
 import org.apache.aurora.gen.storage.SchedulerMetadata;
@@ -33,6 +35,7 @@ import org.apache.aurora.scheduler.storage.log.SnapshotDeduplicator.SnapshotDedu
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 
 public class SnapshotDeduplicatorImplTest {
@@ -120,6 +123,28 @@ public class SnapshotDeduplicatorImplTest {
     snapshotDeduplicator.reduplicate(corrupt);
   }
 
+  @Test
+  public void testCompactTaskEventsRoundTrip() throws Exception {
+    SnapshotDeduplicator compacting = new SnapshotDeduplicatorImpl(true);
+    Snapshot snapshot = makeSnapshot();
+    for (ScheduledTask task : snapshot.getTasks()) {
+      task.setTaskEvents(ImmutableList.of(
+          new TaskEvent(100L, ScheduleStatus.PENDING).setScheduler("host"),
+          new TaskEvent(200L, ScheduleStatus.ASSIGNED).setScheduler("host"),
+          new TaskEvent(300L, ScheduleStatus.FAILED).setMessage("failed").setScheduler("host")));
+    }
+
+    DeduplicatedSnapshot deduplicated = compacting.deduplicate(snapshot);
+    assertEquals(ImmutableList.of("host", "failed"), deduplicated.getTaskEventStrings());
+    for (DeduplicatedScheduledTask task : deduplicated.getPartialTasks()) {
+      assertFalse(task.getPartialScheduledTask().isSetTaskEvents());
+    }
+
+    assertEquals(snapshot, compacting.reduplicate(deduplicated));
+    // Snapshots with compact events are readable regardless of whether compaction is enabled.
+    assertEquals(snapshot, snapshotDeduplicator.reduplicate(deduplicated));
+  }
+
   @Test
   public void testEmptyRoundTrip() throws Exception {
     Snapshot snapshot = new Snapshot();
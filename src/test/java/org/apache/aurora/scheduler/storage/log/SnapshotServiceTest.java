@@ -33,6 +33,8 @@ import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.common.util.testing.FakeClock;
 import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.scheduler.SchedulerLifecycle.SchedulerActive;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
@@ -87,7 +89,7 @@ public class SnapshotServiceTest extends EasyMockTest {
         new SchedulerServicesModule(),
         new LogPersistenceModule(new LogPersistenceModule.Options()),
         new SnapshotModule(options),
-        new DurableStorageModule(),
+        new DurableStorageModule(new DurableStorageModule.Options()),
         new MemStorageModule(Bindings.annotatedKeyFactory(Volatile.class)),
         new TierModule(TaskTestUtil.TIER_CONFIG),
         new AbstractModule() {
@@ -95,6 +97,7 @@ public class SnapshotServiceTest extends EasyMockTest {
           protected void configure() {
             bind(Key.get(Command.class, ShutdownStage.class)).to(ShutdownRegistryImpl.class);
             bind(StatsProvider.class).toInstance(new FakeStatsProvider());
+            bind(Clock.class).toInstance(new FakeClock());
             bind(EventSink.class).toInstance(e -> { });
             bind(Snapshotter.class).toInstance(mockSnapshotter);
             bind(Log.class).toInstance(mockLog);
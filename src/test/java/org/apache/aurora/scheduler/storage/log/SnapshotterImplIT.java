@@ -14,6 +14,9 @@
 package org.apache.aurora.scheduler.storage.log;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -110,6 +113,29 @@ public class SnapshotterImplIT {
     assertSnapshotSaveStats(1L);
   }
 
+  @Test
+  public void testLoadInParallel() {
+    setUpStore();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      storage.write((NoResult.Quiet) stores ->
+          Loader.load(
+              stores,
+              THRIFT_BACKFILL,
+              Stream.concat(
+                  Stream.of(Edit.deleteAll()),
+                  snapshotter.asStream(makeNonBackfilled()).map(Edit::op)),
+              executor));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(expected(), storage.write(snapshotter::from));
+    assertEquals(
+        ImmutableSet.of(JOB_KEY),
+        storage.read(stores -> stores.getTaskStore().getJobKeys()));
+  }
+
   private static final IScheduledTask TASK = TaskTestUtil.makeTask("id", JOB_KEY);
   private static final ITaskConfig TASK_CONFIG = TaskTestUtil.makeConfig(JOB_KEY);
   private static final IJobConfiguration CRON_JOB = IJobConfiguration.build(new JobConfiguration()
@@ -0,0 +1,83 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.log;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
+import org.apache.aurora.gen.TaskEvent;
+import org.apache.aurora.scheduler.storage.log.TaskEventCodec.StringTable;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaskEventCodecTest {
+
+  private static final List<TaskEvent> EVENTS = ImmutableList.of(
+      new TaskEvent(1500000000000L, PENDING).setScheduler("scheduler1"),
+      new TaskEvent(1500000000100L, ASSIGNED).setScheduler("scheduler1"),
+      // Clocks may move backwards across scheduler failovers.
+      new TaskEvent(1500000000050L, RUNNING).setMessage("started").setScheduler("scheduler2"),
+      new TaskEvent());
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    StringTable strings = new StringTable();
+    byte[] encoded = TaskEventCodec.encode(EVENTS, strings);
+
+    assertEquals(ImmutableList.of("scheduler1", "started", "scheduler2"), strings.getStrings());
+    assertEquals(EVENTS, TaskEventCodec.decode(encoded, strings.getStrings()));
+  }
+
+  @Test
+  public void testSharedStrings() throws Exception {
+    StringTable strings = new StringTable();
+    byte[] first = TaskEventCodec.encode(EVENTS.subList(0, 2), strings);
+    byte[] second = TaskEventCodec.encode(EVENTS.subList(2, 3), strings);
+
+    assertEquals(ImmutableList.of("scheduler1", "started", "scheduler2"), strings.getStrings());
+    assertEquals(EVENTS.subList(0, 2), TaskEventCodec.decode(first, strings.getStrings()));
+    assertEquals(EVENTS.subList(2, 3), TaskEventCodec.decode(second, strings.getStrings()));
+  }
+
+  @Test
+  public void testCompact() {
+    byte[] encoded = TaskEventCodec.encode(EVENTS.subList(1, 2), new StringTable());
+    // Count, status, timestamp and two string indices, versus tens of bytes in thrift.
+    assertTrue(encoded.length <= 12);
+  }
+
+  @Test(expected = CodingException.class)
+  public void testTruncated() throws Exception {
+    StringTable strings = new StringTable();
+    byte[] encoded = TaskEventCodec.encode(EVENTS, strings);
+    byte[] truncated = new byte[encoded.length - 1];
+    System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+
+    TaskEventCodec.decode(truncated, strings.getStrings());
+  }
+
+  @Test(expected = CodingException.class)
+  public void testMissingString() throws Exception {
+    byte[] encoded = TaskEventCodec.encode(EVENTS, new StringTable());
+
+    TaskEventCodec.decode(encoded, ImmutableList.of("scheduler1"));
+  }
+}
@@ -96,6 +96,25 @@ public class InternerTest {
     assertFalse(interner.isInterned(JOAN));
   }
 
+  @Test
+  public void testCounts() {
+    interner.addAssociation(JOAN, BOB);
+    interner.addAssociation(SAME_JOAN, BOB2);
+    interner.addAssociation(JOAN, BOB);
+    interner.addAssociation(STEVE, BOB);
+    assertEquals(2, interner.size());
+    assertEquals(3L, interner.getAssociationCount());
+
+    interner.removeAssociation(JOAN, BARRY);
+    interner.removeAssociation(STEVE, BOB);
+    assertEquals(1, interner.size());
+    assertEquals(2L, interner.getAssociationCount());
+
+    interner.clear();
+    assertEquals(0, interner.size());
+    assertEquals(0L, interner.getAssociationCount());
+  }
+
   private static class Internable {
     private final String value;
 
@@ -19,13 +19,22 @@ import com.google.inject.Module;
 import com.google.inject.util.Modules;
 
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.gen.JobConfiguration;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.storage.AbstractTaskStoreTest;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.TaskStore;
+import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.junit.Test;
 
+import static org.apache.aurora.scheduler.storage.mem.TaskConfigInterner.CONFIG_REFERENCES;
+import static org.apache.aurora.scheduler.storage.mem.TaskConfigInterner.UNIQUE_CONFIGS;
 import static org.junit.Assert.assertEquals;
 
 public class MemTaskStoreTest extends AbstractTaskStoreTest {
@@ -55,4 +64,62 @@ public class MemTaskStoreTest extends AbstractTaskStoreTest {
       assertEquals(0L, statsProvider.getLongValue(MemTaskStore.getIndexSizeStatName("job")));
     });
   }
+
+  @Test
+  public void testBulkLoad() {
+    storage.write((NoResult.Quiet) storeProvider -> {
+      TaskStore.Mutable taskStore = storeProvider.getUnsafeTaskStore();
+      IJobKey job = Tasks.getJob(TASK_B);
+      taskStore.bulkLoad(() -> {
+        taskStore.saveTasks(ImmutableSet.of(TASK_A, TASK_B));
+        taskStore.deleteTasks(Tasks.ids(TASK_A));
+
+        // Queries are answered while indices are not maintained.
+        assertEquals(0L, statsProvider.getLongValue(MemTaskStore.getIndexSizeStatName("job")));
+        assertEquals(
+            ImmutableSet.of(TASK_B),
+            ImmutableSet.copyOf(taskStore.fetchTasks(Query.jobScoped(job))));
+        assertEquals(ImmutableSet.of(job), taskStore.getJobKeys());
+      });
+
+      assertEquals(1L, statsProvider.getLongValue(MemTaskStore.getIndexSizeStatName("job")));
+      assertEquals(
+          ImmutableSet.of(TASK_B),
+          ImmutableSet.copyOf(taskStore.fetchTasks(Query.jobScoped(job))));
+      assertEquals(ImmutableSet.of(job), taskStore.getJobKeys());
+    });
+  }
+
+  private void assertInterned(long uniqueConfigs, long references) {
+    assertEquals(uniqueConfigs, statsProvider.getLongValue(UNIQUE_CONFIGS));
+    assertEquals(references, statsProvider.getLongValue(CONFIG_REFERENCES));
+  }
+
+  @Test
+  public void testConfigsInternedAcrossStores() {
+    IJobKey job = JobKeys.from("role", "env", "job");
+    IScheduledTask a = TaskTestUtil.makeTask("a", job);
+    IScheduledTask b = TaskTestUtil.makeTask("b", job);
+    IJobConfiguration cronJob = IJobConfiguration.build(new JobConfiguration()
+        .setKey(job.newBuilder())
+        .setTaskConfig(Tasks.getConfig(a).newBuilder()));
+
+    storage.write((NoResult.Quiet) storeProvider -> {
+      storeProvider.getUnsafeTaskStore().saveTasks(ImmutableSet.of(a, b));
+      storeProvider.getCronJobStore().saveAcceptedJob(cronJob);
+      assertInterned(1, 3);
+
+      // Saving a task again does not add a reference.
+      storeProvider.getUnsafeTaskStore().saveTasks(ImmutableSet.of(a));
+      storeProvider.getCronJobStore().saveAcceptedJob(cronJob);
+      assertInterned(1, 3);
+
+      storeProvider.getUnsafeTaskStore().deleteTasks(Tasks.ids(a));
+      assertInterned(1, 2);
+      storeProvider.getCronJobStore().deleteJobs();
+      assertInterned(1, 1);
+      storeProvider.getUnsafeTaskStore().deleteAllTasks();
+      assertInterned(0, 0);
+    });
+  }
 }
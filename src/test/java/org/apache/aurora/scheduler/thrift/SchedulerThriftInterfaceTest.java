@@ -607,12 +607,12 @@ public class SchedulerThriftInterfaceTest extends EasyMockTest {
 
   private void expectTransitionsToKilling(Optional<String> message) {
     expect(auditMessages.killedByRemoteUser(message)).andReturn(Optional.of("test"));
-    expect(stateManager.changeState(
+    expect(stateManager.changeStates(
         storageUtil.mutableStoreProvider,
-        TASK_ID,
+        ImmutableSet.of(TASK_ID),
         Optional.empty(),
         ScheduleStatus.KILLING,
-        Optional.of("test"))).andReturn(StateChangeResult.SUCCESS);
+        Optional.of("test"))).andReturn(ImmutableMap.of(TASK_ID, StateChangeResult.SUCCESS));
   }
 
   @Test
@@ -864,12 +864,12 @@ public class SchedulerThriftInterfaceTest extends EasyMockTest {
 
     expect(auditMessages.restartedByRemoteUser())
         .andReturn(Optional.of("test"));
-    expect(stateManager.changeState(
+    expect(stateManager.changeStates(
         storageUtil.mutableStoreProvider,
-        TASK_ID,
+        ImmutableSet.of(TASK_ID),
         Optional.empty(),
         ScheduleStatus.RESTARTING,
-        Optional.of("test"))).andReturn(StateChangeResult.SUCCESS);
+        Optional.of("test"))).andReturn(ImmutableMap.of(TASK_ID, StateChangeResult.SUCCESS));
 
     control.replay();
 
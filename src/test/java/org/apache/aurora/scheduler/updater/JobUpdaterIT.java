@@ -35,6 +35,7 @@ import com.google.common.primitives.Ints;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
 
 import org.apache.aurora.common.application.Lifecycle;
 import org.apache.aurora.common.base.Command;
@@ -80,6 +81,7 @@ import org.apache.aurora.scheduler.config.types.TimeAmount;
 import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.mesos.Driver;
+import org.apache.aurora.scheduler.quota.QuotaLedger;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator.RescheduleCalculatorImpl;
 import org.apache.aurora.scheduler.sla.SlaModule;
@@ -220,6 +222,10 @@ public class JobUpdaterIT extends EasyMockTest {
             bind(StatsProvider.class).toInstance(new FakeStatsProvider());
             bind(Clock.class).toInstance(clock);
             bind(StateManager.class).to(StateManagerImpl.class);
+            bind(Integer.class)
+                .annotatedWith(StateManagerImpl.MaxTaskEvents.class)
+                .toInstance(100);
+            bind(new TypeLiteral<Optional<QuotaLedger>>() { }).toInstance(Optional.empty());
             bind(Driver.class).toInstance(driver);
             bind(TaskIdGenerator.class).to(TaskIdGeneratorImpl.class);
             bind(RescheduleCalculator.class).to(RescheduleCalculatorImpl.class);